@@ -0,0 +1,101 @@
+package com.vasileiou.trade.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.vasileiou.trade.common.Constants;
+import com.vasileiou.trade.common.InstructionGenerator;
+import com.vasileiou.trade.common.Utils;
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.InstructionStore;
+
+/**
+ * Generates reproducible benchmark inputs. The same seed, size, entity cardinality and date window always give
+ * the same instructions, so that the results of different runs are comparable
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public final class BenchmarkData {
+	
+	public static final long SEED = 0x5EEDL;
+	
+	// The first instruction date of the generated window
+	public static final int FIRST_EPOCH_DAY = Utils.toEpochDay(2018, 1, 1);
+	
+	private BenchmarkData() {
+	}
+	
+	/**
+	 * Generates the instructions as objects
+	 * 
+	 * @param size the number of instructions
+	 * @param entities the number of distinct entities
+	 * @param windowDays the number of days that the instruction and settlement dates span
+	 * @return a {@link List} of new {@link Instruction} objects
+	 */
+	public static List<Instruction> instructions(int size, int entities, int windowDays) {
+		
+		List<Instruction> instructions = new ArrayList<>(size);
+		generator(entities, windowDays).iterator(size).forEachRemaining(instructions::add);
+		
+		return instructions;
+		
+	}
+	
+	/**
+	 * Generates the same instructions as {@link #instructions(int, int, int)} into a columnar store, without
+	 * keeping the {@link Instruction} objects, so that the largest sizes fit into memory
+	 * 
+	 * @param size the number of instructions
+	 * @param entities the number of distinct entities
+	 * @param windowDays the number of days that the instruction and settlement dates span
+	 * @return the {@link InstructionStore} holding the instructions
+	 */
+	public static InstructionStore store(int size, int entities, int windowDays) {
+		
+		InstructionStore store = new InstructionStore(size);
+		generator(entities, windowDays).iterator(size).forEachRemaining(store::add);
+		
+		return store;
+		
+	}
+	
+	/**
+	 * Gives the generator of the benchmark inputs
+	 * 
+	 * @param entities the number of distinct entities
+	 * @param windowDays the number of days that the instruction and settlement dates span
+	 * @return the seeded {@link InstructionGenerator}
+	 */
+	public static InstructionGenerator generator(int entities, int windowDays) {
+		return new InstructionGenerator(SEED, entities, FIRST_EPOCH_DAY, windowDays);
+	}
+	
+	/**
+	 * Gives the input dates of the window
+	 * 
+	 * @param windowDays the number of days of the window
+	 * @return the formatted dates, one per day of the window
+	 */
+	public static String[] dates(int windowDays) {
+		
+		String[] dates = new String[windowDays];
+		for (int day = 0; day < windowDays; day++) {
+			dates[day] = Utils.formatEpochDay(FIRST_EPOCH_DAY + day);
+		}
+		
+		return dates;
+		
+	}
+	
+	/**
+	 * Gives the currencies used by the generated instructions
+	 * 
+	 * @return a copy of the currencies
+	 */
+	public static String[] currencies() {
+		return Constants.GENERATOR_DEFAULT_CURRENCIES.clone();
+	}
+	
+}
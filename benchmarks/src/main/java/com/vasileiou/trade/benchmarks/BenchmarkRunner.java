@@ -0,0 +1,26 @@
+package com.vasileiou.trade.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The entry point of the benchmarks jar. It accepts the usual JMH command line options and always adds the GC
+ * profiler, so that the allocation rate is reported next to the throughput
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class BenchmarkRunner {
+	
+	public static void main(String[] args) throws Exception {
+		
+		new Runner(new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+		
+	}
+
+}
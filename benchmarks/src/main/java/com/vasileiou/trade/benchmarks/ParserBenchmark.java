@@ -0,0 +1,120 @@
+package com.vasileiou.trade.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vasileiou.trade.controllers.Parser;
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.InstructionStore;
+import com.vasileiou.trade.models.ValidatedData;
+
+/**
+ * Measures the parsing of whole inputs, where one operation parses all the instructions of the input. The object
+ * based inputs are limited by the heap, so the largest sizes should be run against the columnar store only, e.g.
+ * with "-p size=100000000 ParserBenchmark.parseStore"
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class ParserBenchmark {
+	
+	@State(Scope.Benchmark)
+	public static class ListInput {
+		
+		@Param({ "1000", "100000", "1000000" })
+		int size;
+		
+		@Param({ "10", "1000", "100000" })
+		int entities;
+		
+		@Param({ "30", "365" })
+		int windowDays;
+		
+		List<Instruction> instructions;
+		
+		@Setup(Level.Trial)
+		public void setUp() {
+			instructions = BenchmarkData.instructions(size, entities, windowDays);
+		}
+		
+	}
+	
+	@State(Scope.Benchmark)
+	public static class StoreInput {
+		
+		@Param({ "1000", "100000", "10000000" })
+		int size;
+		
+		@Param({ "10", "1000", "100000" })
+		int entities;
+		
+		@Param({ "30", "365" })
+		int windowDays;
+		
+		InstructionStore store;
+		int[] inputSettlementDays;
+		
+		@Setup(Level.Trial)
+		public void setUp() {
+			
+			store = BenchmarkData.store(size, entities, windowDays);
+			inputSettlementDays = new int[store.size()];
+			for (int row = 0; row < store.size(); row++) {
+				inputSettlementDays[row] = store.getSettlementDay(row);
+			}
+			
+		}
+		
+		// Parsing writes back the corrected settlement days, so every invocation has to start from the input ones,
+		// while the rest of the generated columns are written again anyway
+		@Setup(Level.Invocation)
+		public void restoreSettlementDays() {
+			
+			for (int row = 0; row < inputSettlementDays.length; row++) {
+				store.setSettlementDay(row, inputSettlementDays[row]);
+				store.setInitialSettlementDay(row, InstructionStore.MISSING_DAY);
+			}
+			
+		}
+		
+	}
+	
+	@Benchmark
+	public ValidatedData parseInstructions(ListInput input) {
+		return Parser.parseInstructions(input.instructions);
+	}
+	
+	@Benchmark
+	public ValidatedData parseInstructionsInParallel(ListInput input) {
+		return Parser.parseInstructions(input.instructions, Runtime.getRuntime().availableProcessors());
+	}
+	
+	@Benchmark
+	public ValidatedData parseInstructionsStreaming(ListInput input) {
+		return Parser.parseInstructions(input.instructions.iterator(), false);
+	}
+	
+	@Benchmark
+	public ValidatedData parseStore(StoreInput input) {
+		return Parser.parseStore(input.store);
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.vasileiou.trade.benchmarks;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vasileiou.trade.controllers.Parser;
+import com.vasileiou.trade.controllers.ReportGeneratorImpl;
+import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.RankingMode;
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.ValidatedData;
+
+/**
+ * Measures the report generation from already parsed data, where one operation renders a whole report
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Benchmark)
+public class ReportGeneratorBenchmark {
+	
+	private static final int TOP_K = 10;
+	
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+	
+	@Param({ "10", "1000", "100000" })
+	int entities;
+	
+	@Param({ "30", "365" })
+	int windowDays;
+	
+	private final ReportGeneratorImpl reportGenerator = new ReportGeneratorImpl();
+	
+	private ValidatedData validatedData;
+	private SortedMap<Date, List<Instruction>> instructionsPerDate;
+	private HashMap<String, Double> outgoingEntitiesMax;
+	
+	@Setup
+	public void setUp() {
+		
+		validatedData = Parser.parseInstructions(BenchmarkData.instructions(size, entities, windowDays));
+		instructionsPerDate = validatedData.getInstructionsPerDate();
+		outgoingEntitiesMax = validatedData.getOutgoingEntitiesMax();
+		
+	}
+	
+	@Benchmark
+	public StringBuilder generateDailyReport() {
+		return reportGenerator.generateDailyReport(instructionsPerDate, BuyOrSell.BUY);
+	}
+	
+	@Benchmark
+	public StringBuilder generateEpochDailyReport() {
+		return reportGenerator.generateEpochDailyReport(validatedData.getInstructionsPerEpochDay(), BuyOrSell.BUY);
+	}
+	
+	@Benchmark
+	public StringBuilder generateDailyAmountsReport() {
+		return reportGenerator.generateDailyAmountsReport(validatedData.getAmountsPerEpochDay(), BuyOrSell.BUY);
+	}
+	
+	@Benchmark
+	public StringBuilder generateRanking() {
+		return reportGenerator.generateRanking(outgoingEntitiesMax, BuyOrSell.SELL);
+	}
+	
+	@Benchmark
+	public StringBuilder generateTopKRanking() {
+		return reportGenerator.generateRanking(outgoingEntitiesMax, BuyOrSell.SELL, TOP_K);
+	}
+	
+	@Benchmark
+	public StringBuilder generateStatisticsRanking() {
+		return reportGenerator.generateStatisticsRanking(validatedData.getOutgoingEntityStatistics(), BuyOrSell.SELL,
+				RankingMode.TOTAL, TOP_K);
+	}
+
+}
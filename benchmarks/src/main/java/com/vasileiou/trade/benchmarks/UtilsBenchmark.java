@@ -0,0 +1,101 @@
+package com.vasileiou.trade.benchmarks;
+
+import java.util.Date;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.vasileiou.trade.common.Utils;
+
+/**
+ * Measures the date conversions and corrections, where one operation handles a single date. Every invocation goes
+ * through a fixed batch of dates of the window, so that the branch predictor cannot learn a single date
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UtilsBenchmark {
+	
+	private static final int BATCH = 4096;
+	
+	@Param({ "30", "365", "3650" })
+	int windowDays;
+	
+	private String[] dates;
+	private int[] epochDays;
+	private Date[] javaDates;
+	private String[] currencies;
+	
+	@Setup
+	public void setUp() {
+		
+		SplittableRandom random = new SplittableRandom(BenchmarkData.SEED);
+		String[] windowDates = BenchmarkData.dates(windowDays);
+		String[] availableCurrencies = BenchmarkData.currencies();
+		
+		dates = new String[BATCH];
+		epochDays = new int[BATCH];
+		javaDates = new Date[BATCH];
+		currencies = new String[BATCH];
+		for (int index = 0; index < BATCH; index++) {
+			int day = random.nextInt(windowDays);
+			dates[index] = windowDates[day];
+			epochDays[index] = BenchmarkData.FIRST_EPOCH_DAY + day;
+			javaDates[index] = Utils.toDate(epochDays[index]);
+			currencies[index] = availableCurrencies[random.nextInt(availableCurrencies.length)];
+		}
+		
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void convertStringToDate(Blackhole blackhole) {
+		for (String date : dates) {
+			blackhole.consume(Utils.convertStringToDate(date));
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void parseEpochDay(Blackhole blackhole) {
+		for (String date : dates) {
+			blackhole.consume(Utils.parseEpochDay(date));
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void dateCorrection(Blackhole blackhole) {
+		for (int index = 0; index < BATCH; index++) {
+			blackhole.consume(Utils.dateCorrection(currencies[index], javaDates[index]));
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void dateCorrectionOfEpochDay(Blackhole blackhole) {
+		for (int index = 0; index < BATCH; index++) {
+			blackhole.consume(Utils.dateCorrection(currencies[index], epochDays[index]));
+		}
+	}
+
+}
@@ -1,15 +1,24 @@
 package com.vasileiou.trade;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Paths;
 import java.util.Calendar;
+import java.util.Iterator;
 import java.util.List;
 
 import com.vasileiou.trade.common.Constants;
 import com.vasileiou.trade.common.FetcherImpl;
+import com.vasileiou.trade.common.MappedFileFetcher;
 import com.vasileiou.trade.common.Printer;
+import com.vasileiou.trade.common.RollingWindowTotals;
 import com.vasileiou.trade.common.Utils;
+import com.vasileiou.trade.controllers.InstructionPipeline;
 import com.vasileiou.trade.controllers.ReportGeneratorImpl;
 import com.vasileiou.trade.controllers.Parser;
 import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.RankingMode;
 import com.vasileiou.trade.interfaces.Fetcher;
 import com.vasileiou.trade.interfaces.ReportGenerator;
 import com.vasileiou.trade.models.Instruction;
@@ -17,9 +26,9 @@ import com.vasileiou.trade.models.ValidatedData;
 
 /**
  * This this the entry point for Daily Trading Reports
- *
- * @author Panagiotis Vasileiou
  * 
+ * @author Panagiotis Vasileiou
+ *
  */
 public class TradeReporting 
 {
@@ -44,30 +53,69 @@ public class TradeReporting
 
     	int numberOfInstructions = 100;
     	int numberOfDiffEntities = 50;
-    	List<Instruction> instructions = fetcher.getRandomInstructions(numberOfInstructions, numberOfDiffEntities, 
-    			calendarStart, calendarEnd);
     	
-    	// Validate the data and extract all the needed information
-    	ValidatedData validatedData = Parser.parseInstructions(instructions);
+    	ValidatedData validatedData;
+    	if (args.length > 0 && Constants.PIPELINE_ARGUMENT.equals(args[0])) {
+    		// Fetch, validate and aggregate the data on their own threads connected by ring buffers, where an
+    		// instructions file is streamed chunk by chunk by the fetching thread while the rest are parsed
+    		Iterator<Instruction> instructions;
+    		try {
+    			instructions = args.length > 1
+    					? new MappedFileFetcher(Paths.get(args[1])).streamInstructionsFromClients()
+    					: fetcher.getRandomInstructions(numberOfInstructions, numberOfDiffEntities, calendarStart,
+    							calendarEnd).iterator();
+    		} catch (UncheckedIOException e) {
+    			Printer.print("Cannot read the instructions file: " + e.getCause());
+    			instructions = null;
+    		}
+    		validatedData = new InstructionPipeline(true).parse(instructions);
+    	} else {
+	    	List<Instruction> instructions = fetcher.getRandomInstructions(numberOfInstructions,
+	    			numberOfDiffEntities, calendarStart, calendarEnd);
+	
+	    	// Validate the data and extract all the needed information using all the available cores
+	    	int parallelism = Runtime.getRuntime().availableProcessors();
+	    	validatedData = Parser.parseInstructions(instructions, parallelism);
+    	}
     	
     	if (validatedData != null) {
-	    	// Run the daily reports
-	    	StringBuilder dailyOutgoingOutput = reportGenerator.generateDailyReport(validatedData.getInstructionsPerDate(), 
-	    			BuyOrSell.BUY);
-	    	Printer.print(dailyOutgoingOutput.toString());
+	    	// Write the reports incrementally to the console instead of building them in memory first
+	    	try (Writer console = Printer.openConsole()) {
 	    	
-	    	StringBuilder dailyIncomingOutput = reportGenerator.generateDailyReport(validatedData.getInstructionsPerDate(), 
-	    			BuyOrSell.SELL);
-	    	Printer.print(dailyIncomingOutput.toString());
+		    	// Run the daily reports
+		    	reportGenerator.writeEpochDailyReport(validatedData.getInstructionsPerEpochDay(), BuyOrSell.BUY,
+		    			console);
+		    	console.append('\n');
 	    	
-	    	// Run the ranking reports
-	    	StringBuilder outgoingRankingOuput = reportGenerator.generateRanking(validatedData.getOutgoingEntitiesMax(), 
-	    			BuyOrSell.BUY);
-	    	Printer.print(outgoingRankingOuput.toString());
+		    	reportGenerator.writeEpochDailyReport(validatedData.getInstructionsPerEpochDay(), BuyOrSell.SELL,
+		    			console);
+		    	console.append('\n');
 	    	
-	    	StringBuilder incomingRankingOuput = reportGenerator.generateRanking(validatedData.getIncomingEntitiesMax(), 
-	    			BuyOrSell.SELL);
-	    	Printer.print(incomingRankingOuput.toString());
+		    	// Run the ranking reports
+		    	reportGenerator.writeStatisticsRanking(validatedData.getOutgoingEntityStatistics(), BuyOrSell.BUY,
+		    			RankingMode.MAXIMUM, validatedData.getOutgoingEntityStatistics().size(), console);
+		    	console.append('\n');
+		
+		    	reportGenerator.writeStatisticsRanking(validatedData.getIncomingEntityStatistics(), BuyOrSell.SELL,
+		    			RankingMode.MAXIMUM, validatedData.getIncomingEntityStatistics().size(), console);
+		    	console.append('\n');
+		
+		    	// Run the report of the rejected instructions, collected while parsing
+		    	reportGenerator.writeRejectionReport(validatedData.getRejectionSummary(), console);
+		    	console.append('\n');
+		
+		    	// Run the moving totals reports of every window, kept while parsing as well
+		    	for (RollingWindowTotals rollingTotals : validatedData.getRollingTotalsPerWindow().values()) {
+		    		for (BuyOrSell buyOrSell : BuyOrSell.values()) {
+		    			reportGenerator.writeRollingReport(rollingTotals, buyOrSell, Constants.ROLLING_TOP_ENTITIES,
+		    					console);
+		    			console.append('\n');
+		    		}
+		    	}
+		
+	    	} catch (IOException e) {
+	    		Printer.print(e.getMessage());
+	    	}
 	    	
 	    	// Finalize the report
 	    	Utils.printReportsFooter();
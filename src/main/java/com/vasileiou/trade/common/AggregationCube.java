@@ -0,0 +1,702 @@
+package com.vasileiou.trade.common;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.CubeDimension;
+import com.vasileiou.trade.enums.Status;
+import com.vasileiou.trade.models.Instruction;
+
+/**
+ * The total, count and maximum amount of the valid instructions per settlement date, side, currency and entity,
+ * filled in the same pass as the rest of the aggregates, so that new slices of the data, such as the daily totals
+ * per currency or per entity, are given without another pass over the instructions. The cells are kept in an open
+ * addressing hash table with primitive columns, keyed by the four dimensions packed into a long, so only the
+ * existing combinations take memory. The amounts are scaled fixed-point longs of the default
+ * {@link FixedPointAmounts}, so the totals of every slice are exact whatever the order of the additions and merges.
+ * <p>
+ * The rollups of every subset of the dimensions are computed together on the first query after an addition, each
+ * one from the smallest already computed rollup having one more dimension, so that a query of any subset costs a
+ * single lookup. The keys hold dense identifiers of the cube itself, given to the entities and currencies in the
+ * order they are first added, so the identifiers of the {@link SymbolDictionary} objects may grow without bound. A
+ * cube is limited to 2^24 entities, 2^13 currencies and 2^24 days around the epoch, and an amount out of these limits
+ * is rejected with an {@link IllegalStateException} instead of being dropped. It is not thread safe
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class AggregationCube implements Consumer<Instruction>, Serializable {
+	
+	private static final long serialVersionUID = 2951736084217653198L;
+	
+	private static final int DEFAULT_CAPACITY = 256;
+	private static final long EMPTY_KEY = -1L;
+	private static final int ALL_DIMENSIONS = (1 << CubeDimension.values().length) - 1;
+	
+	// The bits of the key from the highest, so that the keys are sorted by date, side, currency and entity
+	private static final int DAY_SHIFT = 38;
+	private static final int SIDE_SHIFT = 37;
+	private static final int CURRENCY_SHIFT = 24;
+	private static final int DAY_OFFSET = 1 << 24;
+	private static final int MAX_CURRENCIES = 1 << 13;
+	private static final int MAX_ENTITIES = 1 << 24;
+	private static final long[] DIMENSION_BITS = { (2L * DAY_OFFSET - 1) << DAY_SHIFT, 1L << SIDE_SHIFT,
+			(long) (MAX_CURRENCIES - 1) << CURRENCY_SHIFT, MAX_ENTITIES - 1 };
+	
+	// Dictionaries are not serialized, so the symbols are written by name and encoded again when read
+	private transient SymbolDictionary entities;
+	private transient SymbolDictionary currencies;
+	private transient CubeIdentifiers entityIds;
+	private transient CubeIdentifiers currencyIds;
+	private transient Cuboid cells;
+	
+	// The rollups indexed by the bits of their dimensions, computed on demand
+	private transient Cuboid[] rollups;
+	
+	public AggregationCube() {
+		this(SymbolDictionary.getSharedEntities(), SymbolDictionary.getSharedCurrencies());
+	}
+	
+	/**
+	 * Creates an empty cube
+	 * 
+	 * @param entities the {@link SymbolDictionary} of the entity identifiers
+	 * @param currencies the {@link SymbolDictionary} of the currency identifiers
+	 */
+	public AggregationCube(SymbolDictionary entities, SymbolDictionary currencies) {
+		
+		this.entities = entities;
+		this.currencies = currencies;
+		this.entityIds = new CubeIdentifiers(MAX_ENTITIES);
+		this.currencyIds = new CubeIdentifiers(MAX_CURRENCIES);
+		this.cells = new Cuboid(DEFAULT_CAPACITY);
+		
+	}
+	
+	/**
+	 * Adds an already validated instruction. Non valid instructions are ignored
+	 * 
+	 * @param instruction the validated {@link Instruction}
+	 */
+	@Override
+	public void accept(Instruction instruction) {
+		
+		if (instruction.getStatus() == Status.VALID)
+			add(instruction.getSettlementEpochDay(), instruction.getBuyOrSell(), instruction.getCurrencyId(),
+					instruction.getEntityId(), instruction.getAmountOfTrade());
+		
+	}
+	
+	/**
+	 * Adds the amount of an instruction to its cell
+	 * 
+	 * @param settlementEpochDay the settlement epoch day of the amount
+	 * @param buyOrSell the {@link BuyOrSell} side of the amount
+	 * @param currencyId the identifier of the currency in the currencies dictionary of the cube
+	 * @param entityId the identifier of the entity in the entities dictionary of the cube
+	 * @param amount the amount of the instruction
+	 * @throws IllegalStateException if one of the dimensions is out of the limits of the cube
+	 */
+	public void add(int settlementEpochDay, BuyOrSell buyOrSell, int currencyId, int entityId, double amount) {
+		addScaled(settlementEpochDay, buyOrSell, currencyId, entityId, FixedPointAmounts.getDefault().toScaled(amount));
+	}
+	
+	/**
+	 * Adds the scaled fixed-point amount of an instruction to its cell
+	 * 
+	 * @param settlementEpochDay the settlement epoch day of the amount
+	 * @param buyOrSell the {@link BuyOrSell} side of the amount
+	 * @param currencyId the identifier of the currency in the currencies dictionary of the cube
+	 * @param entityId the identifier of the entity in the entities dictionary of the cube
+	 * @param scaledAmount the scaled amount of the instruction
+	 * @throws IllegalStateException if one of the dimensions is out of the limits of the cube
+	 * @throws ArithmeticException if the total of the cell overflows
+	 */
+	public void addScaled(int settlementEpochDay, BuyOrSell buyOrSell, int currencyId, int entityId,
+			long scaledAmount) {
+		addScaled(settlementEpochDay, buyOrSell, currencyId, entityId, scaledAmount, 1, scaledAmount);
+	}
+	
+	/**
+	 * Adds already aggregated scaled fixed-point amounts to a cell
+	 * 
+	 * @param settlementEpochDay the settlement epoch day of the cell
+	 * @param buyOrSell the {@link BuyOrSell} side of the cell
+	 * @param currencyId the identifier of the currency in the currencies dictionary of the cube
+	 * @param entityId the identifier of the entity in the entities dictionary of the cube
+	 * @param scaledTotal the scaled total amount
+	 * @param count the number of instructions
+	 * @param scaledMaximum the scaled maximum amount
+	 * @throws IllegalStateException if one of the dimensions is out of the limits of the cube
+	 * @throws ArithmeticException if the total of the cell overflows
+	 */
+	public void addScaled(int settlementEpochDay, BuyOrSell buyOrSell, int currencyId, int entityId,
+			long scaledTotal, long count, long scaledMaximum) {
+		
+		int cubeCurrencyId = currencyIds.encode(currencyId);
+		int cubeEntityId = entityIds.encode(entityId);
+		if (settlementEpochDay < -DAY_OFFSET || settlementEpochDay >= DAY_OFFSET
+				|| cubeCurrencyId == SymbolDictionary.MISSING_ID || cubeEntityId == SymbolDictionary.MISSING_ID)
+			throw new IllegalStateException("Cell out of the limits of the cube: day " + settlementEpochDay
+					+ ", currency " + currencyId + ", entity " + entityId);
+		
+		cells.add(keyOf(settlementEpochDay, buyOrSell.ordinal(), cubeCurrencyId, cubeEntityId), scaledTotal, count,
+				scaledMaximum);
+		rollups = null;
+		
+	}
+	
+	/**
+	 * Adds all the cells of another cube to this one
+	 * 
+	 * @param other the {@link AggregationCube} to be added
+	 * @return this {@link AggregationCube}
+	 */
+	public AggregationCube merge(AggregationCube other) {
+		
+		// Identifiers of other dictionaries have to be encoded again
+		boolean sameSymbols = other.entities == entities && other.currencies == currencies;
+		for (int slot = 0; slot < other.cells.keys.length; slot++) {
+			long key = other.cells.keys[slot];
+			if (key == EMPTY_KEY)
+				continue;
+			
+			int currencyId = other.currencyIds.decode(currencyOf(key));
+			int entityId = other.entityIds.decode(entityOf(key));
+			if (!sameSymbols) {
+				currencyId = currencies.encode(other.currencies.decode(currencyId));
+				entityId = entities.encode(other.entities.decode(entityId));
+			}
+			addScaled(dayOf(key), BuyOrSell.values()[sideOf(key)], currencyId, entityId, other.cells.totals[slot],
+					other.cells.counts[slot], other.cells.maxima[slot]);
+		}
+		
+		return this;
+		
+	}
+	
+	/**
+	 * Gives the total amount of a slice, where every missing dimension is rolled up
+	 * 
+	 * @param epochDay the settlement epoch day, or {@link Constants#MISSING_EPOCH_DAY} for all the dates
+	 * @param buyOrSell the {@link BuyOrSell} side, or null for both sides
+	 * @param currency the {@link String} currency, or null for all the currencies
+	 * @param entity the {@link String} entity, or null for all the entities
+	 * @return the total amount, or zero if there are no instructions in the slice
+	 */
+	public double getTotal(int epochDay, BuyOrSell buyOrSell, String currency, String entity) {
+		return FixedPointAmounts.getDefault().toAmount(getScaledTotal(epochDay, buyOrSell, currency, entity));
+	}
+	
+	/**
+	 * Gives the scaled total amount of a slice, where every missing dimension is rolled up
+	 * 
+	 * @param epochDay the settlement epoch day, or {@link Constants#MISSING_EPOCH_DAY} for all the dates
+	 * @param buyOrSell the {@link BuyOrSell} side, or null for both sides
+	 * @param currency the {@link String} currency, or null for all the currencies
+	 * @param entity the {@link String} entity, or null for all the entities
+	 * @return the scaled total amount, or zero if there are no instructions in the slice
+	 */
+	public long getScaledTotal(int epochDay, BuyOrSell buyOrSell, String currency, String entity) {
+		
+		Cuboid cuboid = rollupOf(maskOf(epochDay, buyOrSell, currency, entity));
+		int slot = cuboid.find(queryKey(epochDay, buyOrSell, currency, entity));
+		
+		return slot < 0 ? 0 : cuboid.totals[slot];
+		
+	}
+	
+	/**
+	 * Gives the number of instructions of a slice, where every missing dimension is rolled up
+	 * 
+	 * @param epochDay the settlement epoch day, or {@link Constants#MISSING_EPOCH_DAY} for all the dates
+	 * @param buyOrSell the {@link BuyOrSell} side, or null for both sides
+	 * @param currency the {@link String} currency, or null for all the currencies
+	 * @param entity the {@link String} entity, or null for all the entities
+	 * @return the number of instructions, or zero if there are no instructions in the slice
+	 */
+	public long getCount(int epochDay, BuyOrSell buyOrSell, String currency, String entity) {
+		
+		Cuboid cuboid = rollupOf(maskOf(epochDay, buyOrSell, currency, entity));
+		int slot = cuboid.find(queryKey(epochDay, buyOrSell, currency, entity));
+		
+		return slot < 0 ? 0 : cuboid.counts[slot];
+		
+	}
+	
+	/**
+	 * Gives the maximum amount of a slice, where every missing dimension is rolled up
+	 * 
+	 * @param epochDay the settlement epoch day, or {@link Constants#MISSING_EPOCH_DAY} for all the dates
+	 * @param buyOrSell the {@link BuyOrSell} side, or null for both sides
+	 * @param currency the {@link String} currency, or null for all the currencies
+	 * @param entity the {@link String} entity, or null for all the entities
+	 * @return the maximum amount, or NaN if there are no instructions in the slice
+	 */
+	public double getMaximum(int epochDay, BuyOrSell buyOrSell, String currency, String entity) {
+		
+		Cuboid cuboid = rollupOf(maskOf(epochDay, buyOrSell, currency, entity));
+		int slot = cuboid.find(queryKey(epochDay, buyOrSell, currency, entity));
+		
+		return slot < 0 ? Double.NaN : FixedPointAmounts.getDefault().toAmount(cuboid.maxima[slot]);
+		
+	}
+	
+	/**
+	 * Gives every cell of the rollup of some dimensions, sorted by date, side, currency and entity. A rolled up date
+	 * is given as {@link Constants#MISSING_EPOCH_DAY}
+	 * 
+	 * @param dimensions the {@link Set} of the {@link CubeDimension} values kept, while the rest are rolled up
+	 * @param consumer the {@link CellConsumer} of the cells, given null for the rolled up dimensions
+	 */
+	public void forEach(Set<CubeDimension> dimensions, CellConsumer consumer) {
+		
+		int mask = 0;
+		for (CubeDimension dimension : dimensions) {
+			mask |= 1 << dimension.ordinal();
+		}
+		boolean byCurrency = dimensions.contains(CubeDimension.CURRENCY);
+		boolean byEntity = dimensions.contains(CubeDimension.ENTITY);
+		
+		// The identifiers follow the order the symbols were first seen, so the keys are sorted by symbol ranks
+		Cuboid cuboid = rollupOf(mask);
+		int[][] currencyOrder = byCurrency ? symbolOrder(currencies, currencyIds) : null;
+		int[][] entityOrder = byEntity ? symbolOrder(entities, entityIds) : null;
+		long[] sortedKeys = cuboid.keys();
+		for (int index = 0; index < sortedKeys.length; index++) {
+			sortedKeys[index] = replaceSymbols(sortedKeys[index], currencyOrder, entityOrder, 0);
+		}
+		Arrays.sort(sortedKeys);
+		
+		for (long rankKey : sortedKeys) {
+			long key = replaceSymbols(rankKey, currencyOrder, entityOrder, 1);
+			int slot = cuboid.find(key);
+			consumer.accept(dimensions.contains(CubeDimension.DATE) ? dayOf(key) : Constants.MISSING_EPOCH_DAY,
+					dimensions.contains(CubeDimension.SIDE) ? BuyOrSell.values()[sideOf(key)] : null,
+					byCurrency ? currencies.decode(currencyIds.decode(currencyOf(key))) : null,
+					byEntity ? entities.decode(entityIds.decode(entityOf(key))) : null,
+					FixedPointAmounts.getDefault().toAmount(cuboid.totals[slot]), cuboid.counts[slot],
+					FixedPointAmounts.getDefault().toAmount(cuboid.maxima[slot]));
+		}
+		
+	}
+	
+	/**
+	 * Gives every cell of all the dimensions with its scaled fixed-point amounts, in no particular order
+	 * 
+	 * @param consumer the {@link ScaledCellConsumer} of the cells, given the identifiers of the dictionaries of the
+	 * cube
+	 */
+	public void forEachScaledCell(ScaledCellConsumer consumer) {
+		
+		for (int slot = 0; slot < cells.keys.length; slot++) {
+			long key = cells.keys[slot];
+			if (key != EMPTY_KEY)
+				consumer.accept(dayOf(key), BuyOrSell.values()[sideOf(key)], currencyIds.decode(currencyOf(key)),
+						entityIds.decode(entityOf(key)), cells.totals[slot], cells.counts[slot], cells.maxima[slot]);
+		}
+		
+	}
+	
+	public SymbolDictionary getEntities() {
+		return entities;
+	}
+	
+	public SymbolDictionary getCurrencies() {
+		return currencies;
+	}
+	
+	public boolean isEmpty() {
+		return cells.size == 0;
+	}
+	
+	/**
+	 * Gives the number of the cells of all the dimensions
+	 * 
+	 * @return the number of the distinct date, side, currency and entity combinations
+	 */
+	public int size() {
+		return cells.size;
+	}
+	
+	/**
+	 * Gives the rollup of some dimensions, computing all the rollups if an amount was added since the last time
+	 */
+	private Cuboid rollupOf(int mask) {
+		
+		if (rollups == null) {
+			Cuboid[] computed = new Cuboid[ALL_DIMENSIONS + 1];
+			computed[ALL_DIMENSIONS] = cells;
+			
+			// Every parent has one more bit, so it is greater than its children and computed before them
+			for (int child = ALL_DIMENSIONS - 1; child >= 0; child--) {
+				Cuboid parent = null;
+				for (int dimension = 0; dimension < DIMENSION_BITS.length; dimension++) {
+					Cuboid candidate = computed[child | 1 << dimension];
+					if ((child & 1 << dimension) == 0 && (parent == null || candidate.size < parent.size))
+						parent = candidate;
+				}
+				computed[child] = parent.rollup(keyMaskOf(child));
+			}
+			rollups = computed;
+		}
+		
+		return rollups[mask];
+		
+	}
+	
+	/**
+	 * Orders the symbols of the cube identifiers of a dictionary. The symbols are sorted themselves and then found
+	 * again, since they are unique, so that the identifiers are not boxed
+	 * 
+	 * @return the rank of every cube identifier followed by the cube identifier of every rank
+	 */
+	private static int[][] symbolOrder(SymbolDictionary dictionary, CubeIdentifiers cubeIds) {
+		
+		String[] symbols = new String[cubeIds.size()];
+		for (int identifier = 0; identifier < symbols.length; identifier++) {
+			symbols[identifier] = dictionary.decode(cubeIds.decode(identifier));
+		}
+		Arrays.sort(symbols);
+		
+		int[][] order = new int[2][symbols.length];
+		for (int rank = 0; rank < symbols.length; rank++) {
+			int identifier = cubeIds.find(dictionary.find(symbols[rank]));
+			order[0][identifier] = rank;
+			order[1][rank] = identifier;
+		}
+		
+		return order;
+		
+	}
+	
+	/**
+	 * Replaces the currency and the entity of a key with their ranks, or the ranks with the identifiers
+	 * 
+	 * @param direction zero to replace the identifiers with the ranks and one for the opposite
+	 */
+	private static long replaceSymbols(long key, int[][] currencyOrder, int[][] entityOrder, int direction) {
+		
+		long replaced = key;
+		if (currencyOrder != null)
+			replaced = replaced & ~DIMENSION_BITS[CubeDimension.CURRENCY.ordinal()]
+					| (long) currencyOrder[direction][currencyOf(key)] << CURRENCY_SHIFT;
+		if (entityOrder != null)
+			replaced = replaced & ~DIMENSION_BITS[CubeDimension.ENTITY.ordinal()]
+					| entityOrder[direction][entityOf(key)];
+		
+		return replaced;
+		
+	}
+	
+	private static int maskOf(int epochDay, BuyOrSell buyOrSell, String currency, String entity) {
+		
+		return (epochDay != Constants.MISSING_EPOCH_DAY ? 1 << CubeDimension.DATE.ordinal() : 0)
+				| (buyOrSell != null ? 1 << CubeDimension.SIDE.ordinal() : 0)
+				| (currency != null ? 1 << CubeDimension.CURRENCY.ordinal() : 0)
+				| (entity != null ? 1 << CubeDimension.ENTITY.ordinal() : 0);
+		
+	}
+	
+	private static long keyMaskOf(int mask) {
+		
+		long keyMask = 0;
+		for (int dimension = 0; dimension < DIMENSION_BITS.length; dimension++) {
+			if ((mask & 1 << dimension) != 0)
+				keyMask |= DIMENSION_BITS[dimension];
+		}
+		
+		return keyMask;
+		
+	}
+	
+	/**
+	 * Gives the key of a slice, with zero for every missing dimension
+	 * 
+	 * @return the key, or the empty key if a symbol is unknown, which is never found
+	 */
+	private long queryKey(int epochDay, BuyOrSell buyOrSell, String currency, String entity) {
+		
+		int currencyId = currency == null ? 0 : currencyIds.find(currencies.find(currency));
+		int entityId = entity == null ? 0 : entityIds.find(entities.find(entity));
+		if (currencyId == SymbolDictionary.MISSING_ID || entityId == SymbolDictionary.MISSING_ID)
+			return EMPTY_KEY;
+		
+		return keyOf(epochDay, buyOrSell == null ? 0 : buyOrSell.ordinal(), currencyId, entityId)
+				& keyMaskOf(maskOf(epochDay, buyOrSell, currency, entity));
+		
+	}
+	
+	private static long keyOf(int epochDay, int side, int currencyId, int entityId) {
+		return (long) (epochDay + DAY_OFFSET) << DAY_SHIFT | (long) side << SIDE_SHIFT
+				| (long) currencyId << CURRENCY_SHIFT | entityId;
+	}
+	
+	private static int dayOf(long key) {
+		return (int) (key >>> DAY_SHIFT) - DAY_OFFSET;
+	}
+	
+	private static int sideOf(long key) {
+		return (int) (key >>> SIDE_SHIFT) & 1;
+	}
+	
+	private static int currencyOf(long key) {
+		return (int) (key >>> CURRENCY_SHIFT) & (MAX_CURRENCIES - 1);
+	}
+	
+	private static int entityOf(long key) {
+		return (int) key & (MAX_ENTITIES - 1);
+	}
+	
+	private void writeObject(ObjectOutputStream output) throws IOException {
+		
+		output.defaultWriteObject();
+		output.writeInt(cells.size);
+		for (int slot = 0; slot < cells.keys.length; slot++) {
+			long key = cells.keys[slot];
+			if (key != EMPTY_KEY) {
+				output.writeInt(dayOf(key));
+				output.writeByte(sideOf(key));
+				output.writeObject(currencies.decode(currencyIds.decode(currencyOf(key))));
+				output.writeObject(entities.decode(entityIds.decode(entityOf(key))));
+				output.writeLong(cells.totals[slot]);
+				output.writeLong(cells.counts[slot]);
+				output.writeLong(cells.maxima[slot]);
+			}
+		}
+		
+	}
+	
+	private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+		
+		input.defaultReadObject();
+		int cellsToRead = input.readInt();
+		
+		entities = SymbolDictionary.getSharedEntities();
+		currencies = SymbolDictionary.getSharedCurrencies();
+		entityIds = new CubeIdentifiers(MAX_ENTITIES);
+		currencyIds = new CubeIdentifiers(MAX_CURRENCIES);
+		cells = new Cuboid(Math.max(cellsToRead * 2, DEFAULT_CAPACITY));
+		for (int cell = 0; cell < cellsToRead; cell++) {
+			int epochDay = input.readInt();
+			BuyOrSell buyOrSell = BuyOrSell.values()[input.readByte()];
+			int currencyId = currencies.encode((String) input.readObject());
+			int entityId = entities.encode((String) input.readObject());
+			addScaled(epochDay, buyOrSell, currencyId, entityId, input.readLong(), input.readLong(), input.readLong());
+		}
+		
+	}
+	
+	/**
+	 * A consumer of a cell of the cube, given as primitives
+	 */
+	@FunctionalInterface
+	public interface CellConsumer {
+		void accept(int epochDay, BuyOrSell buyOrSell, String currency, String entity, double total, long count,
+				double maximum);
+	}
+	
+	/**
+	 * A consumer of a cell of the cube with the identifiers of its symbols and its scaled fixed-point amounts
+	 */
+	@FunctionalInterface
+	public interface ScaledCellConsumer {
+		void accept(int epochDay, BuyOrSell buyOrSell, int currencyId, int entityId, long scaledTotal, long count,
+				long scaledMaximum);
+	}
+	
+	/**
+	 * The dense identifiers of the cube given to the identifiers of a {@link SymbolDictionary} in the order they are
+	 * first added
+	 */
+	private static class CubeIdentifiers {
+		
+		private final int limit;
+		private int[] cubeIds = new int[0];
+		private int[] symbolIds = new int[DEFAULT_CAPACITY];
+		private int size;
+		
+		CubeIdentifiers(int limit) {
+			this.limit = limit;
+		}
+		
+		/**
+		 * Gives the cube identifier of a symbol identifier, registering it if it is not known yet
+		 * 
+		 * @return the cube identifier, or {@link SymbolDictionary#MISSING_ID} if the symbol identifier is negative
+		 *         or the cube already has the maximum number of identifiers
+		 */
+		int encode(int symbolId) {
+			
+			int cubeId = find(symbolId);
+			if (cubeId != SymbolDictionary.MISSING_ID || symbolId < 0 || size == limit)
+				return cubeId;
+			
+			if (symbolId >= cubeIds.length) {
+				int oldLength = cubeIds.length;
+				cubeIds = Arrays.copyOf(cubeIds, Math.max(symbolId + 1, oldLength * 2));
+				Arrays.fill(cubeIds, oldLength, cubeIds.length, SymbolDictionary.MISSING_ID);
+			}
+			if (size == symbolIds.length)
+				symbolIds = Arrays.copyOf(symbolIds, size * 2);
+			
+			cubeIds[symbolId] = size;
+			symbolIds[size] = symbolId;
+			
+			return size++;
+			
+		}
+		
+		/**
+		 * Gives the cube identifier of an already registered symbol identifier
+		 * 
+		 * @return the cube identifier, or {@link SymbolDictionary#MISSING_ID} if the symbol identifier is unknown
+		 */
+		int find(int symbolId) {
+			return symbolId < 0 || symbolId >= cubeIds.length ? SymbolDictionary.MISSING_ID : cubeIds[symbolId];
+		}
+		
+		int decode(int cubeId) {
+			return symbolIds[cubeId];
+		}
+		
+		int size() {
+			return size;
+		}
+	}
+	
+	/**
+	 * The cells of some of the dimensions, in an open addressing hash table with primitive columns, where the bits
+	 * of the rolled up dimensions are zero in every key
+	 */
+	private static class Cuboid {
+		
+		private long[] keys;
+		private long[] totals;
+		private long[] counts;
+		private long[] maxima;
+		private int size;
+		
+		Cuboid(int capacity) {
+			allocate(Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1);
+		}
+		
+		void add(long key, long total, long count, long maximum) {
+			
+			int slot = findSlot(key);
+			if (keys[slot] == EMPTY_KEY) {
+				keys[slot] = key;
+				totals[slot] = total;
+				counts[slot] = count;
+				maxima[slot] = maximum;
+				if (++size * 2 > keys.length)
+					allocate(keys.length * 2);
+			} else {
+				totals[slot] = Math.addExact(totals[slot], total);
+				counts[slot] += count;
+				maxima[slot] = Math.max(maxima[slot], maximum);
+			}
+			
+		}
+		
+		/**
+		 * Gives the slot of a key
+		 * 
+		 * @return the slot holding the key, or -1 if it is missing
+		 */
+		int find(long key) {
+			
+			if (key == EMPTY_KEY)
+				return -1;
+			
+			int slot = findSlot(key);
+			
+			return keys[slot] == EMPTY_KEY ? -1 : slot;
+			
+		}
+		
+		/**
+		 * Sums up the cells into a cuboid of fewer dimensions
+		 * 
+		 * @param keyMask the bits of the dimensions kept
+		 * @return the new {@link Cuboid}
+		 */
+		Cuboid rollup(long keyMask) {
+			
+			Cuboid rollup = new Cuboid(DEFAULT_CAPACITY);
+			for (int slot = 0; slot < keys.length; slot++) {
+				if (keys[slot] != EMPTY_KEY)
+					rollup.add(keys[slot] & keyMask, totals[slot], counts[slot], maxima[slot]);
+			}
+			
+			return rollup;
+			
+		}
+		
+		long[] keys() {
+			
+			long[] existing = new long[size];
+			int index = 0;
+			for (long key : keys) {
+				if (key != EMPTY_KEY)
+					existing[index++] = key;
+			}
+			
+			return existing;
+			
+		}
+		
+		/**
+		 * Finds the slot of a key with linear probing
+		 * 
+		 * @return the slot holding the key, or the empty slot where it should be stored
+		 */
+		private int findSlot(long key) {
+			
+			int mask = keys.length - 1;
+			long hash = key * 0x9E3779B97F4A7C15L;
+			int slot = (int) (hash ^ (hash >>> 32)) & mask;
+			while (keys[slot] != EMPTY_KEY && keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			
+			return slot;
+			
+		}
+		
+		/**
+		 * Allocates the columns with the given capacity and stores the existing cells again
+		 */
+		private void allocate(int capacity) {
+			
+			long[] oldKeys = keys;
+			long[] oldTotals = totals;
+			long[] oldCounts = counts;
+			long[] oldMaxima = maxima;
+			
+			keys = new long[capacity];
+			Arrays.fill(keys, EMPTY_KEY);
+			totals = new long[capacity];
+			counts = new long[capacity];
+			maxima = new long[capacity];
+			
+			for (int oldSlot = 0; oldKeys != null && oldSlot < oldKeys.length; oldSlot++) {
+				if (oldKeys[oldSlot] != EMPTY_KEY) {
+					int slot = findSlot(oldKeys[oldSlot]);
+					keys[slot] = oldKeys[oldSlot];
+					totals[slot] = oldTotals[oldSlot];
+					counts[slot] = oldCounts[oldSlot];
+					maxima[slot] = oldMaxima[oldSlot];
+				}
+			}
+			
+		}
+	}
+
+}
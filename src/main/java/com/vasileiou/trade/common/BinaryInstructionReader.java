@@ -0,0 +1,253 @@
+package com.vasileiou.trade.common;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import com.vasileiou.trade.enums.Stage;
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.InstructionStore;
+
+/**
+ * Reader of the binary instructions format described in {@link BinaryInstructionWriter}. The file is memory mapped
+ * and the fixed width records are read in place, so that they can be appended to the primitive columns of an
+ * {@link InstructionStore} without creating any object per record
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class BinaryInstructionReader implements Closeable {
+	
+	private final FileChannel channel;
+	private final long fileSize;
+	private final SymbolDictionary entities = new SymbolDictionary();
+	private final SymbolDictionary currencies = new SymbolDictionary();
+	
+	private MappedByteBuffer window;
+	private long windowOffset;
+	
+	/**
+	 * Opens a file and validates its header
+	 * 
+	 * @param file the {@link Path} of the file
+	 * @throws IOException if the file cannot be read or it is not in a supported format
+	 */
+	public BinaryInstructionReader(Path file) throws IOException {
+		
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+		this.fileSize = channel.size();
+		
+		try {
+			map(0);
+			
+			if (window.remaining() < Constants.BINARY_HEADER_SIZE || window.getInt() != Constants.BINARY_MAGIC)
+				throw new IOException("Not a binary instructions file: " + file);
+			
+			short version = window.getShort();
+			if (version != Constants.BINARY_VERSION)
+				throw new IOException("Unsupported binary instructions version " + version + ": " + file);
+			
+			window.getShort();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		
+	}
+	
+	/**
+	 * Reads all the remaining records and appends them to a store. The dictionary entries of the file are encoded
+	 * to the dictionaries of the store once, so that every record is copied as primitives only
+	 * 
+	 * @param store the {@link InstructionStore} to be filled
+	 * @return the number of appended records
+	 * @throws IOException if the file cannot be read or it is corrupted
+	 */
+	public int readInto(InstructionStore store) throws IOException {
+		
+		long start = System.nanoTime();
+		int[] entityIds = new int[0];
+		int[] currencyIds = new int[0];
+		int records = 0;
+		
+		while (hasRemaining()) {
+			
+			byte tag = nextTag();
+			if (tag == Constants.BINARY_RECORD_TAG) {
+				
+				ensureAvailable(Constants.BINARY_RECORD_SIZE);
+				int position = window.position();
+				int entityId = checkSymbol(window.getInt(position + 1), entities, position);
+				int currencyId = checkSymbol(window.getInt(position + 5), currencies, position);
+				
+				store.add(entityId == SymbolDictionary.MISSING_ID ? entityId : entityIds[entityId],
+						window.get(position),
+						currencyId == SymbolDictionary.MISSING_ID ? currencyId : currencyIds[currencyId],
+						window.getInt(position + 9), window.getInt(position + 13), window.getLong(position + 17),
+						window.getDouble(position + 25), window.getDouble(position + 33));
+				
+				window.position(position + Constants.BINARY_RECORD_SIZE);
+				records++;
+				
+			} else if (tag == Constants.BINARY_ENTITY_TAG) {
+				
+				int identifier = readSymbol(entities);
+				if (identifier == entityIds.length)
+					entityIds = Arrays.copyOf(entityIds, Math.max(identifier * 2, 16));
+				entityIds[identifier] = store.getEntities().encode(entities.decode(identifier));
+				
+			} else {
+				
+				int identifier = readSymbol(currencies);
+				if (identifier == currencyIds.length)
+					currencyIds = Arrays.copyOf(currencyIds, Math.max(identifier * 2, 16));
+				currencyIds[identifier] = store.getCurrencies().encode(currencies.decode(identifier));
+				
+			}
+		}
+		
+		PipelineMetrics.getDefault().recordStage(Stage.FETCH, start, records);
+		
+		return records;
+		
+	}
+	
+	/**
+	 * Reads all the remaining records as {@link Instruction} objects, e.g. for passing them to a parsing sink
+	 * 
+	 * @param consumer the {@link Consumer} of the instructions
+	 * @return the number of read records
+	 * @throws IOException if the file cannot be read or it is corrupted
+	 */
+	public int forEachInstruction(Consumer<Instruction> consumer) throws IOException {
+		
+		int records = 0;
+		
+		while (hasRemaining()) {
+			
+			byte tag = nextTag();
+			if (tag == Constants.BINARY_RECORD_TAG) {
+				
+				ensureAvailable(Constants.BINARY_RECORD_SIZE);
+				int position = window.position();
+				
+				Instruction instruction = new Instruction();
+				instruction.setBuyOrSellStringFlag(InstructionStore.decodeSide(window.get()));
+				instruction.setEntity(entities.decode(checkSymbol(window.getInt(), entities, position)));
+				instruction.setCurrency(currencies.decode(checkSymbol(window.getInt(), currencies, position)));
+				instruction.setInstructionDate(InstructionStore.decodeDay(window.getInt()));
+				instruction.setSettlementDate(InstructionStore.decodeDay(window.getInt()));
+				long units = window.getLong();
+				double pricePerUnit = window.getDouble();
+				double agreedFx = window.getDouble();
+				instruction.setUnits(units == InstructionStore.MISSING_UNITS ? null : units);
+				instruction.setPricePerUnit(Double.isNaN(pricePerUnit) ? null : pricePerUnit);
+				instruction.setAgreedFx(Double.isNaN(agreedFx) ? null : agreedFx);
+				
+				consumer.accept(instruction);
+				records++;
+				
+			} else {
+				readSymbol(tag == Constants.BINARY_ENTITY_TAG ? entities : currencies);
+			}
+		}
+		
+		return records;
+		
+	}
+	
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	private boolean hasRemaining() {
+		return windowOffset + window.position() < fileSize;
+	}
+	
+	private byte nextTag() throws IOException {
+		
+		ensureAvailable(1);
+		byte tag = window.get();
+		
+		if (tag != Constants.BINARY_RECORD_TAG && tag != Constants.BINARY_ENTITY_TAG
+				&& tag != Constants.BINARY_CURRENCY_TAG)
+			throw new IOException("Corrupted binary instructions file at " + (windowOffset + window.position() - 1));
+		
+		return tag;
+		
+	}
+	
+	/**
+	 * Checks that the identifier of a record is either missing or already defined by a dictionary entry
+	 * 
+	 * @param identifier the identifier of the record
+	 * @param dictionary the {@link SymbolDictionary} of the entries read so far
+	 * @param position the position of the record in the current window
+	 * @return the identifier
+	 * @throws IOException if the identifier is not defined
+	 */
+	private int checkSymbol(int identifier, SymbolDictionary dictionary, int position) throws IOException {
+		
+		if (identifier != SymbolDictionary.MISSING_ID && (identifier < 0 || identifier >= dictionary.size()))
+			throw new IOException("Corrupted binary instructions file at " + (windowOffset + position - 1));
+		
+		return identifier;
+		
+	}
+	
+	/**
+	 * Reads a dictionary entry, which should hold the next identifier of the dictionary
+	 */
+	private int readSymbol(SymbolDictionary dictionary) throws IOException {
+		
+		ensureAvailable(4 + 2);
+		int identifier = window.getInt();
+		int length = window.getShort() & Constants.BINARY_MAX_SYMBOL_SIZE;
+		
+		ensureAvailable(length);
+		byte[] bytes = new byte[length];
+		window.get(bytes);
+		
+		if (identifier != dictionary.size()
+				|| dictionary.encode(new String(bytes, StandardCharsets.UTF_8)) != identifier)
+			throw new IOException("Corrupted dictionary entry " + identifier + " in binary instructions file");
+		
+		return identifier;
+		
+	}
+	
+	/**
+	 * Makes sure that the given number of bytes can be read from the current window, mapping the next part of the
+	 * file when needed
+	 */
+	private void ensureAvailable(int size) throws IOException {
+		
+		if (window.remaining() >= size)
+			return;
+		
+		long offset = windowOffset + window.position();
+		if (offset + size > fileSize)
+			throw new IOException("Truncated binary instructions file at " + offset);
+		
+		map(offset);
+		
+	}
+	
+	private void map(long offset) throws IOException {
+		
+		window = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+				Math.min(Constants.BINARY_MAX_MAPPED_SIZE, fileSize - offset));
+		window.order(ByteOrder.LITTLE_ENDIAN);
+		windowOffset = offset;
+		
+	}
+
+}
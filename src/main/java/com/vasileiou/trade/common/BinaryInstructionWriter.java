@@ -0,0 +1,199 @@
+package com.vasileiou.trade.common;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.InstructionStore;
+
+/**
+ * Writer of the binary instructions format. All the values are little endian and the file consists of:
+ * <ul>
+ * <li>a header of 8 bytes: the magic number <code>TRIB</code> (int), the format version (short) and a reserved
+ * short</li>
+ * <li>dictionary entries, written once before the first record using the symbol: the tag <code>E</code> for
+ * entities or <code>C</code> for currencies (byte), the identifier (int), the length (unsigned short) and the
+ * UTF-8 bytes of the symbol</li>
+ * <li>records of fixed width: the tag <code>R</code> (byte) followed by 41 bytes with the buy or sell value
+ * (byte), the entity identifier (int), the currency identifier (int), the instruction and settlement epoch days
+ * (int), the units (long), the price per unit (double) and the agreed fx (double)</li>
+ * </ul>
+ * Missing properties are written with the sentinel values of {@link InstructionStore}. Wrongly formatted dates
+ * cannot be restored, so they are written as invalid days
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class BinaryInstructionWriter implements Closeable {
+	
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer;
+	private final SymbolDictionary entities = new SymbolDictionary();
+	private final SymbolDictionary currencies = new SymbolDictionary();
+	
+	private long records;
+	
+	/**
+	 * Creates a new file, or truncates an existing one, and writes the header
+	 * 
+	 * @param file the {@link Path} of the file
+	 * @throws IOException if the file cannot be written
+	 */
+	public BinaryInstructionWriter(Path file) throws IOException {
+		this(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING));
+	}
+	
+	/**
+	 * Writes the header to the given channel
+	 * 
+	 * @param channel the {@link WritableByteChannel} to write to, which is closed with the writer
+	 * @throws IOException if the channel cannot be written
+	 */
+	public BinaryInstructionWriter(WritableByteChannel channel) throws IOException {
+		
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocateDirect(Constants.BINARY_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		
+		buffer.putInt(Constants.BINARY_MAGIC);
+		buffer.putShort(Constants.BINARY_VERSION);
+		buffer.putShort((short) 0);
+		
+	}
+	
+	/**
+	 * Writes an instruction
+	 * 
+	 * @param instruction the {@link Instruction} to be written
+	 * @throws IOException if the channel cannot be written
+	 */
+	public void write(Instruction instruction) throws IOException {
+		
+		writeRecord(InstructionStore.encodeSide(instruction.getBuyOrSellStringFlag()),
+				encodeSymbol(entities, Constants.BINARY_ENTITY_TAG, instruction.getEntity()),
+				encodeSymbol(currencies, Constants.BINARY_CURRENCY_TAG, instruction.getCurrency()),
+				InstructionStore.encodeDay(instruction.getInstructionDate()),
+				InstructionStore.encodeDay(instruction.getSettlementDate()),
+				instruction.getUnits() == null ? InstructionStore.MISSING_UNITS : instruction.getUnits(),
+				instruction.getPricePerUnit() == null ? Double.NaN : instruction.getPricePerUnit(),
+				instruction.getAgreedFx() == null ? Double.NaN : instruction.getAgreedFx());
+		
+	}
+	
+	/**
+	 * Writes the input fields of a row of an {@link InstructionStore}, where the initial settlement date is
+	 * written for the already corrected rows
+	 * 
+	 * @param store the {@link InstructionStore} holding the instruction
+	 * @param row the row of the instruction
+	 * @throws IOException if the channel cannot be written
+	 */
+	public void write(InstructionStore store, int row) throws IOException {
+		
+		int settlementDay = store.getInitialSettlementDay(row) != InstructionStore.MISSING_DAY
+								? store.getInitialSettlementDay(row)
+								: store.getSettlementDay(row);
+		
+		writeRecord(store.getSide(row),
+				encodeSymbol(entities, Constants.BINARY_ENTITY_TAG, store.getEntities().decode(store.getEntityId(row))),
+				encodeSymbol(currencies, Constants.BINARY_CURRENCY_TAG,
+						store.getCurrencies().decode(store.getCurrencyId(row))),
+				store.getInstructionDay(row), settlementDay, store.getUnits(row), store.getPricePerUnit(row),
+				store.getAgreedFx(row));
+		
+	}
+	
+	/**
+	 * Gives the number of written records
+	 * 
+	 * @return the number of records
+	 */
+	public long getRecords() {
+		return records;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+		
+	}
+	
+	/**
+	 * Writes the buffered content to the channel
+	 * 
+	 * @throws IOException if the channel cannot be written
+	 */
+	public void flush() throws IOException {
+		
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+		
+	}
+	
+	private void writeRecord(byte side, int entityId, int currencyId, int instructionDay, int settlementDay,
+			long units, double pricePerUnit, double agreedFx) throws IOException {
+		
+		ensureRemaining(1 + Constants.BINARY_RECORD_SIZE);
+		
+		buffer.put(Constants.BINARY_RECORD_TAG);
+		buffer.put(side);
+		buffer.putInt(entityId);
+		buffer.putInt(currencyId);
+		buffer.putInt(instructionDay);
+		buffer.putInt(settlementDay);
+		buffer.putLong(units);
+		buffer.putDouble(pricePerUnit);
+		buffer.putDouble(agreedFx);
+		
+		records++;
+		
+	}
+	
+	/**
+	 * Gives the identifier of a symbol, writing its dictionary entry the first time it is met
+	 */
+	private int encodeSymbol(SymbolDictionary dictionary, byte tag, String symbol) throws IOException {
+		
+		int identifier = dictionary.find(symbol);
+		if (identifier != SymbolDictionary.MISSING_ID || symbol == null)
+			return identifier;
+		
+		byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > Constants.BINARY_MAX_SYMBOL_SIZE)
+			throw new IOException("Symbol is too long to be written: " + symbol.substring(0, 32) + "...");
+		
+		identifier = dictionary.encode(symbol);
+		
+		ensureRemaining(1 + 4 + 2 + bytes.length);
+		buffer.put(tag);
+		buffer.putInt(identifier);
+		buffer.putShort((short) bytes.length);
+		buffer.put(bytes);
+		
+		return identifier;
+		
+	}
+	
+	private void ensureRemaining(int size) throws IOException {
+		
+		if (buffer.remaining() < size)
+			flush();
+		
+	}
+
+}
@@ -17,20 +17,123 @@ public class Constants {
 	public static final List<Integer> CALENDAR_COMMON_WEEKEND = Arrays.asList(Calendar.SATURDAY, Calendar.SUNDAY);
 	public static final List<Integer> CALENDAR_EXCEPTION_WEEKEND = Arrays.asList(Calendar.FRIDAY, Calendar.SATURDAY);
 	public static final String DATE_FORMAT = "dd MMM yyyy";
+	public static final int MISSING_EPOCH_DAY = Integer.MIN_VALUE;
+	public static final int INVALID_EPOCH_DAY = Integer.MIN_VALUE + 1;
 	public static final String INPUT_BUY_FLAG = "B";
 	public static final String INPUT_SELL_FLAG = "S";
 	
+	// Settlement calendar Constants
+	public static final int CALENDAR_FIRST_YEAR = 1900;
+	public static final int CALENDAR_LAST_YEAR = 2199;
+	public static final String CALENDAR_HOLIDAYS_PROPERTY = "trade.holidays.dir";
+	public static final String CALENDAR_HOLIDAYS_RESOURCE = "holidays/";
+	public static final String CALENDAR_HOLIDAYS_FILE_EXTENSION = ".txt";
+	public static final String CALENDAR_WEEKEND_DIRECTIVE = "weekend";
+	
+	// Parallel parsing Constants
+	public static final int PARALLEL_PARSING_MIN_RANGE = 10000;
+	public static final int PARALLEL_PARSING_RANGES_PER_WORKER = 4;
+	
+	// Pipelined parsing Constants
+	public static final int PIPELINE_BATCH_SIZE = 256;
+	public static final int PIPELINE_RING_CAPACITY = 64;
+	public static final int PIPELINE_IDLE_SPINS = 100;
+	public static final long PIPELINE_IDLE_PARK_NANOS = 50000;
+	public static final String PIPELINE_ARGUMENT = "pipelined";
+	
+	// Multi-source fetching Constants
+	public static final int FETCHER_QUEUE_CAPACITY = 16;
+	public static final int FETCHER_INITIAL_BATCH_SIZE = 64;
+	public static final int FETCHER_MIN_BATCH_SIZE = 1;
+	public static final int FETCHER_MAX_BATCH_SIZE = 4096;
+	
+	// Fixed-point amounts Constants
+	public static final String AMOUNT_DECIMALS_PROPERTY = "trade.amount.decimals";
+	public static final int AMOUNT_DECIMALS = 4;
+	public static final int AMOUNT_MAX_DECIMALS = 9;
+	public static final int AMOUNT_BATCH_SIZE = 1024;
+	
+	// Instructions generator Constants
+	public static final int GENERATOR_BLOCK_SIZE = 4096;
+	public static final String[] GENERATOR_DEFAULT_CURRENCIES = { "EUR", "GBP", "AED", "INR", "CAD", "AUD", "CNY",
+			"USD", "SAR" };
+	
+	// Instructions file Constants
+	public static final byte FILE_FIELD_SEPARATOR = ',';
+	public static final byte FILE_COMMENT_PREFIX = '#';
+	public static final int FILE_FIELDS_PER_LINE = 8;
+	public static final int FILE_CHUNKS_PER_WORKER = 4;
+	public static final long FILE_MAX_CHUNK_SIZE = 256L * 1024 * 1024;
+	public static final long FILE_STREAMING_CHUNK_SIZE = 8L * 1024 * 1024;
+	public static final int FILE_LINE_LOOKUP_SIZE = 4096;
+	public static final int FILE_STREAM_READ_SIZE = 64 * 1024;
+	
+	// Binary instructions format Constants
+	public static final int BINARY_MAGIC = 0x54524942;
+	public static final short BINARY_VERSION = 1;
+	public static final int BINARY_HEADER_SIZE = 8;
+	public static final byte BINARY_ENTITY_TAG = 'E';
+	public static final byte BINARY_CURRENCY_TAG = 'C';
+	public static final byte BINARY_RECORD_TAG = 'R';
+	public static final int BINARY_RECORD_SIZE = 41;
+	public static final int BINARY_MAX_SYMBOL_SIZE = 0xFFFF;
+	public static final int BINARY_BUFFER_SIZE = 128 * 1024;
+	public static final long BINARY_MAX_MAPPED_SIZE = 1024L * 1024 * 1024;
+	
+	// Snapshot format Constants
+	public static final int SNAPSHOT_MAGIC = 0x54525353;
+	public static final short SNAPSHOT_VERSION = 6;
+	public static final int SNAPSHOT_HEADER_SIZE = 20;
+	public static final short SNAPSHOT_INSTRUCTIONS_FLAG = 1;
+	public static final int SNAPSHOT_DECIMALS_OFFSET = 16;
+	public static final int SNAPSHOT_DAY_SIZE = 20;
+	public static final int SNAPSHOT_STATISTICS_SIZE = 28;
+	public static final int SNAPSHOT_INSTRUCTION_SIZE = 53;
+	public static final int SNAPSHOT_ROLLING_HEADER_SIZE = 12;
+	public static final int SNAPSHOT_ROLLING_AMOUNT_SIZE = 17;
+	public static final int SNAPSHOT_INDEX_AMOUNT_SIZE = 17;
+	public static final int SNAPSHOT_CUBE_CELL_SIZE = 37;
+	public static final String SNAPSHOT_TEMPORARY_SUFFIX = ".tmp";
+	
+	// Metrics Constants
+	public static final String METRICS_DOMAIN = "com.vasileiou.trade";
+	
+	// Sharding Constants
+	public static final int SHARD_ACCEPT_TIMEOUT_MILLIS = 10 * 60 * 1000;
+	public static final int SHARD_POLL_INTERVAL_MILLIS = 200;
+	public static final String SHARD_CLASS_PREFIX = "com.vasileiou.trade.";
+	
+	// Moving totals Constants
+	public static final int[] ROLLING_WINDOW_DAYS = { 5, 20 };
+	public static final int ROLLING_TOP_ENTITIES = 10;
+	
+	// Rejected instructions Constants
+	public static final int REJECTION_SAMPLES_PER_STATUS = 5;
+	public static final String REJECTION_MISSING_SYMBOL = "(missing)";
+	
 	// Printer output Constants
+	public static final int REPORT_OUTPUT_CHUNK_SIZE = 8192;
 	public static final String DAILY_INCOMING_OUTPUT_HEADER = "+++++++++++++++ INCOMING DAILY REPORT +++++++++++++++";
 	public static final String DAILY_OUTGOING_OUTPUT_HEADER = "+++++++++++++++ OUTGOING DAILY REPORT +++++++++++++++";
 	public static final String INCOMING_RANKING_HEADER = "++++++++++++++ INCOMING RANKING REPORT ++++++++++++++";
 	public static final String OUTGOING_RANKING_HEADER = "++++++++++++++ OUTGOING RANKING REPORT ++++++++++++++";
+	public static final String REJECTION_REPORT_HEADER = "+++++++++++ REJECTED INSTRUCTIONS REPORT ++++++++++++";
+	public static final String ROLLING_REPORT_HEADER_PREFIX = "+++++++++ ";
+	public static final String ROLLING_REPORT_HEADER_SUFFIX = "-DAY MOVING TOTALS REPORT +++++++++";
+	public static final String CUBE_REPORT_HEADER_PREFIX = "+++++++++ AGGREGATION REPORT BY ";
+	public static final String CUBE_REPORT_HEADER_SUFFIX = " +++++++++";
 	public static final String REPORT_FOOTER = "=====================================================";
 	public static final String NO_INSTRUCTIONS_AVAILABLE = "There are no instructions to display output";
+	public static final String NO_REJECTED_INSTRUCTIONS = "There are no rejected instructions to display output";
 	public static final String REPORT_GENERATION_FINISHED = "\nTrade Report Generation Finished!";
 	public static final String NOTHING_TO_SHOW = "Nothing to show...\n";
 	public static final String BUY_OR_SELL_IS_MISSING = "Buy or Sell is missing...\n";
 	public static final String DAILY_REPORT_HEADERS = "\n\nDate -> Amount\n-----------------------\n";
 	public static final String RANKING_REPORT_HEADERS = "\n\nRank. Entity -> Amount\n-----------------------\n";
+	public static final String REJECTION_REPORT_HEADERS = " -> Count, Amount\n-----------------------\n";
+	public static final String REJECTION_SAMPLES_HEADERS = "\nStatus -> Instruction\n-----------------------\n";
+	public static final String ROLLING_REPORT_HEADERS = "\n\nWindow End Date -> Amount\n-----------------------\n";
+	public static final String ROLLING_ENTITIES_HEADERS = "\nRank. Entity -> Amount\n-----------------------\n";
+	public static final String CUBE_REPORT_HEADERS = " -> Total, Count, Maximum\n-----------------------\n";
 
 }
@@ -0,0 +1,334 @@
+package com.vasileiou.trade.common;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import com.vasileiou.trade.enums.RankingMode;
+
+/**
+ * The total, count and maximum amount of the instructions of every entity, kept in an open addressing hash table
+ * with primitive columns keyed by the entity identifiers of a {@link SymbolDictionary}. Adding an amount costs a
+ * single probe sequence without boxing or allocating anything, apart from growing the table, and the entities
+ * are resolved back to strings only for rankings. The totals are fixed-point amounts of the default
+ * {@link FixedPointAmounts}, so merging the tables of any partitions gives the same totals. It is not thread safe
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class EntityStatistics implements Serializable {
+	
+	private static final long serialVersionUID = 5278713650946192286L;
+	
+	private static final int DEFAULT_CAPACITY = 64;
+	
+	// Dictionaries are not serialized, so the entities are written by name and encoded again when read
+	private transient SymbolDictionary entities;
+	
+	// Entity identifiers are kept in slots, where an empty slot has a missing identifier
+	private transient int[] entityIds;
+	private transient long[] scaledTotals;
+	private transient long[] counts;
+	private transient double[] maxima;
+	private transient int size;
+	
+	public EntityStatistics() {
+		this(SymbolDictionary.getSharedEntities(), DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Creates an empty table
+	 * 
+	 * @param entities the {@link SymbolDictionary} of the entity identifiers
+	 * @param expectedEntities the number of entities the table can hold without growing
+	 */
+	public EntityStatistics(SymbolDictionary entities, int expectedEntities) {
+		
+		this.entities = entities;
+		
+		allocate(capacityFor(expectedEntities));
+		
+	}
+	
+	/**
+	 * Adds the amount of an instruction to the statistics of its entity
+	 * 
+	 * @param entity the {@link String} entity
+	 * @param amount the amount of the instruction
+	 * @return true if the amount is the new maximum amount of the entity and false otherwise
+	 */
+	public boolean add(String entity, double amount) {
+		return add(entities.encode(entity), amount, 1, amount);
+	}
+	
+	/**
+	 * Adds the amount of an instruction to the statistics of its entity
+	 * 
+	 * @param entityId the identifier of the entity
+	 * @param amount the amount of the instruction
+	 * @return true if the amount is the new maximum amount of the entity and false otherwise
+	 */
+	public boolean add(int entityId, double amount) {
+		return add(entityId, amount, 1, amount);
+	}
+	
+	/**
+	 * Adds already aggregated statistics to the statistics of an entity
+	 * 
+	 * @param entityId the identifier of the entity
+	 * @param total the total amount
+	 * @param count the number of instructions
+	 * @param maximum the maximum amount
+	 * @return true if the maximum is the new maximum amount of the entity and false otherwise
+	 */
+	public boolean add(int entityId, double total, long count, double maximum) {
+		return addScaled(entityId, FixedPointAmounts.getDefault().toScaled(total), count, maximum);
+	}
+	
+	/**
+	 * Adds already aggregated statistics with a fixed-point total to the statistics of an entity
+	 * 
+	 * @param entityId the identifier of the entity
+	 * @param scaledTotal the scaled total amount
+	 * @param count the number of instructions
+	 * @param maximum the maximum amount
+	 * @return true if the maximum is the new maximum amount of the entity and false otherwise
+	 * @throws ArithmeticException if the total overflows the fixed-point range
+	 */
+	public boolean addScaled(int entityId, long scaledTotal, long count, double maximum) {
+		
+		int slot = findSlot(entityId);
+		
+		if (entityIds[slot] == SymbolDictionary.MISSING_ID) {
+			entityIds[slot] = entityId;
+			scaledTotals[slot] = scaledTotal;
+			counts[slot] = count;
+			maxima[slot] = maximum;
+			
+			if (++size * 2 > entityIds.length)
+				allocate(entityIds.length * 2);
+			return true;
+		}
+		
+		scaledTotals[slot] = Math.addExact(scaledTotals[slot], scaledTotal);
+		counts[slot] += count;
+		if (maximum > maxima[slot]) {
+			maxima[slot] = maximum;
+			return true;
+		}
+		
+		return false;
+		
+	}
+	
+	/**
+	 * Adds all the statistics of another table to this one
+	 * 
+	 * @param other the {@link EntityStatistics} to be added
+	 * @return this {@link EntityStatistics}
+	 */
+	public EntityStatistics merge(EntityStatistics other) {
+		
+		// Identifiers of another dictionary have to be encoded again
+		boolean sameEntities = other.entities == entities;
+		for (int slot = 0; slot < other.entityIds.length; slot++) {
+			if (other.entityIds[slot] != SymbolDictionary.MISSING_ID) {
+				int entityId = sameEntities
+								? other.entityIds[slot]
+								: entities.encode(other.entities.decode(other.entityIds[slot]));
+				addScaled(entityId, other.scaledTotals[slot], other.counts[slot], other.maxima[slot]);
+			}
+		}
+		
+		return this;
+		
+	}
+	
+	/**
+	 * Gives the ranking amount of an entity
+	 * 
+	 * @param entity the {@link String} entity
+	 * @param rankingMode the {@link RankingMode} defining the amount
+	 * @return the amount, or NaN if there are no instructions of the entity
+	 */
+	public double get(String entity, RankingMode rankingMode) {
+		
+		int entityId = entities.find(entity);
+		if (entityId == SymbolDictionary.MISSING_ID)
+			return Double.NaN;
+		
+		int slot = findSlot(entityId);
+		return entityIds[slot] == SymbolDictionary.MISSING_ID ? Double.NaN : getValue(slot, rankingMode);
+		
+	}
+	
+	/**
+	 * Ranks the top entities by the given amount
+	 * 
+	 * @param rankingMode the {@link RankingMode} defining the amount
+	 * @param k the maximum number of ranked entities
+	 * @return the {@link TopKRanking} of the entities
+	 */
+	public TopKRanking rank(RankingMode rankingMode, int k) {
+		
+		TopKRanking ranking = new TopKRanking(entities, Math.min(k, size));
+		for (int slot = 0; slot < entityIds.length; slot++) {
+			if (entityIds[slot] != SymbolDictionary.MISSING_ID)
+				ranking.offer(entityIds[slot], getValue(slot, rankingMode));
+		}
+		
+		return ranking;
+		
+	}
+	
+	/**
+	 * Converts the statistics to a map of entity and amount pairs
+	 * 
+	 * @param rankingMode the {@link RankingMode} defining the amount
+	 * @return a new {@link HashMap} of entity and amount pairs
+	 */
+	public HashMap<String, Double> toMap(RankingMode rankingMode) {
+		
+		HashMap<String, Double> amounts = new HashMap<>();
+		for (int slot = 0; slot < entityIds.length; slot++) {
+			if (entityIds[slot] != SymbolDictionary.MISSING_ID)
+				amounts.put(entities.decode(entityIds[slot]), getValue(slot, rankingMode));
+		}
+		
+		return amounts;
+		
+	}
+	
+	/**
+	 * Gives the statistics of every entity to a consumer, in no particular order
+	 * 
+	 * @param consumer the {@link StatisticsConsumer} of the statistics
+	 */
+	public void forEach(StatisticsConsumer consumer) {
+		
+		for (int slot = 0; slot < entityIds.length; slot++) {
+			if (entityIds[slot] != SymbolDictionary.MISSING_ID)
+				consumer.accept(entityIds[slot], scaledTotals[slot], counts[slot], maxima[slot]);
+		}
+		
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public SymbolDictionary getEntities() {
+		return entities;
+	}
+	
+	private double getValue(int slot, RankingMode rankingMode) {
+		
+		switch (rankingMode) {
+		case TOTAL:
+			return FixedPointAmounts.getDefault().toAmount(scaledTotals[slot]);
+		case COUNT:
+			return counts[slot];
+		case AVERAGE:
+			return FixedPointAmounts.getDefault().toAmount(scaledTotals[slot]) / counts[slot];
+		default:
+			return maxima[slot];
+		}
+		
+	}
+	
+	/**
+	 * Finds the slot of an entity with linear probing
+	 * 
+	 * @return the slot holding the entity, or the empty slot where it should be stored
+	 */
+	private int findSlot(int entityId) {
+		
+		// Spread the dense identifiers, so that neighbouring identifiers do not form long probe sequences
+		int mask = entityIds.length - 1;
+		int hash = entityId * 0x9E3779B9;
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		while (entityIds[slot] != SymbolDictionary.MISSING_ID && entityIds[slot] != entityId) {
+			slot = (slot + 1) & mask;
+		}
+		
+		return slot;
+		
+	}
+	
+	/**
+	 * Gives the power of two capacity keeping the load factor at most one half for the expected entities
+	 */
+	private static int capacityFor(int expectedEntities) {
+		return Integer.highestOneBit(Math.max(expectedEntities, DEFAULT_CAPACITY / 2) * 2 - 1) << 1;
+	}
+	
+	/**
+	 * Allocates the columns with the given capacity and stores the existing entities again
+	 */
+	private void allocate(int capacity) {
+		
+		int[] oldEntityIds = entityIds;
+		long[] oldScaledTotals = scaledTotals;
+		long[] oldCounts = counts;
+		double[] oldMaxima = maxima;
+		
+		entityIds = new int[capacity];
+		Arrays.fill(entityIds, SymbolDictionary.MISSING_ID);
+		scaledTotals = new long[capacity];
+		counts = new long[capacity];
+		maxima = new double[capacity];
+		
+		for (int oldSlot = 0; oldEntityIds != null && oldSlot < oldEntityIds.length; oldSlot++) {
+			if (oldEntityIds[oldSlot] != SymbolDictionary.MISSING_ID) {
+				int slot = findSlot(oldEntityIds[oldSlot]);
+				entityIds[slot] = oldEntityIds[oldSlot];
+				scaledTotals[slot] = oldScaledTotals[oldSlot];
+				counts[slot] = oldCounts[oldSlot];
+				maxima[slot] = oldMaxima[oldSlot];
+			}
+		}
+		
+	}
+	
+	private void writeObject(ObjectOutputStream output) throws IOException {
+		
+		output.defaultWriteObject();
+		output.writeInt(size);
+		for (int slot = 0; slot < entityIds.length; slot++) {
+			if (entityIds[slot] != SymbolDictionary.MISSING_ID) {
+				output.writeObject(entities.decode(entityIds[slot]));
+				output.writeLong(scaledTotals[slot]);
+				output.writeLong(counts[slot]);
+				output.writeDouble(maxima[slot]);
+			}
+		}
+		
+	}
+	
+	private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+		
+		input.defaultReadObject();
+		int entitiesToRead = input.readInt();
+		
+		entities = SymbolDictionary.getSharedEntities();
+		allocate(capacityFor(entitiesToRead));
+		for (int entity = 0; entity < entitiesToRead; entity++) {
+			addScaled(entities.encode((String) input.readObject()), input.readLong(), input.readLong(),
+					input.readDouble());
+		}
+		
+	}
+
+	/**
+	 * A consumer of the statistics of an entity, given as primitives with the total as a fixed-point amount of the
+	 * default {@link FixedPointAmounts}
+	 */
+	@FunctionalInterface
+	public interface StatisticsConsumer {
+		void accept(int entityId, long scaledTotal, long count, double maximum);
+	}
+
+}
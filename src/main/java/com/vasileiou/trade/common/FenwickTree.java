@@ -0,0 +1,162 @@
+package com.vasileiou.trade.common;
+
+import java.io.Serializable;
+
+/**
+ * A Fenwick tree, also known as binary indexed tree, of amounts per settlement day, giving the sum of the amounts
+ * of any range of days in logarithmic time, while an amount is still added in logarithmic time. The tree covers
+ * the days from the first day seen so far and grows to either direction on demand, rebuilding itself in linear
+ * time, so it is meant for the few thousand days of the settlement dates rather than for sparse days.
+ * <p>
+ * The amounts are scaled fixed-point longs, so the amount of every day is recovered exactly from the nodes when
+ * the tree grows or is merged, and the sums do not depend on the order of the additions. It is not thread safe
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class FenwickTree implements Serializable {
+	
+	private static final long serialVersionUID = 3806219457302184167L;
+	
+	private static final int INITIAL_DAYS = 64;
+	
+	// The first element is not used, so that the parent and child indices are given by the lowest set bit
+	private long[] tree = new long[INITIAL_DAYS + 1];
+	private int firstDay;
+	private boolean empty = true;
+	
+	/**
+	 * Adds a scaled amount to a settlement day
+	 * 
+	 * @param epochDay the settlement epoch day
+	 * @param scaledAmount the scaled fixed-point amount to be added
+	 * @throws ArithmeticException if a sum overflows
+	 */
+	public void add(int epochDay, long scaledAmount) {
+		
+		if (empty) {
+			firstDay = epochDay;
+			empty = false;
+		} else if (epochDay < firstDay) {
+			// Grow by at least the current days, so that days given in descending order do not rebuild every time
+			int shift = Math.max(firstDay - epochDay, tree.length - 1);
+			rebuild(shift, tree.length - 1 + shift);
+			firstDay -= shift;
+		} else if (epochDay - firstDay >= tree.length - 1) {
+			rebuild(0, epochDay - firstDay + 1);
+		}
+		
+		for (int index = epochDay - firstDay + 1; index < tree.length; index += index & -index) {
+			tree[index] = Math.addExact(tree[index], scaledAmount);
+		}
+		
+	}
+	
+	/**
+	 * Gives the sum of the amounts up to a settlement day
+	 * 
+	 * @param epochDay the last epoch day of the sum, inclusive
+	 * @return the scaled sum of the amounts settled up to the day
+	 */
+	public long prefix(int epochDay) {
+		
+		if (empty || epochDay < firstDay)
+			return 0;
+		
+		long sum = 0;
+		int last = (int) Math.min((long) epochDay - firstDay + 1, tree.length - 1);
+		for (int index = last; index > 0; index -= index & -index) {
+			sum += tree[index];
+		}
+		
+		return sum;
+		
+	}
+	
+	/**
+	 * Gives the sum of the amounts of a range of settlement days
+	 * 
+	 * @param fromEpochDay the first epoch day of the range, inclusive
+	 * @param toEpochDay the last epoch day of the range, inclusive
+	 * @return the scaled sum of the amounts settled within the range, or zero if the range is empty
+	 */
+	public long range(int fromEpochDay, int toEpochDay) {
+		
+		if (fromEpochDay > toEpochDay)
+			return 0;
+		
+		// A range starting before the first day is a prefix, which also avoids the day before the first
+		return empty || fromEpochDay <= firstDay
+				? prefix(toEpochDay)
+				: prefix(toEpochDay) - prefix(fromEpochDay - 1);
+		
+	}
+	
+	/**
+	 * Adds all the amounts of another tree to this one
+	 * 
+	 * @param other the {@link FenwickTree} to be added
+	 */
+	public void merge(FenwickTree other) {
+		
+		if (other.empty)
+			return;
+		
+		long[] amounts = toAmounts(other.tree);
+		for (int index = 1; index < amounts.length; index++) {
+			if (amounts[index] != 0)
+				add(other.firstDay + index - 1, amounts[index]);
+		}
+		
+	}
+	
+	public boolean isEmpty() {
+		return empty;
+	}
+	
+	public int getFirstEpochDay() {
+		return firstDay;
+	}
+	
+	/**
+	 * Moves the amounts to a larger tree, in linear time
+	 * 
+	 * @param shift the number of days added before the first day
+	 * @param days the number of days needed from the new first day
+	 */
+	private void rebuild(int shift, int days) {
+		
+		long[] amounts = toAmounts(tree);
+		long[] grown = new long[Math.max(days, 2 * (amounts.length - 1)) + 1];
+		System.arraycopy(amounts, 1, grown, shift + 1, amounts.length - 1);
+		for (int index = 1; index < grown.length; index++) {
+			int parent = index + (index & -index);
+			if (parent < grown.length)
+				grown[parent] += grown[index];
+		}
+		tree = grown;
+		
+	}
+	
+	/**
+	 * Recovers the amounts per day of a tree by subtracting every node from its parent, visiting the parents
+	 * before their children, so that every node still holds its own sum when it is subtracted. The nodes are exact
+	 * sums, so are the recovered amounts
+	 * 
+	 * @param tree the nodes of the tree
+	 * @return a new array of the amounts, with the same indices as the nodes
+	 */
+	private static long[] toAmounts(long[] tree) {
+		
+		long[] amounts = tree.clone();
+		for (int index = amounts.length - 1; index > 0; index--) {
+			int parent = index + (index & -index);
+			if (parent < amounts.length)
+				amounts[parent] -= amounts[index];
+		}
+		
+		return amounts;
+		
+	}
+
+}
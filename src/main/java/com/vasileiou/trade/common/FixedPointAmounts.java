@@ -0,0 +1,114 @@
+package com.vasileiou.trade.common;
+
+/**
+ * The arithmetic of the amounts as fixed-point numbers, kept in a long scaled by a power of ten, so that adding up
+ * the amounts is exact and gives the same totals in any order and with any parallelism, unlike adding up doubles.
+ * Every amount is rounded once to the configured decimals, given by the <code>trade.amount.decimals</code> system
+ * property for the default instance, and the totals can hold up to 2^63 units of the last decimal.
+ * <p>
+ * The amounts of whole column chunks are computed by {@link #computeAmounts(double[], long[], double[], long[], int,
+ * int)}, a loop over primitive arrays without any branch, which the JIT compiler is able to vectorize
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class FixedPointAmounts {
+	
+	private final int decimals;
+	private final long scale;
+	
+	/**
+	 * Creates the arithmetic of the given decimals
+	 * 
+	 * @param decimals the number of decimals kept, between zero and nine
+	 */
+	public FixedPointAmounts(int decimals) {
+		
+		this.decimals = Math.max(0, Math.min(decimals, Constants.AMOUNT_MAX_DECIMALS));
+		
+		long power = 1;
+		for (int decimal = 0; decimal < this.decimals; decimal++) {
+			power *= 10;
+		}
+		this.scale = power;
+		
+	}
+	
+	/**
+	 * Gives the arithmetic shared by the application, with the decimals of the system property or else the
+	 * default ones
+	 * 
+	 * @return the default {@link FixedPointAmounts}
+	 */
+	public static FixedPointAmounts getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+	
+	/**
+	 * Rounds an amount to the nearest fixed-point value
+	 * 
+	 * @param amount the amount
+	 * @return the scaled amount
+	 */
+	public long toScaled(double amount) {
+		return Math.round(amount * scale);
+	}
+	
+	/**
+	 * Converts a fixed-point value back to an amount, which is the double nearest to its decimal value
+	 * 
+	 * @param scaledAmount the scaled amount
+	 * @return the amount
+	 */
+	public double toAmount(long scaledAmount) {
+		return (double) scaledAmount / scale;
+	}
+	
+	/**
+	 * Calculates the fixed-point amount of an instruction, in the same way as
+	 * {@link Utils#calculateAmountOfTrade(Double, Long, Double)} without boxing
+	 * 
+	 * @param pricePerUnit the price per unit
+	 * @param units the number of units
+	 * @param agreedFx the agreed foreign exchange rate
+	 * @return the scaled amount of the instruction
+	 */
+	public long amountOf(double pricePerUnit, long units, double agreedFx) {
+		return toScaled(pricePerUnit * units * agreedFx);
+	}
+	
+	/**
+	 * Calculates the fixed-point amounts of a chunk of rows of the given columns. Rows with a missing price or
+	 * exchange rate, which are NaN, are given a zero amount
+	 * 
+	 * @param pricesPerUnit the prices per unit column
+	 * @param units the units column
+	 * @param agreedFxs the agreed foreign exchange rates column
+	 * @param scaledAmounts the column the scaled amounts are stored to
+	 * @param from the first row of the chunk, inclusive
+	 * @param to the last row of the chunk, exclusive
+	 */
+	public void computeAmounts(double[] pricesPerUnit, long[] units, double[] agreedFxs, long[] scaledAmounts,
+			int from, int to) {
+		
+		double scaleFactor = scale;
+		for (int row = from; row < to; row++) {
+			scaledAmounts[row] = Math.round(pricesPerUnit[row] * units[row] * agreedFxs[row] * scaleFactor);
+		}
+		
+	}
+	
+	public int getDecimals() {
+		return decimals;
+	}
+	
+	public long getScale() {
+		return scale;
+	}
+	
+	private static final class DefaultHolder {
+		private static final FixedPointAmounts INSTANCE = new FixedPointAmounts(
+				Integer.getInteger(Constants.AMOUNT_DECIMALS_PROPERTY, Constants.AMOUNT_DECIMALS));
+	}
+
+}
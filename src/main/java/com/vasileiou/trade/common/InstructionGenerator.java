@@ -0,0 +1,396 @@
+package com.vasileiou.trade.common;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.vasileiou.trade.models.Instruction;
+
+/**
+ * A deterministic generator of synthetic instructions for load tests and benchmarks. The instructions are
+ * generated in blocks of {@link Constants#GENERATOR_BLOCK_SIZE}, where every block has its own random generator
+ * derived from the seed and the block index, so the instruction at a given position is always the same, no
+ * matter whether the instructions are generated sequentially or by a parallel stream.
+ * <p>
+ * The entities follow a Zipf distribution with a configurable exponent, where zero gives uniformly distributed
+ * entities, the currencies follow the configured mix and the configured ratio of the instructions is invalid,
+ * with a missing property, a wrongly formatted date or a settlement date before the instruction date
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class InstructionGenerator {
+	
+	// Kinds of invalid instructions
+	private static final int INVALID_KINDS = 3;
+	private static final int MISSING_PROPERTY = 0;
+	private static final int WRONG_DATE_FORMAT = 1;
+	private static final int SETTLEMENT_BEFORE_INSTRUCTION = 2;
+	
+	private static final String WRONGLY_FORMATTED_DATE = "32 Foo 2017";
+	
+	private final long seed;
+	private final String[] entities;
+	private final String[] dates;
+	
+	private double[] entityDistribution;
+	private String[] currencies = Constants.GENERATOR_DEFAULT_CURRENCIES.clone();
+	private double[] currencyDistribution;
+	private double invalidRatio;
+	
+	/**
+	 * Creates a generator of valid instructions with uniformly distributed entities and currencies
+	 * 
+	 * @param seed the seed of the generated instructions
+	 * @param numberOfEntities the number of different entities
+	 * @param firstEpochDay the epoch day of the first date of the window
+	 * @param windowDays the number of days of the window of the instruction and settlement dates
+	 */
+	public InstructionGenerator(long seed, int numberOfEntities, int firstEpochDay, int windowDays) {
+		
+		this.seed = seed;
+		
+		this.entities = new String[Math.max(numberOfEntities, 1)];
+		for (int entity = 0; entity < entities.length; entity++) {
+			entities[entity] = "Entity-" + (entity + 1);
+		}
+		
+		// Format the dates once, so that no formatting takes place per instruction
+		this.dates = new String[Math.max(windowDays, 1)];
+		for (int day = 0; day < dates.length; day++) {
+			dates[day] = Utils.formatEpochDay(firstEpochDay + day);
+		}
+		
+	}
+	
+	/**
+	 * Sets the exponent of the Zipf distribution of the entities, where the entity of rank k is chosen with
+	 * probability proportional to 1 / k^exponent
+	 * 
+	 * @param exponent the non negative exponent, where zero gives uniformly distributed entities, while invalid
+	 * exponents are ignored
+	 */
+	public void setZipfExponent(double exponent) {
+		
+		if (!(exponent >= 0) || Double.isInfinite(exponent)) {
+			Printer.print("Ignoring invalid Zipf exponent " + exponent);
+			return;
+		}
+		
+		if (exponent == 0) {
+			entityDistribution = null;
+			return;
+		}
+		
+		double[] weights = new double[entities.length];
+		for (int rank = 0; rank < weights.length; rank++) {
+			weights[rank] = 1 / Math.pow(rank + 1, exponent);
+		}
+		entityDistribution = cumulativeDistribution(weights);
+		
+	}
+	
+	/**
+	 * Sets the currencies and their relative weights
+	 * 
+	 * @param currencyWeights the weight per currency, where the iteration order of the {@link Map} is kept, while
+	 * an empty mix or negative weights are ignored
+	 */
+	public void setCurrencyMix(Map<String, Double> currencyWeights) {
+		
+		if (currencyWeights == null || currencyWeights.isEmpty()) {
+			Printer.print("Ignoring empty currency mix");
+			return;
+		}
+		
+		String[] mixCurrencies = new String[currencyWeights.size()];
+		double[] weights = new double[currencyWeights.size()];
+		int index = 0;
+		for (Map.Entry<String, Double> currencyWeight : currencyWeights.entrySet()) {
+			mixCurrencies[index] = currencyWeight.getKey();
+			weights[index++] = currencyWeight.getValue() == null ? Double.NaN : currencyWeight.getValue();
+		}
+		
+		double[] distribution = cumulativeDistribution(weights);
+		if (distribution == null) {
+			Printer.print("Ignoring currency mix with invalid weights " + currencyWeights);
+			return;
+		}
+		
+		this.currencyDistribution = distribution;
+		this.currencies = mixCurrencies;
+		
+	}
+	
+	/**
+	 * Sets the ratio of the invalid instructions
+	 * 
+	 * @param invalidRatio the ratio between zero and one, while other ratios are ignored
+	 */
+	public void setInvalidRatio(double invalidRatio) {
+		
+		if (!(invalidRatio >= 0 && invalidRatio <= 1)) {
+			Printer.print("Ignoring invalid ratio " + invalidRatio);
+			return;
+		}
+		
+		this.invalidRatio = invalidRatio;
+		
+	}
+	
+	/**
+	 * Gives a lazy stream of instructions, which can be turned to a parallel one
+	 * 
+	 * @param numberOfInstructions the number of instructions
+	 * @return a sequential ordered {@link Stream} of new {@link Instruction} objects
+	 */
+	public Stream<Instruction> stream(long numberOfInstructions) {
+		return StreamSupport.stream(new BlockSpliterator(0, numberOfInstructions), false);
+	}
+	
+	/**
+	 * Gives a lazy iterator of instructions, e.g. for the streaming parsing
+	 * 
+	 * @param numberOfInstructions the number of instructions
+	 * @return an {@link Iterator} of new {@link Instruction} objects
+	 */
+	public Iterator<Instruction> iterator(long numberOfInstructions) {
+		
+		return new Iterator<Instruction>() {
+			
+			private long position;
+			private SplittableRandom random;
+			
+			@Override
+			public boolean hasNext() {
+				return position < numberOfInstructions;
+			}
+			
+			@Override
+			public Instruction next() {
+				
+				if (!hasNext())
+					throw new NoSuchElementException();
+				
+				if (position % Constants.GENERATOR_BLOCK_SIZE == 0)
+					random = blockRandom(position / Constants.GENERATOR_BLOCK_SIZE);
+				position++;
+				
+				return generate(random);
+				
+			}
+		};
+		
+	}
+	
+	/**
+	 * Writes the instructions to a file in the format of {@link MappedFileFetcher}, without keeping them in memory
+	 * 
+	 * @param file the {@link Path} of the file, which is created or truncated
+	 * @param numberOfInstructions the number of instructions
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeTo(Path file, long numberOfInstructions) throws IOException {
+		
+		StringBuilder line = new StringBuilder(128);
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			Iterator<Instruction> instructions = iterator(numberOfInstructions);
+			while (instructions.hasNext()) {
+				line.setLength(0);
+				writer.append(InstructionLineCodec.encode(instructions.next(), line));
+			}
+		}
+		
+	}
+	
+	/**
+	 * Writes the instructions to a file in the binary format of {@link BinaryInstructionWriter}, without keeping
+	 * them in memory
+	 * 
+	 * @param file the {@link Path} of the file, which is created or truncated
+	 * @param numberOfInstructions the number of instructions
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeBinaryTo(Path file, long numberOfInstructions) throws IOException {
+		
+		try (BinaryInstructionWriter writer = new BinaryInstructionWriter(file)) {
+			Iterator<Instruction> instructions = iterator(numberOfInstructions);
+			while (instructions.hasNext()) {
+				writer.write(instructions.next());
+			}
+		}
+		
+	}
+	
+	/**
+	 * Generates the next instruction of a block, based on the same random number assumptions for the fields as
+	 * {@link FetcherImpl#getRandomInstructions}
+	 * 
+	 * @param random the {@link SplittableRandom} of the block
+	 * @return the new {@link Instruction}
+	 */
+	private Instruction generate(SplittableRandom random) {
+		
+		String entity = entities[entityDistribution == null
+									? random.nextInt(entities.length)
+									: sample(entityDistribution, random.nextDouble())];
+		String currency = currencies[currencyDistribution == null
+										? random.nextInt(currencies.length)
+										: sample(currencyDistribution, random.nextDouble())];
+		
+		int instructionDay = random.nextInt(dates.length);
+		int settlementDay = instructionDay + random.nextInt(dates.length - instructionDay);
+		
+		// Prices and rates are whole cents, so that no formatting is needed for rounding them
+		Instruction instruction = new Instruction(entity, random.nextBoolean() ? "B" : "S",
+				random.nextInt(20, 120) / 100.0, currency, dates[instructionDay], dates[settlementDay],
+				(long) random.nextInt(2, 1001), random.nextInt(500, 20100) / 100.0);
+		
+		if (invalidRatio > 0 && random.nextDouble() < invalidRatio)
+			invalidate(instruction, random.nextInt(INVALID_KINDS), instructionDay);
+		
+		return instruction;
+		
+	}
+	
+	private void invalidate(Instruction instruction, int kind, int instructionDay) {
+		
+		switch (kind) {
+		case MISSING_PROPERTY:
+			instruction.setUnits(null);
+			break;
+		case WRONG_DATE_FORMAT:
+			instruction.setSettlementDate(WRONGLY_FORMATTED_DATE);
+			break;
+		case SETTLEMENT_BEFORE_INSTRUCTION:
+			
+			// A window of a single day has no earlier date, so the instruction date is moved after it instead
+			if (instructionDay > 0) {
+				instruction.setSettlementDate(dates[instructionDay - 1]);
+			} else {
+				instruction.setInstructionDate(Utils.formatEpochDay(
+						Utils.parseEpochDay(instruction.getSettlementDate()) + 1));
+			}
+			break;
+		default:
+			break;
+		}
+		
+	}
+	
+	private SplittableRandom blockRandom(long block) {
+		
+		// Mix the block index with the seed, so that neighbouring blocks get unrelated sequences
+		return new SplittableRandom(new SplittableRandom(seed + block * 0x9E3779B97F4A7C15L).nextLong());
+		
+	}
+	
+	/**
+	 * Gives the cumulative distribution of the weights
+	 * 
+	 * @param weights the non negative weights
+	 * @return the cumulative distribution, or null if a weight is negative or all of them are zero
+	 */
+	private static double[] cumulativeDistribution(double[] weights) {
+		
+		double[] distribution = new double[weights.length];
+		double total = 0;
+		for (int index = 0; index < weights.length; index++) {
+			if (!(weights[index] >= 0))
+				return null;
+			total += weights[index];
+			distribution[index] = total;
+		}
+		
+		if (!(total > 0) || Double.isInfinite(total))
+			return null;
+		
+		for (int index = 0; index < distribution.length; index++) {
+			distribution[index] /= total;
+		}
+		
+		return distribution;
+		
+	}
+	
+	private static int sample(double[] distribution, double value) {
+		
+		int index = Arrays.binarySearch(distribution, value);
+		index = index < 0 ? -index - 1 : index + 1;
+		
+		return Math.min(index, distribution.length - 1);
+		
+	}
+	
+	/**
+	 * Splits the positions of the instructions at block boundaries, so that every part starts a block and the
+	 * parts generate exactly the same instructions as a sequential pass
+	 */
+	private class BlockSpliterator implements Spliterator<Instruction> {
+		
+		private long position;
+		private final long end;
+		private SplittableRandom random;
+		
+		BlockSpliterator(long position, long end) {
+			this.position = position;
+			this.end = end;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super Instruction> action) {
+			
+			if (position >= end)
+				return false;
+			
+			if (random == null || position % Constants.GENERATOR_BLOCK_SIZE == 0)
+				random = blockRandom(position / Constants.GENERATOR_BLOCK_SIZE);
+			position++;
+			action.accept(generate(random));
+			
+			return true;
+			
+		}
+		
+		@Override
+		public Spliterator<Instruction> trySplit() {
+			
+			// Only untouched parts are split, as the random generator of a started block cannot be shared
+			if (random != null)
+				return null;
+			
+			long blocks = (end - position + Constants.GENERATOR_BLOCK_SIZE - 1) / Constants.GENERATOR_BLOCK_SIZE;
+			if (blocks < 2)
+				return null;
+			
+			long middle = position + (blocks / 2) * Constants.GENERATOR_BLOCK_SIZE;
+			BlockSpliterator prefix = new BlockSpliterator(position, middle);
+			position = middle;
+			
+			return prefix;
+			
+		}
+		
+		@Override
+		public long estimateSize() {
+			return end - position;
+		}
+		
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+		}
+	}
+
+}
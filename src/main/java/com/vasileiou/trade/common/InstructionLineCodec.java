@@ -0,0 +1,275 @@
+package com.vasileiou.trade.common;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.vasileiou.trade.models.Instruction;
+
+/**
+ * Encoding and decoding of instructions in the line based file format. Every line holds one instruction with its
+ * fields separated by commas in the order: entity, buy or sell, agreed fx, currency, instruction date, settlement
+ * date, units and price per unit, e.g. <code>foo,B,0.50,SGP,01 Jan 2016,01 Jan 2016,200,100.25</code>. An empty
+ * field stands for a missing property. Decoding works directly on the bytes of a {@link ByteBuffer}, without
+ * creating a {@link String} per line or per numeric field
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class InstructionLineCodec {
+	
+	// The maximum number of decimal digits that are converted exactly to a double with a single division
+	private static final int MAX_EXACT_DIGITS = 15;
+	private static final int MAX_EXACT_LONG_DIGITS = 18;
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+	
+	// Scratch space for decoding the text fields
+	private byte[] textBuffer = new byte[64];
+	
+	/**
+	 * Decodes the instruction of a line
+	 * 
+	 * @param buffer the {@link ByteBuffer} holding the line
+	 * @param start the position of the first byte of the line
+	 * @param end the position after the last byte of the line, excluding the line separator
+	 * @return the decoded {@link Instruction}, where missing or wrongly formatted fields are null
+	 */
+	public Instruction decode(ByteBuffer buffer, int start, int end) {
+		
+		Instruction instruction = new Instruction();
+		
+		int fieldStart = start;
+		for (int field = 0; field < Constants.FILE_FIELDS_PER_LINE; field++) {
+			
+			// Find the end of the field, where the last field is ending with the line
+			int fieldEnd = fieldStart;
+			while (fieldEnd < end && buffer.get(fieldEnd) != Constants.FILE_FIELD_SEPARATOR) {
+				fieldEnd++;
+			}
+			
+			decodeField(instruction, field, buffer, fieldStart, fieldEnd);
+			
+			// Missing trailing fields are left null
+			if (fieldEnd >= end)
+				break;
+			fieldStart = fieldEnd + 1;
+		}
+		
+		return instruction;
+		
+	}
+	
+	/**
+	 * Gives the hash code of the entity of a line without decoding the rest of the line. It is the same as the
+	 * {@link String#hashCode()} of the decoded entity, computed straight from the bytes for ASCII entities
+	 * 
+	 * @param buffer the {@link ByteBuffer} holding the line
+	 * @param start the position of the first byte of the line
+	 * @param end the position after the last byte of the line, excluding the line separator
+	 * @return the hash code of the entity, or zero if it is missing, the same as the one of an empty entity
+	 */
+	public int entityHashCode(ByteBuffer buffer, int start, int end) {
+		
+		int fieldEnd = start;
+		while (fieldEnd < end && buffer.get(fieldEnd) != Constants.FILE_FIELD_SEPARATOR) {
+			fieldEnd++;
+		}
+		
+		// Ignore the surrounding spaces, as decoding does
+		while (start < fieldEnd && buffer.get(start) == ' ') {
+			start++;
+		}
+		while (fieldEnd > start && (buffer.get(fieldEnd - 1) == ' ' || buffer.get(fieldEnd - 1) == '\r')) {
+			fieldEnd--;
+		}
+		
+		int hash = 0;
+		for (int position = start; position < fieldEnd; position++) {
+			byte character = buffer.get(position);
+			
+			// Multibyte characters are hashed by their UTF-16 values, so they are decoded first
+			if (character < 0)
+				return decodeText(buffer, start, fieldEnd).hashCode();
+			hash = 31 * hash + character;
+		}
+		
+		return hash;
+		
+	}
+	
+	/**
+	 * Encodes an instruction to a line, including the line separator
+	 * 
+	 * @param instruction the {@link Instruction} to be encoded
+	 * @param line the {@link StringBuilder} where the line is appended
+	 * @return the given {@link StringBuilder}
+	 */
+	public static StringBuilder encode(Instruction instruction, StringBuilder line) {
+		
+		char separator = (char) Constants.FILE_FIELD_SEPARATOR;
+		
+		appendField(line, instruction.getEntity()).append(separator);
+		appendField(line, instruction.getBuyOrSellStringFlag()).append(separator);
+		appendField(line, instruction.getAgreedFx()).append(separator);
+		appendField(line, instruction.getCurrency()).append(separator);
+		appendField(line, instruction.getInstructionDate()).append(separator);
+		appendField(line, instruction.getSettlementDate()).append(separator);
+		appendField(line, instruction.getUnits()).append(separator);
+		appendField(line, instruction.getPricePerUnit()).append('\n');
+		
+		return line;
+		
+	}
+	
+	private static StringBuilder appendField(StringBuilder line, Object value) {
+		return value == null ? line : line.append(value);
+	}
+	
+	private void decodeField(Instruction instruction, int field, ByteBuffer buffer, int start, int end) {
+		
+		// Ignore the surrounding spaces
+		while (start < end && buffer.get(start) == ' ') {
+			start++;
+		}
+		while (end > start && (buffer.get(end - 1) == ' ' || buffer.get(end - 1) == '\r')) {
+			end--;
+		}
+		
+		// Empty fields are missing properties
+		if (start == end)
+			return;
+		
+		switch (field) {
+		case 0:
+			instruction.setEntity(decodeText(buffer, start, end));
+			break;
+		case 1:
+			instruction.setBuyOrSellStringFlag(decodeText(buffer, start, end));
+			break;
+		case 2:
+			instruction.setAgreedFx(decodeDouble(buffer, start, end));
+			break;
+		case 3:
+			instruction.setCurrency(decodeText(buffer, start, end));
+			break;
+		case 4:
+			instruction.setInstructionDate(decodeText(buffer, start, end));
+			break;
+		case 5:
+			instruction.setSettlementDate(decodeText(buffer, start, end));
+			break;
+		case 6:
+			instruction.setUnits(decodeLong(buffer, start, end));
+			break;
+		default:
+			instruction.setPricePerUnit(decodeDouble(buffer, start, end));
+			break;
+		}
+		
+	}
+	
+	private String decodeText(ByteBuffer buffer, int start, int end) {
+		
+		int length = end - start;
+		if (textBuffer.length < length)
+			textBuffer = new byte[Math.max(length, textBuffer.length * 2)];
+		
+		for (int index = 0; index < length; index++) {
+			textBuffer[index] = buffer.get(start + index);
+		}
+		
+		return new String(textBuffer, 0, length, StandardCharsets.UTF_8);
+		
+	}
+	
+	/**
+	 * Decodes a whole number
+	 * 
+	 * @return the {@link Long} value or null if it is not a valid whole number
+	 */
+	private Long decodeLong(ByteBuffer buffer, int start, int end) {
+		
+		boolean negative = buffer.get(start) == '-';
+		int position = negative || buffer.get(start) == '+' ? start + 1 : start;
+		if (position == end)
+			return null;
+		
+		// Numbers close to the limits may overflow, so they are left to the slow path
+		if (end - position > MAX_EXACT_LONG_DIGITS) {
+			try {
+				return Long.parseLong(decodeText(buffer, start, end));
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+		
+		long value = 0;
+		for (; position < end; position++) {
+			int digit = buffer.get(position) - '0';
+			if (digit < 0 || digit > 9)
+				return null;
+			value = value * 10 + digit;
+		}
+		
+		return negative ? -value : value;
+		
+	}
+	
+	/**
+	 * Decodes a decimal number. Plain decimals of up to fifteen significant digits are converted with a single
+	 * correctly rounded division, which gives the same value as {@link Double#parseDouble(String)}, while any
+	 * other notation falls back to it
+	 * 
+	 * @return the {@link Double} value or null if it is not a valid number
+	 */
+	private Double decodeDouble(ByteBuffer buffer, int start, int end) {
+		
+		boolean negative = buffer.get(start) == '-';
+		int position = negative || buffer.get(start) == '+' ? start + 1 : start;
+		
+		long mantissa = 0;
+		int digits = 0;
+		int decimals = -1;
+		boolean hasDigits = false;
+		for (; position < end; position++) {
+			byte character = buffer.get(position);
+			if (character == '.' && decimals < 0) {
+				decimals = 0;
+			} else if (character >= '0' && character <= '9') {
+				
+				// Leading zeros are not significant
+				if (mantissa != 0 || character != '0')
+					digits++;
+				hasDigits = true;
+				mantissa = mantissa * 10 + (character - '0');
+				if (decimals >= 0)
+					decimals++;
+				
+			} else {
+				break;
+			}
+			
+			if (digits > MAX_EXACT_DIGITS)
+				break;
+		}
+		
+		// Use the slow path for exponents, long mantissas and any unexpected content
+		if (position < end || !hasDigits || decimals == 0 || decimals >= POWERS_OF_TEN.length)
+			return decodeDoubleSlowly(buffer, start, end);
+		
+		double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+		return negative ? -value : value;
+		
+	}
+	
+	private Double decodeDoubleSlowly(ByteBuffer buffer, int start, int end) {
+		
+		try {
+			return Double.parseDouble(decodeText(buffer, start, end));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		
+	}
+
+}
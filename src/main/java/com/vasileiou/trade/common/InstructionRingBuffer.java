@@ -0,0 +1,202 @@
+package com.vasileiou.trade.common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import com.vasileiou.trade.models.Instruction;
+
+/**
+ * A bounded single-producer/single-consumer ring of instruction batches connecting two stages of a pipeline. The
+ * batch arrays are preallocated, so the producer fills a free batch in place and publishes it and the consumer
+ * processes it in place and releases it, without allocating or locking per batch. Exactly one thread may use the
+ * producer side, which is {@link #claim()}, {@link #publish(int)} and {@link #close()}, and exactly one other
+ * thread the consumer side, which is {@link #take()}, {@link #batch()} and {@link #release()}
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class InstructionRingBuffer {
+	
+	/**
+	 * The size given by {@link #take()} when the producer has closed the ring and all its batches are consumed,
+	 * or when the ring is aborted
+	 */
+	public static final int END = -1;
+	
+	// The sequences are kept far apart in the array, so that the producer and the consumer do not share a cache line
+	private static final int PADDING = 16;
+	private static final int HEAD = PADDING;
+	private static final int TAIL = 2 * PADDING;
+	
+	private final Instruction[][] batches;
+	private final int[] sizes;
+	private final int mask;
+	private final AtomicLongArray sequences = new AtomicLongArray(3 * PADDING);
+	
+	// The own sequence of every side and the last seen sequence of the other side, read again only when exhausted
+	private final Cursor producer = new Cursor();
+	private final Cursor consumer = new Cursor();
+	
+	private volatile boolean closed;
+	private volatile boolean aborted;
+	
+	/**
+	 * Creates a ring with all its batches allocated
+	 * 
+	 * @param capacity the number of batches, rounded up to a power of two
+	 * @param batchSize the maximum number of instructions of a batch
+	 */
+	public InstructionRingBuffer(int capacity, int batchSize) {
+		
+		int slots = Integer.highestOneBit(Math.max(capacity, 1));
+		if (slots < capacity)
+			slots <<= 1;
+		
+		batches = new Instruction[slots][Math.max(batchSize, 1)];
+		sizes = new int[slots];
+		mask = slots - 1;
+		
+	}
+	
+	/**
+	 * Waits for a free batch to be filled by the producer
+	 * 
+	 * @return the array of the free batch, or null if the ring is aborted
+	 */
+	public Instruction[] claim() {
+		
+		int attempt = 0;
+		while (producer.sequence - producer.cachedOther >= batches.length) {
+			producer.cachedOther = sequences.get(TAIL);
+			if (producer.sequence - producer.cachedOther < batches.length)
+				break;
+			if (!idle(attempt++))
+				return null;
+		}
+		
+		return aborted ? null : batches[(int) producer.sequence & mask];
+		
+	}
+	
+	/**
+	 * Makes the last claimed batch visible to the consumer
+	 * 
+	 * @param size the number of instructions filled in the batch
+	 */
+	public void publish(int size) {
+		
+		sizes[(int) producer.sequence & mask] = size;
+		
+		// The ordered write publishes the instructions and the size of the batch together with the sequence
+		sequences.lazySet(HEAD, ++producer.sequence);
+		
+	}
+	
+	/**
+	 * Marks that no more batches will be published, so that the consumer ends after the published ones
+	 */
+	public void close() {
+		closed = true;
+	}
+	
+	/**
+	 * Stops both sides of the ring, after a failure of one of the stages
+	 */
+	public void abort() {
+		aborted = true;
+	}
+	
+	/**
+	 * Waits for the next published batch, which is then given by {@link #batch()}
+	 * 
+	 * @return the number of instructions of the batch or {@link #END}
+	 */
+	public int take() {
+		
+		int attempt = 0;
+		while (consumer.sequence >= consumer.cachedOther) {
+			consumer.cachedOther = sequences.get(HEAD);
+			if (consumer.sequence < consumer.cachedOther)
+				break;
+			
+			// The last batches are published before closing, so the head has to be read once more
+			if (closed) {
+				consumer.cachedOther = sequences.get(HEAD);
+				if (consumer.sequence >= consumer.cachedOther)
+					return END;
+				break;
+			}
+			if (!idle(attempt++))
+				return END;
+		}
+		
+		return aborted ? END : sizes[(int) consumer.sequence & mask];
+		
+	}
+	
+	/**
+	 * Gives the batch of the last {@link #take()}
+	 * 
+	 * @return the array of the batch
+	 */
+	public Instruction[] batch() {
+		return batches[(int) consumer.sequence & mask];
+	}
+	
+	/**
+	 * Gives the batch of the last {@link #take()} back to the producer. The instructions are not cleared, as they
+	 * are overwritten when the batch is filled again
+	 */
+	public void release() {
+		sequences.lazySet(TAIL, ++consumer.sequence);
+	}
+	
+	public int getCapacity() {
+		return batches.length;
+	}
+	
+	public boolean isAborted() {
+		return aborted;
+	}
+	
+	/**
+	 * Waits a little for the other side, spinning first, then yielding and finally parking the thread
+	 * 
+	 * @param attempt the number of the previous unsuccessful attempts
+	 * @return false if the ring is aborted or the thread is interrupted and true otherwise
+	 */
+	private boolean idle(int attempt) {
+		
+		if (aborted)
+			return false;
+		
+		if (attempt >= 2 * Constants.PIPELINE_IDLE_SPINS) {
+			LockSupport.parkNanos(Constants.PIPELINE_IDLE_PARK_NANOS);
+		} else if (attempt >= Constants.PIPELINE_IDLE_SPINS) {
+			Thread.yield();
+		}
+		
+		if (Thread.currentThread().isInterrupted()) {
+			abort();
+			return false;
+		}
+		
+		return true;
+		
+	}
+
+	/**
+	 * The cursors written by a single side of the ring, padded on both sides, so that the cursors of the producer
+	 * and the consumer never share a cache line with each other or with the fields of the ring
+	 */
+	@SuppressWarnings("unused")
+	private static final class Cursor {
+		
+		long p1, p2, p3, p4, p5, p6, p7;
+		long sequence;
+		long cachedOther;
+		long q1, q2, q3, q4, q5, q6, q7;
+		
+	}
+
+}
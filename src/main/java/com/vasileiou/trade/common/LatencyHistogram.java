@@ -0,0 +1,134 @@
+package com.vasileiou.trade.common;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free histogram of latencies with a bucket per power of two nanoseconds. Every bucket is a striped
+ * {@link LongAdder}, so that concurrent recording threads do not contend, while the percentiles are given as the
+ * upper bound of their bucket, i.e. with an error of less than a factor of two
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+	
+	private static final double NANOS_PER_MILLI = 1_000_000d;
+	
+	// Bucket i holds the latencies with i significant bits, i.e. from 2^(i-1) up to 2^i - 1 nanoseconds
+	private final LongAdder[] buckets = new LongAdder[Long.SIZE + 1];
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+	
+	public LatencyHistogram() {
+		
+		for (int bucket = 0; bucket < buckets.length; bucket++) {
+			buckets[bucket] = new LongAdder();
+		}
+		
+	}
+	
+	/**
+	 * Records a latency
+	 * 
+	 * @param nanos the latency in nanoseconds, where negative latencies are recorded as zero
+	 */
+	public void record(long nanos) {
+		
+		long latency = Math.max(nanos, 0);
+		
+		buckets[Long.SIZE - Long.numberOfLeadingZeros(latency)].increment();
+		count.increment();
+		totalNanos.add(latency);
+		maxNanos.accumulate(latency);
+		
+	}
+	
+	/**
+	 * Gives the latency below which the given ratio of the recorded latencies falls
+	 * 
+	 * @param ratio the ratio between zero and one
+	 * @return the upper bound of the bucket of the percentile in milliseconds, or zero if nothing is recorded
+	 */
+	public double getPercentileMillis(double ratio) {
+		
+		long[] counts = new long[buckets.length];
+		long total = 0;
+		for (int bucket = 0; bucket < buckets.length; bucket++) {
+			counts[bucket] = buckets[bucket].sum();
+			total += counts[bucket];
+		}
+		
+		if (total == 0)
+			return 0;
+		
+		// Walk the buckets up to the rank of the percentile
+		long rank = Math.max((long) Math.ceil(ratio * total), 1);
+		long seen = 0;
+		for (int bucket = 0; bucket < buckets.length; bucket++) {
+			seen += counts[bucket];
+			if (seen >= rank) {
+				long upperBound = bucket == 0 ? 0 : bucket >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+				return Math.min(upperBound, maxNanos.get()) / NANOS_PER_MILLI;
+			}
+		}
+		
+		return getMaxMillis();
+		
+	}
+	
+	public long getTotalNanos() {
+		return totalNanos.sum();
+	}
+	
+	@Override
+	public long getCount() {
+		return count.sum();
+	}
+	
+	@Override
+	public double getMeanMillis() {
+		
+		long recorded = count.sum();
+		
+		return recorded == 0 ? 0 : totalNanos.sum() / NANOS_PER_MILLI / recorded;
+		
+	}
+	
+	@Override
+	public double getMaxMillis() {
+		return maxNanos.get() / NANOS_PER_MILLI;
+	}
+	
+	@Override
+	public double getP50Millis() {
+		return getPercentileMillis(0.5);
+	}
+	
+	@Override
+	public double getP90Millis() {
+		return getPercentileMillis(0.9);
+	}
+	
+	@Override
+	public double getP99Millis() {
+		return getPercentileMillis(0.99);
+	}
+	
+	/**
+	 * Clears the recorded latencies. Latencies recorded concurrently with the reset may be partially kept
+	 */
+	@Override
+	public void reset() {
+		
+		for (LongAdder bucket : buckets) {
+			bucket.reset();
+		}
+		count.reset();
+		totalNanos.reset();
+		maxNanos.reset();
+		
+	}
+
+}
@@ -0,0 +1,25 @@
+package com.vasileiou.trade.common;
+
+/**
+ * The JMX management interface of {@link LatencyHistogram}
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public interface LatencyHistogramMBean {
+	
+	long getCount();
+	
+	double getMeanMillis();
+	
+	double getMaxMillis();
+	
+	double getP50Millis();
+	
+	double getP90Millis();
+	
+	double getP99Millis();
+	
+	void reset();
+
+}
@@ -0,0 +1,320 @@
+package com.vasileiou.trade.common;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.vasileiou.trade.enums.Stage;
+import com.vasileiou.trade.interfaces.Fetcher;
+import com.vasileiou.trade.models.Instruction;
+
+/**
+ * A {@link Fetcher} implementation reading the instructions of a file in the line based format of
+ * {@link InstructionLineCodec}. The file is split at line boundaries into chunks, every chunk is memory mapped and
+ * the chunks are decoded in parallel, so that large files are read without copying them through a reader. A
+ * {@link LineFilter} skips the unwanted lines before they are decoded. A file that cannot be read fails the fetch
+ * with an {@link UncheckedIOException}, instead of giving partial instructions
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class MappedFileFetcher implements Fetcher {
+	
+	// Accepts every line
+	private static final LineFilter ALL_LINES = (codec, buffer, start, end) -> true;
+	
+	private final Path file;
+	private final int parallelism;
+	private final LineFilter lineFilter;
+	
+	/**
+	 * Creates a fetcher using all the available cores
+	 * 
+	 * @param file the {@link Path} of the instructions file
+	 */
+	public MappedFileFetcher(Path file) {
+		this(file, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Creates a fetcher
+	 * 
+	 * @param file the {@link Path} of the instructions file
+	 * @param parallelism the number of threads decoding the chunks of the file
+	 */
+	public MappedFileFetcher(Path file, int parallelism) {
+		this(file, parallelism, ALL_LINES);
+	}
+	
+	/**
+	 * Creates a fetcher decoding only some of the lines
+	 * 
+	 * @param file the {@link Path} of the instructions file
+	 * @param parallelism the number of threads decoding the chunks of the file
+	 * @param lineFilter the {@link LineFilter} of the lines to be decoded
+	 */
+	public MappedFileFetcher(Path file, int parallelism, LineFilter lineFilter) {
+		this.file = file;
+		this.parallelism = Math.max(parallelism, 1);
+		this.lineFilter = lineFilter;
+	}
+	
+	@Override
+	public List<Instruction> getInstructionsFromClients() {
+		
+		long start = System.nanoTime();
+		List<Instruction> instructions = fetchInstructions();
+		PipelineMetrics.getDefault().recordStage(Stage.FETCH, start, instructions.size());
+		
+		return instructions;
+		
+	}
+	
+	/**
+	 * Decodes the chunks of the file in parallel
+	 * 
+	 * @return a {@link List} of {@link Instruction} objects in the order of the file
+	 * @throws UncheckedIOException if the file or any of its chunks cannot be read
+	 */
+	private List<Instruction> fetchInstructions() {
+		
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			
+			List<long[]> chunks = splitToChunks(channel, parallelism * Constants.FILE_CHUNKS_PER_WORKER,
+					Constants.FILE_MAX_CHUNK_SIZE);
+			
+			// Decode every chunk in its own task and keep the order of the chunks in the result
+			List<Callable<List<Instruction>>> tasks = new ArrayList<>();
+			for (long[] chunk : chunks) {
+				tasks.add(() -> decodeChunk(channel, chunk[0], chunk[1], lineFilter));
+			}
+			
+			ExecutorService executor = Executors.newFixedThreadPool(Math.max(Math.min(parallelism, chunks.size()), 1));
+			try {
+				List<Instruction> instructions = new ArrayList<>();
+				for (Future<List<Instruction>> result : executor.invokeAll(tasks)) {
+					instructions.addAll(result.get());
+				}
+				return instructions;
+			} finally {
+				executor.shutdown();
+			}
+			
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (ExecutionException e) {
+			// A chunk failing to decode fails the whole file
+			if (e.getCause() instanceof IOException)
+				throw new UncheckedIOException((IOException) e.getCause());
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedIOException(new InterruptedIOException("Interrupted while reading " + file));
+		}
+		
+	}
+	
+	/**
+	 * Decodes the file chunk by chunk, so that only a single chunk of instructions is held in memory at a time
+	 * 
+	 * @return an {@link Iterator} of {@link Instruction} objects, which throws an {@link UncheckedIOException} and
+	 * stops at the first chunk that cannot be read
+	 * @throws UncheckedIOException if the file cannot be read
+	 */
+	@Override
+	public Iterator<Instruction> streamInstructionsFromClients() {
+		
+		final List<long[]> chunks;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			chunks = splitToChunks(channel, 1, Constants.FILE_STREAMING_CHUNK_SIZE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		
+		return new Iterator<Instruction>() {
+			
+			private int nextChunk = 0;
+			private Iterator<Instruction> current = Collections.emptyIterator();
+			
+			@Override
+			public boolean hasNext() {
+				
+				while (!current.hasNext() && nextChunk < chunks.size()) {
+					long[] chunk = chunks.get(nextChunk++);
+					try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+						current = decodeChunk(channel, chunk[0], chunk[1], lineFilter).iterator();
+					} catch (IOException e) {
+						nextChunk = chunks.size();
+						throw new UncheckedIOException(e);
+					}
+				}
+				
+				return current.hasNext();
+				
+			}
+			
+			@Override
+			public Instruction next() {
+				
+				if (!hasNext())
+					throw new NoSuchElementException();
+				
+				return current.next();
+				
+			}
+		};
+		
+	}
+	
+	@Override
+	public List<Instruction> getRandomInstructions(int numberOfInstructions, int numberOfEntities, 
+			Calendar dateStart, Calendar dateEnd) {
+		return FetcherImpl.getInstance().getRandomInstructions(numberOfInstructions, numberOfEntities, dateStart,
+				dateEnd);
+	}
+	
+	/**
+	 * Splits the file into chunks ending at line boundaries. The file is split into at least the requested number
+	 * of chunks and into more when needed, so that no chunk is much larger than the maximum chunk size
+	 * 
+	 * @param channel the {@link FileChannel} of the file
+	 * @param minimumChunks the minimum number of chunks
+	 * @param maximumChunkSize the maximum size of a chunk, which is exceeded only up to the end of its last line
+	 * @return a {@link List} of chunks, given as pairs of start and end positions
+	 * @throws IOException if the file cannot be read
+	 */
+	static List<long[]> splitToChunks(FileChannel channel, int minimumChunks, long maximumChunkSize)
+			throws IOException {
+		
+		long fileSize = channel.size();
+		long chunks = Math.max(minimumChunks, (fileSize + maximumChunkSize - 1) / maximumChunkSize);
+		long chunkSize = Math.max(fileSize / chunks, 1);
+		
+		List<long[]> boundaries = new ArrayList<>();
+		ByteBuffer lookup = ByteBuffer.allocate(Constants.FILE_LINE_LOOKUP_SIZE);
+		
+		long start = 0;
+		while (start < fileSize) {
+			
+			// Move the approximate end to the byte after the next line separator
+			long end = Math.min(start + chunkSize, fileSize);
+			while (end < fileSize) {
+				lookup.clear();
+				int read = channel.read(lookup, end);
+				if (read <= 0)
+					break;
+				
+				int separator = -1;
+				for (int index = 0; index < read && separator < 0; index++) {
+					if (lookup.get(index) == '\n')
+						separator = index;
+				}
+				
+				if (separator >= 0) {
+					end += separator + 1;
+					break;
+				}
+				end += read;
+			}
+			end = Math.min(end, fileSize);
+			
+			boundaries.add(new long[] { start, end });
+			start = end;
+		}
+		
+		return boundaries;
+		
+	}
+	
+	/**
+	 * Maps a chunk of the file and decodes all of its lines
+	 * 
+	 * @param channel the {@link FileChannel} of the file
+	 * @param start the position of the first byte of the chunk
+	 * @param end the position after the last byte of the chunk
+	 * @return the {@link List} of the decoded {@link Instruction} objects
+	 * @throws IOException if the chunk cannot be mapped
+	 */
+	static List<Instruction> decodeChunk(FileChannel channel, long start, long end) throws IOException {
+		return decodeChunk(channel, start, end, ALL_LINES);
+	}
+	
+	/**
+	 * Maps a chunk of the file and decodes the lines accepted by a filter
+	 * 
+	 * @param channel the {@link FileChannel} of the file
+	 * @param start the position of the first byte of the chunk
+	 * @param end the position after the last byte of the chunk
+	 * @param lineFilter the {@link LineFilter} of the lines to be decoded
+	 * @return the {@link List} of the decoded {@link Instruction} objects
+	 * @throws IOException if the chunk cannot be mapped
+	 */
+	static List<Instruction> decodeChunk(FileChannel channel, long start, long end, LineFilter lineFilter)
+			throws IOException {
+		
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		InstructionLineCodec codec = new InstructionLineCodec();
+		List<Instruction> instructions = new ArrayList<>();
+		
+		int limit = buffer.limit();
+		int lineStart = 0;
+		while (lineStart < limit) {
+			
+			int lineEnd = lineStart;
+			while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+				lineEnd++;
+			}
+			
+			// Skip the empty lines, the comments and the lines of no interest
+			if (!isBlankOrComment(buffer, lineStart, lineEnd) && lineFilter.accept(codec, buffer, lineStart, lineEnd))
+				instructions.add(codec.decode(buffer, lineStart, lineEnd));
+			
+			lineStart = lineEnd + 1;
+		}
+		
+		return instructions;
+		
+	}
+	
+	static boolean isBlankOrComment(ByteBuffer buffer, int start, int end) {
+		
+		for (int position = start; position < end; position++) {
+			byte character = buffer.get(position);
+			if (character == Constants.FILE_COMMENT_PREFIX)
+				return true;
+			if (character != ' ' && character != '\r' && character != '\t')
+				return false;
+		}
+		
+		return true;
+		
+	}
+
+	/**
+	 * A filter of the raw lines of the file, given the {@link InstructionLineCodec} of the chunk for inspecting the
+	 * fields of a line, which tells whether a line is decoded at all
+	 */
+	@FunctionalInterface
+	public interface LineFilter {
+		boolean accept(InstructionLineCodec codec, ByteBuffer buffer, int start, int end);
+	}
+
+}
@@ -0,0 +1,426 @@
+package com.vasileiou.trade.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.vasileiou.trade.enums.Stage;
+import com.vasileiou.trade.interfaces.Fetcher;
+import com.vasileiou.trade.models.Instruction;
+
+/**
+ * A {@link Fetcher} implementation reading many sources, such as files, sockets and spool directories, at the same
+ * time. Every source is read by its own thread into its own bounded queue of instruction batches, so a full queue
+ * blocks only the thread of its source until the parser catches up, and a slow source never stalls the others, as
+ * the parser is given the batch of any source that has one, serving the sources in turn. The instructions of a
+ * source keep their order, while the instructions of different sources are interleaved. A failing source fails
+ * the whole iteration once the instructions read before its failure are given, so that partial input is never
+ * mistaken for a complete one.
+ * <p>
+ * The batch size of every source adapts to the parser: it doubles when the queue of the source is full, so that
+ * fast sources hand over fewer and larger batches, and halves when the queue is empty, so that a source slower
+ * than the parser does not keep its instructions in a partially filled batch for long. The statistics of every
+ * source are given by {@link #getStatistics()} and can be exposed through JMX with {@link #register(MBeanServer)}
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class MultiSourceFetcher implements Fetcher {
+	
+	// The marker put to the queue of a source after its last batch
+	private static final List<Instruction> END = Collections.emptyList();
+	
+	private final List<Fetcher> sources = new ArrayList<>();
+	private final List<SourceStatistics> statistics = new ArrayList<>();
+	private final int queueCapacity;
+	private final List<Thread> readers = new ArrayList<>();
+	
+	public MultiSourceFetcher() {
+		this(Constants.FETCHER_QUEUE_CAPACITY);
+	}
+	
+	/**
+	 * Creates a fetcher without any source
+	 * 
+	 * @param queueCapacity the maximum number of batches waiting in the queue of every source
+	 */
+	public MultiSourceFetcher(int queueCapacity) {
+		this.queueCapacity = Math.max(queueCapacity, 1);
+	}
+	
+	/**
+	 * Adds a source
+	 * 
+	 * @param name the name of the source in its statistics
+	 * @param source the {@link Fetcher} of the source, which is streamed on its own thread
+	 * @return this {@link MultiSourceFetcher}
+	 */
+	public MultiSourceFetcher addSource(String name, Fetcher source) {
+		
+		sources.add(source);
+		statistics.add(new SourceStatistics(name));
+		
+		return this;
+		
+	}
+	
+	/**
+	 * Adds an instructions file, read with a {@link MappedFileFetcher}
+	 * 
+	 * @param file the {@link Path} of the file
+	 * @return this {@link MultiSourceFetcher}
+	 */
+	public MultiSourceFetcher addFile(Path file) {
+		return addSource(file.toString(), new MappedFileFetcher(file));
+	}
+	
+	/**
+	 * Adds an input stream, such as the one of a socket, read with a {@link StreamFetcher}
+	 * 
+	 * @param name the name of the source in its statistics
+	 * @param input the {@link InputStream} of the instructions
+	 * @return this {@link MultiSourceFetcher}
+	 */
+	public MultiSourceFetcher addStream(String name, InputStream input) {
+		return addSource(name, new StreamFetcher(input));
+	}
+	
+	/**
+	 * Adds a spool directory as a single source, whose instructions files are read one after the other in the
+	 * order of their names
+	 * 
+	 * @param directory the {@link Path} of the directory
+	 * @return this {@link MultiSourceFetcher}
+	 */
+	public MultiSourceFetcher addSpoolDirectory(Path directory) {
+		return addSource(directory.toString(), new SpoolDirectoryFetcher(directory));
+	}
+	
+	/**
+	 * Registers the statistics of all the sources added so far to an MBean server as
+	 * <code>com.vasileiou.trade:type=FetcherSource,name=&lt;name&gt;</code>. A failed registration is reported and
+	 * does not affect the fetching
+	 * 
+	 * @param server the {@link MBeanServer} to register to
+	 */
+	public void register(MBeanServer server) {
+		
+		try {
+			for (SourceStatistics sourceStatistics : statistics) {
+				server.registerMBean(sourceStatistics, new ObjectName(Constants.METRICS_DOMAIN
+						+ ":type=FetcherSource,name=" + ObjectName.quote(sourceStatistics.getName())));
+			}
+		} catch (JMException e) {
+			Printer.print("Source statistics are not exposed through JMX: " + e.getMessage());
+		}
+		
+	}
+	
+	public List<SourceStatistics> getStatistics() {
+		return Collections.unmodifiableList(statistics);
+	}
+	
+	@Override
+	public List<Instruction> getInstructionsFromClients() {
+		
+		List<Instruction> instructions = new ArrayList<>();
+		streamInstructionsFromClients().forEachRemaining(instructions::add);
+		
+		return instructions;
+		
+	}
+	
+	/**
+	 * Starts reading all the sources and gives their instructions as soon as a batch of any source is available.
+	 * The sources are read again on every call, so a source that can be read only once, such as a socket, is empty
+	 * the second time
+	 * 
+	 * @return an {@link Iterator} of {@link Instruction} objects of all the sources, which throws the exception of
+	 *         the first failing source, such as an {@link UncheckedIOException}, after the instructions read from it
+	 *         before failing
+	 */
+	@Override
+	public Iterator<Instruction> streamInstructionsFromClients() {
+		
+		long start = System.nanoTime();
+		List<BlockingQueue<List<Instruction>>> queues = new ArrayList<>();
+		Semaphore available = new Semaphore(0);
+		
+		for (int source = 0; source < sources.size(); source++) {
+			BlockingQueue<List<Instruction>> queue = new ArrayBlockingQueue<>(queueCapacity);
+			queues.add(queue);
+			statistics.get(source).start(queue, queueCapacity, Constants.FETCHER_INITIAL_BATCH_SIZE);
+			
+			Fetcher fetcher = sources.get(source);
+			SourceStatistics sourceStatistics = statistics.get(source);
+			Thread reader = new Thread(() -> read(fetcher, queue, available, sourceStatistics),
+					"trade-fetcher-" + sourceStatistics.getName());
+			
+			// A blocked source must not keep the application alive
+			reader.setDaemon(true);
+			reader.start();
+			readers.add(reader);
+		}
+		
+		return new Iterator<Instruction>() {
+			
+			private int remaining = queues.size();
+			private int nextQueue;
+			private long fetched;
+			private List<Instruction> batch = Collections.emptyList();
+			private int position;
+			private RuntimeException failure;
+			
+			@Override
+			public boolean hasNext() {
+				
+				while (position >= batch.size()) {
+					if (failure != null)
+						throw failure;
+					if (remaining == 0)
+						return false;
+					
+					try {
+						available.acquire();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						close();
+						remaining = 0;
+						return false;
+					}
+					
+					// Every permit stands for a batch already in a queue, starting after the last served source
+					List<Instruction> next = null;
+					for (int attempt = 0; next == null; attempt++) {
+						next = queues.get((nextQueue + attempt) % queues.size()).poll();
+						if (next != null)
+							nextQueue = (nextQueue + attempt + 1) % queues.size();
+					}
+					
+					if (next == END) {
+						if (--remaining == 0)
+							PipelineMetrics.getDefault().recordStage(Stage.FETCH, start, fetched);
+					} else if (next instanceof Failure) {
+						// The other sources are not needed anymore, and the failure is given on every call
+						close();
+						failure = ((Failure) next).getCause();
+					} else {
+						batch = next;
+						position = 0;
+						fetched += batch.size();
+					}
+				}
+				
+				return true;
+				
+			}
+			
+			@Override
+			public Instruction next() {
+				
+				if (!hasNext())
+					throw new NoSuchElementException();
+				
+				return batch.get(position++);
+				
+			}
+		};
+		
+	}
+	
+	/**
+	 * Stops reading the sources, for when the instructions are not needed until their end
+	 */
+	public void close() {
+		
+		for (Thread reader : readers) {
+			reader.interrupt();
+		}
+		readers.clear();
+		
+	}
+	
+	@Override
+	public List<Instruction> getRandomInstructions(int numberOfInstructions, int numberOfEntities,
+			Calendar dateStart, Calendar dateEnd) {
+		return FetcherImpl.getInstance().getRandomInstructions(numberOfInstructions, numberOfEntities, dateStart,
+				dateEnd);
+	}
+	
+	/**
+	 * Reads a source into its queue, on the thread of the source
+	 */
+	private static void read(Fetcher source, BlockingQueue<List<Instruction>> queue, Semaphore available,
+			SourceStatistics sourceStatistics) {
+		
+		int batchSize = Constants.FETCHER_INITIAL_BATCH_SIZE;
+		List<Instruction> batch = new ArrayList<>(batchSize);
+		try {
+			try {
+				Iterator<Instruction> instructions = source.streamInstructionsFromClients();
+				while (instructions.hasNext()) {
+					batch.add(instructions.next());
+					if (batch.size() >= batchSize) {
+						batchSize = put(batch, queue, available, sourceStatistics, batchSize);
+						batch = new ArrayList<>(batchSize);
+					}
+				}
+			} catch (RuntimeException e) {
+				// The instructions read so far are given before the failure, which ends the iteration
+				sourceStatistics.recordFailure();
+				if (!batch.isEmpty())
+					put(batch, queue, available, sourceStatistics, batchSize);
+				queue.put(new Failure(e));
+				available.release();
+				return;
+			}
+			
+			if (!batch.isEmpty())
+				put(batch, queue, available, sourceStatistics, batchSize);
+			queue.put(END);
+			available.release();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			sourceStatistics.finish();
+		}
+		
+	}
+	
+	/**
+	 * Puts a batch to the queue of a source, waiting while the queue is full, and adapts the batch size
+	 * 
+	 * @return the size of the next batch
+	 */
+	private static int put(List<Instruction> batch, BlockingQueue<List<Instruction>> queue, Semaphore available,
+			SourceStatistics sourceStatistics, int batchSize) throws InterruptedException {
+		
+		int nextBatchSize = batchSize;
+		if (queue.remainingCapacity() == 0) {
+			nextBatchSize = Math.min(batchSize * 2, Constants.FETCHER_MAX_BATCH_SIZE);
+		} else if (queue.isEmpty()) {
+			nextBatchSize = Math.max(batchSize / 2, Constants.FETCHER_MIN_BATCH_SIZE);
+		}
+		
+		queue.put(batch);
+		available.release();
+		sourceStatistics.recordBatch(batch.size(), nextBatchSize);
+		
+		return nextBatchSize;
+		
+	}
+	
+	/**
+	 * The marker put to the queue of a failing source after the batch of the instructions read before its failure
+	 */
+	private static class Failure extends AbstractList<Instruction> {
+		
+		private final RuntimeException cause;
+		
+		Failure(RuntimeException cause) {
+			this.cause = cause;
+		}
+		
+		RuntimeException getCause() {
+			return cause;
+		}
+		
+		@Override
+		public Instruction get(int index) {
+			throw new IndexOutOfBoundsException();
+		}
+		
+		@Override
+		public int size() {
+			return 0;
+		}
+	}
+	
+	/**
+	 * A {@link Fetcher} reading the instructions files of a directory one after the other in the order of their
+	 * names
+	 */
+	private static class SpoolDirectoryFetcher implements Fetcher {
+		
+		private final Path directory;
+		
+		SpoolDirectoryFetcher(Path directory) {
+			this.directory = directory;
+		}
+		
+		@Override
+		public List<Instruction> getInstructionsFromClients() {
+			
+			List<Instruction> instructions = new ArrayList<>();
+			streamInstructionsFromClients().forEachRemaining(instructions::add);
+			
+			return instructions;
+			
+		}
+		
+		@Override
+		public Iterator<Instruction> streamInstructionsFromClients() {
+			
+			final List<Path> files;
+			try (Stream<Path> entries = Files.list(directory)) {
+				files = entries.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			
+			return new Iterator<Instruction>() {
+				
+				private int nextFile = 0;
+				private Iterator<Instruction> current = Collections.emptyIterator();
+				
+				@Override
+				public boolean hasNext() {
+					
+					while (!current.hasNext() && nextFile < files.size()) {
+						current = new MappedFileFetcher(files.get(nextFile++)).streamInstructionsFromClients();
+					}
+					
+					return current.hasNext();
+					
+				}
+				
+				@Override
+				public Instruction next() {
+					
+					if (!hasNext())
+						throw new NoSuchElementException();
+					
+					return current.next();
+					
+				}
+			};
+			
+		}
+		
+		@Override
+		public List<Instruction> getRandomInstructions(int numberOfInstructions, int numberOfEntities,
+				Calendar dateStart, Calendar dateEnd) {
+			return FetcherImpl.getInstance().getRandomInstructions(numberOfInstructions, numberOfEntities,
+					dateStart, dateEnd);
+		}
+	}
+
+}
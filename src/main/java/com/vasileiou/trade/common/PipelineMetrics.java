@@ -0,0 +1,196 @@
+package com.vasileiou.trade.common;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.vasileiou.trade.enums.Stage;
+import com.vasileiou.trade.enums.Status;
+
+/**
+ * The metrics of the reporting pipeline: the number of the validated instructions per {@link Status}, the
+ * number of the corrected settlement dates and a {@link LatencyHistogram} with the number of handled
+ * instructions per {@link Stage}. All of them are striped counters without locking, so that they are always on.
+ * <p>
+ * The default metrics are registered to the platform MBean server as
+ * <code>com.vasileiou.trade:type=PipelineMetrics</code> and
+ * <code>com.vasileiou.trade:type=StageLatency,stage=&lt;STAGE&gt;</code>
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class PipelineMetrics implements PipelineMetricsMBean {
+	
+	private static final Status[] STATUSES = Status.values();
+	private static final Stage[] STAGES = Stage.values();
+	
+	private final LongAdder[] statusCounts = new LongAdder[STATUSES.length];
+	private final LongAdder settlementDateCorrections = new LongAdder();
+	private final LatencyHistogram[] stageLatencies = new LatencyHistogram[STAGES.length];
+	private final LongAdder[] stageInstructions = new LongAdder[STAGES.length];
+	
+	public PipelineMetrics() {
+		
+		for (int status = 0; status < statusCounts.length; status++) {
+			statusCounts[status] = new LongAdder();
+		}
+		for (int stage = 0; stage < stageLatencies.length; stage++) {
+			stageLatencies[stage] = new LatencyHistogram();
+			stageInstructions[stage] = new LongAdder();
+		}
+		
+	}
+	
+	/**
+	 * Gives the metrics shared by the whole application, registering them to the platform MBean server on first use
+	 * 
+	 * @return the default {@link PipelineMetrics}
+	 */
+	public static PipelineMetrics getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+	
+	/**
+	 * Registers the metrics and the latency histograms of the stages to an MBean server. A failed registration is
+	 * reported and does not affect the recording of the metrics
+	 * 
+	 * @param server the {@link MBeanServer} to register to
+	 */
+	public void register(MBeanServer server) {
+		
+		try {
+			server.registerMBean(this, new ObjectName(Constants.METRICS_DOMAIN + ":type=PipelineMetrics"));
+			for (Stage stage : STAGES) {
+				server.registerMBean(getLatency(stage),
+						new ObjectName(Constants.METRICS_DOMAIN + ":type=StageLatency,stage=" + stage.name()));
+			}
+		} catch (JMException e) {
+			Printer.print("Metrics are not exposed through JMX: " + e.getMessage());
+		}
+		
+	}
+	
+	/**
+	 * Counts a validated instruction
+	 * 
+	 * @param status the {@link Status} of the instruction
+	 */
+	public void recordStatus(Status status) {
+		statusCounts[status.ordinal()].increment();
+	}
+	
+	/**
+	 * Counts a settlement date moved to the next working day
+	 */
+	public void recordSettlementDateCorrection() {
+		settlementDateCorrections.increment();
+	}
+	
+	/**
+	 * Records the latency of a finished stage
+	 * 
+	 * @param stage the finished {@link Stage}
+	 * @param startNanos the {@link System#nanoTime()} when the stage started
+	 * @param instructions the number of instructions handled by the stage
+	 */
+	public void recordStage(Stage stage, long startNanos, long instructions) {
+		
+		stageLatencies[stage.ordinal()].record(System.nanoTime() - startNanos);
+		stageInstructions[stage.ordinal()].add(instructions);
+		
+	}
+	
+	public long getStatusCount(Status status) {
+		return statusCounts[status.ordinal()].sum();
+	}
+	
+	public LatencyHistogram getLatency(Stage stage) {
+		return stageLatencies[stage.ordinal()];
+	}
+	
+	public long getStageInstructions(Stage stage) {
+		return stageInstructions[stage.ordinal()].sum();
+	}
+	
+	/**
+	 * Gives the throughput of a stage over all its recorded runs
+	 * 
+	 * @param stage the {@link Stage}
+	 * @return the handled instructions per second of the time spent in the stage, or zero if it has not run
+	 */
+	public double getInstructionsPerSecond(Stage stage) {
+		
+		long nanos = getLatency(stage).getTotalNanos();
+		
+		return nanos == 0 ? 0 : getStageInstructions(stage) * 1e9 / nanos;
+		
+	}
+	
+	@Override
+	public long getValidInstructions() {
+		return getStatusCount(Status.VALID);
+	}
+	
+	@Override
+	public long getMissingPropertyInstructions() {
+		return getStatusCount(Status.MISSING_PROPERTY);
+	}
+	
+	@Override
+	public long getWrongDateFormatInstructions() {
+		return getStatusCount(Status.WRONG_DATE_FORMAT);
+	}
+	
+	@Override
+	public long getInvalidSettlementDateInstructions() {
+		return getStatusCount(Status.INVALID_SETTLEMENT_DATE);
+	}
+	
+	@Override
+	public long getSettlementDateCorrections() {
+		return settlementDateCorrections.sum();
+	}
+	
+	@Override
+	public double getFetchedInstructionsPerSecond() {
+		return getInstructionsPerSecond(Stage.FETCH);
+	}
+	
+	@Override
+	public double getParsedInstructionsPerSecond() {
+		return getInstructionsPerSecond(Stage.PARSE);
+	}
+	
+	/**
+	 * Clears all the metrics. Values recorded concurrently with the reset may be partially kept
+	 */
+	@Override
+	public void reset() {
+		
+		for (LongAdder statusCount : statusCounts) {
+			statusCount.reset();
+		}
+		settlementDateCorrections.reset();
+		for (int stage = 0; stage < stageLatencies.length; stage++) {
+			stageLatencies[stage].reset();
+			stageInstructions[stage].reset();
+		}
+		
+	}
+	
+	/**
+	 * Holder of the default metrics, which are created and registered when they are first used
+	 */
+	private static final class DefaultHolder {
+		
+		private static final PipelineMetrics INSTANCE = new PipelineMetrics();
+		
+		static {
+			INSTANCE.register(ManagementFactory.getPlatformMBeanServer());
+		}
+	}
+
+}
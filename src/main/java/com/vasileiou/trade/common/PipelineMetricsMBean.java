@@ -0,0 +1,27 @@
+package com.vasileiou.trade.common;
+
+/**
+ * The JMX management interface of {@link PipelineMetrics}
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public interface PipelineMetricsMBean {
+	
+	long getValidInstructions();
+	
+	long getMissingPropertyInstructions();
+	
+	long getWrongDateFormatInstructions();
+	
+	long getInvalidSettlementDateInstructions();
+	
+	long getSettlementDateCorrections();
+	
+	double getFetchedInstructionsPerSecond();
+	
+	double getParsedInstructionsPerSecond();
+	
+	void reset();
+
+}
@@ -1,5 +1,16 @@
 package com.vasileiou.trade.common;
 
+import java.io.BufferedWriter;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 /**
  * A generic implementation of Output printer
  * 
@@ -19,4 +30,51 @@ public class Printer {
 		
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Opens a buffered sink to the console for writing reports incrementally. Closing it flushes the buffered
+	 * output but keeps the console open
+	 * 
+	 * @return the {@link Writer} of the console
+	 */
+	public static Writer openConsole() {
+		
+		Writer console = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8),
+				Constants.REPORT_OUTPUT_CHUNK_SIZE);
+		
+		return new FilterWriter(console) {
+			
+			@Override
+			public void close() throws IOException {
+				flush();
+			}
+		};
+		
+	}
+	
+	/**
+	 * Opens a buffered sink to a file for writing reports incrementally, where an existing file is truncated
+	 * 
+	 * @param file the {@link Path} of the file
+	 * @return the {@link Writer} of the file
+	 * @throws IOException if the file cannot be opened
+	 */
+	public static Writer openFile(Path file) throws IOException {
+		
+		return Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+		
+	}
+	
+	/**
+	 * Opens a buffered sink to a channel for writing reports incrementally
+	 * 
+	 * @param channel the {@link WritableByteChannel} to write to, which is closed with the sink
+	 * @return the {@link Writer} of the channel
+	 */
+	public static Writer openChannel(WritableByteChannel channel) {
+		
+		return new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(),
+				Constants.REPORT_OUTPUT_CHUNK_SIZE), Constants.REPORT_OUTPUT_CHUNK_SIZE);
+		
+	}
+
+}
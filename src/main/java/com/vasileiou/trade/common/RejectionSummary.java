@@ -0,0 +1,239 @@
+package com.vasileiou.trade.common;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.vasileiou.trade.enums.Status;
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.InstructionStore;
+
+/**
+ * The aggregates of the rejected instructions, collected by the parser in the same pass as the valid ones. It
+ * keeps the number and the amount of the rejected instructions per {@link Status}, per entity and per currency,
+ * together with the first few rejected instructions of every status as samples, so that its size is bounded by
+ * the entities and currencies and not by the number of rejected instructions. The amounts are scaled fixed-point
+ * longs of the default {@link FixedPointAmounts}, so the totals are exact whatever the order of the merges. It is not
+ * thread safe, so partial summaries are combined with {@link #merge(RejectionSummary)}
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class RejectionSummary implements Serializable {
+	
+	private static final long serialVersionUID = -3520874916230468167L;
+	
+	private static final Status[] STATUSES = Status.values();
+	
+	private final int samplesPerStatus;
+	private final long[] counts = new long[STATUSES.length];
+	private final long[] amounts = new long[STATUSES.length];
+	private final HashMap<String, Totals> perEntity = new HashMap<>();
+	private final HashMap<String, Totals> perCurrency = new HashMap<>();
+	private final List<List<Instruction>> samples = new ArrayList<>(STATUSES.length);
+	
+	public RejectionSummary() {
+		this(Constants.REJECTION_SAMPLES_PER_STATUS);
+	}
+	
+	/**
+	 * Creates an empty summary
+	 * 
+	 * @param samplesPerStatus the maximum number of rejected instructions kept as samples per status
+	 */
+	public RejectionSummary(int samplesPerStatus) {
+		
+		this.samplesPerStatus = Math.max(samplesPerStatus, 0);
+		for (int status = 0; status < STATUSES.length; status++) {
+			samples.add(new ArrayList<Instruction>());
+		}
+		
+	}
+	
+	/**
+	 * Adds an already validated instruction to the summary. Valid instructions are ignored
+	 * 
+	 * @param instruction the validated {@link Instruction}
+	 */
+	public void add(Instruction instruction) {
+		
+		Status status = instruction.getStatus();
+		if (status == null || status == Status.VALID)
+			return;
+		
+		// The amount is not calculated when a property is missing
+		long scaledAmount = instruction.getAmountOfTrade() == null ? 0
+				: FixedPointAmounts.getDefault().toScaled(instruction.getAmountOfTrade());
+		add(status, instruction.getEntity(), instruction.getCurrency(), scaledAmount);
+		
+		List<Instruction> statusSamples = samples.get(status.ordinal());
+		if (statusSamples.size() < samplesPerStatus)
+			statusSamples.add(instruction);
+		
+	}
+	
+	/**
+	 * Adds an already validated row of an {@link InstructionStore} to the summary. Valid rows are ignored and the
+	 * row is converted to an {@link Instruction} only if it is kept as a sample
+	 * 
+	 * @param store the {@link InstructionStore} holding the instruction
+	 * @param row the row of the instruction
+	 */
+	public void add(InstructionStore store, int row) {
+		
+		byte status = store.getStatus(row);
+		if (status == InstructionStore.NOT_PARSED || status == Status.VALID.ordinal())
+			return;
+		
+		long scaledAmount = status == Status.MISSING_PROPERTY.ordinal() ? 0 : store.getScaledAmount(row);
+		add(STATUSES[status], store.getEntities().decode(store.getEntityId(row)),
+				store.getCurrencies().decode(store.getCurrencyId(row)), scaledAmount);
+		
+		List<Instruction> statusSamples = samples.get(status);
+		if (statusSamples.size() < samplesPerStatus)
+			statusSamples.add(store.getInstruction(row));
+		
+	}
+	
+	/**
+	 * Adds all the rejections of a summary of later instructions to this one. The samples of this summary come
+	 * first, so that merging the summaries of consecutive ranges keeps the samples in input order
+	 * 
+	 * @param later the {@link RejectionSummary} to be added
+	 * @return this {@link RejectionSummary}
+	 */
+	public RejectionSummary merge(RejectionSummary later) {
+		
+		for (int status = 0; status < STATUSES.length; status++) {
+			counts[status] += later.counts[status];
+			amounts[status] = Math.addExact(amounts[status], later.amounts[status]);
+			
+			List<Instruction> statusSamples = samples.get(status);
+			for (Instruction sample : later.samples.get(status)) {
+				if (statusSamples.size() >= samplesPerStatus)
+					break;
+				statusSamples.add(sample);
+			}
+		}
+		
+		for (Map.Entry<String, Totals> entityEntry : later.perEntity.entrySet()) {
+			addTotals(perEntity, entityEntry.getKey(), entityEntry.getValue().count, entityEntry.getValue().amount);
+		}
+		for (Map.Entry<String, Totals> currencyEntry : later.perCurrency.entrySet()) {
+			addTotals(perCurrency, currencyEntry.getKey(), currencyEntry.getValue().count,
+					currencyEntry.getValue().amount);
+		}
+		
+		return this;
+		
+	}
+	
+	/**
+	 * Gives the number of all the rejected instructions
+	 * 
+	 * @return the number of rejected instructions
+	 */
+	public long getCount() {
+		
+		long count = 0;
+		for (long statusCount : counts) {
+			count += statusCount;
+		}
+		
+		return count;
+		
+	}
+	
+	public long getCount(Status status) {
+		return counts[status.ordinal()];
+	}
+	
+	public double getAmount(Status status) {
+		return FixedPointAmounts.getDefault().toAmount(amounts[status.ordinal()]);
+	}
+	
+	public long getScaledAmount(Status status) {
+		return amounts[status.ordinal()];
+	}
+	
+	/**
+	 * Gives the rejections per entity, where a missing entity is given as
+	 * {@link Constants#REJECTION_MISSING_SYMBOL}
+	 * 
+	 * @return a new {@link SortedMap} of entity and {@link Totals} pairs
+	 */
+	public SortedMap<String, Totals> getPerEntity() {
+		return new TreeMap<>(perEntity);
+	}
+	
+	/**
+	 * Gives the rejections per currency, where a missing currency is given as
+	 * {@link Constants#REJECTION_MISSING_SYMBOL}
+	 * 
+	 * @return a new {@link SortedMap} of currency and {@link Totals} pairs
+	 */
+	public SortedMap<String, Totals> getPerCurrency() {
+		return new TreeMap<>(perCurrency);
+	}
+	
+	/**
+	 * Gives the first rejected instructions of a status in input order
+	 * 
+	 * @param status the {@link Status} of the instructions
+	 * @return an unmodifiable {@link List} of the sample {@link Instruction} objects
+	 */
+	public List<Instruction> getSamples(Status status) {
+		return Collections.unmodifiableList(samples.get(status.ordinal()));
+	}
+	
+	private void add(Status status, String entity, String currency, long scaledAmount) {
+		
+		counts[status.ordinal()]++;
+		amounts[status.ordinal()] = Math.addExact(amounts[status.ordinal()], scaledAmount);
+		addTotals(perEntity, entity == null ? Constants.REJECTION_MISSING_SYMBOL : entity, 1, scaledAmount);
+		addTotals(perCurrency, currency == null ? Constants.REJECTION_MISSING_SYMBOL : currency, 1, scaledAmount);
+		
+	}
+	
+	private static void addTotals(HashMap<String, Totals> totalsPerSymbol, String symbol, long count,
+			long scaledAmount) {
+		
+		Totals totals = totalsPerSymbol.get(symbol);
+		if (totals == null) {
+			totals = new Totals();
+			totalsPerSymbol.put(symbol, totals);
+		}
+		totals.count += count;
+		totals.amount = Math.addExact(totals.amount, scaledAmount);
+		
+	}
+	
+	/**
+	 * The number and the amount of the rejected instructions of an entity or a currency
+	 */
+	public static class Totals implements Serializable {
+		
+		private static final long serialVersionUID = 4418027361950284731L;
+		
+		private long count;
+		private long amount;
+		
+		public long getCount() {
+			return count;
+		}
+		
+		public double getAmount() {
+			return FixedPointAmounts.getDefault().toAmount(amount);
+		}
+		
+		public long getScaledAmount() {
+			return amount;
+		}
+	}
+
+}
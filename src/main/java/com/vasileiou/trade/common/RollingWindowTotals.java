@@ -0,0 +1,555 @@
+package com.vasileiou.trade.common;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.Status;
+import com.vasileiou.trade.models.Instruction;
+
+/**
+ * The moving totals of the settled amounts over a window of N days, per side and per entity, updated in constant
+ * amortized time per instruction instead of scanning the instructions of every day again. The amounts of every
+ * settlement day are kept per side in arrays indexed by the day, next to their prefix sums, so the moving total
+ * ending at any day is the difference of two prefix sums. The prefix sums are brought up to date on the next
+ * query, only from the earliest day changed since the previous one. The amounts of the last N settlement days are
+ * kept per entity in a ring of sparse day buckets, holding only the entities of their day. When a later
+ * settlement day arrives, the buckets of the days leaving the window are subtracted from the entity totals, so
+ * every amount is added and subtracted at most once.
+ * <p>
+ * All the amounts are scaled fixed-point longs of the default {@link FixedPointAmounts}, so the totals do not
+ * depend on the order the amounts are added or merged in and long windows do not lose precision to cancellation.
+ * The entity window ends at the latest settlement day seen so far, so instructions settling before the window
+ * count only to the totals per day. It is not thread safe
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class RollingWindowTotals implements Consumer<Instruction>, Serializable {
+	
+	private static final long serialVersionUID = 7094561823304716352L;
+	
+	private static final int INITIAL_DAYS = 32;
+	private static final int INITIAL_ENTITIES = 64;
+	private static final int INITIAL_BUCKET_ENTRIES = 16;
+	
+	private final int windowDays;
+	
+	// The scaled amounts per side and day, where the first index is the one of the first settlement day
+	private long[][] amountsPerDay = { new long[INITIAL_DAYS], new long[INITIAL_DAYS] };
+	
+	// The sums of the amounts per side of the days before every index, which are valid up to the given index
+	private long[][] prefixSums = { new long[INITIAL_DAYS + 1], new long[INITIAL_DAYS + 1] };
+	private final int[] validPrefixSums = new int[2];
+	private int firstDay;
+	private int lastDay;
+	private boolean empty = true;
+	
+	// Dictionaries are not serialized, so the entities of the window are written by name and encoded again when read
+	private transient SymbolDictionary entities;
+	
+	// The entity totals of the window per side, together with the number of the buckets contributing to them
+	private transient DayBucket[] buckets;
+	private transient long[][] entityTotals;
+	private transient int[][] entityBuckets;
+	
+	public RollingWindowTotals(int windowDays) {
+		this(SymbolDictionary.getSharedEntities(), windowDays);
+	}
+	
+	/**
+	 * Creates empty moving totals
+	 * 
+	 * @param entities the {@link SymbolDictionary} of the entity identifiers
+	 * @param windowDays the number of the settlement days of the window, including the day it ends at
+	 */
+	public RollingWindowTotals(SymbolDictionary entities, int windowDays) {
+		
+		this.entities = entities;
+		this.windowDays = Math.max(windowDays, 1);
+		
+		allocateWindow();
+		
+	}
+	
+	/**
+	 * Adds an already validated instruction. Non valid instructions are ignored
+	 * 
+	 * @param instruction the validated {@link Instruction}
+	 */
+	@Override
+	public void accept(Instruction instruction) {
+		
+		if (instruction.getStatus() == Status.VALID)
+			add(instruction.getEntityId(), instruction.getBuyOrSell(), instruction.getSettlementEpochDay(),
+					instruction.getAmountOfTrade());
+		
+	}
+	
+	/**
+	 * Adds a settled amount
+	 * 
+	 * @param entityId the identifier of the entity in the entities dictionary of the totals
+	 * @param buyOrSell the {@link BuyOrSell} side of the amount
+	 * @param settlementEpochDay the settlement epoch day of the amount
+	 * @param amount the amount to be added
+	 */
+	public void add(int entityId, BuyOrSell buyOrSell, int settlementEpochDay, double amount) {
+		addScaled(entityId, buyOrSell, settlementEpochDay, FixedPointAmounts.getDefault().toScaled(amount));
+	}
+		
+	/**
+	 * Adds a settled scaled fixed-point amount
+	 * 
+	 * @param entityId the identifier of the entity in the entities dictionary of the totals, or a negative one for
+	 * adding only to the totals per day
+	 * @param buyOrSell the {@link BuyOrSell} side of the amount
+	 * @param settlementEpochDay the settlement epoch day of the amount
+	 * @param scaledAmount the scaled amount to be added
+	 * @throws ArithmeticException if a total overflows
+	 */
+	public void addScaled(int entityId, BuyOrSell buyOrSell, int settlementEpochDay, long scaledAmount) {
+		
+		addDay(buyOrSell.ordinal(), settlementEpochDay, scaledAmount);
+		if (entityId >= 0)
+			addEntity(buyOrSell.ordinal(), entityId, settlementEpochDay, scaledAmount);
+		
+	}
+	
+	/**
+	 * Adds all the amounts of other moving totals of the same window to these ones
+	 * 
+	 * @param other the {@link RollingWindowTotals} to be added
+	 * @return this {@link RollingWindowTotals}
+	 * @throws IllegalArgumentException if the windows are not of the same number of days
+	 */
+	public RollingWindowTotals merge(RollingWindowTotals other) {
+		
+		if (other.windowDays != windowDays)
+			throw new IllegalArgumentException("Cannot merge a window of " + other.windowDays + " days into one of "
+					+ windowDays + " days");
+		
+		// The days are added before the entities, so that the window already ends at its last day
+		other.forEachDay(this::addDay);
+		
+		// Identifiers of another dictionary have to be encoded again
+		other.forEachEntityAmount((side, entityId, epochDay, scaledAmount) -> addEntity(side,
+				entities == other.entities ? entityId : entities.encode(other.entities.decode(entityId)), epochDay,
+				scaledAmount));
+		
+		return this;
+		
+	}
+	
+	/**
+	 * Gives the scaled amounts of every day from the first to the last settlement day, including the days without
+	 * any amount
+	 * 
+	 * @param consumer the {@link AmountConsumer} of the side, the epoch day and the scaled amount
+	 */
+	public void forEachDay(AmountConsumer consumer) {
+		
+		for (int side = 0; side < amountsPerDay.length && !empty; side++) {
+			for (int day = firstDay; day <= lastDay; day++) {
+				consumer.accept(side, day, amountsPerDay[side][day - firstDay]);
+			}
+		}
+		
+	}
+	
+	/**
+	 * Gives the scaled amounts of every entity and settlement day within the window
+	 * 
+	 * @param consumer the {@link EntityAmountConsumer} of the side, the entity identifier, the epoch day and the
+	 * scaled amount
+	 */
+	public void forEachEntityAmount(EntityAmountConsumer consumer) {
+		
+		for (DayBucket bucket : buckets) {
+			for (int index = 0; index < bucket.size; index++) {
+				consumer.accept(bucket.keys[index] & 1, bucket.keys[index] >>> 1, bucket.day, bucket.amounts[index]);
+			}
+		}
+		
+	}
+	
+	/**
+	 * Adds a scaled amount only to the totals per day of a side, moving the window if the day is a later one
+	 * 
+	 * @param side the ordinal of the {@link BuyOrSell} side
+	 * @param settlementEpochDay the settlement epoch day of the amount
+	 * @param scaledAmount the scaled amount to be added
+	 */
+	void addDay(int side, int settlementEpochDay, long scaledAmount) {
+		
+		if (empty) {
+			firstDay = settlementEpochDay;
+			lastDay = settlementEpochDay;
+			empty = false;
+		} else if (settlementEpochDay < firstDay) {
+			growDays(firstDay - settlementEpochDay, lastDay - settlementEpochDay + 1);
+			firstDay = settlementEpochDay;
+		} else if (settlementEpochDay > lastDay) {
+			growDays(0, settlementEpochDay - firstDay + 1);
+			slideWindow(settlementEpochDay);
+			lastDay = settlementEpochDay;
+		}
+		int day = settlementEpochDay - firstDay;
+		amountsPerDay[side][day] = Math.addExact(amountsPerDay[side][day], scaledAmount);
+		validPrefixSums[side] = Math.min(validPrefixSums[side], day);
+		
+	}
+	
+	/**
+	 * Adds a scaled amount only to the total of an entity, if its settlement day is within the window
+	 * 
+	 * @param side the ordinal of the {@link BuyOrSell} side
+	 * @param entityId the identifier of the entity in the entities dictionary of the totals
+	 * @param settlementEpochDay the settlement epoch day of the amount
+	 * @param scaledAmount the scaled amount to be added
+	 */
+	void addEntity(int side, int entityId, int settlementEpochDay, long scaledAmount) {
+		
+		// Days before the window are only part of the totals per day
+		if (empty || settlementEpochDay <= lastDay - windowDays || settlementEpochDay > lastDay)
+			return;
+		
+		DayBucket bucket = buckets[Math.floorMod(settlementEpochDay, windowDays)];
+		if (bucket.day != settlementEpochDay) {
+			expire(bucket);
+			bucket.day = settlementEpochDay;
+		}
+		growEntities(entityId + 1);
+		if (bucket.add(side, entityId, scaledAmount))
+			entityBuckets[side][entityId]++;
+		entityTotals[side][entityId] = Math.addExact(entityTotals[side][entityId], scaledAmount);
+		
+	}
+	
+	/**
+	 * Gives the moving total of a side over the window ending at a settlement day
+	 * 
+	 * @param buyOrSell the {@link BuyOrSell} side
+	 * @param epochDay the last epoch day of the window
+	 * @return the sum of the amounts settled within the window
+	 */
+	public double getMovingTotal(BuyOrSell buyOrSell, int epochDay) {
+		return FixedPointAmounts.getDefault().toAmount(getScaledMovingTotal(buyOrSell, epochDay));
+	}
+	
+	/**
+	 * Gives the scaled moving total of a side over the window ending at a settlement day
+	 * 
+	 * @param buyOrSell the {@link BuyOrSell} side
+	 * @param epochDay the last epoch day of the window
+	 * @return the scaled sum of the amounts settled within the window
+	 */
+	public long getScaledMovingTotal(BuyOrSell buyOrSell, int epochDay) {
+		
+		if (empty)
+			return 0;
+		
+		int from = Math.max(epochDay - windowDays + 1, firstDay);
+		int to = Math.min(epochDay, lastDay);
+		if (from > to)
+			return 0;
+		
+		long[] sums = updatePrefixSums(buyOrSell.ordinal(), to - firstDay + 1);
+		
+		return sums[to - firstDay + 1] - sums[from - firstDay];
+		
+	}
+	
+	/**
+	 * Gives the total of an entity over the window ending at the latest settlement day
+	 * 
+	 * @param buyOrSell the {@link BuyOrSell} side
+	 * @param entityId the identifier of the entity in the entities dictionary of the totals
+	 * @return the sum of the amounts of the entity settled within the window
+	 */
+	public double getEntityTotal(BuyOrSell buyOrSell, int entityId) {
+		
+		int side = buyOrSell.ordinal();
+		
+		return entityId < 0 || entityId >= entityTotals[side].length
+				? 0
+				: FixedPointAmounts.getDefault().toAmount(entityTotals[side][entityId]);
+		
+	}
+	
+	/**
+	 * Ranks the entities by their total over the window ending at the latest settlement day
+	 * 
+	 * @param buyOrSell the {@link BuyOrSell} side
+	 * @param topK the maximum number of ranked entities
+	 * @return the {@link TopKRanking} of the entities with amounts within the window
+	 */
+	public TopKRanking rankEntities(BuyOrSell buyOrSell, int topK) {
+		
+		int side = buyOrSell.ordinal();
+		TopKRanking ranking = new TopKRanking(entities, topK);
+		for (int entityId = 0; entityId < entityTotals[side].length; entityId++) {
+			if (entityBuckets[side][entityId] > 0)
+				ranking.offer(entityId, FixedPointAmounts.getDefault().toAmount(entityTotals[side][entityId]));
+		}
+		
+		return ranking;
+		
+	}
+	
+	public int getWindowDays() {
+		return windowDays;
+	}
+	
+	public boolean isEmpty() {
+		return empty;
+	}
+	
+	public int getFirstEpochDay() {
+		return firstDay;
+	}
+	
+	public int getLastEpochDay() {
+		return lastDay;
+	}
+	
+	public SymbolDictionary getEntities() {
+		return entities;
+	}
+	
+	/**
+	 * Brings the prefix sums of a side up to date up to an index, starting from the earliest changed day
+	 * 
+	 * @param side the side of the prefix sums
+	 * @param index the last index needed
+	 * @return the prefix sums of the side
+	 */
+	private long[] updatePrefixSums(int side, int index) {
+		
+		long[] sums = prefixSums[side];
+		long[] amounts = amountsPerDay[side];
+		for (int day = validPrefixSums[side]; day < index; day++) {
+			sums[day + 1] = Math.addExact(sums[day], amounts[day]);
+		}
+		validPrefixSums[side] = Math.max(validPrefixSums[side], index);
+		
+		return sums;
+		
+	}
+	
+	/**
+	 * Moves the window to end at a later settlement day, emptying the buckets of the days leaving it
+	 * 
+	 * @param epochDay the new last epoch day of the window
+	 */
+	private void slideWindow(int epochDay) {
+		
+		// A window moving by more than its length leaves all the buckets
+		for (int day = Math.max(lastDay + 1, epochDay - windowDays + 1); day <= epochDay; day++) {
+			DayBucket bucket = buckets[Math.floorMod(day, windowDays)];
+			expire(bucket);
+			bucket.day = day;
+		}
+		
+	}
+	
+	/**
+	 * Subtracts the amounts of a bucket from the entity totals and empties it
+	 * 
+	 * @param bucket the {@link DayBucket} leaving the window
+	 */
+	private void expire(DayBucket bucket) {
+		
+		for (int index = 0; index < bucket.size; index++) {
+			int side = bucket.keys[index] & 1;
+			int entityId = bucket.keys[index] >>> 1;
+			entityTotals[side][entityId] -= bucket.amounts[index];
+			entityBuckets[side][entityId]--;
+		}
+		bucket.clear();
+		
+	}
+	
+	/**
+	 * Grows the arrays of the amounts per day
+	 * 
+	 * @param shift the number of days added before the first day
+	 * @param days the number of days needed from the new first day
+	 */
+	private void growDays(int shift, int days) {
+		
+		for (int side = 0; side < amountsPerDay.length; side++) {
+			long[] amounts = amountsPerDay[side];
+			if (shift == 0 && days <= amounts.length)
+				continue;
+			
+			long[] grown = new long[Math.max(days, 2 * amounts.length)];
+			System.arraycopy(amounts, 0, grown, shift, Math.min(amounts.length, grown.length - shift));
+			amountsPerDay[side] = grown;
+			
+			// Days added before the first day change every prefix sum
+			prefixSums[side] = Arrays.copyOf(prefixSums[side], grown.length + 1);
+			if (shift > 0)
+				validPrefixSums[side] = 0;
+		}
+		
+	}
+	
+	private void growEntities(int size) {
+		
+		if (size <= entityTotals[0].length)
+			return;
+		
+		int capacity = Math.max(size, 2 * entityTotals[0].length);
+		for (int side = 0; side < entityTotals.length; side++) {
+			entityTotals[side] = Arrays.copyOf(entityTotals[side], capacity);
+			entityBuckets[side] = Arrays.copyOf(entityBuckets[side], capacity);
+		}
+		
+	}
+	
+	/**
+	 * Allocates the empty buckets and entity totals of the window
+	 */
+	private void allocateWindow() {
+		
+		buckets = new DayBucket[windowDays];
+		for (int bucket = 0; bucket < buckets.length; bucket++) {
+			buckets[bucket] = new DayBucket();
+		}
+		entityTotals = new long[][] { new long[INITIAL_ENTITIES], new long[INITIAL_ENTITIES] };
+		entityBuckets = new int[][] { new int[INITIAL_ENTITIES], new int[INITIAL_ENTITIES] };
+		
+	}
+	
+	private void writeObject(ObjectOutputStream output) throws IOException {
+		
+		output.defaultWriteObject();
+		
+		int amounts = 0;
+		for (DayBucket bucket : buckets) {
+			amounts += bucket.size;
+		}
+		output.writeInt(amounts);
+		
+		// The consumer cannot throw, so the entity amounts are written from the buckets directly
+		for (DayBucket bucket : buckets) {
+			for (int index = 0; index < bucket.size; index++) {
+				output.writeByte(bucket.keys[index] & 1);
+				output.writeObject(entities.decode(bucket.keys[index] >>> 1));
+				output.writeInt(bucket.day);
+				output.writeLong(bucket.amounts[index]);
+			}
+		}
+		
+	}
+	
+	private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+		
+		input.defaultReadObject();
+		int amountsToRead = input.readInt();
+		
+		entities = SymbolDictionary.getSharedEntities();
+		allocateWindow();
+		for (int amount = 0; amount < amountsToRead; amount++) {
+			int side = input.readByte();
+			addEntity(side, entities.encode((String) input.readObject()), input.readInt(), input.readLong());
+		}
+		
+	}
+	
+	@FunctionalInterface
+	public interface AmountConsumer {
+		void accept(int side, int epochDay, long scaledAmount);
+	}
+	
+	@FunctionalInterface
+	public interface EntityAmountConsumer {
+		void accept(int side, int entityId, int epochDay, long scaledAmount);
+	}
+	
+	/**
+	 * The entity amounts of a settlement day within the window, kept only for the entities and sides having an
+	 * amount in an open addressing table, so that a bucket takes memory for the entities of its day only
+	 */
+	private static class DayBucket {
+		
+		private int day = Constants.MISSING_EPOCH_DAY;
+		
+		// Every key combines an entity and a side, while a slot holds the index of its key plus one or zero if empty
+		private int[] keys = new int[INITIAL_BUCKET_ENTRIES];
+		private long[] amounts = new long[INITIAL_BUCKET_ENTRIES];
+		private int[] slots = new int[2 * INITIAL_BUCKET_ENTRIES];
+		private int size;
+		
+		/**
+		 * Adds an amount of an entity
+		 * 
+		 * @return true if the entity had no amount of the side in the bucket before
+		 */
+		boolean add(int side, int entityId, long amount) {
+			
+			int key = entityId << 1 | side;
+			int slot = findSlot(key);
+			if (slots[slot] != 0) {
+				amounts[slots[slot] - 1] = Math.addExact(amounts[slots[slot] - 1], amount);
+				return false;
+			}
+			
+			if (size == keys.length) {
+				grow();
+				slot = findSlot(key);
+			}
+			keys[size] = key;
+			amounts[size] = amount;
+			slots[slot] = ++size;
+			
+			return true;
+			
+		}
+		
+		void clear() {
+			
+			Arrays.fill(slots, 0);
+			size = 0;
+			
+		}
+		
+		/**
+		 * Finds the slot of a key with linear probing
+		 * 
+		 * @return the slot holding the key, or the empty slot where it should be stored
+		 */
+		private int findSlot(int key) {
+			
+			int mask = slots.length - 1;
+			int hash = key * 0x9E3779B9;
+			int slot = (hash ^ (hash >>> 16)) & mask;
+			while (slots[slot] != 0 && keys[slots[slot] - 1] != key) {
+				slot = (slot + 1) & mask;
+			}
+			
+			return slot;
+			
+		}
+		
+		/**
+		 * Doubles the capacity, keeping the load factor of the slots at most one half
+		 */
+		private void grow() {
+			
+			keys = Arrays.copyOf(keys, 2 * keys.length);
+			amounts = Arrays.copyOf(amounts, keys.length);
+			slots = new int[2 * keys.length];
+			for (int index = 0; index < size; index++) {
+				slots[findSlot(keys[index])] = index + 1;
+			}
+			
+		}
+	}
+
+}
@@ -0,0 +1,430 @@
+package com.vasileiou.trade.common;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The settlement calendar of the currencies, holding their weekends and public holidays. The non working days of
+ * every currency are precomputed per year into a bitset together with a jump table to the next working day, so
+ * that checking and correcting a settlement date are constant time lookups without any allocation.
+ * <p>
+ * The holidays of a currency are loaded from the file named after the currency (e.g. EUR.txt) of the directory
+ * given by the {@link Constants#CALENDAR_HOLIDAYS_PROPERTY} system property, or else of the holidays folder of
+ * the classpath. Every line holds a holiday in the predefined date format, where a line starting with
+ * {@link Constants#CALENDAR_WEEKEND_DIRECTIVE} followed by day names replaces the default weekend and lines
+ * starting with {@link Constants#FILE_COMMENT_PREFIX} are ignored. Currencies without a file have only weekends
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class SettlementCalendar {
+	
+	// Number of precomputed years and the epoch day each one of them starts, including the end of the last one
+	private static final int YEARS = Constants.CALENDAR_LAST_YEAR - Constants.CALENDAR_FIRST_YEAR + 1;
+	private static final int[] YEAR_STARTS = new int[YEARS + 1];
+	
+	static {
+		for (int year = 0; year <= YEARS; year++) {
+			YEAR_STARTS[year] = Utils.toEpochDay(Constants.CALENDAR_FIRST_YEAR + year, 1, 1);
+		}
+	}
+	
+	private final Path holidaysDirectory;
+	private final SymbolDictionary currencies;
+	
+	// Calendars are created on the first use of every currency
+	private final ConcurrentHashMap<String, CurrencyCalendar> calendars = new ConcurrentHashMap<>();
+	
+	// Calendars per currency identifier, filled on the first lookup of every identifier
+	private volatile CurrencyCalendar[] calendarsById = new CurrencyCalendar[0];
+	
+	// Calendar for instructions without currency
+	private final CurrencyCalendar commonCalendar = new CurrencyCalendar(
+			weekendMask(Constants.CALENDAR_COMMON_WEEKEND), new int[0]);
+	
+	/**
+	 * Creates a calendar loading the holidays from the configured directory or else from the classpath
+	 */
+	public SettlementCalendar() {
+		this(System.getProperty(Constants.CALENDAR_HOLIDAYS_PROPERTY) == null
+				? null
+				: Paths.get(System.getProperty(Constants.CALENDAR_HOLIDAYS_PROPERTY)));
+	}
+	
+	/**
+	 * Creates a calendar loading the holidays from the given directory
+	 * 
+	 * @param holidaysDirectory the {@link Path} of the holidays directory, or null for the classpath
+	 */
+	public SettlementCalendar(Path holidaysDirectory) {
+		this(holidaysDirectory, SymbolDictionary.getSharedCurrencies());
+	}
+	
+	/**
+	 * Creates a calendar loading the holidays from the given directory, where currency identifiers are resolved
+	 * with the given dictionary
+	 * 
+	 * @param holidaysDirectory the {@link Path} of the holidays directory, or null for the classpath
+	 * @param currencies the {@link SymbolDictionary} of the currencies
+	 */
+	public SettlementCalendar(Path holidaysDirectory, SymbolDictionary currencies) {
+		this.holidaysDirectory = holidaysDirectory;
+		this.currencies = currencies;
+	}
+	
+	/**
+	 * Gives the calendar shared by the application, which is created on first use
+	 * 
+	 * @return the default {@link SettlementCalendar}
+	 */
+	public static SettlementCalendar getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+	
+	/**
+	 * Checks if an epoch day is a working day for the currency
+	 * 
+	 * @param currency the {@link String} currency
+	 * @param epochDay the number of days since 1970-01-01
+	 * @return true if it is a working day and false otherwise
+	 */
+	public boolean isWorkingDay(String currency, int epochDay) {
+		return getCalendar(currency).isWorkingDay(epochDay);
+	}
+	
+	/**
+	 * Gives the first working day for the currency starting from the given epoch day
+	 * 
+	 * @param currency the {@link String} currency
+	 * @param epochDay the number of days since 1970-01-01
+	 * @return the given epoch day if it is a working day, or else the next working day
+	 */
+	public int nextWorkingDay(String currency, int epochDay) {
+		return getCalendar(currency).nextWorkingDay(epochDay);
+	}
+	
+	/**
+	 * Checks if an epoch day is a working day for the currency, given by its dictionary identifier
+	 * 
+	 * @param currencyId the identifier of the currency
+	 * @param epochDay the number of days since 1970-01-01
+	 * @return true if it is a working day and false otherwise
+	 */
+	public boolean isWorkingDay(int currencyId, int epochDay) {
+		return getCalendar(currencyId).isWorkingDay(epochDay);
+	}
+	
+	/**
+	 * Gives the first working day for the currency, given by its dictionary identifier, starting from the given
+	 * epoch day
+	 * 
+	 * @param currencyId the identifier of the currency
+	 * @param epochDay the number of days since 1970-01-01
+	 * @return the given epoch day if it is a working day, or else the next working day
+	 */
+	public int nextWorkingDay(int currencyId, int epochDay) {
+		return getCalendar(currencyId).nextWorkingDay(epochDay);
+	}
+	
+	public SymbolDictionary getCurrencies() {
+		return currencies;
+	}
+	
+	private CurrencyCalendar getCalendar(String currency) {
+		
+		if (currency == null)
+			return commonCalendar;
+		
+		CurrencyCalendar calendar = calendars.get(currency);
+		return calendar != null ? calendar : calendars.computeIfAbsent(currency, this::loadCalendar);
+		
+	}
+	
+	private CurrencyCalendar getCalendar(int currencyId) {
+		
+		if (currencyId == SymbolDictionary.MISSING_ID)
+			return commonCalendar;
+		
+		CurrencyCalendar[] calendarsPerId = calendarsById;
+		if (currencyId < calendarsPerId.length && calendarsPerId[currencyId] != null)
+			return calendarsPerId[currencyId];
+		
+		return registerCalendar(currencyId);
+		
+	}
+	
+	/**
+	 * Resolves the calendar of a currency identifier and stores it for the next lookups
+	 */
+	private synchronized CurrencyCalendar registerCalendar(int currencyId) {
+		
+		CurrencyCalendar calendar = getCalendar(currencies.decode(currencyId));
+		
+		CurrencyCalendar[] calendarsPerId = calendarsById;
+		if (currencyId >= calendarsPerId.length)
+			calendarsPerId = Arrays.copyOf(calendarsPerId, Math.max(currencyId + 1, calendarsPerId.length * 2));
+		calendarsPerId[currencyId] = calendar;
+		calendarsById = calendarsPerId;
+		
+		return calendar;
+		
+	}
+	
+	/**
+	 * Loads the weekend and the holidays of a currency
+	 * 
+	 * @param currency the {@link String} currency
+	 * @return the new {@link CurrencyCalendar}
+	 */
+	private CurrencyCalendar loadCalendar(String currency) {
+		
+		// Start with the default weekend of the currency
+		int weekendMask = weekendMask(Constants.DIFFERENT_WEEK_CURRENCIES.contains(currency)
+										? Constants.CALENDAR_EXCEPTION_WEEKEND
+										: Constants.CALENDAR_COMMON_WEEKEND);
+		List<Integer> holidays = new ArrayList<>();
+		
+		for (String line : readHolidaysFile(currency)) {
+			
+			line = line.trim();
+			if (line.isEmpty() || line.charAt(0) == Constants.FILE_COMMENT_PREFIX)
+				continue;
+			
+			if (line.startsWith(Constants.CALENDAR_WEEKEND_DIRECTIVE)) {
+				weekendMask = parseWeekendMask(currency, line, weekendMask);
+				continue;
+			}
+			
+			int holiday = Utils.parseEpochDay(line);
+			if (holiday == Constants.INVALID_EPOCH_DAY) {
+				Printer.print("Ignoring wrong holiday of " + currency + ": " + line);
+			} else {
+				holidays.add(holiday);
+			}
+		}
+		
+		int[] sortedHolidays = holidays.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+		return new CurrencyCalendar(weekendMask, sortedHolidays);
+		
+	}
+	
+	/**
+	 * Reads the lines of the holidays file of a currency
+	 * 
+	 * @param currency the {@link String} currency
+	 * @return the {@link List} of lines, which is empty if there is no file
+	 */
+	private List<String> readHolidaysFile(String currency) {
+		
+		String fileName = currency + Constants.CALENDAR_HOLIDAYS_FILE_EXTENSION;
+		
+		try {
+			if (holidaysDirectory != null) {
+				Path file = holidaysDirectory.resolve(fileName);
+				return Files.isRegularFile(file) ? Files.readAllLines(file, StandardCharsets.UTF_8)
+													: new ArrayList<String>();
+			}
+			
+			InputStream resource = SettlementCalendar.class.getClassLoader()
+					.getResourceAsStream(Constants.CALENDAR_HOLIDAYS_RESOURCE + fileName);
+			if (resource == null)
+				return new ArrayList<>();
+			
+			List<String> lines = new ArrayList<>();
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource, StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					lines.add(line);
+				}
+			}
+			return lines;
+			
+		} catch (IOException e) {
+			Printer.print(e.getMessage());
+			return new ArrayList<>();
+		}
+		
+	}
+	
+	/**
+	 * Parses a weekend line of a holidays file, e.g. "weekend Friday Saturday"
+	 * 
+	 * @return the parsed weekend mask, or the given one if the line is wrong
+	 */
+	private static int parseWeekendMask(String currency, String line, int defaultMask) {
+		
+		int weekendMask = 0;
+		String[] days = line.substring(Constants.CALENDAR_WEEKEND_DIRECTIVE.length()).trim().split("[\\s,]+");
+		
+		try {
+			for (String day : days) {
+				if (!day.isEmpty())
+					weekendMask |= 1 << (DayOfWeek.valueOf(day.toUpperCase(Locale.ENGLISH)).getValue() % 7 + 1);
+			}
+		} catch (IllegalArgumentException e) {
+			Printer.print("Ignoring wrong weekend of " + currency + ": " + line);
+			return defaultMask;
+		}
+		
+		// A week without working days would never settle
+		if (weekendMask == weekendMask(Arrays.asList(Calendar.SUNDAY, Calendar.MONDAY, Calendar.TUESDAY,
+				Calendar.WEDNESDAY, Calendar.THURSDAY, Calendar.FRIDAY, Calendar.SATURDAY))) {
+			Printer.print("Ignoring weekend without working days of " + currency + ": " + line);
+			return defaultMask;
+		}
+		
+		return weekendMask;
+		
+	}
+	
+	/**
+	 * Converts a weekend to a mask with a bit per day of week, numbered as in {@link Calendar}
+	 */
+	private static int weekendMask(List<Integer> weekend) {
+		
+		int weekendMask = 0;
+		for (Integer dayOfWeek : weekend) {
+			weekendMask |= 1 << dayOfWeek;
+		}
+		
+		return weekendMask;
+		
+	}
+	
+	/**
+	 * Gives the index of the precomputed year of an epoch day
+	 * 
+	 * @return the year index, or -1 if the day is out of the precomputed years
+	 */
+	private static int yearIndex(int epochDay) {
+		
+		if (epochDay < YEAR_STARTS[0] || epochDay >= YEAR_STARTS[YEARS])
+			return -1;
+		
+		// Estimate with the average year length and fix the estimation at the year boundaries
+		int index = (int) ((epochDay - YEAR_STARTS[0]) * 400L / 146097);
+		while (YEAR_STARTS[index] > epochDay) {
+			index--;
+		}
+		while (YEAR_STARTS[index + 1] <= epochDay) {
+			index++;
+		}
+		
+		return index;
+		
+	}
+	
+	/**
+	 * The weekend and holidays of a single currency, along with its lazily precomputed years
+	 */
+	private static final class CurrencyCalendar {
+		
+		private final int weekendMask;
+		private final int[] holidays;
+		
+		// Years are computed on first use, where concurrent computations of a year give equal immutable objects
+		private final CalendarYear[] years = new CalendarYear[YEARS];
+		
+		CurrencyCalendar(int weekendMask, int[] holidays) {
+			this.weekendMask = weekendMask;
+			this.holidays = holidays;
+		}
+		
+		boolean isWorkingDay(int epochDay) {
+			
+			int index = yearIndex(epochDay);
+			if (index < 0)
+				return !isNonWorkingDay(epochDay);
+			
+			int dayOfYear = epochDay - YEAR_STARTS[index];
+			return (getYear(index).nonWorkingDays[dayOfYear >>> 6] & (1L << dayOfYear)) == 0;
+			
+		}
+		
+		int nextWorkingDay(int epochDay) {
+			
+			int index = yearIndex(epochDay);
+			if (index < 0)
+				return scanWorkingDay(epochDay);
+			
+			return epochDay + getYear(index).nextWorkingDayOffsets[epochDay - YEAR_STARTS[index]];
+			
+		}
+		
+		private CalendarYear getYear(int index) {
+			
+			CalendarYear year = years[index];
+			if (year == null) {
+				year = new CalendarYear(this, YEAR_STARTS[index], YEAR_STARTS[index + 1]);
+				years[index] = year;
+			}
+			
+			return year;
+			
+		}
+		
+		private boolean isNonWorkingDay(int epochDay) {
+			return (weekendMask & (1 << Utils.dayOfWeek(epochDay))) != 0
+					|| Arrays.binarySearch(holidays, epochDay) >= 0;
+		}
+		
+		private int scanWorkingDay(int epochDay) {
+			
+			int workingDay = epochDay;
+			while (isNonWorkingDay(workingDay)) {
+				workingDay++;
+			}
+			
+			return workingDay;
+			
+		}
+	}
+	
+	/**
+	 * The precomputed non working days of a year and the distance of every day to the next working day
+	 */
+	private static final class CalendarYear {
+		
+		private final long[] nonWorkingDays;
+		private final int[] nextWorkingDayOffsets;
+		
+		CalendarYear(CurrencyCalendar calendar, int firstDay, int endDay) {
+			
+			int length = endDay - firstDay;
+			nonWorkingDays = new long[(length + 63) >>> 6];
+			nextWorkingDayOffsets = new int[length];
+			
+			// Walk backwards, so that every non working day points to the working day found after it
+			int nextWorkingDay = calendar.scanWorkingDay(endDay);
+			for (int dayOfYear = length - 1; dayOfYear >= 0; dayOfYear--) {
+				if (calendar.isNonWorkingDay(firstDay + dayOfYear)) {
+					nonWorkingDays[dayOfYear >>> 6] |= 1L << dayOfYear;
+				} else {
+					nextWorkingDay = firstDay + dayOfYear;
+				}
+				nextWorkingDayOffsets[dayOfYear] = nextWorkingDay - firstDay - dayOfYear;
+			}
+		}
+	}
+	
+	/**
+	 * Holder of the default calendar, which is created when it is first used
+	 */
+	private static final class DefaultHolder {
+		private static final SettlementCalendar INSTANCE = new SettlementCalendar();
+	}
+
+}
@@ -0,0 +1,459 @@
+package com.vasileiou.trade.common;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+import com.vasileiou.trade.enums.BuyOrSell;
+
+/**
+ * An index of the settled amounts answering the total of any range of settlement dates in logarithmic time, per
+ * side and optionally per entity or currency, instead of scanning the amounts of every date of the range. The
+ * totals per side are kept in a {@link FenwickTree} per side, updated as the instructions are parsed. All the
+ * amounts are scaled fixed-point longs of the default {@link FixedPointAmounts}, so every range total is exact
+ * and merging indices does not accumulate any rounding.
+ * <p>
+ * The amounts per entity or currency, side and day are kept in an open addressing hash table with primitive
+ * columns, keyed by the identifiers of the {@link SymbolDictionary} objects of the index, so that the memory is
+ * proportional to the distinct entity and day pairs rather than to the entities times the days. The first query
+ * after an addition sorts them into prefix sums per entity or currency and side, which are searched in binary. It
+ * is not thread safe
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class SettlementIndex implements Serializable {
+	
+	private static final long serialVersionUID = -6157930264817392405L;
+	
+	private static final int DEFAULT_CAPACITY = 256;
+	private static final long EMPTY_KEY = -1L;
+	private static final int ENTITY = 0;
+	private static final int CURRENCY = 1;
+	
+	private final FenwickTree[] sideTotals = { new FenwickTree(), new FenwickTree() };
+	
+	// Dictionaries are not serialized, so the symbols are written by name and encoded again when read
+	private transient SymbolDictionary entities;
+	private transient SymbolDictionary currencies;
+	
+	// The amounts keyed by the entity or currency, side and day, where an empty slot has the empty key
+	private transient long[] keys;
+	private transient long[] amounts;
+	private transient int size;
+	
+	// The keys in ascending order with the running sum of every entity or currency and side, built on demand
+	private transient long[] sortedKeys;
+	private transient long[] prefixSums;
+	
+	public SettlementIndex() {
+		this(SymbolDictionary.getSharedEntities(), SymbolDictionary.getSharedCurrencies());
+	}
+	
+	/**
+	 * Creates an empty index
+	 * 
+	 * @param entities the {@link SymbolDictionary} of the entity identifiers
+	 * @param currencies the {@link SymbolDictionary} of the currency identifiers
+	 */
+	public SettlementIndex(SymbolDictionary entities, SymbolDictionary currencies) {
+		
+		this.entities = entities;
+		this.currencies = currencies;
+		
+		allocate(DEFAULT_CAPACITY);
+		
+	}
+	
+	/**
+	 * Adds a settled amount to the totals of its side, entity and currency
+	 * 
+	 * @param entityId the identifier of the entity in the entities dictionary of the index
+	 * @param currencyId the identifier of the currency in the currencies dictionary of the index
+	 * @param buyOrSell the {@link BuyOrSell} side of the amount
+	 * @param settlementEpochDay the settlement epoch day of the amount
+	 * @param amount the amount to be added
+	 */
+	public void add(int entityId, int currencyId, BuyOrSell buyOrSell, int settlementEpochDay, double amount) {
+		addScaled(entityId, currencyId, buyOrSell, settlementEpochDay,
+				FixedPointAmounts.getDefault().toScaled(amount));
+	}
+		
+	/**
+	 * Adds a settled scaled fixed-point amount to the totals of its side, entity and currency
+	 * 
+	 * @param entityId the identifier of the entity in the entities dictionary of the index
+	 * @param currencyId the identifier of the currency in the currencies dictionary of the index
+	 * @param buyOrSell the {@link BuyOrSell} side of the amount
+	 * @param settlementEpochDay the settlement epoch day of the amount
+	 * @param scaledAmount the scaled amount to be added
+	 * @throws ArithmeticException if a total overflows
+	 */
+	public void addScaled(int entityId, int currencyId, BuyOrSell buyOrSell, int settlementEpochDay,
+			long scaledAmount) {
+		
+		addScaled(buyOrSell, settlementEpochDay, scaledAmount);
+		if (entityId >= 0)
+			addAmount(keyOf(ENTITY, entityId, buyOrSell.ordinal(), settlementEpochDay), scaledAmount);
+		if (currencyId >= 0)
+			addAmount(keyOf(CURRENCY, currencyId, buyOrSell.ordinal(), settlementEpochDay), scaledAmount);
+		
+	}
+	
+	/**
+	 * Adds a settled scaled fixed-point amount only to the totals of its side, for when the entity and the currency
+	 * are not known
+	 * 
+	 * @param buyOrSell the {@link BuyOrSell} side of the amount
+	 * @param settlementEpochDay the settlement epoch day of the amount
+	 * @param scaledAmount the scaled amount to be added
+	 */
+	public void addScaled(BuyOrSell buyOrSell, int settlementEpochDay, long scaledAmount) {
+		sideTotals[buyOrSell.ordinal()].add(settlementEpochDay, scaledAmount);
+	}
+	
+	/**
+	 * Adds a scaled amount only to the totals of an entity, for when the totals of its side are already added
+	 * 
+	 * @param side the ordinal of the {@link BuyOrSell} side
+	 * @param entityId the identifier of the entity in the entities dictionary of the index
+	 * @param settlementEpochDay the settlement epoch day of the amount
+	 * @param scaledAmount the scaled amount to be added
+	 */
+	void addEntity(int side, int entityId, int settlementEpochDay, long scaledAmount) {
+		addAmount(keyOf(ENTITY, entityId, side, settlementEpochDay), scaledAmount);
+	}
+	
+	/**
+	 * Adds a scaled amount only to the totals of a currency, for when the totals of its side are already added
+	 * 
+	 * @param side the ordinal of the {@link BuyOrSell} side
+	 * @param currencyId the identifier of the currency in the currencies dictionary of the index
+	 * @param settlementEpochDay the settlement epoch day of the amount
+	 * @param scaledAmount the scaled amount to be added
+	 */
+	void addCurrency(int side, int currencyId, int settlementEpochDay, long scaledAmount) {
+		addAmount(keyOf(CURRENCY, currencyId, side, settlementEpochDay), scaledAmount);
+	}
+	
+	/**
+	 * Gives the total amount of a side settling within a range of dates
+	 * 
+	 * @param buyOrSell the {@link BuyOrSell} side
+	 * @param fromEpochDay the first settlement epoch day, inclusive
+	 * @param toEpochDay the last settlement epoch day, inclusive
+	 * @return the sum of the amounts settling within the range
+	 */
+	public double getTotal(BuyOrSell buyOrSell, int fromEpochDay, int toEpochDay) {
+		return FixedPointAmounts.getDefault().toAmount(getScaledTotal(buyOrSell, fromEpochDay, toEpochDay));
+	}
+	
+	/**
+	 * Gives the scaled total amount of a side settling within a range of dates
+	 * 
+	 * @param buyOrSell the {@link BuyOrSell} side
+	 * @param fromEpochDay the first settlement epoch day, inclusive
+	 * @param toEpochDay the last settlement epoch day, inclusive
+	 * @return the scaled fixed-point sum of the amounts settling within the range
+	 */
+	public long getScaledTotal(BuyOrSell buyOrSell, int fromEpochDay, int toEpochDay) {
+		return sideTotals[buyOrSell.ordinal()].range(fromEpochDay, toEpochDay);
+	}
+	
+	/**
+	 * Gives the total amount of a side and an entity settling within a range of dates
+	 * 
+	 * @param buyOrSell the {@link BuyOrSell} side
+	 * @param entity the {@link String} entity
+	 * @param fromEpochDay the first settlement epoch day, inclusive
+	 * @param toEpochDay the last settlement epoch day, inclusive
+	 * @return the sum of the amounts of the entity settling within the range, or zero for an unknown entity
+	 */
+	public double getEntityTotal(BuyOrSell buyOrSell, String entity, int fromEpochDay, int toEpochDay) {
+		return FixedPointAmounts.getDefault().toAmount(getSeriesTotal(ENTITY, entities.find(entity), buyOrSell,
+				fromEpochDay, toEpochDay));
+	}
+	
+	/**
+	 * Gives the total amount of a side and a currency settling within a range of dates
+	 * 
+	 * @param buyOrSell the {@link BuyOrSell} side
+	 * @param currency the {@link String} currency
+	 * @param fromEpochDay the first settlement epoch day, inclusive
+	 * @param toEpochDay the last settlement epoch day, inclusive
+	 * @return the sum of the amounts in the currency settling within the range, or zero for an unknown currency
+	 */
+	public double getCurrencyTotal(BuyOrSell buyOrSell, String currency, int fromEpochDay, int toEpochDay) {
+		return FixedPointAmounts.getDefault().toAmount(getSeriesTotal(CURRENCY, currencies.find(currency),
+				buyOrSell, fromEpochDay, toEpochDay));
+	}
+	
+	/**
+	 * Adds all the amounts of another index to this one
+	 * 
+	 * @param other the {@link SettlementIndex} to be added
+	 * @return this {@link SettlementIndex}
+	 */
+	public SettlementIndex merge(SettlementIndex other) {
+		
+		for (int side = 0; side < sideTotals.length; side++) {
+			sideTotals[side].merge(other.sideTotals[side]);
+		}
+		
+		// Identifiers of other dictionaries have to be encoded again
+		for (int slot = 0; slot < other.keys.length; slot++) {
+			long key = other.keys[slot];
+			if (key == EMPTY_KEY)
+				continue;
+			
+			SymbolDictionary dictionary = kindOf(key) == ENTITY ? entities : currencies;
+			SymbolDictionary otherDictionary = kindOf(key) == ENTITY ? other.entities : other.currencies;
+			int id = dictionary == otherDictionary ? idOf(key) : dictionary.encode(otherDictionary.decode(idOf(key)));
+			addAmount(keyOf(kindOf(key), id, sideOf(key), dayOf(key)), other.amounts[slot]);
+		}
+		
+		return this;
+		
+	}
+	
+	/**
+	 * Gives the scaled amounts of every entity, side and settlement day, in no particular order
+	 * 
+	 * @param consumer the {@link SeriesAmountConsumer} of the side, the entity identifier, the epoch day and the
+	 * scaled amount
+	 */
+	public void forEachEntityAmount(SeriesAmountConsumer consumer) {
+		forEachAmount(ENTITY, consumer);
+	}
+	
+	/**
+	 * Gives the scaled amounts of every currency, side and settlement day, in no particular order
+	 * 
+	 * @param consumer the {@link SeriesAmountConsumer} of the side, the currency identifier, the epoch day and the
+	 * scaled amount
+	 */
+	public void forEachCurrencyAmount(SeriesAmountConsumer consumer) {
+		forEachAmount(CURRENCY, consumer);
+	}
+	
+	public SymbolDictionary getEntities() {
+		return entities;
+	}
+	
+	public SymbolDictionary getCurrencies() {
+		return currencies;
+	}
+	
+	/**
+	 * Gives the number of the distinct entity or currency, side and day pairs held
+	 * 
+	 * @return the number of the amounts of the hash table
+	 */
+	public int size() {
+		return size;
+	}
+	
+	private void forEachAmount(int kind, SeriesAmountConsumer consumer) {
+		
+		for (int slot = 0; slot < keys.length; slot++) {
+			long key = keys[slot];
+			if (key != EMPTY_KEY && kindOf(key) == kind)
+				consumer.accept(sideOf(key), idOf(key), dayOf(key), amounts[slot]);
+		}
+		
+	}
+	
+	/**
+	 * Gives the scaled total of an entity or currency and side within a range of dates from its prefix sums
+	 */
+	private long getSeriesTotal(int kind, int id, BuyOrSell buyOrSell, int fromEpochDay, int toEpochDay) {
+		
+		if (id == SymbolDictionary.MISSING_ID || fromEpochDay > toEpochDay)
+			return 0;
+		
+		if (sortedKeys == null)
+			buildPrefixSums();
+		
+		// The keys of the range are the ones between the two bounds, all of them of the same series
+		int side = buyOrSell.ordinal();
+		int from = lowerBound(keyOf(kind, id, side, fromEpochDay));
+		int to = lowerBound(keyOf(kind, id, side, toEpochDay) + 1);
+		if (from == to)
+			return 0;
+		
+		boolean seriesStart = from == 0 || seriesOf(sortedKeys[from - 1]) != seriesOf(sortedKeys[from]);
+		
+		return prefixSums[to - 1] - (seriesStart ? 0 : prefixSums[from - 1]);
+		
+	}
+	
+	/**
+	 * Sorts the keys and sums up the amounts of every series in the order of their days
+	 */
+	private void buildPrefixSums() {
+		
+		long[] sorted = new long[size];
+		int index = 0;
+		for (long key : keys) {
+			if (key != EMPTY_KEY)
+				sorted[index++] = key;
+		}
+		Arrays.sort(sorted);
+		
+		long[] sums = new long[size];
+		for (index = 0; index < sorted.length; index++) {
+			boolean seriesStart = index == 0 || seriesOf(sorted[index - 1]) != seriesOf(sorted[index]);
+			sums[index] = Math.addExact(seriesStart ? 0 : sums[index - 1], amounts[findSlot(sorted[index])]);
+		}
+		
+		sortedKeys = sorted;
+		prefixSums = sums;
+		
+	}
+	
+	/**
+	 * Gives the index of the first sorted key greater than or equal to a key
+	 */
+	private int lowerBound(long key) {
+		
+		int low = 0;
+		int high = sortedKeys.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sortedKeys[middle] < key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		
+		return low;
+		
+	}
+	
+	private void addAmount(long key, long scaledAmount) {
+		
+		int slot = findSlot(key);
+		if (keys[slot] == EMPTY_KEY) {
+			keys[slot] = key;
+			amounts[slot] = scaledAmount;
+			if (++size * 2 > keys.length)
+				allocate(keys.length * 2);
+		} else {
+			amounts[slot] = Math.addExact(amounts[slot], scaledAmount);
+		}
+		sortedKeys = null;
+		
+	}
+	
+	/**
+	 * Packs the entity or currency identifier with the kind and the side into the upper half of a key, and the day
+	 * with its sign bit flipped into the lower half, so that the keys of a series are ordered by their days
+	 */
+	private static long keyOf(int kind, int id, int side, int epochDay) {
+		return (long) (id << 2 | kind << 1 | side) << 32 | (epochDay ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+	}
+	
+	private static int seriesOf(long key) {
+		return (int) (key >>> 32);
+	}
+	
+	private static int kindOf(long key) {
+		return seriesOf(key) >>> 1 & 1;
+	}
+	
+	private static int idOf(long key) {
+		return seriesOf(key) >>> 2;
+	}
+	
+	private static int sideOf(long key) {
+		return seriesOf(key) & 1;
+	}
+	
+	private static int dayOf(long key) {
+		return (int) key ^ Integer.MIN_VALUE;
+	}
+	
+	/**
+	 * Finds the slot of a key with linear probing
+	 * 
+	 * @return the slot holding the key, or the empty slot where it should be stored
+	 */
+	private int findSlot(long key) {
+		
+		int mask = keys.length - 1;
+		long hash = key * 0x9E3779B97F4A7C15L;
+		int slot = (int) (hash ^ (hash >>> 32)) & mask;
+		while (keys[slot] != EMPTY_KEY && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		
+		return slot;
+		
+	}
+	
+	/**
+	 * Allocates the columns with the given capacity and stores the existing amounts again
+	 */
+	private void allocate(int capacity) {
+		
+		long[] oldKeys = keys;
+		long[] oldAmounts = amounts;
+		
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY_KEY);
+		amounts = new long[capacity];
+		
+		for (int oldSlot = 0; oldKeys != null && oldSlot < oldKeys.length; oldSlot++) {
+			if (oldKeys[oldSlot] != EMPTY_KEY) {
+				int slot = findSlot(oldKeys[oldSlot]);
+				keys[slot] = oldKeys[oldSlot];
+				amounts[slot] = oldAmounts[oldSlot];
+			}
+		}
+		
+	}
+	
+	private void writeObject(ObjectOutputStream output) throws IOException {
+		
+		output.defaultWriteObject();
+		output.writeInt(size);
+		for (int slot = 0; slot < keys.length; slot++) {
+			long key = keys[slot];
+			if (key != EMPTY_KEY) {
+				SymbolDictionary dictionary = kindOf(key) == ENTITY ? entities : currencies;
+				output.writeByte(kindOf(key) << 1 | sideOf(key));
+				output.writeObject(dictionary.decode(idOf(key)));
+				output.writeInt(dayOf(key));
+				output.writeLong(amounts[slot]);
+			}
+		}
+		
+	}
+	
+	private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+		
+		input.defaultReadObject();
+		int amountsToRead = input.readInt();
+		
+		entities = SymbolDictionary.getSharedEntities();
+		currencies = SymbolDictionary.getSharedCurrencies();
+		allocate(Integer.highestOneBit(Math.max(amountsToRead, DEFAULT_CAPACITY / 2) * 2 - 1) << 1);
+		for (int amount = 0; amount < amountsToRead; amount++) {
+			int kindAndSide = input.readByte();
+			int kind = kindAndSide >>> 1;
+			SymbolDictionary dictionary = kind == ENTITY ? entities : currencies;
+			addAmount(keyOf(kind, dictionary.encode((String) input.readObject()), kindAndSide & 1, input.readInt()),
+					input.readLong());
+		}
+		
+	}
+
+	@FunctionalInterface
+	public interface SeriesAmountConsumer {
+		void accept(int side, int symbolId, int epochDay, long scaledAmount);
+	}
+
+}
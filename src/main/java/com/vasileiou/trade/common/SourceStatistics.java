@@ -0,0 +1,145 @@
+package com.vasileiou.trade.common;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The statistics of a source of a {@link MultiSourceFetcher}: the number of the fetched instructions and batches,
+ * the current batch size, the current and the maximum depth of the queue of the source in batches and the number
+ * of failures. The counters are updated only by the thread reading the source and are read without locking
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class SourceStatistics implements SourceStatisticsMBean {
+	
+	private final String name;
+	private final LongAdder instructions = new LongAdder();
+	private final LongAdder batches = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder finishedNanos = new LongAdder();
+	
+	private volatile Queue<?> queue;
+	private volatile int queueCapacity;
+	private volatile int batchSize;
+	private volatile int maxQueueDepth;
+	private volatile long startNanos;
+	private volatile boolean finished = true;
+	
+	public SourceStatistics(String name) {
+		this.name = name;
+	}
+	
+	/**
+	 * Marks the start of reading the source
+	 * 
+	 * @param queue the {@link Queue} of the batches of the source
+	 * @param queueCapacity the maximum number of batches in the queue
+	 * @param batchSize the initial batch size
+	 */
+	void start(Queue<?> queue, int queueCapacity, int batchSize) {
+		
+		this.queue = queue;
+		this.queueCapacity = queueCapacity;
+		this.batchSize = batchSize;
+		startNanos = System.nanoTime();
+		finished = false;
+		
+	}
+	
+	/**
+	 * Counts a batch put to the queue of the source
+	 * 
+	 * @param size the number of instructions of the batch
+	 * @param nextBatchSize the size of the next batch
+	 */
+	void recordBatch(int size, int nextBatchSize) {
+		
+		instructions.add(size);
+		batches.increment();
+		batchSize = nextBatchSize;
+		
+		int depth = queue.size();
+		if (depth > maxQueueDepth)
+			maxQueueDepth = depth;
+		
+	}
+	
+	void recordFailure() {
+		failures.increment();
+	}
+	
+	/**
+	 * Marks the end of reading the source
+	 */
+	void finish() {
+		
+		finishedNanos.add(System.nanoTime() - startNanos);
+		finished = true;
+		
+	}
+	
+	@Override
+	public String getName() {
+		return name;
+	}
+	
+	@Override
+	public long getInstructions() {
+		return instructions.sum();
+	}
+	
+	@Override
+	public long getBatches() {
+		return batches.sum();
+	}
+	
+	@Override
+	public int getBatchSize() {
+		return batchSize;
+	}
+	
+	@Override
+	public int getQueueDepth() {
+		
+		Queue<?> currentQueue = queue;
+		
+		return currentQueue == null ? 0 : currentQueue.size();
+		
+	}
+	
+	@Override
+	public int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+	
+	@Override
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+	
+	@Override
+	public long getFailures() {
+		return failures.sum();
+	}
+	
+	@Override
+	public boolean isFinished() {
+		return finished;
+	}
+	
+	/**
+	 * Gives the throughput of the source over the time spent reading it, including a read still in progress
+	 * 
+	 * @return the fetched instructions per second, or zero if the source has not been read
+	 */
+	@Override
+	public double getInstructionsPerSecond() {
+		
+		long nanos = finishedNanos.sum() + (finished ? 0 : System.nanoTime() - startNanos);
+		
+		return nanos == 0 ? 0 : getInstructions() * 1e9 / nanos;
+		
+	}
+
+}
@@ -0,0 +1,31 @@
+package com.vasileiou.trade.common;
+
+/**
+ * The JMX management interface of {@link SourceStatistics}
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public interface SourceStatisticsMBean {
+	
+	String getName();
+	
+	long getInstructions();
+	
+	long getBatches();
+	
+	int getBatchSize();
+	
+	int getQueueDepth();
+	
+	int getMaxQueueDepth();
+	
+	int getQueueCapacity();
+	
+	long getFailures();
+	
+	boolean isFinished();
+	
+	double getInstructionsPerSecond();
+
+}
@@ -0,0 +1,174 @@
+package com.vasileiou.trade.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.vasileiou.trade.enums.Stage;
+import com.vasileiou.trade.interfaces.Fetcher;
+import com.vasileiou.trade.models.Instruction;
+
+/**
+ * A {@link Fetcher} implementation reading the instructions of an {@link InputStream}, such as the one of a
+ * socket, in the line based format of {@link InstructionLineCodec}. The lines are decoded one by one as they
+ * arrive and the stream is closed when it ends, so it can be fetched only once
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class StreamFetcher implements Fetcher {
+	
+	private final InputStream input;
+	
+	/**
+	 * Creates a fetcher
+	 * 
+	 * @param input the {@link InputStream} of the instructions
+	 */
+	public StreamFetcher(InputStream input) {
+		this.input = input;
+	}
+	
+	@Override
+	public List<Instruction> getInstructionsFromClients() {
+		
+		long start = System.nanoTime();
+		List<Instruction> instructions = new ArrayList<>();
+		streamInstructionsFromClients().forEachRemaining(instructions::add);
+		PipelineMetrics.getDefault().recordStage(Stage.FETCH, start, instructions.size());
+		
+		return instructions;
+		
+	}
+	
+	/**
+	 * Decodes the stream line by line, blocking while the next line has not arrived yet. The stream is read in
+	 * chunks, which are scanned for the line separators as they are
+	 * 
+	 * @return an {@link Iterator} of {@link Instruction} objects, which throws an {@link UncheckedIOException} and
+	 * ends when the stream fails, so that a broken stream is not taken for a complete one
+	 */
+	@Override
+	public Iterator<Instruction> streamInstructionsFromClients() {
+		
+		return new Iterator<Instruction>() {
+			
+			private final InstructionLineCodec codec = new InstructionLineCodec();
+			private final byte[] chunk = new byte[Constants.FILE_STREAM_READ_SIZE];
+			private int position;
+			private int limit;
+			private byte[] line = new byte[Constants.FILE_LINE_LOOKUP_SIZE];
+			private Instruction next;
+			private boolean ended;
+			
+			@Override
+			public boolean hasNext() {
+				
+				while (next == null && !ended) {
+					int length;
+					try {
+						length = readLine();
+					} catch (IOException e) {
+						ended = true;
+						close();
+						throw new UncheckedIOException(e);
+					}
+					
+					if (length < 0) {
+						ended = true;
+						close();
+					} else {
+						ByteBuffer buffer = ByteBuffer.wrap(line, 0, length);
+						
+						// Skip the empty lines and the comments
+						if (!MappedFileFetcher.isBlankOrComment(buffer, 0, length))
+							next = codec.decode(buffer, 0, length);
+					}
+				}
+				
+				return next != null;
+				
+			}
+			
+			@Override
+			public Instruction next() {
+				
+				if (!hasNext())
+					throw new NoSuchElementException();
+				
+				Instruction instruction = next;
+				next = null;
+				
+				return instruction;
+				
+			}
+			
+			/**
+			 * Reads the next line into the line buffer, growing it when needed
+			 * 
+			 * @return the length of the line without the line separator, or -1 at the end of the stream
+			 * @throws IOException if the stream cannot be read
+			 */
+			private int readLine() throws IOException {
+				
+				int length = 0;
+				while (true) {
+					
+					// Refill the chunk once all of its bytes are consumed
+					if (position == limit) {
+						limit = input.read(chunk);
+						position = 0;
+						if (limit < 0) {
+							limit = 0;
+							return length == 0 ? -1 : length;
+						}
+					}
+					
+					int separator = position;
+					while (separator < limit && chunk[separator] != '\n') {
+						separator++;
+					}
+					
+					int bytes = separator - position;
+					if (length + bytes > line.length)
+						line = Arrays.copyOf(line, Math.max(2 * line.length, length + bytes));
+					System.arraycopy(chunk, position, line, length, bytes);
+					length += bytes;
+					
+					if (separator < limit) {
+						position = separator + 1;
+						return length;
+					}
+					position = limit;
+				}
+				
+			}
+			
+			private void close() {
+				
+				try {
+					input.close();
+				} catch (IOException e) {
+					Printer.print(e.getMessage());
+				}
+				
+			}
+		};
+		
+	}
+	
+	@Override
+	public List<Instruction> getRandomInstructions(int numberOfInstructions, int numberOfEntities,
+			Calendar dateStart, Calendar dateEnd) {
+		return FetcherImpl.getInstance().getRandomInstructions(numberOfInstructions, numberOfEntities, dateStart,
+				dateEnd);
+	}
+
+}
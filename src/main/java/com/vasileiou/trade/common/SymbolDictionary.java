@@ -0,0 +1,114 @@
+package com.vasileiou.trade.common;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A dictionary encoding symbols, such as entities and currencies, to dense integer identifiers starting from zero.
+ * Looking up a registered symbol is lock free and only registering a new one is synchronized, so a dictionary can
+ * be shared by all the parsing threads. The dictionaries shared by the whole pipeline are given by
+ * {@link #getSharedEntities()} and {@link #getSharedCurrencies()}
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class SymbolDictionary {
+	
+	// Identifier returned for missing symbols
+	public static final int MISSING_ID = -1;
+	
+	private static final int DEFAULT_CAPACITY = 64;
+	
+	private static final SymbolDictionary SHARED_ENTITIES = new SymbolDictionary();
+	private static final SymbolDictionary SHARED_CURRENCIES = new SymbolDictionary();
+	
+	private final ConcurrentHashMap<String, Integer> identifiers = new ConcurrentHashMap<>();
+	
+	// Symbols are written before their identifiers are published to the map
+	private volatile String[] symbols = new String[DEFAULT_CAPACITY];
+	private volatile int size;
+	
+	/**
+	 * Gives the dictionary of the entities shared by the pipeline
+	 * 
+	 * @return the shared entities {@link SymbolDictionary}
+	 */
+	public static SymbolDictionary getSharedEntities() {
+		return SHARED_ENTITIES;
+	}
+	
+	/**
+	 * Gives the dictionary of the currencies shared by the pipeline
+	 * 
+	 * @return the shared currencies {@link SymbolDictionary}
+	 */
+	public static SymbolDictionary getSharedCurrencies() {
+		return SHARED_CURRENCIES;
+	}
+	
+	/**
+	 * Gives the identifier of the symbol, registering it if it is not known yet
+	 * 
+	 * @param symbol the {@link String} symbol
+	 * @return the identifier of the symbol or {@link #MISSING_ID} if the symbol is null
+	 */
+	public int encode(String symbol) {
+		
+		if (symbol == null)
+			return MISSING_ID;
+		
+		Integer identifier = identifiers.get(symbol);
+		return identifier != null ? identifier : register(symbol);
+		
+	}
+	
+	/**
+	 * Gives the identifier of an already registered symbol
+	 * 
+	 * @param symbol the {@link String} symbol
+	 * @return the identifier of the symbol or {@link #MISSING_ID} if the symbol is not registered
+	 */
+	public int find(String symbol) {
+		
+		Integer identifier = symbol == null ? null : identifiers.get(symbol);
+		return identifier == null ? MISSING_ID : identifier;
+		
+	}
+	
+	/**
+	 * Resolves an identifier back to its symbol
+	 * 
+	 * @param identifier the identifier of the symbol
+	 * @return the {@link String} symbol or null for {@link #MISSING_ID}
+	 */
+	public String decode(int identifier) {
+		return identifier == MISSING_ID ? null : symbols[identifier];
+	}
+	
+	/**
+	 * Gives the number of registered symbols, which is also the next identifier to be given
+	 * 
+	 * @return the number of symbols
+	 */
+	public int size() {
+		return size;
+	}
+	
+	private synchronized int register(String symbol) {
+		
+		// Another thread may have registered the symbol in the meantime
+		Integer identifier = identifiers.get(symbol);
+		if (identifier != null)
+			return identifier;
+		
+		if (size == symbols.length)
+			symbols = Arrays.copyOf(symbols, size * 2);
+		
+		symbols[size] = symbol;
+		identifiers.put(symbol, size);
+		
+		return size++;
+		
+	}
+
+}
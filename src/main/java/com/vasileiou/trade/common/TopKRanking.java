@@ -0,0 +1,254 @@
+package com.vasileiou.trade.common;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded ranking keeping only the K entities with the greatest amounts, in a min-heap whose root is the
+ * weakest ranked entity. Entities with equal amounts are ranked by their name in ascending order.
+ * <p>
+ * It can be fed while streaming, where offering an already ranked entity again updates its amount, on condition
+ * that the amount of every entity never decreases, as it happens with the maximum and the total amounts. It is
+ * not thread safe. The entities are kept by their identifiers of a {@link SymbolDictionary}, so that offering an
+ * amount neither boxes nor hashes anything
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class TopKRanking {
+	
+	private static final int DEFAULT_CAPACITY = 16;
+	
+	private final int k;
+	private final SymbolDictionary dictionary;
+	private int[] entityIds;
+	private String[] entities;
+	private double[] amounts;
+	private int size;
+	
+	// Position of every ranked entity in the heap by identifier, for updating the amounts of already ranked ones
+	private int[] positions = new int[0];
+	
+	/**
+	 * Creates an empty ranking of the shared entities
+	 * 
+	 * @param k the maximum number of ranked entities
+	 */
+	public TopKRanking(int k) {
+		this(SymbolDictionary.getSharedEntities(), k);
+	}
+	
+	/**
+	 * Creates an empty ranking
+	 * 
+	 * @param dictionary the {@link SymbolDictionary} of the entity identifiers
+	 * @param k the maximum number of ranked entities
+	 */
+	public TopKRanking(SymbolDictionary dictionary, int k) {
+		
+		this.k = Math.max(k, 0);
+		this.dictionary = dictionary;
+		this.entityIds = new int[Math.min(this.k, DEFAULT_CAPACITY)];
+		this.entities = new String[entityIds.length];
+		this.amounts = new double[entityIds.length];
+		
+	}
+	
+	/**
+	 * Creates the ranking of the top K entities of the given amounts. The entities of a map are distinct, so they
+	 * are ranked by name without encoding any identifiers and the ranking takes no further amounts
+	 * 
+	 * @param amountsPerEntity the {@link Map} of entity and amount pairs
+	 * @param k the maximum number of ranked entities
+	 * @return the {@link TopKRanking}
+	 */
+	public static TopKRanking of(Map<String, Double> amountsPerEntity, int k) {
+		
+		TopKRanking ranking = new TopKRanking(null, Math.min(k, amountsPerEntity.size()));
+		for (Map.Entry<String, Double> entityEntry : amountsPerEntity.entrySet()) {
+			ranking.insert(SymbolDictionary.MISSING_ID, entityEntry.getKey(), entityEntry.getValue());
+		}
+		
+		return ranking;
+		
+	}
+	
+	/**
+	 * Offers the amount of an entity to the ranking
+	 * 
+	 * @param entity the {@link String} entity
+	 * @param amount the current amount of the entity, which is not less than any previously offered one
+	 */
+	public void offer(String entity, double amount) {
+		
+		if (dictionary == null)
+			throw new IllegalStateException("The ranking of a map takes no further amounts");
+		
+		offer(dictionary.encode(entity), amount);
+		
+	}
+		
+	/**
+	 * Offers the amount of an entity to the ranking
+	 * 
+	 * @param entityId the identifier of the entity in the dictionary of the ranking
+	 * @param amount the current amount of the entity, which is not less than any previously offered one
+	 */
+	public void offer(int entityId, double amount) {
+		
+		if (entityId >= positions.length) {
+			int length = positions.length;
+			positions = Arrays.copyOf(positions, Math.max(entityId + 1, length * 2));
+			Arrays.fill(positions, length, positions.length, -1);
+		}
+		int position = positions[entityId];
+		
+		// An already ranked entity can only move away from the weakest position
+		if (position >= 0) {
+			amounts[position] = amount;
+			siftDown(position);
+			return;
+		}
+		
+		insert(entityId, dictionary.decode(entityId), amount);
+		
+	}
+	
+	/**
+	 * Gives the ranked entities, starting from the greatest amount
+	 * 
+	 * @return a new {@link LinkedHashMap} of entity and amount pairs in ranking order
+	 */
+	public LinkedHashMap<String, Double> toRanking() {
+		
+		// Sort a copy of the heap by ranking order
+		Integer[] order = new Integer[size];
+		for (int position = 0; position < size; position++) {
+			order[position] = position;
+		}
+		Arrays.sort(order, (first, second) -> compare(entities[second], amounts[second], entities[first],
+				amounts[first]));
+		
+		LinkedHashMap<String, Double> ranking = new LinkedHashMap<>();
+		for (Integer position : order) {
+			ranking.put(entities[position], amounts[position]);
+		}
+		
+		return ranking;
+		
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public int getK() {
+		return k;
+	}
+	
+	/**
+	 * Inserts an entity which is not ranked yet, if there is room or it is stronger than the weakest one
+	 * 
+	 * @param entityId the identifier of the entity, or a missing identifier for entities not tracked by position
+	 */
+	private void insert(int entityId, String entity, double amount) {
+		
+		if (size < k) {
+			if (size == entities.length)
+				grow();
+			set(size, entityId, entity, amount);
+			siftUp(size++);
+		} else if (size > 0 && isWeaker(entities[0], amounts[0], entity, amount)) {
+			
+			// Replace the weakest ranked entity
+			if (entityIds[0] != SymbolDictionary.MISSING_ID)
+				positions[entityIds[0]] = -1;
+			set(0, entityId, entity, amount);
+			siftDown(0);
+		}
+		
+	}
+	
+	private void siftUp(int position) {
+		
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (!isWeaker(entities[position], amounts[position], entities[parent], amounts[parent]))
+				break;
+			swap(position, parent);
+			position = parent;
+		}
+		
+	}
+	
+	private void siftDown(int position) {
+		
+		while (true) {
+			int weakest = position;
+			int left = 2 * position + 1;
+			int right = left + 1;
+			
+			if (left < size && isWeaker(entities[left], amounts[left], entities[weakest], amounts[weakest]))
+				weakest = left;
+			if (right < size && isWeaker(entities[right], amounts[right], entities[weakest], amounts[weakest]))
+				weakest = right;
+			if (weakest == position)
+				break;
+			
+			swap(position, weakest);
+			position = weakest;
+		}
+		
+	}
+	
+	private void set(int position, int entityId, String entity, double amount) {
+		
+		entityIds[position] = entityId;
+		entities[position] = entity;
+		amounts[position] = amount;
+		if (entityId != SymbolDictionary.MISSING_ID)
+			positions[entityId] = position;
+		
+	}
+	
+	private void swap(int first, int second) {
+		
+		int entityId = entityIds[first];
+		String entity = entities[first];
+		double amount = amounts[first];
+		set(first, entityIds[second], entities[second], amounts[second]);
+		set(second, entityId, entity, amount);
+		
+	}
+	
+	private void grow() {
+		
+		int capacity = (int) Math.min((long) entities.length * 2, k);
+		entityIds = Arrays.copyOf(entityIds, capacity);
+		entities = Arrays.copyOf(entities, capacity);
+		amounts = Arrays.copyOf(amounts, capacity);
+		
+	}
+	
+	/**
+	 * Checks if the first entity is ranked below the second one
+	 */
+	private static boolean isWeaker(String firstEntity, double firstAmount, String secondEntity,
+			double secondAmount) {
+		return compare(firstEntity, firstAmount, secondEntity, secondAmount) < 0;
+	}
+	
+	/**
+	 * Compares two entities by ranking, where the lower amount and for equal amounts the greater name is weaker
+	 * 
+	 * @return a negative number if the first entity is weaker, zero if they are the same and positive otherwise
+	 */
+	private static int compare(String firstEntity, double firstAmount, String secondEntity, double secondAmount) {
+		
+		int comparison = Double.compare(firstAmount, secondAmount);
+		return comparison != 0 ? comparison : secondEntity.compareTo(firstEntity);
+		
+	}
+
+}
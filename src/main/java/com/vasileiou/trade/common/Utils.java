@@ -1,11 +1,9 @@
 package com.vasileiou.trade.common;
 
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.List;
 
 /**
  * Definition of all needed utilities
@@ -14,6 +12,11 @@ import java.util.List;
  *
  */
 public class Utils {
+	
+	private static final String[] MONTH_NAMES = { "January", "February", "March", "April", "May", "June", "July",
+			"August", "September", "October", "November", "December" };
+	private static final long DAYS_PER_ERA = 146097;
+	private static final long DAYS_0000_TO_1970 = 719468;
 
 	/**
 	 * Based on currency and date, checks if it falls into a working day
@@ -24,21 +27,7 @@ public class Utils {
 	 */
 	public static boolean isWorkingDay(String currency, Date date) {
 		
-		// Get the appropriate weekend based on the given currency
-		List<Integer> weekend = Constants.DIFFERENT_WEEK_CURRENCIES.contains(currency)
-				? Constants.CALENDAR_EXCEPTION_WEEKEND
-				: Constants.CALENDAR_COMMON_WEEKEND;
-		
-		Calendar calendar = Calendar.getInstance();
-		calendar.setTime(date);
-		
-		int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
-		
-		if (weekend.contains(dayOfWeek)) {
-			return false;
-		} else {
-			return true;
-		}
+		return isWorkingDay(currency, toEpochDay(date));
 		
 	}
 	
@@ -50,20 +39,160 @@ public class Utils {
 	 */
 	public static Date convertStringToDate(String dateContent) {
 		
-		// Return if given date is null
-		if (dateContent == null)
-			return null;
+		int epochDay = parseEpochDay(dateContent);
 		
-		DateFormat dateFormat = new SimpleDateFormat(Constants.DATE_FORMAT);
-		try {
-			return dateFormat.parse(dateContent);
-		} catch (ParseException e) {
-			Printer.print(e.getMessage());
+		// Return if given date is null or it is not valid
+		if (epochDay == Constants.MISSING_EPOCH_DAY || epochDay == Constants.INVALID_EPOCH_DAY)
 			return null;
+		
+		return toDate(epochDay);
+		
+	}
+	
+	/**
+	 * Parses a date in the predefined format (see {@link Constants}) to the number of days since 1970-01-01,
+	 * without creating any objects. The day may have one or two digits, the month is given in English either
+	 * abbreviated or in full, ignoring the case, and the year has four digits. Days not existing in the month
+	 * are not valid
+	 * 
+	 * @param dateContent {@link CharSequence} variable defining the date
+	 * @return the epoch day, or {@link Constants#MISSING_EPOCH_DAY} if the given date is null and
+	 * {@link Constants#INVALID_EPOCH_DAY} if it is not valid
+	 */
+	public static int parseEpochDay(CharSequence dateContent) {
+		
+		if (dateContent == null)
+			return Constants.MISSING_EPOCH_DAY;
+		
+		int length = dateContent.length();
+		int position = 0;
+		
+		// Parse the day of one or two digits followed by a space
+		int day = 0;
+		while (position < length && position < 2 && isDigit(dateContent.charAt(position))) {
+			day = day * 10 + dateContent.charAt(position++) - '0';
+		}
+		if (position == 0 || position >= length || dateContent.charAt(position++) != ' ')
+			return Constants.INVALID_EPOCH_DAY;
+		
+		// Parse the name of the month followed by a space
+		int monthStart = position;
+		while (position < length && dateContent.charAt(position) != ' ') {
+			position++;
 		}
+		int month = parseMonth(dateContent, monthStart, position);
+		if (month == 0 || position >= length)
+			return Constants.INVALID_EPOCH_DAY;
+		position++;
+		
+		// Parse the year of four digits ending the date
+		if (length - position != 4)
+			return Constants.INVALID_EPOCH_DAY;
+		int year = 0;
+		for (; position < length; position++) {
+			if (!isDigit(dateContent.charAt(position)))
+				return Constants.INVALID_EPOCH_DAY;
+			year = year * 10 + dateContent.charAt(position) - '0';
+		}
+		
+		if (day < 1 || day > lengthOfMonth(year, month))
+			return Constants.INVALID_EPOCH_DAY;
+		
+		return toEpochDay(year, month, day);
+		
+	}
+	
+	/**
+	 * Appends an epoch day in the predefined format (see {@link Constants}), without creating any objects
+	 * 
+	 * @param output the {@link StringBuilder} where the date is appended
+	 * @param epochDay the number of days since 1970-01-01
+	 * @return the given {@link StringBuilder}
+	 */
+	public static StringBuilder appendEpochDay(StringBuilder output, int epochDay) {
+		
+		int civilDate = toCivilDate(epochDay);
+		int day = civilDate & 0x1F;
+		int month = (civilDate >> 5) & 0xF;
+		int year = civilDate >> 9;
+		
+		if (day < 10)
+			output.append('0');
+		output.append(day).append(' ').append(MONTH_NAMES[month - 1], 0, 3).append(' ');
+		
+		return appendYear(output, year);
+		
+	}
+	
+	/**
+	 * Appends an epoch day in the ISO-8601 format (yyyy-MM-dd) for machine readable output, without creating any
+	 * objects
+	 * 
+	 * @param output the {@link StringBuilder} where the date is appended
+	 * @param epochDay the number of days since 1970-01-01
+	 * @return the given {@link StringBuilder}
+	 */
+	public static StringBuilder appendIsoEpochDay(StringBuilder output, int epochDay) {
+		
+		int civilDate = toCivilDate(epochDay);
+		int day = civilDate & 0x1F;
+		int month = (civilDate >> 5) & 0xF;
+		
+		appendYear(output, civilDate >> 9).append('-');
+		if (month < 10)
+			output.append('0');
+		output.append(month).append('-');
+		if (day < 10)
+			output.append('0');
+		
+		return output.append(day);
 		
 	}
 	
+	/**
+	 * Converts an epoch day to the civil date, packed as the year shifted by 9 bits, the month shifted by 5 bits
+	 * and the day of month
+	 * 
+	 * @param epochDay the number of days since 1970-01-01
+	 * @return the packed civil date
+	 */
+	private static int toCivilDate(int epochDay) {
+		
+		// Convert the days to the civil date, where the year starts from the 1st of March
+		long days = epochDay + DAYS_0000_TO_1970;
+		long era = (days >= 0 ? days : days - DAYS_PER_ERA + 1) / DAYS_PER_ERA;
+		long dayOfEra = days - era * DAYS_PER_ERA;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long shiftedMonth = (5 * dayOfYear + 2) / 153;
+		int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+		int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+		int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+		
+		return year << 9 | month << 5 | day;
+		
+	}
+	
+	private static StringBuilder appendYear(StringBuilder output, int year) {
+		
+		for (int digits = 1000; digits > 1 && year < digits; digits /= 10) {
+			output.append('0');
+		}
+		
+		return output.append(year);
+		
+	}
+	
+	/**
+	 * Converts an epoch day to a string in a predefined format (see {@link Constants})
+	 * 
+	 * @param epochDay the number of days since 1970-01-01
+	 * @return the formatted {@link String}
+	 */
+	public static String formatEpochDay(int epochDay) {
+		return appendEpochDay(new StringBuilder(11), epochDay).toString();
+	}
+	
 	/**
 	 * In case of a day falling into weekend then this function gets the next working day
 	 * 
@@ -77,39 +206,142 @@ public class Utils {
 		if (initialDate == null)
 			return null;
 		
-		// Get the proper weekend based on currency
-		List<Integer> weekend = Constants.DIFFERENT_WEEK_CURRENCIES.contains(currency)
-				? Constants.CALENDAR_EXCEPTION_WEEKEND
-				: Constants.CALENDAR_COMMON_WEEKEND;
+		int epochDay = toEpochDay(initialDate);
+		int correctedDay = dateCorrection(currency, epochDay);
 		
-		Calendar calendar = Calendar.getInstance();
-		calendar.setTime(initialDate);
+		// Keep the time of the day of the given date
+		return correctedDay == epochDay
+				? initialDate
+				: Date.from(initialDate.toInstant().atZone(ZoneId.systemDefault()).plusDays(correctedDay - epochDay)
+						.toInstant());
 		
-		// Incrementally add one day till fall into a working day
-		while (!isWorkingDay(calendar.get(Calendar.DAY_OF_WEEK), weekend)) {
-			calendar.add(Calendar.DATE, 1);
-		}
+	}
+	
+	/**
+	 * Based on currency and epoch day, checks if it falls into a working day, taking into account the weekend and
+	 * the holidays of the {@link SettlementCalendar}
+	 * 
+	 * @param currency {@link String} for defining the instruction currency
+	 * @param epochDay the number of days since 1970-01-01 for the settlement date
+	 * @return true if it is a working date and false otherwise
+	 */
+	public static boolean isWorkingDay(String currency, int epochDay) {
+		return SettlementCalendar.getDefault().isWorkingDay(currency, epochDay);
+	}
+	
+	/**
+	 * In case of an epoch day falling into weekend or holiday then this function gets the next working epoch day
+	 * 
+	 * @param currency {@link String} currency
+	 * @param epochDay the number of days since 1970-01-01 needing correction
+	 * @return the corrected epoch day
+	 */
+	public static int dateCorrection(String currency, int epochDay) {
+		return SettlementCalendar.getDefault().nextWorkingDay(currency, epochDay);
+	}
+	
+	/**
+	 * Gives the day of week of an epoch day with the numbering of {@link Calendar}, starting from Sunday (1)
+	 * 
+	 * @param epochDay the number of days since 1970-01-01
+	 * @return the day of week
+	 */
+	public static int dayOfWeek(int epochDay) {
 		
-		return calendar.getTime();
+		// The 1st of January 1970 was a Thursday
+		return Math.floorMod(epochDay + Calendar.THURSDAY - 1, 7) + 1;
 		
 	}
 	
 	/**
-	 * Simple check for a day of week if it is a working day
+	 * Converts a {@link Date} to the number of days since 1970-01-01 in the default time zone
 	 * 
-	 * @param dayOfWeek {@link Integer} day of week, starting from Sunday (0)
-	 * @param weekend the {@link List} of weekend
-	 * @return true if it is a working day and false otherwise
+	 * @param date the {@link Date} to be converted
+	 * @return the epoch day of the date
 	 */
-	private static boolean isWorkingDay(Integer dayOfWeek, List<Integer> weekend) {
+	public static int toEpochDay(Date date) {
+		return (int) date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+	}
+	
+	/**
+	 * Converts a number of days since 1970-01-01 to the {@link Date} at the start of that day in the default
+	 * time zone
+	 * 
+	 * @param epochDay the epoch day to be converted
+	 * @return the {@link Date} object
+	 */
+	public static Date toDate(int epochDay) {
+		return Date.from(LocalDate.ofEpochDay(epochDay).atStartOfDay(ZoneId.systemDefault()).toInstant());
+	}
+	
+	/**
+	 * Converts a civil date to the number of days since 1970-01-01
+	 * 
+	 * @param year the year
+	 * @param month the month, starting from January (1)
+	 * @param day the day of the month
+	 * @return the epoch day
+	 */
+	public static int toEpochDay(int year, int month, int day) {
 		
-		// If day falls into a weekend then it is not a working day
-		if (weekend.contains(dayOfWeek)) {
-			return false;
-		} else {
-			return true;
+		// Count the years from the 1st of March, so that the leap day is the last day of the year
+		long shiftedYear = month <= 2 ? year - 1 : year;
+		long era = (shiftedYear >= 0 ? shiftedYear : shiftedYear - 399) / 400;
+		long yearOfEra = shiftedYear - era * 400;
+		long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		
+		return (int) (era * DAYS_PER_ERA + dayOfEra - DAYS_0000_TO_1970);
+		
+	}
+	
+	/**
+	 * Gives the number of days of a month
+	 * 
+	 * @param year the year
+	 * @param month the month, starting from January (1)
+	 * @return the number of days
+	 */
+	public static int lengthOfMonth(int year, int month) {
+		
+		if (month == 2)
+			return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+		
+		return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+		
+	}
+	
+	/**
+	 * Parses an English month name, either abbreviated to three letters or in full, ignoring the case
+	 * 
+	 * @return the month starting from January (1), or zero if it is not a month name
+	 */
+	private static int parseMonth(CharSequence dateContent, int start, int end) {
+		
+		int length = end - start;
+		if (length < 3)
+			return 0;
+		
+		for (int month = 0; month < MONTH_NAMES.length; month++) {
+			String name = MONTH_NAMES[month];
+			if (length != 3 && length != name.length())
+				continue;
+			
+			int index = 0;
+			while (index < length && Character.toLowerCase(dateContent.charAt(start + index))
+										== Character.toLowerCase(name.charAt(index))) {
+				index++;
+			}
+			if (index == length)
+				return month + 1;
 		}
 		
+		return 0;
+		
+	}
+	
+	private static boolean isDigit(char character) {
+		return character >= '0' && character <= '9';
 	}
 	
 	/**
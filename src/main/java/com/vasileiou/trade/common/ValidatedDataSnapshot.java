@@ -0,0 +1,663 @@
+package com.vasileiou.trade.common;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.Status;
+import com.vasileiou.trade.models.DailyAmounts;
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.InstructionStore;
+import com.vasileiou.trade.models.ValidatedData;
+
+/**
+ * Snapshots of the aggregated {@link ValidatedData} in a compact binary format, so that the reports are available
+ * right after a restart without fetching and parsing the instructions again. All the values are little endian and
+ * the file consists of:
+ * <ul>
+ * <li>a header of 20 bytes: the magic number <code>TRSS</code> (int), the format version (short), the flags
+ * (short), where the first bit tells if the instructions are included, the time of the snapshot in epoch
+ * milliseconds (long) and the decimals of the fixed-point amounts (int), which have to be the ones of the
+ * default {@link FixedPointAmounts} when reading</li>
+ * <li>the entities and the currencies dictionaries: the number of symbols (int) followed by the length (unsigned
+ * short) and the UTF-8 bytes of every symbol, where the identifier of a symbol is its position</li>
+ * <li>the daily amounts: the number of days (int) followed by records of 20 bytes with the epoch day (int), the
+ * outgoing and the incoming scaled fixed-point amounts (long)</li>
+ * <li>the outgoing and the incoming entity statistics: the number of entities (int) followed by records of 28
+ * bytes with the entity identifier (int), the scaled fixed-point total (long), the count (long) and the maximum
+ * (double)</li>
+ * <li>the moving totals: the number of windows (int) followed by the window days (int), the first epoch day (int),
+ * the number of days (int), records of 16 bytes with the outgoing and the incoming scaled fixed-point amounts
+ * (long) of every day from the first one, the number of entity amounts within the window (int) and records of 17
+ * bytes with the buy or sell value (byte), the entity identifier (int), the epoch day (int) and the scaled
+ * fixed-point amount (long) of every entity amount</li>
+ * <li>the date range index per entity and per currency: for the entities and then for the currencies, the number
+ * of amounts (int) followed by records of 17 bytes with the buy or sell value (byte), the entity or currency
+ * identifier (int), the epoch day (int) and the scaled fixed-point amount (long), while the totals per side are
+ * given by the daily amounts</li>
+ * <li>the aggregation cube: the number of cells (int) followed by records of 37 bytes with the epoch day (int), the
+ * buy or sell value (byte), the currency and entity identifiers (int), the scaled fixed-point total (long), the
+ * count (long) and the scaled fixed-point maximum (long)</li>
+ * <li>optionally the valid instructions per settlement date: the number of days (int) followed by the epoch day
+ * (int), the number of instructions (int) and records of 53 bytes with the buy or sell value (byte), the entity
+ * and currency identifiers (int), the instruction, settlement and initial settlement epoch days (int), the units
+ * (long), the price per unit, the agreed fx and the amount of trade (double) of every instruction</li>
+ * </ul>
+ * A snapshot is written to a temporary file of a unique name which then replaces the previous snapshot atomically,
+ * so that neither a crash nor a concurrent writer ever leaves a partial snapshot behind. It is loaded back through
+ * a memory mapping of the file. The rejected instructions are not part of the snapshot
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class ValidatedDataSnapshot {
+	
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	
+	private ValidatedDataSnapshot(FileChannel channel) {
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocateDirect(Constants.BINARY_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	}
+	
+	/**
+	 * Writes a snapshot of the aggregated data, replacing any previous snapshot of the file
+	 * 
+	 * @param validatedData the {@link ValidatedData} to be written
+	 * @param file the {@link Path} of the snapshot
+	 * @param includeInstructions true for writing the valid instructions per date as well, so that the reports
+	 * based on the instructions are available after loading the snapshot
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	public static void write(ValidatedData validatedData, Path file, boolean includeInstructions)
+			throws IOException {
+		
+		// Only the symbols in use are written, with identifiers local to the snapshot
+		SymbolDictionary entities = new SymbolDictionary();
+		SymbolDictionary currencies = new SymbolDictionary();
+		int[] outgoing = encodeEntities(validatedData.getOutgoingEntityStatistics(), entities);
+		int[] incoming = encodeEntities(validatedData.getIncomingEntityStatistics(), entities);
+		if (validatedData.getRollingTotalsPerWindow() != null) {
+			for (RollingWindowTotals rollingTotals : validatedData.getRollingTotalsPerWindow().values()) {
+				rollingTotals.forEachEntityAmount((side, entityId, epochDay, scaledAmount) -> entities.encode(
+						rollingTotals.getEntities().decode(entityId)));
+			}
+		}
+		SettlementIndex settlementIndex = validatedData.getSettlementIndex();
+		if (settlementIndex != null) {
+			settlementIndex.forEachEntityAmount((side, entityId, epochDay, scaledAmount) -> entities.encode(
+					settlementIndex.getEntities().decode(entityId)));
+			settlementIndex.forEachCurrencyAmount((side, currencyId, epochDay, scaledAmount) -> currencies.encode(
+					settlementIndex.getCurrencies().decode(currencyId)));
+		}
+		AggregationCube aggregationCube = validatedData.getAggregationCube();
+		if (aggregationCube != null) {
+			aggregationCube.forEachScaledCell((epochDay, buyOrSell, currencyId, entityId, scaledTotal, count,
+					scaledMaximum) -> {
+				currencies.encode(aggregationCube.getCurrencies().decode(currencyId));
+				entities.encode(aggregationCube.getEntities().decode(entityId));
+			});
+		}
+		boolean instructions = includeInstructions && validatedData.getInstructionsPerEpochDay() != null;
+		if (instructions) {
+			for (List<Instruction> instructionsToDate : validatedData.getInstructionsPerEpochDay().values()) {
+				for (Instruction instruction : instructionsToDate) {
+					entities.encode(instruction.getEntity());
+					currencies.encode(instruction.getCurrency());
+				}
+			}
+		}
+		
+		Path temporaryFile = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".",
+				Constants.SNAPSHOT_TEMPORARY_SUFFIX);
+		try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+			
+			ValidatedDataSnapshot snapshot = new ValidatedDataSnapshot(channel);
+			snapshot.buffer.putInt(Constants.SNAPSHOT_MAGIC);
+			snapshot.buffer.putShort(Constants.SNAPSHOT_VERSION);
+			snapshot.buffer.putShort(instructions ? Constants.SNAPSHOT_INSTRUCTIONS_FLAG : 0);
+			snapshot.buffer.putLong(System.currentTimeMillis());
+			snapshot.buffer.putInt(FixedPointAmounts.getDefault().getDecimals());
+			
+			snapshot.writeSymbols(entities);
+			snapshot.writeSymbols(currencies);
+			snapshot.writeDailyAmounts(validatedData.getAmountsPerEpochDay());
+			snapshot.writeStatistics(validatedData.getOutgoingEntityStatistics(), outgoing);
+			snapshot.writeStatistics(validatedData.getIncomingEntityStatistics(), incoming);
+			snapshot.writeRollingTotals(validatedData.getRollingTotalsPerWindow(), entities);
+			snapshot.writeSettlementIndex(settlementIndex, entities, currencies);
+			snapshot.writeAggregationCube(aggregationCube, entities, currencies);
+			if (instructions)
+				snapshot.writeInstructions(validatedData.getInstructionsPerEpochDay(), entities, currencies);
+			
+			snapshot.flush();
+			channel.force(false);
+		} catch (IOException e) {
+			Files.deleteIfExists(temporaryFile);
+			throw e;
+		}
+		
+		Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		
+	}
+	
+	/**
+	 * Loads a snapshot back. The entities and currencies are encoded to the shared dictionaries of the pipeline
+	 * 
+	 * @param file the {@link Path} of the snapshot
+	 * @return the restored {@link ValidatedData}, without instructions per date if they are not included
+	 * @throws IOException if the snapshot cannot be read or it is not in a supported format
+	 */
+	public static ValidatedData read(Path file) throws IOException {
+		
+		MappedByteBuffer mapped;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Snapshot is too large to be mapped: " + file);
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		mapped.order(ByteOrder.LITTLE_ENDIAN);
+		
+		if (mapped.remaining() < Constants.SNAPSHOT_HEADER_SIZE || mapped.getInt() != Constants.SNAPSHOT_MAGIC)
+			throw new IOException("Not a snapshot file: " + file);
+		
+		short version = mapped.getShort();
+		if (version != Constants.SNAPSHOT_VERSION)
+			throw new IOException("Unsupported snapshot version " + version + ": " + file);
+		
+		short flags = mapped.getShort();
+		mapped.getLong();
+		
+		// The amounts are scaled by the decimals they were written with, so other decimals would scale them wrongly
+		int decimals = mapped.getInt();
+		if (decimals != FixedPointAmounts.getDefault().getDecimals())
+			throw new IOException("Snapshot amounts have " + decimals + " decimals instead of "
+					+ FixedPointAmounts.getDefault().getDecimals() + ": " + file);
+		
+		try {
+			String[] entitySymbols = readSymbols(mapped);
+			String[] currencySymbols = readSymbols(mapped);
+			int[] entityIds = new int[entitySymbols.length];
+			for (int entity = 0; entity < entitySymbols.length; entity++) {
+				entityIds[entity] = SymbolDictionary.getSharedEntities().encode(entitySymbols[entity]);
+			}
+			int[] currencyIds = new int[currencySymbols.length];
+			for (int currency = 0; currency < currencySymbols.length; currency++) {
+				currencyIds[currency] = SymbolDictionary.getSharedCurrencies().encode(currencySymbols[currency]);
+			}
+			
+			ValidatedData validatedData = new ValidatedData();
+			validatedData.setAmountsPerEpochDay(readDailyAmounts(mapped));
+			validatedData.setOutgoingEntityStatistics(readStatistics(mapped, entityIds));
+			validatedData.setIncomingEntityStatistics(readStatistics(mapped, entityIds));
+			validatedData.setRollingTotalsPerWindow(readRollingTotals(mapped, entityIds));
+			validatedData.setSettlementIndex(readSettlementIndex(mapped, validatedData.getAmountsPerEpochDay(),
+					entityIds, currencyIds));
+			validatedData.setAggregationCube(readAggregationCube(mapped, entityIds, currencyIds));
+			validatedData.setInstructionsPerEpochDay((flags & Constants.SNAPSHOT_INSTRUCTIONS_FLAG) != 0
+						? readInstructions(mapped, entitySymbols, currencySymbols)
+						: new TreeMap<Integer, List<Instruction>>());
+			validatedData.setRejectionSummary(new RejectionSummary());
+			
+			return validatedData;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IOException("Corrupted snapshot file: " + file);
+		}
+		
+	}
+	
+	/**
+	 * Encodes the entities of the statistics to the dictionary of the snapshot
+	 * 
+	 * @return the snapshot identifiers indexed by the identifiers of the statistics
+	 */
+	private static int[] encodeEntities(EntityStatistics entityStatistics, SymbolDictionary entities) {
+		
+		if (entityStatistics == null)
+			return new int[0];
+		
+		int[] snapshotIds = new int[entityStatistics.getEntities().size()];
+		entityStatistics.forEach((entityId, scaledTotal, count, maximum) -> snapshotIds[entityId] = entities
+				.encode(entityStatistics.getEntities().decode(entityId)));
+		
+		return snapshotIds;
+		
+	}
+	
+	private void writeSymbols(SymbolDictionary dictionary) throws IOException {
+		
+		ensureRemaining(4);
+		buffer.putInt(dictionary.size());
+		for (int identifier = 0; identifier < dictionary.size(); identifier++) {
+			byte[] bytes = dictionary.decode(identifier).getBytes(StandardCharsets.UTF_8);
+			if (bytes.length > Constants.BINARY_MAX_SYMBOL_SIZE)
+				throw new IOException("Symbol is too long to be written: " + dictionary.decode(identifier));
+			
+			ensureRemaining(2 + bytes.length);
+			buffer.putShort((short) bytes.length);
+			buffer.put(bytes);
+		}
+		
+	}
+	
+	private void writeDailyAmounts(Map<Integer, DailyAmounts> amountsPerEpochDay) throws IOException {
+		
+		ensureRemaining(4);
+		buffer.putInt(amountsPerEpochDay == null ? 0 : amountsPerEpochDay.size());
+		if (amountsPerEpochDay == null)
+			return;
+		
+		for (Map.Entry<Integer, DailyAmounts> dayEntry : amountsPerEpochDay.entrySet()) {
+			ensureRemaining(Constants.SNAPSHOT_DAY_SIZE);
+			buffer.putInt(dayEntry.getKey());
+			buffer.putLong(dayEntry.getValue().getScaledOutgoingAmount());
+			buffer.putLong(dayEntry.getValue().getScaledIncomingAmount());
+		}
+		
+	}
+	
+	private void writeStatistics(EntityStatistics entityStatistics, int[] snapshotIds) throws IOException {
+		
+		ensureRemaining(4);
+		buffer.putInt(entityStatistics == null ? 0 : entityStatistics.size());
+		if (entityStatistics == null)
+			return;
+		
+		// The buffer is flushed before every entity, as the consumer cannot throw
+		IOException[] failure = new IOException[1];
+		entityStatistics.forEach((entityId, scaledTotal, count, maximum) -> {
+			try {
+				ensureRemaining(Constants.SNAPSHOT_STATISTICS_SIZE);
+			} catch (IOException e) {
+				failure[0] = e;
+				return;
+			}
+			buffer.putInt(snapshotIds[entityId]);
+			buffer.putLong(scaledTotal);
+			buffer.putLong(count);
+			buffer.putDouble(maximum);
+		});
+		
+		if (failure[0] != null)
+			throw failure[0];
+		
+	}
+	
+	private void writeRollingTotals(Map<Integer, RollingWindowTotals> rollingTotalsPerWindow,
+			SymbolDictionary entities) throws IOException {
+		
+		ensureRemaining(4);
+		buffer.putInt(rollingTotalsPerWindow == null ? 0 : rollingTotalsPerWindow.size());
+		if (rollingTotalsPerWindow == null)
+			return;
+		
+		for (RollingWindowTotals rollingTotals : rollingTotalsPerWindow.values()) {
+			
+			int days = rollingTotals.isEmpty()
+					? 0
+					: rollingTotals.getLastEpochDay() - rollingTotals.getFirstEpochDay() + 1;
+			ensureRemaining(Constants.SNAPSHOT_ROLLING_HEADER_SIZE);
+			buffer.putInt(rollingTotals.getWindowDays());
+			buffer.putInt(rollingTotals.getFirstEpochDay());
+			buffer.putInt(days);
+			
+			// The amounts of both sides of a day are written together, so they are collected per side first
+			long[][] amountsPerDay = new long[2][days];
+			rollingTotals.forEachDay((side, epochDay, scaledAmount) -> amountsPerDay[side][epochDay
+					- rollingTotals.getFirstEpochDay()] = scaledAmount);
+			for (int day = 0; day < days; day++) {
+				ensureRemaining(16);
+				buffer.putLong(amountsPerDay[BuyOrSell.BUY.ordinal()][day]);
+				buffer.putLong(amountsPerDay[BuyOrSell.SELL.ordinal()][day]);
+			}
+			
+			int[] entityAmounts = new int[1];
+			rollingTotals.forEachEntityAmount((side, entityId, epochDay, scaledAmount) -> entityAmounts[0]++);
+			ensureRemaining(4);
+			buffer.putInt(entityAmounts[0]);
+			
+			// The buffer is flushed before every entity amount, as the consumer cannot throw
+			IOException[] failure = new IOException[1];
+			rollingTotals.forEachEntityAmount((side, entityId, epochDay, scaledAmount) -> {
+				try {
+					ensureRemaining(Constants.SNAPSHOT_ROLLING_AMOUNT_SIZE);
+				} catch (IOException e) {
+					failure[0] = e;
+					return;
+				}
+				buffer.put(side == BuyOrSell.BUY.ordinal() ? InstructionStore.SIDE_BUY : InstructionStore.SIDE_SELL);
+				buffer.putInt(entities.find(rollingTotals.getEntities().decode(entityId)));
+				buffer.putInt(epochDay);
+				buffer.putLong(scaledAmount);
+			});
+			
+			if (failure[0] != null)
+				throw failure[0];
+		}
+		
+	}
+	
+	private void writeSettlementIndex(SettlementIndex settlementIndex, SymbolDictionary entities,
+			SymbolDictionary currencies) throws IOException {
+		
+		if (settlementIndex == null) {
+			ensureRemaining(8);
+			buffer.putInt(0);
+			buffer.putInt(0);
+			return;
+		}
+		
+		writeIndexAmounts(settlementIndex::forEachEntityAmount, settlementIndex.getEntities(), entities);
+		writeIndexAmounts(settlementIndex::forEachCurrencyAmount, settlementIndex.getCurrencies(), currencies);
+		
+	}
+	
+	/**
+	 * Writes the amounts of the entities or the currencies of the date range index
+	 * 
+	 * @param forEachAmount the iteration over the amounts of the index
+	 * @param indexSymbols the {@link SymbolDictionary} of the identifiers of the index
+	 * @param snapshotSymbols the {@link SymbolDictionary} of the identifiers of the snapshot
+	 */
+	private void writeIndexAmounts(Consumer<SettlementIndex.SeriesAmountConsumer> forEachAmount,
+			SymbolDictionary indexSymbols, SymbolDictionary snapshotSymbols) throws IOException {
+		
+		int[] amounts = new int[1];
+		forEachAmount.accept((side, symbolId, epochDay, scaledAmount) -> amounts[0]++);
+		ensureRemaining(4);
+		buffer.putInt(amounts[0]);
+		
+		// The buffer is flushed before every amount, as the consumer cannot throw
+		IOException[] failure = new IOException[1];
+		forEachAmount.accept((side, symbolId, epochDay, scaledAmount) -> {
+			try {
+				ensureRemaining(Constants.SNAPSHOT_INDEX_AMOUNT_SIZE);
+			} catch (IOException e) {
+				failure[0] = e;
+				return;
+			}
+			buffer.put(side == BuyOrSell.BUY.ordinal() ? InstructionStore.SIDE_BUY : InstructionStore.SIDE_SELL);
+			buffer.putInt(snapshotSymbols.find(indexSymbols.decode(symbolId)));
+			buffer.putInt(epochDay);
+			buffer.putLong(scaledAmount);
+		});
+		
+		if (failure[0] != null)
+			throw failure[0];
+		
+	}
+	
+	private void writeAggregationCube(AggregationCube aggregationCube, SymbolDictionary entities,
+			SymbolDictionary currencies) throws IOException {
+		
+		ensureRemaining(4);
+		buffer.putInt(aggregationCube == null ? 0 : aggregationCube.size());
+		if (aggregationCube == null)
+			return;
+		
+		// The buffer is flushed before every cell, as the consumer cannot throw
+		IOException[] failure = new IOException[1];
+		aggregationCube.forEachScaledCell((epochDay, buyOrSell, currencyId, entityId, scaledTotal, count,
+				scaledMaximum) -> {
+			try {
+				ensureRemaining(Constants.SNAPSHOT_CUBE_CELL_SIZE);
+			} catch (IOException e) {
+				failure[0] = e;
+				return;
+			}
+			buffer.putInt(epochDay);
+			buffer.put(buyOrSell == BuyOrSell.BUY ? InstructionStore.SIDE_BUY : InstructionStore.SIDE_SELL);
+			buffer.putInt(currencies.find(aggregationCube.getCurrencies().decode(currencyId)));
+			buffer.putInt(entities.find(aggregationCube.getEntities().decode(entityId)));
+			buffer.putLong(scaledTotal);
+			buffer.putLong(count);
+			buffer.putLong(scaledMaximum);
+		});
+		
+		if (failure[0] != null)
+			throw failure[0];
+		
+	}
+	
+	private void writeInstructions(Map<Integer, List<Instruction>> instructionsPerEpochDay,
+			SymbolDictionary entities, SymbolDictionary currencies) throws IOException {
+		
+		ensureRemaining(4);
+		buffer.putInt(instructionsPerEpochDay.size());
+		for (Map.Entry<Integer, List<Instruction>> dayEntry : instructionsPerEpochDay.entrySet()) {
+			
+			ensureRemaining(8);
+			buffer.putInt(dayEntry.getKey());
+			buffer.putInt(dayEntry.getValue().size());
+			
+			for (Instruction instruction : dayEntry.getValue()) {
+				ensureRemaining(Constants.SNAPSHOT_INSTRUCTION_SIZE);
+				buffer.put(instruction.getBuyOrSell() == BuyOrSell.BUY
+								? InstructionStore.SIDE_BUY
+								: InstructionStore.SIDE_SELL);
+				buffer.putInt(entities.find(instruction.getEntity()));
+				buffer.putInt(currencies.find(instruction.getCurrency()));
+				buffer.putInt(instruction.getInstructionEpochDay());
+				buffer.putInt(instruction.getSettlementEpochDay());
+				buffer.putInt(instruction.getInitialSettlementEpochDay());
+				buffer.putLong(instruction.getUnits());
+				buffer.putDouble(instruction.getPricePerUnit());
+				buffer.putDouble(instruction.getAgreedFx());
+				buffer.putDouble(instruction.getAmountOfTrade());
+			}
+		}
+		
+	}
+	
+	private static String[] readSymbols(ByteBuffer mapped) {
+		
+		String[] symbols = new String[readCount(mapped, 2)];
+		for (int identifier = 0; identifier < symbols.length; identifier++) {
+			byte[] bytes = new byte[mapped.getShort() & 0xFFFF];
+			mapped.get(bytes);
+			symbols[identifier] = new String(bytes, StandardCharsets.UTF_8);
+		}
+		
+		return symbols;
+		
+	}
+	
+	/**
+	 * Reads the number of the following records and checks that they fit into the rest of the file, so that a
+	 * corrupted number fails before anything is allocated for the records
+	 * 
+	 * @param mapped the {@link ByteBuffer} of the snapshot
+	 * @param minimumRecordSize the minimum size of every record in bytes
+	 * @return the number of records
+	 * @throws BufferUnderflowException if the number is negative or the records cannot fit
+	 */
+	private static int readCount(ByteBuffer mapped, int minimumRecordSize) {
+		
+		int count = mapped.getInt();
+		if (count < 0 || (long) count * minimumRecordSize > mapped.remaining())
+			throw new BufferUnderflowException();
+		
+		return count;
+		
+	}
+	
+	private static TreeMap<Integer, DailyAmounts> readDailyAmounts(ByteBuffer mapped) {
+		
+		TreeMap<Integer, DailyAmounts> amountsPerEpochDay = new TreeMap<>();
+		int days = readCount(mapped, Constants.SNAPSHOT_DAY_SIZE);
+		for (int day = 0; day < days; day++) {
+			int epochDay = mapped.getInt();
+			DailyAmounts dailyAmounts = new DailyAmounts();
+			dailyAmounts.setScaledOutgoingAmount(mapped.getLong());
+			dailyAmounts.setScaledIncomingAmount(mapped.getLong());
+			amountsPerEpochDay.put(epochDay, dailyAmounts);
+		}
+		
+		return amountsPerEpochDay;
+		
+	}
+	
+	private static EntityStatistics readStatistics(ByteBuffer mapped, int[] entityIds) {
+		
+		int entities = readCount(mapped, Constants.SNAPSHOT_STATISTICS_SIZE);
+		EntityStatistics entityStatistics = new EntityStatistics(SymbolDictionary.getSharedEntities(), entities);
+		for (int entity = 0; entity < entities; entity++) {
+			entityStatistics.addScaled(entityIds[mapped.getInt()], mapped.getLong(), mapped.getLong(),
+					mapped.getDouble());
+		}
+		
+		return entityStatistics;
+		
+	}
+	
+	private static SortedMap<Integer, RollingWindowTotals> readRollingTotals(ByteBuffer mapped, int[] entityIds) {
+		
+		SortedMap<Integer, RollingWindowTotals> rollingTotalsPerWindow = new TreeMap<>();
+		int windows = readCount(mapped, Constants.SNAPSHOT_ROLLING_HEADER_SIZE + 4);
+		for (int window = 0; window < windows; window++) {
+			
+			RollingWindowTotals rollingTotals = new RollingWindowTotals(mapped.getInt());
+			int firstDay = mapped.getInt();
+			int days = readCount(mapped, 16);
+			
+			// The days are added before the entities, so that the window already ends at its last day
+			for (int day = 0; day < days; day++) {
+				rollingTotals.addDay(BuyOrSell.BUY.ordinal(), firstDay + day, mapped.getLong());
+				rollingTotals.addDay(BuyOrSell.SELL.ordinal(), firstDay + day, mapped.getLong());
+			}
+			
+			int entityAmounts = readCount(mapped, Constants.SNAPSHOT_ROLLING_AMOUNT_SIZE);
+			for (int entityAmount = 0; entityAmount < entityAmounts; entityAmount++) {
+				BuyOrSell buyOrSell = mapped.get() == InstructionStore.SIDE_BUY ? BuyOrSell.BUY : BuyOrSell.SELL;
+				rollingTotals.addEntity(buyOrSell.ordinal(), entityIds[mapped.getInt()], mapped.getInt(),
+						mapped.getLong());
+			}
+			rollingTotalsPerWindow.put(rollingTotals.getWindowDays(), rollingTotals);
+		}
+		
+		return rollingTotalsPerWindow;
+		
+	}
+	
+	/**
+	 * Reads the date range index, where the totals per side are given by the daily amounts
+	 */
+	private static SettlementIndex readSettlementIndex(ByteBuffer mapped, Map<Integer, DailyAmounts> amountsPerEpochDay,
+			int[] entityIds, int[] currencyIds) {
+		
+		SettlementIndex settlementIndex = new SettlementIndex();
+		for (Map.Entry<Integer, DailyAmounts> dayEntry : amountsPerEpochDay.entrySet()) {
+			settlementIndex.addScaled(BuyOrSell.BUY, dayEntry.getKey(), dayEntry.getValue().getScaledOutgoingAmount());
+			settlementIndex.addScaled(BuyOrSell.SELL, dayEntry.getKey(), dayEntry.getValue().getScaledIncomingAmount());
+		}
+		
+		int entityAmounts = readCount(mapped, Constants.SNAPSHOT_INDEX_AMOUNT_SIZE);
+		for (int entityAmount = 0; entityAmount < entityAmounts; entityAmount++) {
+			BuyOrSell buyOrSell = mapped.get() == InstructionStore.SIDE_BUY ? BuyOrSell.BUY : BuyOrSell.SELL;
+			settlementIndex.addEntity(buyOrSell.ordinal(), entityIds[mapped.getInt()], mapped.getInt(),
+					mapped.getLong());
+		}
+		int currencyAmounts = readCount(mapped, Constants.SNAPSHOT_INDEX_AMOUNT_SIZE);
+		for (int currencyAmount = 0; currencyAmount < currencyAmounts; currencyAmount++) {
+			BuyOrSell buyOrSell = mapped.get() == InstructionStore.SIDE_BUY ? BuyOrSell.BUY : BuyOrSell.SELL;
+			settlementIndex.addCurrency(buyOrSell.ordinal(), currencyIds[mapped.getInt()], mapped.getInt(),
+					mapped.getLong());
+		}
+		
+		return settlementIndex;
+		
+	}
+	
+	private static AggregationCube readAggregationCube(ByteBuffer mapped, int[] entityIds, int[] currencyIds) {
+		
+		AggregationCube aggregationCube = new AggregationCube();
+		int cells = readCount(mapped, Constants.SNAPSHOT_CUBE_CELL_SIZE);
+		for (int cell = 0; cell < cells; cell++) {
+			int epochDay = mapped.getInt();
+			BuyOrSell buyOrSell = mapped.get() == InstructionStore.SIDE_BUY ? BuyOrSell.BUY : BuyOrSell.SELL;
+			int currencyId = currencyIds[mapped.getInt()];
+			int entityId = entityIds[mapped.getInt()];
+			aggregationCube.addScaled(epochDay, buyOrSell, currencyId, entityId, mapped.getLong(), mapped.getLong(),
+					mapped.getLong());
+		}
+		
+		return aggregationCube;
+		
+	}
+	
+	private static TreeMap<Integer, List<Instruction>> readInstructions(ByteBuffer mapped, String[] entitySymbols,
+			String[] currencySymbols) {
+		
+		TreeMap<Integer, List<Instruction>> instructionsPerEpochDay = new TreeMap<>();
+		int days = readCount(mapped, 8);
+		for (int day = 0; day < days; day++) {
+			
+			int epochDay = mapped.getInt();
+			int instructions = readCount(mapped, Constants.SNAPSHOT_INSTRUCTION_SIZE);
+			List<Instruction> instructionsToDate = new ArrayList<>(instructions);
+			for (int index = 0; index < instructions; index++) {
+				
+				boolean buy = mapped.get() == InstructionStore.SIDE_BUY;
+				String entity = entitySymbols[mapped.getInt()];
+				String currency = currencySymbols[mapped.getInt()];
+				int instructionDay = mapped.getInt();
+				int settlementDay = mapped.getInt();
+				int initialSettlementDay = mapped.getInt();
+				
+				// The input dates are given by the epoch days, as only valid instructions are written
+				Instruction instruction = new Instruction(entity,
+						buy ? Constants.INPUT_BUY_FLAG : Constants.INPUT_SELL_FLAG, null, currency,
+						InstructionStore.decodeDay(instructionDay),
+						InstructionStore.decodeDay(initialSettlementDay != Constants.MISSING_EPOCH_DAY
+															? initialSettlementDay
+															: settlementDay),
+						mapped.getLong(), mapped.getDouble());
+				instruction.setAgreedFx(mapped.getDouble());
+				instruction.setAmountOfTrade(mapped.getDouble());
+				instruction.setBuyOrSell(buy ? BuyOrSell.BUY : BuyOrSell.SELL);
+				instruction.setInstructionEpochDay(instructionDay);
+				instruction.setSettlementEpochDay(settlementDay);
+				instruction.setInitialSettlementEpochDay(initialSettlementDay);
+				instruction.setStatus(Status.VALID);
+				instructionsToDate.add(instruction);
+			}
+			instructionsPerEpochDay.put(epochDay, instructionsToDate);
+		}
+		
+		return instructionsPerEpochDay;
+		
+	}
+	
+	private void flush() throws IOException {
+		
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+		
+	}
+	
+	private void ensureRemaining(int size) throws IOException {
+		
+		if (buffer.remaining() < size)
+			flush();
+		
+	}
+
+}
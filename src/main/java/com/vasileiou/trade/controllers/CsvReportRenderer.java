@@ -0,0 +1,205 @@
+package com.vasileiou.trade.controllers;
+
+import java.util.Set;
+
+import com.vasileiou.trade.common.InstructionLineCodec;
+import com.vasileiou.trade.common.Utils;
+import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.CubeDimension;
+import com.vasileiou.trade.enums.RankingMode;
+import com.vasileiou.trade.enums.RejectionGroup;
+import com.vasileiou.trade.enums.Status;
+import com.vasileiou.trade.interfaces.ReportRenderer;
+import com.vasileiou.trade.models.Instruction;
+
+/**
+ * A {@link ReportRenderer} implementation for CSV reports (RFC 4180), with a header row per report. The dates are
+ * given in the ISO-8601 format and the amounts without currency. Messages are not rendered, so a report without
+ * instructions is empty. All the groups of the rejected instructions share a single header row, where only the
+ * samples have an instruction and only the other groups have a count and an amount
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class CsvReportRenderer implements ReportRenderer {
+	
+	public static final CsvReportRenderer INSTANCE = new CsvReportRenderer();
+	
+	private static final String DAILY_HEADER = "date,side,amount\n";
+	private static final String RANKING_HEADER = "rank,entity,side,mode,value\n";
+	private static final String REJECTION_HEADER = "group,key,count,amount,instruction\n";
+	private static final String ROLLING_HEADER = "date,side,window,rank,entity,amount\n";
+	private static final String CUBE_HEADER = "date,side,currency,entity,total,count,maximum\n";
+	
+	@Override
+	public void appendMessage(StringBuilder output, String message) {
+		
+		// There is no place for free text in the CSV rows
+		
+	}
+	
+	@Override
+	public void appendDailyHeader(StringBuilder output, BuyOrSell buyOrSell) {
+		output.append(DAILY_HEADER);
+	}
+	
+	@Override
+	public void appendDailyAmount(StringBuilder output, BuyOrSell buyOrSell, int epochDay, double amount) {
+		
+		Utils.appendIsoEpochDay(output, epochDay).append(',').append(buyOrSell.name()).append(',').append(amount)
+				.append('\n');
+		
+	}
+	
+	@Override
+	public void appendRankingHeader(StringBuilder output, BuyOrSell buyOrSell, RankingMode rankingMode) {
+		output.append(RANKING_HEADER);
+	}
+	
+	@Override
+	public void appendRank(StringBuilder output, BuyOrSell buyOrSell, RankingMode rankingMode, long rank,
+			String entity, double value) {
+		
+		output.append(rank).append(',');
+		appendField(output, entity).append(',').append(buyOrSell.name()).append(',').append(rankingMode.name())
+				.append(',');
+		if (rankingMode == RankingMode.COUNT) {
+			output.append((long) value).append('\n');
+		} else {
+			output.append(value).append('\n');
+		}
+		
+	}
+	
+	@Override
+	public void appendRejectionHeader(StringBuilder output, long rejected) {
+		output.append(REJECTION_HEADER);
+	}
+	
+	@Override
+	public void appendRejectionGroupHeader(StringBuilder output, RejectionGroup rejectionGroup) {
+		
+		// The group is given by the first field of every row
+		
+	}
+	
+	@Override
+	public void appendRejection(StringBuilder output, RejectionGroup rejectionGroup, String key, long count,
+			double amount) {
+		
+		output.append(rejectionGroup.name()).append(',');
+		appendField(output, key).append(',').append(count).append(',').append(amount).append(',').append('\n');
+		
+	}
+	
+	@Override
+	public void appendRejectionSample(StringBuilder output, Status status, Instruction sample) {
+		
+		output.append(RejectionGroup.SAMPLE.name()).append(',').append(status.name()).append(",,,");
+		appendField(output, encodeLine(sample)).append('\n');
+		
+	}
+	
+	/**
+	 * Encodes an instruction in the line based file format, without the line separator
+	 * 
+	 * @param instruction the {@link Instruction} to be encoded
+	 * @return the encoded line
+	 */
+	static String encodeLine(Instruction instruction) {
+		
+		StringBuilder line = InstructionLineCodec.encode(instruction, new StringBuilder());
+		line.setLength(line.length() - 1);
+		
+		return line.toString();
+		
+	}
+	
+	@Override
+	public void appendRollingHeader(StringBuilder output, BuyOrSell buyOrSell, int windowDays) {
+		output.append(ROLLING_HEADER);
+	}
+	
+	@Override
+	public void appendRollingAmount(StringBuilder output, BuyOrSell buyOrSell, int windowDays, int epochDay,
+			double amount) {
+		
+		Utils.appendIsoEpochDay(output, epochDay).append(',').append(buyOrSell.name()).append(',')
+				.append(windowDays).append(",,,").append(amount).append('\n');
+		
+	}
+	
+	@Override
+	public void appendRollingEntitiesHeader(StringBuilder output, BuyOrSell buyOrSell, int windowDays,
+			int lastEpochDay) {
+		
+		// The entity rows share the header of the report and have a rank
+		
+	}
+	
+	@Override
+	public void appendRollingEntity(StringBuilder output, BuyOrSell buyOrSell, int windowDays, int lastEpochDay,
+			long rank, String entity, double amount) {
+		
+		Utils.appendIsoEpochDay(output, lastEpochDay).append(',').append(buyOrSell.name()).append(',')
+				.append(windowDays).append(',').append(rank).append(',');
+		appendField(output, entity).append(',').append(amount).append('\n');
+		
+	}
+	
+	@Override
+	public void appendCubeHeader(StringBuilder output, Set<CubeDimension> dimensions) {
+		output.append(CUBE_HEADER);
+	}
+	
+	@Override
+	public void appendCubeCell(StringBuilder output, Set<CubeDimension> dimensions, int epochDay,
+			BuyOrSell buyOrSell, String currency, String entity, double total, long count, double maximum) {
+		
+		// The rolled up dimensions are left empty
+		if (dimensions.contains(CubeDimension.DATE))
+			Utils.appendIsoEpochDay(output, epochDay);
+		output.append(',');
+		if (dimensions.contains(CubeDimension.SIDE))
+			output.append(buyOrSell.name());
+		output.append(',');
+		if (dimensions.contains(CubeDimension.CURRENCY))
+			appendField(output, currency);
+		output.append(',');
+		if (dimensions.contains(CubeDimension.ENTITY))
+			appendField(output, entity);
+		output.append(',').append(total).append(',').append(count).append(',').append(maximum).append('\n');
+		
+	}
+	
+	/**
+	 * Appends a text field, quoted only if it contains a separator, a quote or a line break
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param field the text of the field
+	 * @return the given {@link StringBuilder}
+	 */
+	static StringBuilder appendField(StringBuilder output, String field) {
+		
+		boolean quoted = false;
+		for (int index = 0; index < field.length() && !quoted; index++) {
+			char character = field.charAt(index);
+			quoted = character == ',' || character == '"' || character == '\n' || character == '\r';
+		}
+		
+		if (!quoted)
+			return output.append(field);
+		
+		output.append('"');
+		for (int index = 0; index < field.length(); index++) {
+			char character = field.charAt(index);
+			if (character == '"')
+				output.append('"');
+			output.append(character);
+		}
+		
+		return output.append('"');
+		
+	}
+
+}
@@ -0,0 +1,262 @@
+package com.vasileiou.trade.controllers;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import com.vasileiou.trade.common.Constants;
+import com.vasileiou.trade.common.TopKRanking;
+import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.Status;
+import com.vasileiou.trade.interfaces.ReportRenderer;
+import com.vasileiou.trade.models.DailyAmounts;
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.ValidatedData;
+
+/**
+ * A report generator for instructions arriving continuously during the day. Every new instruction updates the
+ * daily amounts and the entity maxima in place and marks its settlement day as changed, so that regenerating the
+ * reports renders again only the changed days and sorts again only the changed rankings, instead of parsing all
+ * the instructions of the day from scratch. The lines are rendered by a {@link ReportRenderer} and kept per day,
+ * including the empty days between them, while a report is joined again only after a change. It is not thread
+ * safe
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class IncrementalReportGenerator implements Consumer<Instruction> {
+	
+	private final ValidatedData validatedData;
+	private final boolean retainInstructions;
+	private final ReportRenderer renderer;
+	private final ReportGeneratorImpl reportGenerator;
+	
+	// Settlement days changed since the last report generation
+	private final Set<Integer> changedDays = new HashSet<>();
+	
+	// Rendered report lines per settlement day, for outgoing and incoming amounts respectively
+	private final TreeMap<Integer, String> outgoingLines = new TreeMap<>();
+	private final TreeMap<Integer, String> incomingLines = new TreeMap<>();
+	
+	// Daily reports of the last report generation, where null means that they have to be joined again
+	private String outgoingReport;
+	private String incomingReport;
+	
+	// Top entities of the outgoing and incoming rankings, updated on every new maximum
+	private final TopKRanking outgoingTopK;
+	private final TopKRanking incomingTopK;
+	
+	// Rankings of the last report generation, where null means that they have to be generated again
+	private String outgoingRanking;
+	private String incomingRanking;
+	
+	/**
+	 * Creates an incremental report generator
+	 * 
+	 * @param retainInstructions true for keeping the valid instructions per date as well and false for keeping
+	 * only the daily amounts and the entity rankings
+	 */
+	public IncrementalReportGenerator(boolean retainInstructions) {
+		this(retainInstructions, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Creates an incremental report generator ranking only the top entities
+	 * 
+	 * @param retainInstructions true for keeping the valid instructions per date as well and false for keeping
+	 * only the daily amounts and the entity rankings
+	 * @param topK the maximum number of ranked entities
+	 */
+	public IncrementalReportGenerator(boolean retainInstructions, int topK) {
+		this(retainInstructions, topK, TextReportRenderer.INSTANCE);
+	}
+	
+	/**
+	 * Creates an incremental report generator ranking only the top entities, with the lines rendered in a specific
+	 * output format
+	 * 
+	 * @param retainInstructions true for keeping the valid instructions per date as well and false for keeping
+	 * only the daily amounts and the entity rankings
+	 * @param topK the maximum number of ranked entities
+	 * @param renderer the {@link ReportRenderer} of the report lines
+	 */
+	public IncrementalReportGenerator(boolean retainInstructions, int topK, ReportRenderer renderer) {
+		this.validatedData = Parser.createEmptyValidatedData();
+		this.retainInstructions = retainInstructions;
+		this.renderer = renderer;
+		this.reportGenerator = new ReportGeneratorImpl(renderer);
+		this.outgoingTopK = new TopKRanking(topK);
+		this.incomingTopK = new TopKRanking(topK);
+	}
+	
+	/**
+	 * Validates a newly arrived instruction and updates the aggregated data and the changes accordingly
+	 * 
+	 * @param instruction the {@link Instruction} to be parsed
+	 */
+	@Override
+	public void accept(Instruction instruction) {
+		
+		// Rejected instructions are only summarized
+		if (Parser.validateInstruction(instruction) != Status.VALID) {
+			validatedData.getRejectionSummary().add(instruction);
+			return;
+		}
+		
+		changedDays.add(instruction.getSettlementEpochDay());
+		
+		// Only a new maximum can change the order of the ranking
+		if (Parser.aggregateInstruction(instruction, validatedData, retainInstructions)) {
+			if (instruction.getBuyOrSell() == BuyOrSell.BUY) {
+				outgoingTopK.offer(instruction.getEntityId(), instruction.getAmountOfTrade());
+				outgoingRanking = null;
+			} else {
+				incomingTopK.offer(instruction.getEntityId(), instruction.getAmountOfTrade());
+				incomingRanking = null;
+			}
+		}
+		
+	}
+	
+	/**
+	 * Generates the daily report of all the instructions given so far, rendering again only the changed days
+	 * 
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @return the report output, the same as the one of {@link ReportGeneratorImpl#generateDailyAmountsReport}
+	 */
+	public StringBuilder generateDailyReport(BuyOrSell buyOrSell) {
+		
+		// If there are no instructions then exit with the appropriate message
+		if (validatedData.getAmountsPerEpochDay().size() == 0)
+			return message(Constants.NO_INSTRUCTIONS_AVAILABLE);
+		
+		// If buy or sell is not specified then exit with the appropriate message
+		if (buyOrSell == null)
+			return message(Constants.BUY_OR_SELL_IS_MISSING);
+		
+		updateChangedLines();
+		
+		if (buyOrSell == BuyOrSell.SELL) {
+			if (incomingReport == null)
+				incomingReport = joinLines(buyOrSell, incomingLines);
+			return new StringBuilder(incomingReport);
+		}
+		
+		if (outgoingReport == null)
+			outgoingReport = joinLines(buyOrSell, outgoingLines);
+		return new StringBuilder(outgoingReport);
+	}
+	
+	/**
+	 * Generates the ranking report of the top entities of all the instructions given so far, which are kept up to
+	 * date while the instructions arrive
+	 * 
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @return the report output, the same as the one of {@link ReportGeneratorImpl#generateRanking}
+	 */
+	public StringBuilder generateRanking(BuyOrSell buyOrSell) {
+		
+		if (buyOrSell == BuyOrSell.SELL) {
+			if (incomingRanking == null)
+				incomingRanking = reportGenerator.generateTopKRanking(incomingTopK, buyOrSell).toString();
+			return new StringBuilder(incomingRanking);
+		}
+		
+		if (buyOrSell == BuyOrSell.BUY) {
+			if (outgoingRanking == null)
+				outgoingRanking = reportGenerator.generateTopKRanking(outgoingTopK, buyOrSell).toString();
+			return new StringBuilder(outgoingRanking);
+		}
+		
+		return reportGenerator.generateRanking(validatedData.getOutgoingEntitiesMax(), buyOrSell);
+	}
+	
+	/**
+	 * Renders again the lines of the days changed since the last report generation, together with the empty days
+	 * between a new day and the days already rendered
+	 */
+	private void updateChangedLines() {
+		
+		if (changedDays.isEmpty())
+			return;
+		
+		StringBuilder line = new StringBuilder();
+		for (Integer day : changedDays) {
+			
+			// Empty days are rendered only once, when the range of the days grows
+			if (!outgoingLines.isEmpty()) {
+				for (int emptyDay = day + 1; emptyDay < outgoingLines.firstKey(); emptyDay++) {
+					renderLines(line, emptyDay, 0, 0);
+				}
+				for (int emptyDay = outgoingLines.lastKey() + 1; emptyDay < day; emptyDay++) {
+					renderLines(line, emptyDay, 0, 0);
+				}
+			}
+			
+			DailyAmounts dailyAmounts = validatedData.getAmountsPerEpochDay().get(day);
+			renderLines(line, day, dailyAmounts.getOutgoingAmount(), dailyAmounts.getIncomingAmount());
+		}
+		
+		changedDays.clear();
+		outgoingReport = null;
+		incomingReport = null;
+		
+	}
+	
+	/**
+	 * Renders the outgoing and the incoming lines of a day
+	 */
+	private void renderLines(StringBuilder line, int day, double outgoingAmount, double incomingAmount) {
+		
+		line.setLength(0);
+		renderer.appendDailyAmount(line, BuyOrSell.BUY, day, outgoingAmount);
+		outgoingLines.put(day, line.toString());
+		
+		line.setLength(0);
+		renderer.appendDailyAmount(line, BuyOrSell.SELL, day, incomingAmount);
+		incomingLines.put(day, line.toString());
+		
+	}
+	
+	/**
+	 * Joins the headers and the already rendered lines of every day into a daily report
+	 */
+	private String joinLines(BuyOrSell buyOrSell, TreeMap<Integer, String> lines) {
+		
+		StringBuilder dailyOuput = new StringBuilder();
+		renderer.appendDailyHeader(dailyOuput, buyOrSell);
+		for (String line : lines.values()) {
+			dailyOuput.append(line);
+		}
+		
+		return dailyOuput.toString();
+		
+	}
+	
+	/**
+	 * Renders a message given instead of a report
+	 */
+	private StringBuilder message(String message) {
+		
+		StringBuilder messageOutput = new StringBuilder();
+		renderer.appendMessage(messageOutput, message);
+		
+		return messageOutput;
+		
+	}
+	
+	/**
+	 * Gives the data aggregated so far
+	 * 
+	 * @return the {@link ValidatedData} object with the analyzed data
+	 */
+	public ValidatedData getValidatedData() {
+		return validatedData;
+	}
+	
+	public boolean isRetainInstructions() {
+		return retainInstructions;
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.vasileiou.trade.controllers;
+
+import java.util.function.Consumer;
+
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.ValidatedData;
+
+/**
+ * A push-style sink validating and aggregating every instruction as soon as it arrives, so that the instructions
+ * do not have to be materialized before parsing. When the instructions are not retained, the memory needed is
+ * bounded by the aggregated data and not by the number of the given instructions
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class InstructionAggregator implements Consumer<Instruction> {
+	
+	private final ValidatedData validatedData;
+	private final boolean retainInstructions;
+	private long instructions;
+	
+	/**
+	 * Creates an aggregator
+	 * 
+	 * @param retainInstructions true for keeping the valid instructions per date as well and false for keeping
+	 * only the daily amounts and the entity rankings
+	 */
+	public InstructionAggregator(boolean retainInstructions) {
+		this.validatedData = Parser.createEmptyValidatedData();
+		this.retainInstructions = retainInstructions;
+	}
+	
+	/**
+	 * Validates the given instruction and updates the aggregated data accordingly
+	 * 
+	 * @param instruction the {@link Instruction} to be parsed
+	 */
+	@Override
+	public void accept(Instruction instruction) {
+		
+		instructions++;
+		Parser.validateInstruction(instruction);
+		Parser.aggregateInstruction(instruction, validatedData, retainInstructions);
+		
+	}
+	
+	/**
+	 * Gives the data aggregated so far
+	 * 
+	 * @return the {@link ValidatedData} object with the analyzed data
+	 */
+	public ValidatedData getValidatedData() {
+		return validatedData;
+	}
+	
+	public long getInstructions() {
+		return instructions;
+	}
+	
+	public boolean isRetainInstructions() {
+		return retainInstructions;
+	}
+
+}
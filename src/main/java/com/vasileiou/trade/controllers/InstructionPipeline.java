@@ -0,0 +1,186 @@
+package com.vasileiou.trade.controllers;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.vasileiou.trade.common.Constants;
+import com.vasileiou.trade.common.InstructionRingBuffer;
+import com.vasileiou.trade.common.PipelineMetrics;
+import com.vasileiou.trade.common.Printer;
+import com.vasileiou.trade.enums.Stage;
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.ValidatedData;
+
+/**
+ * A pipelined parser running the fetching, the validation and the aggregation of the instructions on their own
+ * threads, so that reading the input, validating and aggregating overlap. The fetching thread fills batches of
+ * instructions into a {@link InstructionRingBuffer}, the validating thread validates them in place and passes them
+ * to a second one and the calling thread aggregates them, so the aggregated data are only touched by one thread.
+ * The reports need the complete aggregates, so they follow as the last stage on the calling thread
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class InstructionPipeline {
+	
+	private final boolean retainInstructions;
+	private final int batchSize;
+	private final int ringCapacity;
+	
+	public InstructionPipeline(boolean retainInstructions) {
+		this(retainInstructions, Constants.PIPELINE_BATCH_SIZE, Constants.PIPELINE_RING_CAPACITY);
+	}
+	
+	/**
+	 * Creates a pipeline
+	 * 
+	 * @param retainInstructions true for keeping the valid instructions per date as well and false for keeping
+	 * only the daily amounts and the entity rankings
+	 * @param batchSize the number of instructions passed between the stages at once
+	 * @param ringCapacity the number of batches every ring buffer holds
+	 */
+	public InstructionPipeline(boolean retainInstructions, int batchSize, int ringCapacity) {
+		this.retainInstructions = retainInstructions;
+		this.batchSize = batchSize;
+		this.ringCapacity = ringCapacity;
+	}
+	
+	/**
+	 * Parses the instructions given by the iterator, which is only used by the fetching thread from now on
+	 * 
+	 * @param instructions an {@link Iterator} of {@link Instruction} objects to be parsed
+	 * @return the {@link ValidatedData} object with the analyzed data, in the same way as
+	 * {@link Parser#parseInstructions(Iterator, boolean)}, or null if nothing is given or a stage fails
+	 */
+	public ValidatedData parse(Iterator<Instruction> instructions) {
+		
+		// If nothing is given then return null
+		if (instructions == null || !instructions.hasNext())
+			return null;
+		
+		long start = System.nanoTime();
+		InstructionRingBuffer fetched = new InstructionRingBuffer(ringCapacity, batchSize);
+		InstructionRingBuffer validated = new InstructionRingBuffer(ringCapacity, batchSize);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		
+		Thread fetching = startStage("trade-pipeline-fetch", () -> fetch(instructions, fetched), failure, fetched,
+				validated);
+		Thread validating = startStage("trade-pipeline-validate", () -> validate(fetched, validated), failure,
+				fetched, validated);
+		
+		ValidatedData validatedData = Parser.createEmptyValidatedData();
+		long aggregated = 0;
+		try {
+			aggregated = aggregate(validated, validatedData);
+			fetching.join();
+			validating.join();
+		} catch (InterruptedException e) {
+			fail(e, failure, fetched, validated);
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			fail(e, failure, fetched, validated);
+		}
+		
+		if (failure.get() != null) {
+			Printer.print("Pipelined parsing failed: " + failure.get());
+			return null;
+		}
+		
+		PipelineMetrics.getDefault().recordStage(Stage.PARSE, start, aggregated);
+		
+		return validatedData;
+		
+	}
+	
+	public boolean isRetainInstructions() {
+		return retainInstructions;
+	}
+	
+	private static void fetch(Iterator<Instruction> instructions, InstructionRingBuffer output) {
+		
+		long start = System.nanoTime();
+		long fetched = 0;
+		while (instructions.hasNext()) {
+			Instruction[] batch = output.claim();
+			if (batch == null)
+				return;
+			
+			int size = 0;
+			while (size < batch.length && instructions.hasNext()) {
+				batch[size++] = instructions.next();
+			}
+			output.publish(size);
+			fetched += size;
+		}
+		output.close();
+		PipelineMetrics.getDefault().recordStage(Stage.FETCH, start, fetched);
+		
+	}
+	
+	private static void validate(InstructionRingBuffer input, InstructionRingBuffer output) {
+		
+		int size;
+		while ((size = input.take()) != InstructionRingBuffer.END) {
+			Instruction[] batch = input.batch();
+			Instruction[] validatedBatch = output.claim();
+			if (validatedBatch == null)
+				return;
+			
+			for (int index = 0; index < size; index++) {
+				Parser.validateInstruction(batch[index]);
+				validatedBatch[index] = batch[index];
+			}
+			input.release();
+			output.publish(size);
+		}
+		output.close();
+		
+	}
+	
+	private long aggregate(InstructionRingBuffer input, ValidatedData validatedData) {
+		
+		long aggregated = 0;
+		int size;
+		while ((size = input.take()) != InstructionRingBuffer.END) {
+			Instruction[] batch = input.batch();
+			for (int index = 0; index < size; index++) {
+				Parser.aggregateInstruction(batch[index], validatedData, retainInstructions);
+			}
+			input.release();
+			aggregated += size;
+		}
+		
+		return aggregated;
+		
+	}
+	
+	private static Thread startStage(String name, Runnable stage, AtomicReference<Throwable> failure,
+			InstructionRingBuffer... rings) {
+		
+		Thread thread = new Thread(() -> {
+			try {
+				stage.run();
+			} catch (RuntimeException | Error e) {
+				fail(e, failure, rings);
+			}
+		}, name);
+		
+		// A stuck input must not keep the application alive
+		thread.setDaemon(true);
+		thread.start();
+		
+		return thread;
+		
+	}
+	
+	private static void fail(Throwable cause, AtomicReference<Throwable> failure, InstructionRingBuffer... rings) {
+		
+		// Keep the first failure and stop all the stages, which would otherwise wait for each other forever
+		failure.compareAndSet(null, cause);
+		for (InstructionRingBuffer ring : rings) {
+			ring.abort();
+		}
+		
+	}
+
+}
@@ -0,0 +1,226 @@
+package com.vasileiou.trade.controllers;
+
+import java.util.Set;
+
+import com.vasileiou.trade.common.Utils;
+import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.CubeDimension;
+import com.vasileiou.trade.enums.RankingMode;
+import com.vasileiou.trade.enums.RejectionGroup;
+import com.vasileiou.trade.enums.Status;
+import com.vasileiou.trade.interfaces.ReportRenderer;
+import com.vasileiou.trade.models.Instruction;
+
+/**
+ * A {@link ReportRenderer} implementation for JSON lines reports, with one JSON object per daily amount or ranked
+ * entity and no headers. The dates are given in the ISO-8601 format and the amounts without currency. Messages are
+ * given as objects with a single "message" field and the rejected instructions report starts with an object
+ * holding the number of the rejected instructions
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class JsonLinesReportRenderer implements ReportRenderer {
+	
+	public static final JsonLinesReportRenderer INSTANCE = new JsonLinesReportRenderer();
+	
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+	
+	@Override
+	public void appendMessage(StringBuilder output, String message) {
+		
+		output.append("{\"message\":");
+		appendString(output, message.trim()).append("}\n");
+		
+	}
+	
+	@Override
+	public void appendDailyHeader(StringBuilder output, BuyOrSell buyOrSell) {
+		
+		// Every line describes itself, so there are no headers
+		
+	}
+	
+	@Override
+	public void appendDailyAmount(StringBuilder output, BuyOrSell buyOrSell, int epochDay, double amount) {
+		
+		output.append("{\"report\":\"daily\",\"side\":\"").append(buyOrSell.name()).append("\",\"date\":\"");
+		Utils.appendIsoEpochDay(output, epochDay).append("\",\"amount\":");
+		appendNumber(output, amount).append("}\n");
+		
+	}
+	
+	@Override
+	public void appendRankingHeader(StringBuilder output, BuyOrSell buyOrSell, RankingMode rankingMode) {
+		
+		// Every line describes itself, so there are no headers
+		
+	}
+	
+	@Override
+	public void appendRank(StringBuilder output, BuyOrSell buyOrSell, RankingMode rankingMode, long rank,
+			String entity, double value) {
+		
+		output.append("{\"report\":\"ranking\",\"side\":\"").append(buyOrSell.name()).append("\",\"mode\":\"")
+				.append(rankingMode.name()).append("\",\"rank\":").append(rank).append(",\"entity\":");
+		appendString(output, entity).append(",\"value\":");
+		if (rankingMode == RankingMode.COUNT) {
+			output.append((long) value);
+		} else {
+			appendNumber(output, value);
+		}
+		output.append("}\n");
+		
+	}
+	
+	@Override
+	public void appendRejectionHeader(StringBuilder output, long rejected) {
+		
+		output.append("{\"report\":\"rejections\",\"rejected\":").append(rejected).append("}\n");
+		
+	}
+	
+	@Override
+	public void appendRejectionGroupHeader(StringBuilder output, RejectionGroup rejectionGroup) {
+		
+		// Every line describes itself, so there are no headers
+		
+	}
+	
+	@Override
+	public void appendRejection(StringBuilder output, RejectionGroup rejectionGroup, String key, long count,
+			double amount) {
+		
+		output.append("{\"report\":\"rejections\",\"group\":\"").append(rejectionGroup.name())
+				.append("\",\"key\":");
+		appendString(output, key).append(",\"count\":").append(count).append(",\"amount\":");
+		appendNumber(output, amount).append("}\n");
+		
+	}
+	
+	@Override
+	public void appendRejectionSample(StringBuilder output, Status status, Instruction sample) {
+		
+		output.append("{\"report\":\"rejections\",\"group\":\"").append(RejectionGroup.SAMPLE.name())
+				.append("\",\"key\":\"").append(status.name()).append("\",\"instruction\":");
+		appendString(output, CsvReportRenderer.encodeLine(sample)).append("}\n");
+		
+	}
+	
+	@Override
+	public void appendRollingHeader(StringBuilder output, BuyOrSell buyOrSell, int windowDays) {
+		
+		// Every line describes itself, so there are no headers
+		
+	}
+	
+	@Override
+	public void appendRollingAmount(StringBuilder output, BuyOrSell buyOrSell, int windowDays, int epochDay,
+			double amount) {
+		
+		output.append("{\"report\":\"rolling\",\"side\":\"").append(buyOrSell.name()).append("\",\"window\":")
+				.append(windowDays).append(",\"date\":\"");
+		Utils.appendIsoEpochDay(output, epochDay).append("\",\"amount\":");
+		appendNumber(output, amount).append("}\n");
+		
+	}
+	
+	@Override
+	public void appendRollingEntitiesHeader(StringBuilder output, BuyOrSell buyOrSell, int windowDays,
+			int lastEpochDay) {
+		
+		// Every line describes itself, so there are no headers
+		
+	}
+	
+	@Override
+	public void appendRollingEntity(StringBuilder output, BuyOrSell buyOrSell, int windowDays, int lastEpochDay,
+			long rank, String entity, double amount) {
+		
+		output.append("{\"report\":\"rolling_entities\",\"side\":\"").append(buyOrSell.name())
+				.append("\",\"window\":").append(windowDays).append(",\"date\":\"");
+		Utils.appendIsoEpochDay(output, lastEpochDay).append("\",\"rank\":").append(rank).append(",\"entity\":");
+		appendString(output, entity).append(",\"amount\":");
+		appendNumber(output, amount).append("}\n");
+		
+	}
+	
+	@Override
+	public void appendCubeHeader(StringBuilder output, Set<CubeDimension> dimensions) {
+		
+		// Every line describes itself, so there are no headers
+		
+	}
+	
+	@Override
+	public void appendCubeCell(StringBuilder output, Set<CubeDimension> dimensions, int epochDay,
+			BuyOrSell buyOrSell, String currency, String entity, double total, long count, double maximum) {
+		
+		// The rolled up dimensions are left out
+		output.append("{\"report\":\"cube\"");
+		if (dimensions.contains(CubeDimension.DATE))
+			Utils.appendIsoEpochDay(output.append(",\"date\":\""), epochDay).append('"');
+		if (dimensions.contains(CubeDimension.SIDE))
+			output.append(",\"side\":\"").append(buyOrSell.name()).append('"');
+		if (dimensions.contains(CubeDimension.CURRENCY))
+			appendString(output.append(",\"currency\":"), currency);
+		if (dimensions.contains(CubeDimension.ENTITY))
+			appendString(output.append(",\"entity\":"), entity);
+		appendNumber(output.append(",\"total\":"), total).append(",\"count\":").append(count);
+		appendNumber(output.append(",\"maximum\":"), maximum).append("}\n");
+		
+	}
+	
+	/**
+	 * Appends a JSON number, where the non finite values, which JSON does not have, are given as null
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param value the number
+	 * @return the given {@link StringBuilder}
+	 */
+	static StringBuilder appendNumber(StringBuilder output, double value) {
+		return Double.isNaN(value) || Double.isInfinite(value) ? output.append("null") : output.append(value);
+	}
+	
+	/**
+	 * Appends a quoted JSON string, escaping the quotes, the backslashes and the control characters
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param value the text
+	 * @return the given {@link StringBuilder}
+	 */
+	static StringBuilder appendString(StringBuilder output, String value) {
+		
+		output.append('"');
+		for (int index = 0; index < value.length(); index++) {
+			char character = value.charAt(index);
+			switch (character) {
+			case '"':
+				output.append("\\\"");
+				break;
+			case '\\':
+				output.append("\\\\");
+				break;
+			case '\n':
+				output.append("\\n");
+				break;
+			case '\r':
+				output.append("\\r");
+				break;
+			case '\t':
+				output.append("\\t");
+				break;
+			default:
+				if (character < 0x20) {
+					output.append("\\u00").append(HEX_DIGITS[character >> 4]).append(HEX_DIGITS[character & 0xF]);
+				} else {
+					output.append(character);
+				}
+			}
+		}
+		
+		return output.append('"');
+		
+	}
+
+}
@@ -1,17 +1,30 @@
 package com.vasileiou.trade.controllers;
 
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
 
+import com.vasileiou.trade.common.AggregationCube;
 import com.vasileiou.trade.common.Constants;
+import com.vasileiou.trade.common.EntityStatistics;
+import com.vasileiou.trade.common.FixedPointAmounts;
+import com.vasileiou.trade.common.PipelineMetrics;
+import com.vasileiou.trade.common.RejectionSummary;
+import com.vasileiou.trade.common.RollingWindowTotals;
+import com.vasileiou.trade.common.SettlementCalendar;
+import com.vasileiou.trade.common.SettlementIndex;
+import com.vasileiou.trade.common.SymbolDictionary;
 import com.vasileiou.trade.common.Utils;
 import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.Stage;
 import com.vasileiou.trade.enums.Status;
+import com.vasileiou.trade.models.DailyAmounts;
 import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.InstructionStore;
 import com.vasileiou.trade.models.ValidatedData;
 
 /**
@@ -35,129 +48,550 @@ public class Parser {
 		if (instructions == null || instructions.size() == 0)
 			return null;
 		
-		// Initialize maps for dates with lists and incoming - outgoing ranking
-		SortedMap<Date, List<Instruction> > instructionsPerDate = new TreeMap<Date, List<Instruction>>();
-		HashMap<String, Double> incomingEntitiesMax = new HashMap<>();
-		HashMap<String, Double> outgoingEntitiesMax = new HashMap<>();
+		long start = System.nanoTime();
+		ValidatedData validatedData = parseRange(instructions, 0, instructions.size());
+		PipelineMetrics.getDefault().recordStage(Stage.PARSE, start, instructions.size());
 		
-		// Parse every given instruction
-		for (Instruction instruction : instructions) {
-			
-			// Do not proceed if at least one of the mandatory fields is missing
-			if (instruction.getEntity() == null || instruction.getAgreedFx() == null
-					|| instruction.getBuyOrSellStringFlag() == null || instruction.getCurrency() == null
-					|| instruction.getInstructionDate() == null || instruction.getSettlementDate() == null
-					|| instruction.getUnits() == null || instruction.getPricePerUnit() == null
-					|| (!instruction.getBuyOrSellStringFlag().equalsIgnoreCase(Constants.INPUT_BUY_FLAG)
-							&& !instruction.getBuyOrSellStringFlag().equalsIgnoreCase(Constants.INPUT_SELL_FLAG))) {
-				
-				instruction.setStatus(Status.MISSING_PROPERTY);
-				
-			} else {
-				
-				// Convert Buy or Sell given string input to the appropriate enumeration
-				// It is known from previous condition that it is either -B- or -S- so, proceeding in the following
-				// way is safe
-				if (instruction.getBuyOrSellStringFlag().equalsIgnoreCase(Constants.INPUT_BUY_FLAG)) {
-					instruction.setBuyOrSell(BuyOrSell.BUY);
-				} else {
-					instruction.setBuyOrSell(BuyOrSell.SELL);
-				}
-				
-				// Convert the string date to a real date object and validate it
-				instruction.setFormattedInstructionDate(Utils.convertStringToDate(instruction.getInstructionDate()));
-				instruction.setFormattedSettlementDate(Utils.convertStringToDate(instruction.getSettlementDate()));
-				
-				if (instruction.getFormattedInstructionDate() == null 
-						|| instruction.getFormattedSettlementDate() == null) {
-					
-					instruction.setStatus(Status.WRONG_DATE_FORMAT);
-					
-				} else if (isSettlementBeforeInstruction(instruction.getFormattedSettlementDate(), 
-						instruction.getFormattedInstructionDate())) {
-					
-					// Do not allow a settlement date before the instruction date
-					instruction.setStatus(Status.INVALID_SETTLEMENT_DATE);
-					
+		return validatedData;
+		
+	}
+	
+	/**
+	 * Parses the instructions in parallel using a fork/join pool. The input is split into contiguous ranges, every
+	 * worker builds a partial {@link ValidatedData} and the partial results are merged in input order, so the
+	 * outcome is exactly the same as the one of {@link #parseInstructions(List)}
+	 * 
+	 * @param instructions a {@link List} of {@link Instruction} objects to be parsed
+	 * @param parallelism the number of worker threads, where one or less falls back to the sequential parsing
+	 * @return the {@link ValidatedData} object with the analyzed data
+	 */
+	public static ValidatedData parseInstructions(List<Instruction> instructions, int parallelism) {
+		
+		// If nothing is given then return null
+		if (instructions == null || instructions.size() == 0)
+			return null;
+		
+		// Small inputs or a single worker do not pay off the forking overhead
+		if (parallelism <= 1 || instructions.size() <= Constants.PARALLEL_PARSING_MIN_RANGE)
+			return parseInstructions(instructions);
+		
+		// Create some more ranges than workers so that the work is balanced when some ranges are slower
+		int rangeSize = Math.max(Constants.PARALLEL_PARSING_MIN_RANGE,
+				instructions.size() / (parallelism * Constants.PARALLEL_PARSING_RANGES_PER_WORKER));
+		
+		long start = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			return pool.invoke(new ParsingTask(instructions, 0, instructions.size(), rangeSize));
+		} finally {
+			pool.shutdown();
+			PipelineMetrics.getDefault().recordStage(Stage.PARSE, start, instructions.size());
+		}
+		
+	}
+	
+	/**
+	 * Parses the instructions one by one as they are given by the iterator, without requiring them to be
+	 * materialized in a {@link List} first
+	 * 
+	 * @param instructions an {@link Iterator} of {@link Instruction} objects to be parsed
+	 * @param retainInstructions true for keeping the valid instructions per date and false for keeping only the
+	 * daily amounts, so that the memory needed is bounded by the aggregated data
+	 * @return the {@link ValidatedData} object with the analyzed data
+	 */
+	public static ValidatedData parseInstructions(Iterator<Instruction> instructions, boolean retainInstructions) {
+		
+		// If nothing is given then return null
+		if (instructions == null || !instructions.hasNext())
+			return null;
+		
+		long start = System.nanoTime();
+		InstructionAggregator aggregator = new InstructionAggregator(retainInstructions);
+		instructions.forEachRemaining(aggregator);
+		PipelineMetrics.getDefault().recordStage(Stage.PARSE, start, aggregator.getInstructions());
+		
+		return aggregator.getValidatedData();
+		
+	}
+	
+	/**
+	 * Parses the instructions of a columnar {@link InstructionStore}. The generated fields, such as the status,
+	 * the corrected settlement date and the amount of trade, are written back to the store, the daily amounts
+	 * are aggregated into primitive arrays before being converted to the reporting map and the entity amounts
+	 * are aggregated into {@link EntityStatistics}
+	 * 
+	 * @param store the {@link InstructionStore} to be parsed
+	 * @return the {@link ValidatedData} object with the analyzed data, without the instructions per date
+	 */
+	public static ValidatedData parseStore(InstructionStore store) {
+		
+		// If nothing is given then return null
+		if (store == null || store.size() == 0)
+			return null;
+		
+		long start = System.nanoTime();
+		ValidatedData validatedData = aggregateStore(store);
+		PipelineMetrics.getDefault().recordStage(Stage.PARSE, start, store.size());
+		
+		return validatedData;
+		
+	}
+	
+	/**
+	 * Validates the rows of a non empty {@link InstructionStore} and aggregates the valid ones
+	 * 
+	 * @param store the {@link InstructionStore} to be parsed
+	 * @return the {@link ValidatedData} object with the analyzed data, without the instructions per date
+	 */
+	private static ValidatedData aggregateStore(InstructionStore store) {
+		
+		// Validate every row, keep the window of the valid settlement dates and summarize the rejected rows
+		int firstDay = Integer.MAX_VALUE;
+		int lastDay = Integer.MIN_VALUE;
+		RejectionSummary rejectionSummary = new RejectionSummary();
+		FixedPointAmounts amounts = FixedPointAmounts.getDefault();
+		for (int from = 0; from < store.size(); from += Constants.AMOUNT_BATCH_SIZE) {
+			int to = Math.min(from + Constants.AMOUNT_BATCH_SIZE, store.size());
+			
+			// The fixed-point amounts of the chunk are computed in one batch before its rows are summarized
+			store.computeScaledAmounts(amounts, from, to);
+			for (int row = from; row < to; row++) {
+				if (validateRow(store, row) == Status.VALID) {
+					firstDay = Math.min(firstDay, store.getSettlementDay(row));
+					lastDay = Math.max(lastDay, store.getSettlementDay(row));
 				} else {
-					
-					// If the day is not a working day, updated to the next working day, based on the currency
-					if (!Utils.isWorkingDay(instruction.getCurrency(), instruction.getFormattedSettlementDate())) {
-						Date updatedDate = Utils.dateCorrection(instruction.getCurrency(),
-																instruction.getFormattedSettlementDate());
-						
-						if (updatedDate != null) {
-							instruction.setInitialFormattedSettlementDate(instruction.getFormattedSettlementDate());
-							instruction.setFormattedSettlementDate(updatedDate);
-							
-							instruction.setStatus(Status.VALID);
-						} else {
-							instruction.setStatus(Status.INVALID_SETTLEMENT_DATE);
-						}
-						
-					} else {
-						instruction.setStatus(Status.VALID);
-					}
+					rejectionSummary.add(store, row);
 				}
-				
-				// It is possible that we will need it for valid and non valid, for reporting purposes of failed instructions
-				instruction.setAmountOfTrade(Utils.calculateAmountOfTrade(instruction.getPricePerUnit(),
-						instruction.getUnits(), instruction.getAgreedFx()));
-				
-				// In case of valid instruction proceed with updating the maps accordingly
-				if (instruction.getStatus() == Status.VALID) {
-					
-					// Update the dates map for the daily reporting
-					if (instructionsPerDate.containsKey(instruction.getFormattedSettlementDate())) {
-						instructionsPerDate.get(instruction.getFormattedSettlementDate()).add(instruction);
-					} else {
-						List<Instruction> instructionsToDate = new ArrayList<>();
-						instructionsToDate.add(instruction);
-						instructionsPerDate.put(instruction.getFormattedSettlementDate(), instructionsToDate);
-					}
-					
-					// Update the outgoing and incoming ranking maps with only the maximum amount per entity per buy or sell
-					if (instruction.getBuyOrSell() == BuyOrSell.BUY) {
-						if (outgoingEntitiesMax.containsKey(instruction.getEntity())) {
-							if (instruction.getAmountOfTrade() > outgoingEntitiesMax.get(instruction.getEntity())) {
-								outgoingEntitiesMax.put(instruction.getEntity(), instruction.getAmountOfTrade());
-							}
-						} else {
-							outgoingEntitiesMax.put(instruction.getEntity(), instruction.getAmountOfTrade());
-						}
+			}
+		}
+		
+		// The entity statistics are keyed by the identifiers of the store
+		ValidatedData validatedData = createEmptyValidatedData();
+		validatedData.setRejectionSummary(rejectionSummary);
+		int expectedEntities = Math.min(store.getEntities().size(), store.size());
+		validatedData.setOutgoingEntityStatistics(new EntityStatistics(store.getEntities(), expectedEntities));
+		validatedData.setIncomingEntityStatistics(new EntityStatistics(store.getEntities(), expectedEntities));
+		validatedData.setSettlementIndex(new SettlementIndex(store.getEntities(), store.getCurrencies()));
+		validatedData.setAggregationCube(new AggregationCube(store.getEntities(), store.getCurrencies()));
+		validatedData.setRollingTotalsPerWindow(createRollingTotals(store.getEntities()));
+		if (firstDay > lastDay)
+			return validatedData;
+		
+		RollingWindowTotals[] rollingTotals = validatedData.getRollingTotalsPerWindow().values()
+				.toArray(new RollingWindowTotals[0]);
+		
+		// Sum up the amounts per day and the statistics per entity for buy and sell respectively
+		int days = lastDay - firstDay + 1;
+		long[] outgoingDaily = new long[days];
+		long[] incomingDaily = new long[days];
+		boolean[] existingDays = new boolean[days];
+		
+		for (int row = 0; row < store.size(); row++) {
+			
+			if (store.getStatus(row) != Status.VALID.ordinal())
+				continue;
+			
+			int day = store.getSettlementDay(row) - firstDay;
+			int entityId = store.getEntityId(row);
+			double amount = store.getAmountOfTrade(row);
+			long scaledAmount = store.getScaledAmount(row);
+			BuyOrSell buyOrSell = store.getSide(row) == InstructionStore.SIDE_BUY ? BuyOrSell.BUY : BuyOrSell.SELL;
+			existingDays[day] = true;
+			validatedData.getAggregationCube().addScaled(firstDay + day, buyOrSell, store.getCurrencyId(row), entityId,
+					scaledAmount);
+			validatedData.getSettlementIndex().addScaled(entityId, store.getCurrencyId(row), buyOrSell,
+					firstDay + day, scaledAmount);
+			for (RollingWindowTotals windowTotals : rollingTotals) {
+				windowTotals.addScaled(entityId, buyOrSell, firstDay + day, scaledAmount);
+			}
+			
+			if (buyOrSell == BuyOrSell.BUY) {
+				outgoingDaily[day] = Math.addExact(outgoingDaily[day], scaledAmount);
+				validatedData.getOutgoingEntityStatistics().add(entityId, amount);
+			} else {
+				incomingDaily[day] = Math.addExact(incomingDaily[day], scaledAmount);
+				validatedData.getIncomingEntityStatistics().add(entityId, amount);
+			}
+		}
+		
+		// Convert the primitive aggregates to the reporting maps
+		for (int day = 0; day < days; day++) {
+			if (existingDays[day]) {
+				DailyAmounts dailyAmounts = new DailyAmounts();
+				dailyAmounts.setScaledOutgoingAmount(outgoingDaily[day]);
+				dailyAmounts.setScaledIncomingAmount(incomingDaily[day]);
+				validatedData.getAmountsPerEpochDay().put(firstDay + day, dailyAmounts);
+			}
+		}
+		
+		return validatedData;
+		
+	}
+	
+	/**
+	 * Validates a single row of an {@link InstructionStore} with the same rules as
+	 * {@link #validateInstruction(Instruction)}
+	 * 
+	 * @param store the {@link InstructionStore} holding the instruction
+	 * @param row the row of the instruction
+	 * @return the {@link Status} of the validated instruction
+	 */
+	static Status validateRow(InstructionStore store, int row) {
+		
+		byte side = store.getSide(row);
+		int instructionDay = store.getInstructionDay(row);
+		int settlementDay = store.getSettlementDay(row);
+		
+		// Do not proceed if at least one of the mandatory fields is missing
+		if (store.getEntityId(row) == SymbolDictionary.MISSING_ID || Double.isNaN(store.getAgreedFx(row))
+				|| side == InstructionStore.SIDE_MISSING || side == InstructionStore.SIDE_INVALID
+				|| store.getCurrencyId(row) == SymbolDictionary.MISSING_ID
+				|| instructionDay == InstructionStore.MISSING_DAY || settlementDay == InstructionStore.MISSING_DAY
+				|| store.getUnits(row) == InstructionStore.MISSING_UNITS || Double.isNaN(store.getPricePerUnit(row))) {
+			
+			store.setStatus(row, Status.MISSING_PROPERTY);
+			PipelineMetrics.getDefault().recordStatus(Status.MISSING_PROPERTY);
+			return Status.MISSING_PROPERTY;
+			
+		}
+		
+		Status status;
+		if (instructionDay == InstructionStore.INVALID_DAY || settlementDay == InstructionStore.INVALID_DAY) {
+			status = Status.WRONG_DATE_FORMAT;
+		} else if (settlementDay < instructionDay) {
+			
+			// Do not allow a settlement date before the instruction date
+			status = Status.INVALID_SETTLEMENT_DATE;
+			
+		} else {
+			
+			// If the day is not a working day, updated to the next working day, based on the currency, where the
+			// currency is resolved by name only if the store does not use the dictionary of the calendar
+			SettlementCalendar calendar = SettlementCalendar.getDefault();
+			int correctedDay = store.getCurrencies() == calendar.getCurrencies()
+					? calendar.nextWorkingDay(store.getCurrencyId(row), settlementDay)
+					: calendar.nextWorkingDay(store.getCurrencies().decode(store.getCurrencyId(row)), settlementDay);
+			if (correctedDay != settlementDay) {
+				store.setInitialSettlementDay(row, settlementDay);
+				store.setSettlementDay(row, correctedDay);
+				PipelineMetrics.getDefault().recordSettlementDateCorrection();
+			}
+			status = Status.VALID;
+		}
+		
+		// It is possible that we will need it for valid and non valid, for reporting purposes of failed instructions
+		store.setAmountOfTrade(row, store.getPricePerUnit(row) * store.getUnits(row) * store.getAgreedFx(row));
+		store.setStatus(row, status);
+		PipelineMetrics.getDefault().recordStatus(status);
+		
+		return status;
+		
+	}
+	
+	/**
+	 * Parses sequentially a range of the given instructions
+	 * 
+	 * @param instructions a {@link List} of {@link Instruction} objects to be parsed
+	 * @param from the first index of the range, inclusive
+	 * @param to the last index of the range, exclusive
+	 * @return the {@link ValidatedData} object with the analyzed data of the range
+	 */
+	static ValidatedData parseRange(List<Instruction> instructions, int from, int to) {
+		
+		ValidatedData validatedData = createEmptyValidatedData();
+		
+		// Parse every given instruction
+		for (Instruction instruction : instructions.subList(from, to)) {
+			validateInstruction(instruction);
+			aggregateInstruction(instruction, validatedData, true);
+		}
+		
+		return validatedData;
+		
+	}
+	
+	/**
+	 * Validates a single instruction and generates its supplemental fields, such as the formatted dates and the
+	 * amount of trade. The outcome of the validation is stored to the status of the instruction
+	 * 
+	 * @param instruction the {@link Instruction} to be validated
+	 * @return the {@link Status} of the validated instruction
+	 */
+	public static Status validateInstruction(Instruction instruction) {
+		
+		// Do not proceed if at least one of the mandatory fields is missing
+		if (instruction.getEntity() == null || instruction.getAgreedFx() == null
+				|| instruction.getBuyOrSellStringFlag() == null || instruction.getCurrency() == null
+				|| instruction.getInstructionDate() == null || instruction.getSettlementDate() == null
+				|| instruction.getUnits() == null || instruction.getPricePerUnit() == null
+				|| (!instruction.getBuyOrSellStringFlag().equalsIgnoreCase(Constants.INPUT_BUY_FLAG)
+						&& !instruction.getBuyOrSellStringFlag().equalsIgnoreCase(Constants.INPUT_SELL_FLAG))) {
+			
+			instruction.setStatus(Status.MISSING_PROPERTY);
+			PipelineMetrics.getDefault().recordStatus(Status.MISSING_PROPERTY);
+			return instruction.getStatus();
+			
+		}
+		
+		// Convert Buy or Sell given string input to the appropriate enumeration
+		// It is known from previous condition that it is either -B- or -S- so, proceeding in the following
+		// way is safe
+		if (instruction.getBuyOrSellStringFlag().equalsIgnoreCase(Constants.INPUT_BUY_FLAG)) {
+			instruction.setBuyOrSell(BuyOrSell.BUY);
+		} else {
+			instruction.setBuyOrSell(BuyOrSell.SELL);
+		}
+		
+		// Convert the string dates to epoch days and validate them
+		int instructionDay = Utils.parseEpochDay(instruction.getInstructionDate());
+		int settlementDay = Utils.parseEpochDay(instruction.getSettlementDate());
+		instruction.setInstructionEpochDay(instructionDay);
+		instruction.setSettlementEpochDay(settlementDay);
+		
+		if (instructionDay == Constants.INVALID_EPOCH_DAY || settlementDay == Constants.INVALID_EPOCH_DAY) {
+			
+			instruction.setStatus(Status.WRONG_DATE_FORMAT);
+			
+		} else if (isSettlementBeforeInstruction(settlementDay, instructionDay)) {
+			
+			// Do not allow a settlement date before the instruction date
+			instruction.setStatus(Status.INVALID_SETTLEMENT_DATE);
+			
+		} else {
+			
+			// If the day is not a working day, updated to the next working day, based on the currency
+			int correctedDay = SettlementCalendar.getDefault().nextWorkingDay(instruction.getCurrencyId(),
+					settlementDay);
+			if (correctedDay != settlementDay) {
+				instruction.setInitialSettlementEpochDay(settlementDay);
+				instruction.setSettlementEpochDay(correctedDay);
+				PipelineMetrics.getDefault().recordSettlementDateCorrection();
+			}
+			instruction.setStatus(Status.VALID);
+		}
+		
+		// It is possible that we will need it for valid and non valid, for reporting purposes of failed instructions
+		instruction.setAmountOfTrade(Utils.calculateAmountOfTrade(instruction.getPricePerUnit(),
+				instruction.getUnits(), instruction.getAgreedFx()));
+		PipelineMetrics.getDefault().recordStatus(instruction.getStatus());
+		
+		return instruction.getStatus();
+		
+	}
+	
+	/**
+	 * Updates the reporting maps with an already validated instruction. Non valid instructions are only added to
+	 * the {@link RejectionSummary}
+	 * 
+	 * @param instruction the validated {@link Instruction}
+	 * @param validatedData the {@link ValidatedData} to be updated
+	 * @param retainInstructions true for storing the instruction to the list of its settlement date as well
+	 * @return true if the maximum amount of the entity of the instruction was updated and false otherwise
+	 */
+	static boolean aggregateInstruction(Instruction instruction, ValidatedData validatedData,
+			boolean retainInstructions) {
+		
+		// Only valid instructions take part in the reports, while the rest are summarized in the same pass
+		if (instruction.getStatus() != Status.VALID) {
+			validatedData.getRejectionSummary().add(instruction);
+			return false;
+		}
+		
+		// Update the dates map for the daily reporting
+		if (retainInstructions) {
+			List<Instruction> instructionsToDate = validatedData.getInstructionsPerEpochDay()
+					.get(instruction.getSettlementEpochDay());
+			if (instructionsToDate == null) {
+				instructionsToDate = new ArrayList<>();
+				validatedData.getInstructionsPerEpochDay().put(instruction.getSettlementEpochDay(), instructionsToDate);
+			}
+			instructionsToDate.add(instruction);
+		}
+		
+		// Update the daily amounts for the date
+		long scaledAmount = FixedPointAmounts.getDefault().toScaled(instruction.getAmountOfTrade());
+		DailyAmounts dailyAmounts = validatedData.getAmountsPerEpochDay().get(instruction.getSettlementEpochDay());
+		if (dailyAmounts == null) {
+			dailyAmounts = new DailyAmounts();
+			validatedData.getAmountsPerEpochDay().put(instruction.getSettlementEpochDay(), dailyAmounts);
+		}
+		addAmount(dailyAmounts, instruction.getBuyOrSell(), scaledAmount);
+		
+		// Update the date range index and the cube, which are missing from the data built through the setters
+		if (validatedData.getSettlementIndex() != null)
+			validatedData.getSettlementIndex().addScaled(instruction.getEntityId(), instruction.getCurrencyId(),
+					instruction.getBuyOrSell(), instruction.getSettlementEpochDay(), scaledAmount);
+		
+		if (validatedData.getAggregationCube() != null)
+			validatedData.getAggregationCube().accept(instruction);
+		
+		if (validatedData.getRollingTotalsPerWindow() != null) {
+			for (RollingWindowTotals rollingTotals : validatedData.getRollingTotalsPerWindow().values()) {
+				rollingTotals.addScaled(instruction.getEntityId(), instruction.getBuyOrSell(),
+						instruction.getSettlementEpochDay(), scaledAmount);
+			}
+		}
+		
+		// Update the outgoing and incoming statistics of the entity per buy or sell
+		if (instruction.getBuyOrSell() == BuyOrSell.BUY) {
+			return validatedData.getOutgoingEntityStatistics().add(instruction.getEntityId(),
+					instruction.getAmountOfTrade());
+		} else {
+			return validatedData.getIncomingEntityStatistics().add(instruction.getEntityId(),
+					instruction.getAmountOfTrade());
+		}
+		
+	}
+	
+	/**
+	 * Merges the partial results of a later range of instructions into the results of an earlier one. The lists
+	 * of instructions per date keep the input order, the daily amounts are added up and the statistics per
+	 * entity and the rejected instructions are combined
+	 * 
+	 * @param earlier the {@link ValidatedData} of the earlier range, which is updated and returned
+	 * @param later the {@link ValidatedData} of the later range
+	 * @return the merged {@link ValidatedData}
+	 */
+	public static ValidatedData mergeValidatedData(ValidatedData earlier, ValidatedData later) {
+		
+		// Append the instructions of the later range after the ones of the earlier range for every date
+		for (Map.Entry<Integer, List<Instruction>> dateEntry : later.getInstructionsPerEpochDay().entrySet()) {
+			List<Instruction> instructionsToDate = earlier.getInstructionsPerEpochDay().get(dateEntry.getKey());
+			if (instructionsToDate == null) {
+				earlier.getInstructionsPerEpochDay().put(dateEntry.getKey(), dateEntry.getValue());
+			} else {
+				instructionsToDate.addAll(dateEntry.getValue());
+			}
+		}
+		
+		// Add up the amounts of the dates existing in both ranges
+		for (Map.Entry<Integer, DailyAmounts> dateEntry : later.getAmountsPerEpochDay().entrySet()) {
+			DailyAmounts dailyAmounts = earlier.getAmountsPerEpochDay().get(dateEntry.getKey());
+			if (dailyAmounts == null) {
+				earlier.getAmountsPerEpochDay().put(dateEntry.getKey(), dateEntry.getValue());
+			} else {
+				addAmount(dailyAmounts, BuyOrSell.BUY, dateEntry.getValue().getScaledOutgoingAmount());
+				addAmount(dailyAmounts, BuyOrSell.SELL, dateEntry.getValue().getScaledIncomingAmount());
+			}
+		}
+		
+		// Add up the totals and counts and keep the greatest maximum per entity
+		earlier.getOutgoingEntityStatistics().merge(later.getOutgoingEntityStatistics());
+		earlier.getIncomingEntityStatistics().merge(later.getIncomingEntityStatistics());
+		
+		// Add up the date range indices and the cubes, keeping the ones of the later range if the earlier has none
+		if (later.getSettlementIndex() != null) {
+			if (earlier.getSettlementIndex() == null) {
+				earlier.setSettlementIndex(later.getSettlementIndex());
+			} else {
+				earlier.getSettlementIndex().merge(later.getSettlementIndex());
+			}
+		}
+		
+		if (later.getAggregationCube() != null) {
+			if (earlier.getAggregationCube() == null) {
+				earlier.setAggregationCube(later.getAggregationCube());
+			} else {
+				earlier.getAggregationCube().merge(later.getAggregationCube());
+			}
+		}
+		
+		// Add up the moving totals of every window
+		if (later.getRollingTotalsPerWindow() != null) {
+			if (earlier.getRollingTotalsPerWindow() == null) {
+				earlier.setRollingTotalsPerWindow(later.getRollingTotalsPerWindow());
+			} else {
+				for (Map.Entry<Integer, RollingWindowTotals> windowEntry : later.getRollingTotalsPerWindow()
+						.entrySet()) {
+					RollingWindowTotals rollingTotals = earlier.getRollingTotalsPerWindow().get(windowEntry.getKey());
+					if (rollingTotals == null) {
+						earlier.getRollingTotalsPerWindow().put(windowEntry.getKey(), windowEntry.getValue());
 					} else {
-						if (incomingEntitiesMax.containsKey(instruction.getEntity())) {
-							if (instruction.getAmountOfTrade() > incomingEntitiesMax.get(instruction.getEntity())) {
-								incomingEntitiesMax.put(instruction.getEntity(), instruction.getAmountOfTrade());
-							}
-						} else {
-							incomingEntitiesMax.put(instruction.getEntity(), instruction.getAmountOfTrade());
-						}
+						rollingTotals.merge(windowEntry.getValue());
 					}
 				}
 			}
 		}
 		
-		// Store the data to the appropriate object
+		// Keep the samples of the earlier range first
+		if (later.getRejectionSummary() != null) {
+			if (earlier.getRejectionSummary() == null) {
+				earlier.setRejectionSummary(later.getRejectionSummary());
+			} else {
+				earlier.getRejectionSummary().merge(later.getRejectionSummary());
+			}
+		}
+		
+		return earlier;
+		
+	}
+	
+	/**
+	 * Creates a {@link ValidatedData} object with empty maps ready to be filled
+	 * 
+	 * @return the empty {@link ValidatedData}
+	 */
+	static ValidatedData createEmptyValidatedData() {
+		
 		ValidatedData validatedData = new ValidatedData();
-		validatedData.setInstructionsPerDate(instructionsPerDate);
-		validatedData.setOutgoingEntitiesMax(outgoingEntitiesMax);
-		validatedData.setIncomingEntitiesMax(incomingEntitiesMax);
+		validatedData.setInstructionsPerEpochDay(new TreeMap<Integer, List<Instruction>>());
+		validatedData.setAmountsPerEpochDay(new TreeMap<Integer, DailyAmounts>());
+		validatedData.setOutgoingEntityStatistics(new EntityStatistics());
+		validatedData.setIncomingEntityStatistics(new EntityStatistics());
+		validatedData.setRejectionSummary(new RejectionSummary());
+		validatedData.setSettlementIndex(new SettlementIndex());
+		validatedData.setAggregationCube(new AggregationCube());
+		validatedData.setRollingTotalsPerWindow(createRollingTotals(SymbolDictionary.getSharedEntities()));
 		
 		return validatedData;
 		
 	}
 	
+	/**
+	 * Creates empty moving totals for every window of {@link Constants#ROLLING_WINDOW_DAYS}
+	 * 
+	 * @param entities the {@link SymbolDictionary} of the entity identifiers
+	 * @return the {@link SortedMap} of the moving totals keyed by the number of the days of their window
+	 */
+	static SortedMap<Integer, RollingWindowTotals> createRollingTotals(SymbolDictionary entities) {
+		
+		SortedMap<Integer, RollingWindowTotals> rollingTotalsPerWindow = new TreeMap<>();
+		for (int windowDays : Constants.ROLLING_WINDOW_DAYS) {
+			rollingTotalsPerWindow.put(windowDays, new RollingWindowTotals(entities, windowDays));
+		}
+		
+		return rollingTotalsPerWindow;
+		
+	}
+	
+	/**
+	 * Adds the given fixed-point amount to the daily amounts of buy or sell respectively
+	 * 
+	 * @param dailyAmounts the {@link DailyAmounts} to be updated
+	 * @param buyOrSell the {@link BuyOrSell} type of the amount
+	 * @param scaledAmount the scaled amount to be added
+	 * @throws ArithmeticException if the daily amount overflows the fixed-point range
+	 */
+	private static void addAmount(DailyAmounts dailyAmounts, BuyOrSell buyOrSell, long scaledAmount) {
+		
+		if (buyOrSell == BuyOrSell.BUY) {
+			dailyAmounts.setScaledOutgoingAmount(Math.addExact(dailyAmounts.getScaledOutgoingAmount(), scaledAmount));
+		} else {
+			dailyAmounts.setScaledIncomingAmount(Math.addExact(dailyAmounts.getScaledIncomingAmount(), scaledAmount));
+		}
+		
+	}
+	
 	/**
 	 * Checks if settlement date is before the instruction date, which is invalid
 	 * 
-	 * @param settlementDate the formatted {@link Date} representing the settlement date
-	 * @param instructionDate the formatted {@link Date} representing the instruction date
+	 * @param settlementDay the epoch day representing the settlement date
+	 * @param instructionDay the epoch day representing the instruction date
 	 * @return true if settlement is before instruction date and false otherwise
 	 */
-	private static boolean isSettlementBeforeInstruction(Date settlementDate, Date instructionDate) {
+	private static boolean isSettlementBeforeInstruction(int settlementDay, int instructionDay) {
 		
-		return settlementDate.before(instructionDate) ? true : false;
+		return settlementDay < instructionDay;
 		
 	}
 
@@ -0,0 +1,52 @@
+package com.vasileiou.trade.controllers;
+
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.ValidatedData;
+
+/**
+ * A fork/join task parsing a contiguous range of instructions. Ranges larger than the threshold are split in two
+ * halves, which are parsed in parallel and then merged in input order
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+class ParsingTask extends RecursiveTask<ValidatedData> {
+	
+	private static final long serialVersionUID = 4325916384529816201L;
+	
+	private final List<Instruction> instructions;
+	private final int from;
+	private final int to;
+	private final int threshold;
+	
+	ParsingTask(List<Instruction> instructions, int from, int to, int threshold) {
+		this.instructions = instructions;
+		this.from = from;
+		this.to = to;
+		this.threshold = threshold;
+	}
+	
+	@Override
+	protected ValidatedData compute() {
+		
+		// Parse small ranges directly
+		if (to - from <= threshold)
+			return Parser.parseRange(instructions, from, to);
+		
+		int middle = (from + to) >>> 1;
+		ParsingTask earlierTask = new ParsingTask(instructions, from, middle, threshold);
+		ParsingTask laterTask = new ParsingTask(instructions, middle, to, threshold);
+		
+		// Fork the later half and parse the earlier half in the current thread
+		laterTask.fork();
+		ValidatedData earlier = earlierTask.compute();
+		ValidatedData later = laterTask.join();
+		
+		return Parser.mergeValidatedData(earlier, later);
+		
+	}
+
+}
@@ -1,119 +1,741 @@
 package com.vasileiou.trade.controllers;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Collections;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
+import com.vasileiou.trade.common.AggregationCube;
 import com.vasileiou.trade.common.Constants;
+import com.vasileiou.trade.common.EntityStatistics;
+import com.vasileiou.trade.common.FixedPointAmounts;
+import com.vasileiou.trade.common.PipelineMetrics;
+import com.vasileiou.trade.common.RejectionSummary;
+import com.vasileiou.trade.common.RollingWindowTotals;
+import com.vasileiou.trade.common.TopKRanking;
+import com.vasileiou.trade.common.Utils;
 import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.CubeDimension;
+import com.vasileiou.trade.enums.RankingMode;
+import com.vasileiou.trade.enums.RejectionGroup;
+import com.vasileiou.trade.enums.Stage;
+import com.vasileiou.trade.enums.Status;
 import com.vasileiou.trade.interfaces.ReportGenerator;
+import com.vasileiou.trade.interfaces.ReportRenderer;
+import com.vasileiou.trade.models.DailyAmounts;
 import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.InstructionStore;
 
 /**
- * A {@link ReportGenerator} implementation for generating trading reports
+ * A {@link ReportGenerator} implementation for generating trading reports. The reports are written in chunks of
+ * lines to the given output, while the {@link StringBuilder} variants write them to a new {@link StringBuilder}.
+ * The lines are rendered by a {@link ReportRenderer}, which gives the human readable reports by default
  * 
  * @author Panagiotis Vasileiou
  *
  */
 public class ReportGeneratorImpl implements ReportGenerator {
 	
-	// Default constructor
+	private final ReportRenderer renderer;
+	
+	// Default constructor for the human readable reports
 	public ReportGeneratorImpl() {
+		this(TextReportRenderer.INSTANCE);
+	}
+	
+	public ReportGeneratorImpl(ReportRenderer renderer) {
 		super();
+		this.renderer = renderer;
 	}
 
 	@Override
 	public StringBuilder generateDailyReport(SortedMap<Date, List<Instruction> > existingDates, BuyOrSell buyOrSell) {
 		
-		// If there are no instructions then exit with the appropriate message
-		if (existingDates == null || existingDates.size() == 0)
-			return new StringBuilder(Constants.NO_INSTRUCTIONS_AVAILABLE);
+		// Convert the dates to epoch days once, so that the report itself works only with epoch days
+		SortedMap<Integer, List<Instruction>> existingDays = null;
+		if (existingDates != null) {
+			existingDays = new TreeMap<>();
+			for (Map.Entry<Date, List<Instruction>> dateEntry : existingDates.entrySet()) {
+				existingDays.put(Utils.toEpochDay(dateEntry.getKey()), dateEntry.getValue());
+			}
+		}
 		
-		// If buy or sell is not specified then exit with the appropriate message
-		if (buyOrSell == null)
-			return new StringBuilder(Constants.BUY_OR_SELL_IS_MISSING);
+		return generateEpochDailyReport(existingDays, buyOrSell);
+	}
+	
+	@Override
+	public StringBuilder generateEpochDailyReport(SortedMap<Integer, List<Instruction>> existingDays,
+			BuyOrSell buyOrSell) {
 		
-		StringBuilder dailyOuput = new StringBuilder(buyOrSell == BuyOrSell.SELL 
-																? Constants.DAILY_INCOMING_OUTPUT_HEADER
-																: Constants.DAILY_OUTGOING_OUTPUT_HEADER);
-				
-		Calendar calendar = Calendar.getInstance();
-		Date firstDate = existingDates.firstKey();
-		Date lastDate = existingDates.lastKey();
-		calendar.setTime(firstDate);
+		return toStringBuilder(output -> writeEpochDailyReport(existingDays, buyOrSell, output));
+		
+	}
+	
+	@Override
+	public void writeEpochDailyReport(SortedMap<Integer, List<Instruction>> existingDays, BuyOrSell buyOrSell,
+			Appendable output) throws IOException {
+		
+		long start = System.nanoTime();
+		try {
+			renderEpochDailyReport(existingDays, buyOrSell, output);
+		} finally {
+			PipelineMetrics.getDefault().recordStage(Stage.DAILY_REPORT, start, 0);
+		}
 		
-		DateFormat dateFormat = new SimpleDateFormat(Constants.DATE_FORMAT);
+	}
+	
+	private void renderEpochDailyReport(SortedMap<Integer, List<Instruction>> existingDays, BuyOrSell buyOrSell,
+			Appendable output) throws IOException {
+		
+		// If there are no instructions then exit with the appropriate message
+		if (existingDays == null || existingDays.size() == 0) {
+			writeMessage(Constants.NO_INSTRUCTIONS_AVAILABLE, output);
+			return;
+		}
 		
-		dailyOuput.append(Constants.DAILY_REPORT_HEADERS);
+		// If buy or sell is not specified then exit with the appropriate message
+		if (buyOrSell == null) {
+			writeMessage(Constants.BUY_OR_SELL_IS_MISSING, output);
+			return;
+		}
+		
+		StringBuilder dailyOuput = startDailyReport(buyOrSell, output);
 				
-		List<Instruction> dailyInstructions;
+		// Walk the existing days in order and fill the gaps with empty days instead of looking up every day
+		int nextDay = existingDays.firstKey();
+		for (Map.Entry<Integer, List<Instruction>> dayEntry : existingDays.entrySet()) {
 		
-		// Iterate over all the dates without excluding the empty dates in the report 
-		while(!calendar.getTime().after(lastDate)) {
-			
-			dailyInstructions = existingDates.get(calendar.getTime());
-			double totalDailyIncoming = 0;
+			for (; nextDay < dayEntry.getKey(); nextDay++) {
+				renderer.appendDailyAmount(dailyOuput, buyOrSell, nextDay, 0);
+				flush(dailyOuput, output, false);
+			}
 			
-			// Sum up all the instruction amounts for that day
-			if (dailyInstructions != null && dailyInstructions.size() > 0) {
-				for (Instruction instruction : dailyInstructions) {
-					if (instruction.getBuyOrSell() == buyOrSell) {
-						totalDailyIncoming += instruction.getAmountOfTrade();
-					}
+			// Sum up all the instruction amounts for that day as fixed-point amounts, so that the order does not matter
+			long scaledDailyTotal = 0;
+			for (Instruction instruction : dayEntry.getValue()) {
+				if (instruction.getBuyOrSell() == buyOrSell) {
+					scaledDailyTotal = Math.addExact(scaledDailyTotal,
+							FixedPointAmounts.getDefault().toScaled(instruction.getAmountOfTrade()));
 				}
 			}
 			
-			// Update the output and then increment the date
-			dailyOuput.append(dateFormat.format(calendar.getTime())).append(" -> ")
-						.append(totalDailyIncoming).append("$").append("\n");
-			
-			calendar.add(Calendar.DATE, 1);
+			renderer.appendDailyAmount(dailyOuput, buyOrSell, nextDay++,
+					FixedPointAmounts.getDefault().toAmount(scaledDailyTotal));
+			flush(dailyOuput, output, false);
 		}
 	
-		return dailyOuput;
+		flush(dailyOuput, output, true);
+	}
+	
+	@Override
+	public StringBuilder generateDailyAmountsReport(SortedMap<Integer, DailyAmounts> amountsPerEpochDay,
+			BuyOrSell buyOrSell) {
+		
+		return toStringBuilder(output -> writeDailyAmountsReport(amountsPerEpochDay, buyOrSell, output));
+		
+	}
+	
+	@Override
+	public void writeDailyAmountsReport(SortedMap<Integer, DailyAmounts> amountsPerEpochDay, BuyOrSell buyOrSell,
+			Appendable output) throws IOException {
+		
+		long start = System.nanoTime();
+		try {
+			renderDailyAmountsReport(amountsPerEpochDay, buyOrSell, output);
+		} finally {
+			PipelineMetrics.getDefault().recordStage(Stage.DAILY_REPORT, start, 0);
+		}
+		
+	}
+	
+	private void renderDailyAmountsReport(SortedMap<Integer, DailyAmounts> amountsPerEpochDay, BuyOrSell buyOrSell,
+			Appendable output) throws IOException {
+		
+		// If there are no instructions then exit with the appropriate message
+		if (amountsPerEpochDay == null || amountsPerEpochDay.size() == 0) {
+			writeMessage(Constants.NO_INSTRUCTIONS_AVAILABLE, output);
+			return;
+		}
+		
+		// If buy or sell is not specified then exit with the appropriate message
+		if (buyOrSell == null) {
+			writeMessage(Constants.BUY_OR_SELL_IS_MISSING, output);
+			return;
+		}
+		
+		StringBuilder dailyOuput = startDailyReport(buyOrSell, output);
+		
+		// Walk the existing days in order and fill the gaps with empty days instead of looking up every day
+		int nextDay = amountsPerEpochDay.firstKey();
+		for (Map.Entry<Integer, DailyAmounts> dayEntry : amountsPerEpochDay.entrySet()) {
+			
+			for (; nextDay < dayEntry.getKey(); nextDay++) {
+				renderer.appendDailyAmount(dailyOuput, buyOrSell, nextDay, 0);
+				flush(dailyOuput, output, false);
+			}
+			
+			renderer.appendDailyAmount(dailyOuput, buyOrSell, nextDay++, buyOrSell == BuyOrSell.SELL
+															? dayEntry.getValue().getIncomingAmount()
+															: dayEntry.getValue().getOutgoingAmount());
+			flush(dailyOuput, output, false);
+		}
+		
+		flush(dailyOuput, output, true);
 	}
 
 	@Override
 	public StringBuilder generateRanking(HashMap<String, Double> maximumAmounts, BuyOrSell buyOrSell) {
 		
+		return generateRanking(maximumAmounts, buyOrSell, maximumAmounts == null ? 0 : maximumAmounts.size());
+		
+	}
+	
+	@Override
+	public StringBuilder generateRanking(HashMap<String, Double> maximumAmounts, BuyOrSell buyOrSell, int topK) {
+		
+		return toStringBuilder(output -> writeRanking(maximumAmounts, buyOrSell, topK, output));
+		
+	}
+	
+	@Override
+	public void writeRanking(HashMap<String, Double> maximumAmounts, BuyOrSell buyOrSell, int topK,
+			Appendable output) throws IOException {
+		
+		long start = System.nanoTime();
+		try {
+			renderRanking(maximumAmounts, buyOrSell, topK, output);
+		} finally {
+			PipelineMetrics.getDefault().recordStage(Stage.RANKING, start, 0);
+		}
+		
+	}
+	
+	private void renderRanking(HashMap<String, Double> maximumAmounts, BuyOrSell buyOrSell, int topK,
+			Appendable output) throws IOException {
+		
+		// If there are no instructions then exit with the appropriate message
+		if (maximumAmounts == null || maximumAmounts.size() == 0) {
+			writeMessage(Constants.NO_INSTRUCTIONS_AVAILABLE, output);
+			return;
+		}
+		
+		// If buy or sell is not specified then exit with the appropriate message
+		if (buyOrSell == null) {
+			writeMessage(Constants.BUY_OR_SELL_IS_MISSING, output);
+			return;
+		}
+		
+		// Keep only the top entities in a bounded heap instead of sorting all of them
+		renderTopKRanking(TopKRanking.of(maximumAmounts, topK), buyOrSell, RankingMode.MAXIMUM, output);
+		
+	}
+	
+	@Override
+	public StringBuilder generateStatisticsRanking(EntityStatistics entityStatistics, BuyOrSell buyOrSell,
+			RankingMode rankingMode, int topK) {
+		
+		return toStringBuilder(output -> writeStatisticsRanking(entityStatistics, buyOrSell, rankingMode, topK,
+				output));
+		
+	}
+	
+	@Override
+	public void writeStatisticsRanking(EntityStatistics entityStatistics, BuyOrSell buyOrSell,
+			RankingMode rankingMode, int topK, Appendable output) throws IOException {
+		
+		long start = System.nanoTime();
+		try {
+			renderStatisticsRanking(entityStatistics, buyOrSell, rankingMode, topK, output);
+		} finally {
+			PipelineMetrics.getDefault().recordStage(Stage.RANKING, start, 0);
+		}
+		
+	}
+	
+	private void renderStatisticsRanking(EntityStatistics entityStatistics, BuyOrSell buyOrSell,
+			RankingMode rankingMode, int topK, Appendable output) throws IOException {
+		
 		// If there are no instructions then exit with the appropriate message
-		if (maximumAmounts == null || maximumAmounts.size() == 0)
-			return new StringBuilder(Constants.NO_INSTRUCTIONS_AVAILABLE);
+		if (entityStatistics == null || entityStatistics.size() == 0) {
+			writeMessage(Constants.NO_INSTRUCTIONS_AVAILABLE, output);
+			return;
+		}
+		
+		// If buy or sell is not specified then exit with the appropriate message
+		if (buyOrSell == null) {
+			writeMessage(Constants.BUY_OR_SELL_IS_MISSING, output);
+			return;
+		}
+		
+		RankingMode mode = rankingMode == null ? RankingMode.MAXIMUM : rankingMode;
+		renderTopKRanking(entityStatistics.rank(mode, topK), buyOrSell, mode, output);
+		
+	}
+	
+	/**
+	 * Generates the ranking trading report of an already computed {@link TopKRanking}
+	 * 
+	 * @param ranking the {@link TopKRanking} of the entities
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @return the report output
+	 */
+	public StringBuilder generateTopKRanking(TopKRanking ranking, BuyOrSell buyOrSell) {
+		
+		return generateTopKRanking(ranking, buyOrSell, RankingMode.MAXIMUM);
+		
+	}
+	
+	/**
+	 * Generates the ranking trading report of an already computed {@link TopKRanking}, where the numbers of
+	 * instructions are given without decimals and currency
+	 * 
+	 * @param ranking the {@link TopKRanking} of the entities
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param rankingMode the {@link RankingMode} the ranking is based on
+	 * @return the report output
+	 */
+	public StringBuilder generateTopKRanking(TopKRanking ranking, BuyOrSell buyOrSell, RankingMode rankingMode) {
+		
+		return toStringBuilder(output -> writeTopKRanking(ranking, buyOrSell, rankingMode, output));
+		
+	}
+	
+	/**
+	 * Writes the ranking trading report of an already computed {@link TopKRanking}, where the numbers of
+	 * instructions are given without decimals and currency
+	 * 
+	 * @param ranking the {@link TopKRanking} of the entities
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param rankingMode the {@link RankingMode} the ranking is based on
+	 * @param output the {@link Appendable} the report is written to
+	 * @throws IOException if the output cannot be written
+	 */
+	public void writeTopKRanking(TopKRanking ranking, BuyOrSell buyOrSell, RankingMode rankingMode,
+			Appendable output) throws IOException {
+		
+		long start = System.nanoTime();
+		try {
+			renderTopKRanking(ranking, buyOrSell, rankingMode, output);
+		} finally {
+			PipelineMetrics.getDefault().recordStage(Stage.RANKING, start, 0);
+		}
+		
+	}
+	
+	private void renderTopKRanking(TopKRanking ranking, BuyOrSell buyOrSell, RankingMode rankingMode,
+			Appendable output) throws IOException {
+		
+		// If there are no instructions then exit with the appropriate message
+		if (ranking == null || ranking.size() == 0) {
+			writeMessage(Constants.NO_INSTRUCTIONS_AVAILABLE, output);
+			return;
+		}
+		
+		// If buy or sell is not specified then exit with the appropriate message
+		if (buyOrSell == null) {
+			writeMessage(Constants.BUY_OR_SELL_IS_MISSING, output);
+			return;
+		}
+		
+		StringBuilder rankingOutput = lineBuffer(output);
+		renderer.appendRankingHeader(rankingOutput, buyOrSell, rankingMode);
+		
+		// Iterate over the ranked entities and update the output with the ranking
+		long rank = 0;
+		for (Map.Entry<String, Double> entityEntry : ranking.toRanking().entrySet()) {
+			renderer.appendRank(rankingOutput, buyOrSell, rankingMode, ++rank, entityEntry.getKey(),
+					entityEntry.getValue());
+			flush(rankingOutput, output, false);
+		}
+		
+		flush(rankingOutput, output, true);
+		
+	}
+
+	@Override
+	public StringBuilder generateDailyReportFromStore(InstructionStore store, BuyOrSell buyOrSell) {
+		
+		return toStringBuilder(output -> writeDailyReportFromStore(store, buyOrSell, output));
+		
+	}
+	
+	@Override
+	public void writeDailyReportFromStore(InstructionStore store, BuyOrSell buyOrSell, Appendable output)
+			throws IOException {
+		
+		long start = System.nanoTime();
+		try {
+			renderDailyReportFromStore(store, buyOrSell, output);
+		} finally {
+			PipelineMetrics.getDefault().recordStage(Stage.DAILY_REPORT, start, 0);
+		}
+		
+	}
+	
+	private void renderDailyReportFromStore(InstructionStore store, BuyOrSell buyOrSell, Appendable output)
+			throws IOException {
 		
 		// If buy or sell is not specified then exit with the appropriate message
-		if (buyOrSell == null)
-			return new StringBuilder(Constants.BUY_OR_SELL_IS_MISSING);
+		if (store != null && store.size() > 0 && buyOrSell == null) {
+			writeMessage(Constants.BUY_OR_SELL_IS_MISSING, output);
+			return;
+		}
+		
+		// Find the window of the valid settlement dates
+		int firstDay = Integer.MAX_VALUE;
+		int lastDay = Integer.MIN_VALUE;
+		for (int row = 0; store != null && row < store.size(); row++) {
+			if (store.getStatus(row) == Status.VALID.ordinal()) {
+				firstDay = Math.min(firstDay, store.getSettlementDay(row));
+				lastDay = Math.max(lastDay, store.getSettlementDay(row));
+			}
+		}
+		
+		// If there are no valid instructions then exit with the appropriate message
+		if (firstDay > lastDay) {
+			writeMessage(Constants.NO_INSTRUCTIONS_AVAILABLE, output);
+			return;
+		}
+		
+		// Sum up all the instruction amounts per day in a single scan of the columns
+		byte side = buyOrSell == BuyOrSell.BUY ? InstructionStore.SIDE_BUY : InstructionStore.SIDE_SELL;
+		long[] dailyTotals = new long[lastDay - firstDay + 1];
+		for (int row = 0; row < store.size(); row++) {
+			if (store.getStatus(row) == Status.VALID.ordinal() && store.getSide(row) == side) {
+				int day = store.getSettlementDay(row) - firstDay;
+				dailyTotals[day] = Math.addExact(dailyTotals[day], store.getScaledAmount(row));
+			}
+		}
+		
+		StringBuilder dailyOuput = startDailyReport(buyOrSell, output);
+		
+		for (int day = 0; day < dailyTotals.length; day++) {
+			renderer.appendDailyAmount(dailyOuput, buyOrSell, firstDay + day,
+					FixedPointAmounts.getDefault().toAmount(dailyTotals[day]));
+			flush(dailyOuput, output, false);
+		}
+		
+		flush(dailyOuput, output, true);
+	}
+	
+	@Override
+	public StringBuilder generateRankingFromStore(InstructionStore store, BuyOrSell buyOrSell) {
+		
+		return toStringBuilder(output -> writeRankingFromStore(store, buyOrSell, output));
+		
+	}
+	
+	@Override
+	public void writeRankingFromStore(InstructionStore store, BuyOrSell buyOrSell, Appendable output)
+			throws IOException {
+		
+		long start = System.nanoTime();
+		try {
+			renderRankingFromStore(store, buyOrSell, output);
+		} finally {
+			PipelineMetrics.getDefault().recordStage(Stage.RANKING, start, 0);
+		}
+		
+	}
+	
+	private void renderRankingFromStore(InstructionStore store, BuyOrSell buyOrSell, Appendable output)
+			throws IOException {
+		
+		if (store == null) {
+			renderRanking(null, buyOrSell, 0, output);
+			return;
+		}
+		
+		// Keep the statistics per entity identifier and resolve the entities only for the ranking
+		byte side = buyOrSell == BuyOrSell.BUY ? InstructionStore.SIDE_BUY : InstructionStore.SIDE_SELL;
+		EntityStatistics entityStatistics = new EntityStatistics(store.getEntities(),
+				Math.min(store.getEntities().size(), store.size()));
+		for (int row = 0; row < store.size(); row++) {
+			if (store.getStatus(row) == Status.VALID.ordinal() && store.getSide(row) == side) {
+				entityStatistics.add(store.getEntityId(row), store.getAmountOfTrade(row));
+			}
+		}
+		
+		renderStatisticsRanking(entityStatistics, buyOrSell, RankingMode.MAXIMUM, entityStatistics.size(), output);
+	}
+
+	@Override
+	public StringBuilder generateRejectionReport(RejectionSummary rejectionSummary) {
+		
+		return toStringBuilder(output -> writeRejectionReport(rejectionSummary, output));
+		
+	}
+	
+	@Override
+	public void writeRejectionReport(RejectionSummary rejectionSummary, Appendable output) throws IOException {
+		
+		long start = System.nanoTime();
+		try {
+			renderRejectionReport(rejectionSummary, output);
+		} finally {
+			PipelineMetrics.getDefault().recordStage(Stage.REJECTION_REPORT, start, 0);
+		}
+		
+	}
+	
+	private void renderRejectionReport(RejectionSummary rejectionSummary, Appendable output) throws IOException {
+		
+		// If there are no rejected instructions then exit with the appropriate message
+		if (rejectionSummary == null || rejectionSummary.getCount() == 0) {
+			writeMessage(Constants.NO_REJECTED_INSTRUCTIONS, output);
+			return;
+		}
+		
+		StringBuilder rejectionOutput = lineBuffer(output);
+		renderer.appendRejectionHeader(rejectionOutput, rejectionSummary.getCount());
+		
+		renderer.appendRejectionGroupHeader(rejectionOutput, RejectionGroup.STATUS);
+		for (Status status : Status.values()) {
+			if (status != Status.VALID) {
+				renderer.appendRejection(rejectionOutput, RejectionGroup.STATUS, status.name(),
+						rejectionSummary.getCount(status), rejectionSummary.getAmount(status));
+			}
+		}
+		flush(rejectionOutput, output, false);
+		
+		renderRejectionTotals(rejectionSummary.getPerEntity(), RejectionGroup.ENTITY, rejectionOutput, output);
+		renderRejectionTotals(rejectionSummary.getPerCurrency(), RejectionGroup.CURRENCY, rejectionOutput, output);
+		
+		renderer.appendRejectionGroupHeader(rejectionOutput, RejectionGroup.SAMPLE);
+		for (Status status : Status.values()) {
+			for (Instruction sample : rejectionSummary.getSamples(status)) {
+				renderer.appendRejectionSample(rejectionOutput, status, sample);
+			}
+		}
+		
+		flush(rejectionOutput, output, true);
+		
+	}
+	
+	/**
+	 * Renders the rejections per entity or per currency in the order of their keys
+	 * 
+	 * @param totalsPerKey the {@link SortedMap} of the rejections per entity or per currency
+	 * @param rejectionGroup the {@link RejectionGroup} of the rejections
+	 * @param rejectionOutput the {@link StringBuilder} where the lines of the report are appended
+	 * @param output the {@link Appendable} the report is written to
+	 * @throws IOException if the output cannot be written
+	 */
+	private void renderRejectionTotals(SortedMap<String, RejectionSummary.Totals> totalsPerKey,
+			RejectionGroup rejectionGroup, StringBuilder rejectionOutput, Appendable output) throws IOException {
+		
+		renderer.appendRejectionGroupHeader(rejectionOutput, rejectionGroup);
+		for (Map.Entry<String, RejectionSummary.Totals> keyEntry : totalsPerKey.entrySet()) {
+			renderer.appendRejection(rejectionOutput, rejectionGroup, keyEntry.getKey(),
+					keyEntry.getValue().getCount(), keyEntry.getValue().getAmount());
+			flush(rejectionOutput, output, false);
+		}
+		
+	}
+	
+	@Override
+	public StringBuilder generateRollingReport(RollingWindowTotals rollingTotals, BuyOrSell buyOrSell, int topK) {
+		
+		return toStringBuilder(output -> writeRollingReport(rollingTotals, buyOrSell, topK, output));
 		
-		StringBuilder rankingOutput = new StringBuilder(buyOrSell == BuyOrSell.SELL 
-				? Constants.INCOMING_RANKING_HEADER
-				: Constants.OUTGOING_RANKING_HEADER);
+	}
+	
+	@Override
+	public void writeRollingReport(RollingWindowTotals rollingTotals, BuyOrSell buyOrSell, int topK,
+			Appendable output) throws IOException {
 		
-		rankingOutput.append(Constants.RANKING_REPORT_HEADERS);
+		long start = System.nanoTime();
+		try {
+			renderRollingReport(rollingTotals, buyOrSell, topK, output);
+		} finally {
+			PipelineMetrics.getDefault().recordStage(Stage.ROLLING_REPORT, start, 0);
+		}
+		
+	}
+	
+	private void renderRollingReport(RollingWindowTotals rollingTotals, BuyOrSell buyOrSell, int topK,
+			Appendable output) throws IOException {
 		
-		// Sort the entities based on the value in descending order, using Java 8 streams
-		LinkedHashMap<String, Double> rankingMap = maximumAmounts.entrySet()
-		        .stream().sorted(Map.Entry.comparingByValue(Collections.reverseOrder()))
-		        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
+		// If there are no instructions then exit with the appropriate message
+		if (rollingTotals == null || rollingTotals.isEmpty()) {
+			writeMessage(Constants.NO_INSTRUCTIONS_AVAILABLE, output);
+			return;
+		}
+		
+		// If buy or sell is not specified then exit with the appropriate message
+		if (buyOrSell == null) {
+			writeMessage(Constants.BUY_OR_SELL_IS_MISSING, output);
+			return;
+		}
+		
+		StringBuilder rollingOutput = lineBuffer(output);
+		int windowDays = rollingTotals.getWindowDays();
+		renderer.appendRollingHeader(rollingOutput, buyOrSell, windowDays);
+		
+		// Every day of the span ends a window, like the daily reports fill the days without settlements
+		for (int day = rollingTotals.getFirstEpochDay(); day <= rollingTotals.getLastEpochDay(); day++) {
+			renderer.appendRollingAmount(rollingOutput, buyOrSell, windowDays, day,
+					rollingTotals.getMovingTotal(buyOrSell, day));
+			flush(rollingOutput, output, false);
+		}
 		
-		// Iterate over the sorted map and update the output with the ranking
+		int lastDay = rollingTotals.getLastEpochDay();
+		renderer.appendRollingEntitiesHeader(rollingOutput, buyOrSell, windowDays, lastDay);
 		long rank = 0;
-		for (Map.Entry<String, Double> entityEntry : rankingMap.entrySet()) {
-		    String entity = entityEntry.getKey();
-		    Double amount = entityEntry.getValue();
-		    
-		    rankingOutput.append(++rank).append(". ").append(entity).append(" -> " + amount).append("$").append("\n");
+		for (Map.Entry<String, Double> entityEntry : rollingTotals.rankEntities(buyOrSell, topK).toRanking()
+				.entrySet()) {
+			renderer.appendRollingEntity(rollingOutput, buyOrSell, windowDays, lastDay, ++rank, entityEntry.getKey(),
+					entityEntry.getValue());
+			flush(rollingOutput, output, false);
 		}
 		
-		return rankingOutput;
+		flush(rollingOutput, output, true);
+		
+	}
+	
+	@Override
+	public StringBuilder generateCubeReport(AggregationCube aggregationCube, Set<CubeDimension> dimensions) {
+		
+		return toStringBuilder(output -> writeCubeReport(aggregationCube, dimensions, output));
+		
+	}
+	
+	@Override
+	public void writeCubeReport(AggregationCube aggregationCube, Set<CubeDimension> dimensions, Appendable output)
+			throws IOException {
+		
+		long start = System.nanoTime();
+		try {
+			renderCubeReport(aggregationCube, dimensions, output);
+		} finally {
+			PipelineMetrics.getDefault().recordStage(Stage.CUBE_REPORT, start, 0);
+		}
+		
+	}
+	
+	private void renderCubeReport(AggregationCube aggregationCube, Set<CubeDimension> dimensions, Appendable output)
+			throws IOException {
+		
+		// If there are no instructions then exit with the appropriate message
+		if (aggregationCube == null || aggregationCube.isEmpty()) {
+			writeMessage(Constants.NO_INSTRUCTIONS_AVAILABLE, output);
+			return;
+		}
 		
+		StringBuilder cubeOutput = lineBuffer(output);
+		renderer.appendCubeHeader(cubeOutput, dimensions);
+		
+		// The cells are given to a consumer, which cannot throw the exception of the output
+		try {
+			aggregationCube.forEach(dimensions, (epochDay, buyOrSell, currency, entity, total, count, maximum) -> {
+				renderer.appendCubeCell(cubeOutput, dimensions, epochDay, buyOrSell, currency, entity, total, count,
+						maximum);
+				try {
+					flush(cubeOutput, output, false);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		
+		flush(cubeOutput, output, true);
+		
+	}
+	
+	/**
+	 * Starts a daily report with its headers
+	 * 
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param output the {@link Appendable} the report is written to
+	 * @return the {@link StringBuilder} where the lines of the report are appended
+	 */
+	private StringBuilder startDailyReport(BuyOrSell buyOrSell, Appendable output) {
+		
+		StringBuilder dailyOuput = lineBuffer(output);
+		renderer.appendDailyHeader(dailyOuput, buyOrSell);
+		
+		return dailyOuput;
+		
+	}
+	
+	/**
+	 * Writes a message given instead of a report
+	 * 
+	 * @param message the message {@link String}
+	 * @param output the {@link Appendable} the message is written to
+	 * @throws IOException if the output cannot be written
+	 */
+	private void writeMessage(String message, Appendable output) throws IOException {
+		
+		StringBuilder messageOutput = lineBuffer(output);
+		renderer.appendMessage(messageOutput, message);
+		flush(messageOutput, output, true);
+		
+	}
+	
+	/**
+	 * Gives the {@link StringBuilder} where the lines of a report are appended before being written. A
+	 * {@link StringBuilder} output is used directly, while any other output gets the lines in chunks
+	 * 
+	 * @param output the {@link Appendable} the report is written to
+	 * @return the {@link StringBuilder} for the lines
+	 */
+	private static StringBuilder lineBuffer(Appendable output) {
+		
+		return output instanceof StringBuilder
+					? (StringBuilder) output
+					: new StringBuilder(Constants.REPORT_OUTPUT_CHUNK_SIZE);
+		
+	}
+	
+	/**
+	 * Writes the buffered lines to the output when the chunk is full or the report is finished
+	 * 
+	 * @param lines the {@link StringBuilder} of the buffered lines
+	 * @param output the {@link Appendable} the report is written to
+	 * @param finished true if the report is finished
+	 * @throws IOException if the output cannot be written
+	 */
+	private static void flush(StringBuilder lines, Appendable output, boolean finished) throws IOException {
+		
+		if (lines != output && (finished || lines.length() >= Constants.REPORT_OUTPUT_CHUNK_SIZE)) {
+			output.append(lines);
+			lines.setLength(0);
+		}
+		
+	}
+	
+	/**
+	 * Writes a report to a new {@link StringBuilder}
+	 * 
+	 * @param report the {@link ReportWriting} of the report
+	 * @return the {@link StringBuilder} with the report
+	 */
+	private static StringBuilder toStringBuilder(ReportWriting report) {
+		
+		StringBuilder output = new StringBuilder();
+		try {
+			report.writeTo(output);
+		} catch (IOException e) {
+			
+			// A StringBuilder never fails to be appended
+			throw new UncheckedIOException(e);
+		}
+		
+		return output;
+		
+	}
+	
+	@FunctionalInterface
+	private interface ReportWriting {
+		void writeTo(Appendable output) throws IOException;
 	}
 
 }
@@ -0,0 +1,323 @@
+package com.vasileiou.trade.controllers;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.vasileiou.trade.common.Constants;
+import com.vasileiou.trade.common.Printer;
+import com.vasileiou.trade.common.RollingWindowTotals;
+import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.RankingMode;
+import com.vasileiou.trade.interfaces.ReportGenerator;
+import com.vasileiou.trade.models.ShardPartial;
+import com.vasileiou.trade.models.ValidatedData;
+
+/**
+ * The coordinator merging the partial aggregates of the {@link ShardWorker} processes into the data of all the
+ * instructions, from which the same reports as the ones of a single process are generated. The merge adds up the
+ * daily amounts, the entity statistics and the rejections, so it is associative and the partials can be merged in
+ * any order. It can be run as a separate process with:
+ * 
+ * <pre>
+ * java com.vasileiou.trade.controllers.ShardCoordinator &lt;shard count&gt; &lt;instructions file&gt;
+ * java com.vasileiou.trade.controllers.ShardCoordinator merge &lt;partial file&gt;...
+ * </pre>
+ * 
+ * where the first form launches a worker process per shard, which sends its partial over a local socket, and the
+ * second form merges the partial files written by already run workers
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class ShardCoordinator {
+	
+	/**
+	 * Merges the partial aggregates of the shards. The partials are consumed, as their daily amounts are reused
+	 * 
+	 * @param partials the {@link List} of the {@link ShardPartial} objects in any order
+	 * @return the merged {@link ValidatedData}
+	 */
+	public static ValidatedData merge(List<ShardPartial> partials) {
+		
+		ValidatedData validatedData = Parser.createEmptyValidatedData();
+		for (ShardPartial partial : partials) {
+			if (partial != null && partial.getValidatedData() != null)
+				Parser.mergeValidatedData(validatedData, partial.getValidatedData());
+		}
+		
+		return validatedData;
+		
+	}
+	
+	/**
+	 * Reads the partial aggregates of a shard from a file
+	 * 
+	 * @param file the {@link Path} of the file written by {@link ShardWorker#writeTo(ShardPartial, Path)}
+	 * @return the {@link ShardPartial} or null if the file cannot be read
+	 */
+	public static ShardPartial readFrom(Path file) {
+		
+		try (InputStream input = Files.newInputStream(file)) {
+			return read(input);
+		} catch (IOException e) {
+			Printer.print(e.getMessage());
+			return null;
+		}
+		
+	}
+	
+	/**
+	 * Receives the partial aggregates sent by the workers of all the shards to the given server socket. The
+	 * partials are kept in the order of their shards, so that the merged amounts do not depend on the order the
+	 * workers finish
+	 * 
+	 * @param server the {@link ServerSocket} the workers connect to
+	 * @param shardCount the number of all the shards
+	 * @return the {@link List} of the {@link ShardPartial} objects per shard or null if some of them are not
+	 * received
+	 */
+	public static List<ShardPartial> receive(ServerSocket server, int shardCount) {
+		return receive(server, shardCount, Collections.<Process>emptyList());
+	}
+	
+	/**
+	 * Receives the partial aggregates sent by the workers of all the shards to the given server socket, while
+	 * watching the worker processes, so that a worker exiting with an error fails the run at once instead of
+	 * waiting for the accept timeout
+	 * 
+	 * @param server the {@link ServerSocket} the workers connect to
+	 * @param shardCount the number of all the shards
+	 * @param workers the {@link List} of the worker {@link Process} objects
+	 * @return the {@link List} of the {@link ShardPartial} objects per shard or null if some of them are not
+	 * received
+	 */
+	public static List<ShardPartial> receive(ServerSocket server, int shardCount, List<Process> workers) {
+		
+		ShardPartial[] partials = new ShardPartial[shardCount];
+		int received = 0;
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Constants.SHARD_ACCEPT_TIMEOUT_MILLIS);
+		try {
+			server.setSoTimeout(Constants.SHARD_POLL_INTERVAL_MILLIS);
+			while (received < shardCount) {
+				Socket connection;
+				try {
+					connection = server.accept();
+				} catch (SocketTimeoutException e) {
+					if (System.nanoTime() - deadline >= 0)
+						throw e;
+					
+					// A failed worker never sends its partial
+					for (Process worker : workers) {
+						if (!worker.isAlive() && worker.exitValue() != 0) {
+							Printer.print("A shard worker exited with " + worker.exitValue() + " after " + received
+									+ " of " + shardCount + " shard partials");
+							return null;
+						}
+					}
+					continue;
+				}
+				ShardPartial partial = read(connection);
+				
+				// Ignore broken connections, partials of other runs and repeated shards
+				if (partial == null || partial.getShardCount() != shardCount || partial.getShardIndex() < 0
+						|| partial.getShardIndex() >= shardCount || partials[partial.getShardIndex()] != null) {
+					Printer.print("Ignoring an unexpected shard partial");
+					continue;
+				}
+				
+				partials[partial.getShardIndex()] = partial;
+				received++;
+			}
+		} catch (SocketTimeoutException e) {
+			Printer.print("Received " + received + " of " + shardCount + " shard partials");
+			return null;
+		} catch (IOException e) {
+			Printer.print(e.getMessage());
+			return null;
+		}
+		
+		return Arrays.asList(partials);
+		
+	}
+	
+	/**
+	 * Launches a worker process per shard, which parses its shard of an instructions file and sends its partial
+	 * to the given local port. The workers run with the class path and the Java runtime of this process
+	 * 
+	 * @param shardCount the number of all the shards
+	 * @param instructionsFile the {@link Path} of the instructions file
+	 * @param port the local port the coordinator listens to
+	 * @return the {@link List} of the started worker {@link Process} objects
+	 * @throws IOException if a process cannot be started
+	 */
+	public static List<Process> launchWorkers(int shardCount, Path instructionsFile, int port) throws IOException {
+		
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		List<Process> workers = new ArrayList<>();
+		for (int shardIndex = 0; shardIndex < shardCount; shardIndex++) {
+			workers.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+					ShardWorker.class.getName(), String.valueOf(shardIndex), String.valueOf(shardCount),
+					instructionsFile.toString(), String.valueOf(port)).inheritIO().start());
+		}
+		
+		return workers;
+		
+	}
+	
+	/**
+	 * Writes the daily and ranking reports of both buy and sell, followed by the rejected instructions report and
+	 * the moving totals reports, of merged data
+	 * 
+	 * @param validatedData the merged {@link ValidatedData}
+	 * @param reportGenerator the {@link ReportGenerator} of the reports
+	 * @param output the {@link Appendable} the reports are written to
+	 * @throws IOException if the output cannot be written
+	 */
+	public static void writeReports(ValidatedData validatedData, ReportGenerator reportGenerator,
+			Appendable output) throws IOException {
+		
+		for (BuyOrSell buyOrSell : BuyOrSell.values()) {
+			reportGenerator.writeDailyAmountsReport(validatedData.getAmountsPerEpochDay(), buyOrSell, output);
+			output.append('\n');
+		}
+		
+		reportGenerator.writeStatisticsRanking(validatedData.getOutgoingEntityStatistics(), BuyOrSell.BUY,
+				RankingMode.MAXIMUM, validatedData.getOutgoingEntityStatistics().size(), output);
+		output.append('\n');
+		reportGenerator.writeStatisticsRanking(validatedData.getIncomingEntityStatistics(), BuyOrSell.SELL,
+				RankingMode.MAXIMUM, validatedData.getIncomingEntityStatistics().size(), output);
+		output.append('\n');
+		
+		reportGenerator.writeRejectionReport(validatedData.getRejectionSummary(), output);
+		output.append('\n');
+		
+		for (RollingWindowTotals rollingTotals : validatedData.getRollingTotalsPerWindow().values()) {
+			for (BuyOrSell buyOrSell : BuyOrSell.values()) {
+				reportGenerator.writeRollingReport(rollingTotals, buyOrSell, Constants.ROLLING_TOP_ENTITIES, output);
+				output.append('\n');
+			}
+		}
+		
+	}
+	
+	/**
+	 * Runs the workers of an instructions file as local processes, or merges already written partial files, and
+	 * prints the reports of the merged data
+	 * 
+	 * @param args the shard count and the instructions file, or "merge" followed by the partial files
+	 */
+	public static void main(String[] args) {
+		
+		List<ShardPartial> partials = null;
+		if (args.length >= 2 && "merge".equals(args[0])) {
+			partials = new ArrayList<>();
+			for (int file = 1; file < args.length; file++) {
+				partials.add(readFrom(Paths.get(args[file])));
+			}
+		} else if (args.length == 2 && args[0].matches("\\d+") && Integer.parseInt(args[0]) > 0) {
+			partials = runWorkers(Integer.parseInt(args[0]), Paths.get(args[1]));
+		} else {
+			Printer.print("Usage: ShardCoordinator <shard count> <instructions file> | merge <partial file>...");
+		}
+		
+		if (partials == null) {
+			Printer.print(Constants.NOTHING_TO_SHOW);
+			System.exit(1);
+		}
+		
+		try (Writer console = Printer.openConsole()) {
+			writeReports(merge(partials), new ReportGeneratorImpl(), console);
+		} catch (IOException e) {
+			Printer.print(e.getMessage());
+		}
+		
+	}
+	
+	private static List<ShardPartial> runWorkers(int shardCount, Path instructionsFile) {
+		
+		try (ServerSocket server = new ServerSocket(0, shardCount, InetAddress.getLoopbackAddress())) {
+			List<Process> workers = launchWorkers(shardCount, instructionsFile, server.getLocalPort());
+			List<ShardPartial> partials = receive(server, shardCount, workers);
+			
+			// Do not leave any worker behind when some partials are missing
+			for (Process worker : workers) {
+				if (partials == null)
+					worker.destroy();
+				worker.waitFor();
+			}
+			
+			return partials;
+		} catch (IOException e) {
+			Printer.print(e.getMessage());
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		
+	}
+	
+	private static ShardPartial read(Socket socket) {
+		
+		try (Socket connection = socket) {
+			return read(connection.getInputStream());
+		} catch (IOException e) {
+			Printer.print(e.getMessage());
+			return null;
+		}
+		
+	}
+	
+	private static ShardPartial read(InputStream input) throws IOException {
+		
+		try {
+			return (ShardPartial) new PartialInputStream(new BufferedInputStream(input)).readObject();
+		} catch (ClassNotFoundException | ClassCastException e) {
+			Printer.print(e.getMessage());
+			return null;
+		}
+		
+	}
+	
+	/**
+	 * An {@link ObjectInputStream} resolving only the classes of the aggregates, so that a local socket cannot be
+	 * used to deserialize anything else
+	 */
+	private static class PartialInputStream extends ObjectInputStream {
+		
+		PartialInputStream(InputStream input) throws IOException {
+			super(input);
+		}
+		
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass descriptor) throws IOException, ClassNotFoundException {
+			
+			String name = descriptor.getName();
+			if (!name.startsWith(Constants.SHARD_CLASS_PREFIX) && !name.startsWith("java.util.")
+					&& !name.startsWith("java.lang.") && !name.startsWith("[")) {
+				throw new InvalidClassException(name, "Not a class of the partial aggregates");
+			}
+			
+			return super.resolveClass(descriptor);
+			
+		}
+	}
+
+}
@@ -0,0 +1,253 @@
+package com.vasileiou.trade.controllers;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.vasileiou.trade.common.MappedFileFetcher;
+import com.vasileiou.trade.common.MappedFileFetcher.LineFilter;
+import com.vasileiou.trade.common.Printer;
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.ShardPartial;
+import com.vasileiou.trade.models.ValidatedData;
+
+/**
+ * A worker parsing only the instructions of a hash partition of the entities and emitting the partial aggregates
+ * of its shard. The instructions of an entity always belong to the same shard, so the entity statistics of the
+ * shards never overlap and the partials can be merged by {@link ShardCoordinator} in any order. The lines of a file
+ * are assigned to the shards by the hash of their raw entity field, so that a worker decodes only its own lines.
+ * It can be run as a separate process with:
+ * 
+ * <pre>
+ * java com.vasileiou.trade.controllers.ShardWorker &lt;shard index&gt; &lt;shard count&gt; &lt;instructions file&gt;
+ *     &lt;coordinator port | partial file&gt;
+ * </pre>
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class ShardWorker {
+	
+	private final int shardIndex;
+	private final int shardCount;
+	
+	/**
+	 * Creates a worker
+	 * 
+	 * @param shardIndex the index of the shard of the worker, starting from zero
+	 * @param shardCount the number of all the shards
+	 */
+	public ShardWorker(int shardIndex, int shardCount) {
+		this.shardIndex = shardIndex;
+		this.shardCount = shardCount;
+	}
+	
+	/**
+	 * Gives the shard of an entity. It depends only on the characters of the entity, so all the processes agree
+	 * on it, and instructions without an entity belong to the first shard so that they are rejected only once
+	 * 
+	 * @param entity the {@link String} entity
+	 * @param shardCount the number of all the shards
+	 * @return the index of the shard of the entity
+	 */
+	public static int shardOf(String entity, int shardCount) {
+		return shardOfHash(entity == null ? 0 : entity.hashCode(), shardCount);
+	}
+		
+	/**
+	 * Gives a filter of the lines of an instructions file, accepting only the lines of the shard of the worker
+	 * before they are decoded
+	 * 
+	 * @return the {@link LineFilter} of the shard
+	 */
+	public LineFilter lineFilter() {
+		return (codec, buffer, start, end) -> shardOfHash(codec.entityHashCode(buffer, start, end),
+				shardCount) == shardIndex;
+	}
+	
+	/**
+	 * Gives the shard of the hash code of an entity, where a missing entity has the hash code of an empty one,
+	 * which belongs to the first shard
+	 */
+	private static int shardOfHash(int hashCode, int shardCount) {
+		
+		// Spread the hash code, so that similar entities are not kept in the same shard
+		int hash = hashCode * 0x9E3779B9;
+		return Math.floorMod(hash ^ (hash >>> 16), shardCount);
+		
+	}
+	
+	/**
+	 * Parses the instructions of the shard of the worker, skipping all the others, without retaining them
+	 * 
+	 * @param instructions an {@link Iterator} of all the {@link Instruction} objects
+	 * @return the {@link ShardPartial} of the shard, which is empty if none of the instructions belongs to it
+	 */
+	public ShardPartial aggregate(Iterator<Instruction> instructions) {
+		
+		ValidatedData validatedData = instructions == null
+				? null
+				: Parser.parseInstructions(new ShardIterator(instructions), false);
+		
+		return new ShardPartial(shardIndex, shardCount,
+				validatedData == null ? Parser.createEmptyValidatedData() : validatedData);
+		
+	}
+	
+	/**
+	 * Writes the partial aggregates of a shard to a file, which is replaced if it exists
+	 * 
+	 * @param partial the {@link ShardPartial} to be written
+	 * @param file the {@link Path} of the file
+	 * @return true if the partial was written and false otherwise
+	 */
+	public static boolean writeTo(ShardPartial partial, Path file) {
+		
+		try (OutputStream output = Files.newOutputStream(file)) {
+			write(partial, output);
+			return true;
+		} catch (IOException e) {
+			Printer.print(e.getMessage());
+			return false;
+		}
+		
+	}
+	
+	/**
+	 * Sends the partial aggregates of a shard to a coordinator listening on a local port
+	 * 
+	 * @param partial the {@link ShardPartial} to be sent
+	 * @param port the local port of the coordinator
+	 * @return true if the partial was sent and false otherwise
+	 */
+	public static boolean sendTo(ShardPartial partial, int port) {
+		
+		try (Socket socket = new Socket()) {
+			socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+			write(partial, socket.getOutputStream());
+			return true;
+		} catch (IOException e) {
+			Printer.print(e.getMessage());
+			return false;
+		}
+		
+	}
+	
+	private static void write(ShardPartial partial, OutputStream output) throws IOException {
+		
+		ObjectOutputStream objectOutput = new ObjectOutputStream(new BufferedOutputStream(output));
+		objectOutput.writeObject(partial);
+		objectOutput.flush();
+		
+	}
+	
+	public int getShardIndex() {
+		return shardIndex;
+	}
+	
+	public int getShardCount() {
+		return shardCount;
+	}
+	
+	/**
+	 * Runs a worker over an instructions file and emits its partial to a coordinator port or to a file
+	 * 
+	 * @param args the shard index, the shard count, the instructions file and the port or the partial file
+	 */
+	public static void main(String[] args) {
+		
+		if (args.length != 4) {
+			Printer.print("Usage: ShardWorker <shard index> <shard count> <instructions file> "
+					+ "<coordinator port | partial file>");
+			System.exit(1);
+		}
+		
+		int shardIndex;
+		int shardCount;
+		try {
+			shardIndex = Integer.parseInt(args[0]);
+			shardCount = Integer.parseInt(args[1]);
+		} catch (NumberFormatException e) {
+			Printer.print("Invalid shard: " + e.getMessage());
+			System.exit(1);
+			return;
+		}
+		if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+			Printer.print("Invalid shard " + shardIndex + " of " + shardCount);
+			System.exit(1);
+		}
+		
+		// Only the lines of the shard are decoded, while an unreadable file must not give an incomplete partial
+		ShardWorker worker = new ShardWorker(shardIndex, shardCount);
+		ShardPartial partial;
+		try {
+			partial = worker.aggregate(new MappedFileFetcher(Paths.get(args[2]),
+					Runtime.getRuntime().availableProcessors(), worker.lineFilter()).streamInstructionsFromClients());
+		} catch (UncheckedIOException e) {
+			Printer.print("Cannot read the instructions file: " + e.getCause());
+			System.exit(1);
+			return;
+		}
+		
+		// A numeric target is the port of the coordinator and anything else is a file
+		boolean emitted;
+		if (args[3].matches("\\d+")) {
+			emitted = sendTo(partial, Integer.parseInt(args[3]));
+		} else {
+			emitted = writeTo(partial, Paths.get(args[3]));
+		}
+		
+		System.exit(emitted ? 0 : 1);
+		
+	}
+	
+	/**
+	 * An iterator giving only the instructions of the shard of the worker
+	 */
+	private class ShardIterator implements Iterator<Instruction> {
+		
+		private final Iterator<Instruction> instructions;
+		private Instruction next;
+		
+		ShardIterator(Iterator<Instruction> instructions) {
+			this.instructions = instructions;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			
+			while (next == null && instructions.hasNext()) {
+				Instruction instruction = instructions.next();
+				if (shardOf(instruction.getEntity(), shardCount) == shardIndex)
+					next = instruction;
+			}
+			
+			return next != null;
+			
+		}
+		
+		@Override
+		public Instruction next() {
+			
+			if (!hasNext())
+				throw new NoSuchElementException();
+			
+			Instruction instruction = next;
+			next = null;
+			
+			return instruction;
+			
+		}
+	}
+
+}
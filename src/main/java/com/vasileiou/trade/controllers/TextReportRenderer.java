@@ -0,0 +1,208 @@
+package com.vasileiou.trade.controllers;
+
+import java.util.Set;
+
+import com.vasileiou.trade.common.Constants;
+import com.vasileiou.trade.common.InstructionLineCodec;
+import com.vasileiou.trade.common.Utils;
+import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.CubeDimension;
+import com.vasileiou.trade.enums.RankingMode;
+import com.vasileiou.trade.enums.RejectionGroup;
+import com.vasileiou.trade.enums.Status;
+import com.vasileiou.trade.interfaces.ReportRenderer;
+import com.vasileiou.trade.models.Instruction;
+
+/**
+ * A {@link ReportRenderer} implementation for the human readable reports, with "date -> amount$" daily lines and
+ * "rank. entity -> amount$" ranking lines, where the numbers of instructions are given without decimals and
+ * currency. The rejected instructions are given as "key -> count, amount$" lines per group
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class TextReportRenderer implements ReportRenderer {
+	
+	public static final TextReportRenderer INSTANCE = new TextReportRenderer();
+	
+	@Override
+	public void appendMessage(StringBuilder output, String message) {
+		output.append(message);
+	}
+	
+	@Override
+	public void appendDailyHeader(StringBuilder output, BuyOrSell buyOrSell) {
+		
+		output.append(buyOrSell == BuyOrSell.SELL
+								? Constants.DAILY_INCOMING_OUTPUT_HEADER
+								: Constants.DAILY_OUTGOING_OUTPUT_HEADER);
+		output.append(Constants.DAILY_REPORT_HEADERS);
+		
+	}
+	
+	@Override
+	public void appendDailyAmount(StringBuilder output, BuyOrSell buyOrSell, int epochDay, double amount) {
+		
+		Utils.appendEpochDay(output, epochDay).append(" -> ").append(amount).append('$').append('\n');
+		
+	}
+	
+	@Override
+	public void appendRankingHeader(StringBuilder output, BuyOrSell buyOrSell, RankingMode rankingMode) {
+		
+		output.append(buyOrSell == BuyOrSell.SELL
+								? Constants.INCOMING_RANKING_HEADER
+								: Constants.OUTGOING_RANKING_HEADER);
+		output.append(Constants.RANKING_REPORT_HEADERS);
+		
+	}
+	
+	@Override
+	public void appendRank(StringBuilder output, BuyOrSell buyOrSell, RankingMode rankingMode, long rank,
+			String entity, double value) {
+		
+		output.append(rank).append(". ").append(entity).append(" -> ");
+		if (rankingMode == RankingMode.COUNT) {
+			output.append((long) value).append('\n');
+		} else {
+			output.append(value).append('$').append('\n');
+		}
+		
+	}
+
+	@Override
+	public void appendRejectionHeader(StringBuilder output, long rejected) {
+		
+		output.append(Constants.REJECTION_REPORT_HEADER);
+		output.append("\n\nRejected Instructions -> ").append(rejected).append('\n');
+		
+	}
+	
+	@Override
+	public void appendRejectionGroupHeader(StringBuilder output, RejectionGroup rejectionGroup) {
+		
+		if (rejectionGroup == RejectionGroup.SAMPLE) {
+			output.append(Constants.REJECTION_SAMPLES_HEADERS);
+			return;
+		}
+		
+		// Title case of the group, e.g. "Entity"
+		output.append('\n').append(rejectionGroup.name().charAt(0))
+				.append(rejectionGroup.name().substring(1).toLowerCase()).append(Constants.REJECTION_REPORT_HEADERS);
+		
+	}
+	
+	@Override
+	public void appendRejection(StringBuilder output, RejectionGroup rejectionGroup, String key, long count,
+			double amount) {
+		
+		output.append(key).append(" -> ").append(count).append(", ").append(amount).append('$').append('\n');
+		
+	}
+	
+	@Override
+	public void appendRejectionSample(StringBuilder output, Status status, Instruction sample) {
+		
+		output.append(status.name()).append(" -> ");
+		InstructionLineCodec.encode(sample, output);
+		
+	}
+
+	@Override
+	public void appendRollingHeader(StringBuilder output, BuyOrSell buyOrSell, int windowDays) {
+		
+		output.append(Constants.ROLLING_REPORT_HEADER_PREFIX)
+				.append(buyOrSell == BuyOrSell.SELL ? "INCOMING " : "OUTGOING ").append(windowDays)
+				.append(Constants.ROLLING_REPORT_HEADER_SUFFIX);
+		output.append(Constants.ROLLING_REPORT_HEADERS);
+		
+	}
+	
+	@Override
+	public void appendRollingAmount(StringBuilder output, BuyOrSell buyOrSell, int windowDays, int epochDay,
+			double amount) {
+		
+		appendDailyAmount(output, buyOrSell, epochDay, amount);
+		
+	}
+	
+	@Override
+	public void appendRollingEntitiesHeader(StringBuilder output, BuyOrSell buyOrSell, int windowDays,
+			int lastEpochDay) {
+		
+		output.append("\nEntities of the ").append(windowDays).append(" days up to ");
+		Utils.appendEpochDay(output, lastEpochDay).append(Constants.ROLLING_ENTITIES_HEADERS);
+		
+	}
+	
+	@Override
+	public void appendRollingEntity(StringBuilder output, BuyOrSell buyOrSell, int windowDays, int lastEpochDay,
+			long rank, String entity, double amount) {
+		
+		appendRank(output, buyOrSell, RankingMode.TOTAL, rank, entity, amount);
+		
+	}
+
+	@Override
+	public void appendCubeHeader(StringBuilder output, Set<CubeDimension> dimensions) {
+		
+		output.append(Constants.CUBE_REPORT_HEADER_PREFIX);
+		appendDimensions(output, dimensions, false).append(Constants.CUBE_REPORT_HEADER_SUFFIX).append("\n\n");
+		appendDimensions(output, dimensions, true).append(Constants.CUBE_REPORT_HEADERS);
+		
+	}
+	
+	@Override
+	public void appendCubeCell(StringBuilder output, Set<CubeDimension> dimensions, int epochDay,
+			BuyOrSell buyOrSell, String currency, String entity, double total, long count, double maximum) {
+		
+		// The values of the dimensions in their order, or a single "All" when everything is rolled up
+		int length = output.length();
+		if (dimensions.contains(CubeDimension.DATE))
+			Utils.appendEpochDay(output, epochDay).append(", ");
+		if (dimensions.contains(CubeDimension.SIDE))
+			output.append(buyOrSell.name()).append(", ");
+		if (dimensions.contains(CubeDimension.CURRENCY))
+			output.append(currency).append(", ");
+		if (dimensions.contains(CubeDimension.ENTITY))
+			output.append(entity).append(", ");
+		if (output.length() == length) {
+			output.append("All");
+		} else {
+			output.setLength(output.length() - 2);
+		}
+		
+		output.append(" -> ").append(total).append("$, ").append(count).append(", ").append(maximum).append('$')
+				.append('\n');
+		
+	}
+	
+	/**
+	 * Appends the names of some dimensions in their order, separated by commas
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param dimensions the {@link Set} of the {@link CubeDimension} values
+	 * @param titleCase true for title case names, e.g. "Currency", and false for upper case names
+	 * @return the given {@link StringBuilder}
+	 */
+	private static StringBuilder appendDimensions(StringBuilder output, Set<CubeDimension> dimensions,
+			boolean titleCase) {
+		
+		if (dimensions.isEmpty())
+			return output.append(titleCase ? "All" : "ALL");
+		
+		String separator = "";
+		for (CubeDimension dimension : CubeDimension.values()) {
+			if (dimensions.contains(dimension)) {
+				output.append(separator).append(dimension.name().charAt(0)).append(titleCase
+									? dimension.name().substring(1).toLowerCase()
+									: dimension.name().substring(1));
+				separator = ", ";
+			}
+		}
+		
+		return output;
+		
+	}
+
+}
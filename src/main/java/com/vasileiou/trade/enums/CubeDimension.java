@@ -0,0 +1,16 @@
+package com.vasileiou.trade.enums;
+
+/**
+ * The enumeration of the dimensions of the aggregation cube, in the order its cells are sorted
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public enum CubeDimension {
+	
+	DATE,
+	SIDE,
+	CURRENCY,
+	ENTITY;
+
+}
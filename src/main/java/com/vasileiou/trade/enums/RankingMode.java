@@ -0,0 +1,16 @@
+package com.vasileiou.trade.enums;
+
+/**
+ * The enumeration of the amounts an entity ranking is based on
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public enum RankingMode {
+	
+	MAXIMUM,
+	TOTAL,
+	COUNT,
+	AVERAGE;
+
+}
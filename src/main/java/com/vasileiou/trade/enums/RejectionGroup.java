@@ -0,0 +1,16 @@
+package com.vasileiou.trade.enums;
+
+/**
+ * The enumeration of the groups of the rejected instructions report
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public enum RejectionGroup {
+	
+	STATUS,
+	ENTITY,
+	CURRENCY,
+	SAMPLE;
+
+}
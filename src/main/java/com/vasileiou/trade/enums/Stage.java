@@ -0,0 +1,19 @@
+package com.vasileiou.trade.enums;
+
+/**
+ * The enumeration of the measured stages of the reporting pipeline
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public enum Stage {
+	
+	FETCH,
+	PARSE,
+	DAILY_REPORT,
+	RANKING,
+	REJECTION_REPORT,
+	ROLLING_REPORT,
+	CUBE_REPORT;
+
+}
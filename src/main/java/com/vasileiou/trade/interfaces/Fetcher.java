@@ -1,6 +1,7 @@
 package com.vasileiou.trade.interfaces;
 
 import java.util.Calendar;
+import java.util.Iterator;
 import java.util.List;
 
 import com.vasileiou.trade.models.Instruction;
@@ -19,6 +20,16 @@ public interface Fetcher {
 	 * @return a {@link List} of {@link Instruction} objects
 	 */
 	List<Instruction> getInstructionsFromClients();
+	
+	/**
+	 * Retrieves the instructions one by one, so that they can be parsed as they arrive. Implementations reading
+	 * large inputs should override it in order not to materialize all the instructions
+	 * 
+	 * @return an {@link Iterator} of {@link Instruction} objects
+	 */
+	default Iterator<Instruction> streamInstructionsFromClients() {
+		return getInstructionsFromClients().iterator();
+	}
 
 	/**
 	 * Generate random instructions for demonstration purposes
@@ -1,12 +1,22 @@
 package com.vasileiou.trade.interfaces;
 
+import java.io.IOException;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.SortedMap;
 
+import com.vasileiou.trade.common.AggregationCube;
+import com.vasileiou.trade.common.EntityStatistics;
+import com.vasileiou.trade.common.RejectionSummary;
+import com.vasileiou.trade.common.RollingWindowTotals;
 import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.CubeDimension;
+import com.vasileiou.trade.enums.RankingMode;
+import com.vasileiou.trade.models.DailyAmounts;
 import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.InstructionStore;
 
 /**
  * The interface for trading reports generator
@@ -24,6 +34,47 @@ public interface ReportGenerator {
 	 */
 	StringBuilder generateDailyReport(SortedMap<Date, List<Instruction> > existingDates, BuyOrSell buyOrSell);
 	
+	/**
+	 * Generates the daily trading reports for both buy or sell instructions, keyed by settlement epoch day
+	 * 
+	 * @param existingDays the {@link SortedMap} with the sorted epoch days and their lists of instructions
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 */
+	StringBuilder generateEpochDailyReport(SortedMap<Integer, List<Instruction>> existingDays, BuyOrSell buyOrSell);
+	
+	/**
+	 * Writes the daily trading reports for both buy or sell instructions, keyed by settlement epoch day, to the
+	 * given output as the days are walked, so that the whole report is never kept in memory
+	 * 
+	 * @param existingDays the {@link SortedMap} with the sorted epoch days and their lists of instructions
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param output the {@link Appendable} the report is written to
+	 * @throws IOException if the output cannot be written
+	 */
+	void writeEpochDailyReport(SortedMap<Integer, List<Instruction>> existingDays, BuyOrSell buyOrSell,
+			Appendable output) throws IOException;
+	
+	/**
+	 * Generates the daily trading reports for both buy or sell instructions using the already aggregated amounts,
+	 * so that it can be used when the instructions are not retained
+	 * 
+	 * @param amountsPerEpochDay the {@link SortedMap} with the sorted epoch days and their {@link DailyAmounts}
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 */
+	StringBuilder generateDailyAmountsReport(SortedMap<Integer, DailyAmounts> amountsPerEpochDay,
+			BuyOrSell buyOrSell);
+	
+	/**
+	 * Writes the daily trading reports of the already aggregated amounts to the given output
+	 * 
+	 * @param amountsPerEpochDay the {@link SortedMap} with the sorted epoch days and their {@link DailyAmounts}
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param output the {@link Appendable} the report is written to
+	 * @throws IOException if the output cannot be written
+	 */
+	void writeDailyAmountsReport(SortedMap<Integer, DailyAmounts> amountsPerEpochDay, BuyOrSell buyOrSell,
+			Appendable output) throws IOException;
+	
 	/**
 	 * Generates the ranking trading reports for both buy or sell instructions
 	 * 
@@ -32,4 +83,147 @@ public interface ReportGenerator {
 	 */
 	StringBuilder generateRanking(HashMap<String, Double> maximumAmounts, BuyOrSell buyOrSell);
 
+	/**
+	 * Generates the ranking trading reports for both buy or sell instructions, keeping only the top entities.
+	 * Entities with equal amounts are ranked by their name
+	 * 
+	 * @param maximumAmounts the {@link HashMap} of entity and maximum amount pairs
+	 * @param buyOrSell buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param topK the maximum number of ranked entities
+	 */
+	StringBuilder generateRanking(HashMap<String, Double> maximumAmounts, BuyOrSell buyOrSell, int topK);
+	
+	/**
+	 * Writes the ranking trading reports, keeping only the top entities, to the given output
+	 * 
+	 * @param maximumAmounts the {@link HashMap} of entity and maximum amount pairs
+	 * @param buyOrSell buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param topK the maximum number of ranked entities
+	 * @param output the {@link Appendable} the report is written to
+	 * @throws IOException if the output cannot be written
+	 */
+	void writeRanking(HashMap<String, Double> maximumAmounts, BuyOrSell buyOrSell, int topK, Appendable output)
+			throws IOException;
+	
+	/**
+	 * Generates the ranking trading reports for both buy or sell instructions, based on the maximum, total,
+	 * average amount or the number of instructions per entity, keeping only the top entities
+	 * 
+	 * @param entityStatistics the {@link EntityStatistics} of buy or sell respectively
+	 * @param buyOrSell buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param rankingMode the {@link RankingMode} defining the amount the ranking is based on
+	 * @param topK the maximum number of ranked entities
+	 */
+	StringBuilder generateStatisticsRanking(EntityStatistics entityStatistics, BuyOrSell buyOrSell,
+			RankingMode rankingMode, int topK);
+	
+	/**
+	 * Writes the ranking trading reports based on the {@link EntityStatistics} to the given output
+	 * 
+	 * @param entityStatistics the {@link EntityStatistics} of buy or sell respectively
+	 * @param buyOrSell buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param rankingMode the {@link RankingMode} defining the amount the ranking is based on
+	 * @param topK the maximum number of ranked entities
+	 * @param output the {@link Appendable} the report is written to
+	 * @throws IOException if the output cannot be written
+	 */
+	void writeStatisticsRanking(EntityStatistics entityStatistics, BuyOrSell buyOrSell, RankingMode rankingMode,
+			int topK, Appendable output) throws IOException;
+	
+	/**
+	 * Generates the daily trading reports directly from the columns of an already parsed {@link InstructionStore}
+	 * 
+	 * @param store the {@link InstructionStore} parsed by the parser
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 */
+	StringBuilder generateDailyReportFromStore(InstructionStore store, BuyOrSell buyOrSell);
+	
+	/**
+	 * Writes the daily trading reports of an already parsed {@link InstructionStore} to the given output
+	 * 
+	 * @param store the {@link InstructionStore} parsed by the parser
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param output the {@link Appendable} the report is written to
+	 * @throws IOException if the output cannot be written
+	 */
+	void writeDailyReportFromStore(InstructionStore store, BuyOrSell buyOrSell, Appendable output)
+			throws IOException;
+	
+	/**
+	 * Generates the ranking trading reports directly from the columns of an already parsed {@link InstructionStore}
+	 * 
+	 * @param store the {@link InstructionStore} parsed by the parser
+	 * @param buyOrSell buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 */
+	StringBuilder generateRankingFromStore(InstructionStore store, BuyOrSell buyOrSell);
+
+	/**
+	 * Writes the ranking trading reports of an already parsed {@link InstructionStore} to the given output
+	 * 
+	 * @param store the {@link InstructionStore} parsed by the parser
+	 * @param buyOrSell buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param output the {@link Appendable} the report is written to
+	 * @throws IOException if the output cannot be written
+	 */
+	void writeRankingFromStore(InstructionStore store, BuyOrSell buyOrSell, Appendable output) throws IOException;
+
+	/**
+	 * Generates the report of the rejected instructions, with the number and the amount of the rejected
+	 * instructions per status, per entity and per currency, followed by the sample instructions of every status
+	 * 
+	 * @param rejectionSummary the {@link RejectionSummary} collected by the parser
+	 */
+	StringBuilder generateRejectionReport(RejectionSummary rejectionSummary);
+	
+	/**
+	 * Writes the report of the rejected instructions to the given output
+	 * 
+	 * @param rejectionSummary the {@link RejectionSummary} collected by the parser
+	 * @param output the {@link Appendable} the report is written to
+	 * @throws IOException if the output cannot be written
+	 */
+	void writeRejectionReport(RejectionSummary rejectionSummary, Appendable output) throws IOException;
+
+	/**
+	 * Generates the moving totals report of buy or sell instructions, with the total of the window ending at every
+	 * settlement day, followed by the ranking of the entities by their total over the latest window
+	 * 
+	 * @param rollingTotals the {@link RollingWindowTotals} updated with the instructions
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param topK the maximum number of ranked entities
+	 */
+	StringBuilder generateRollingReport(RollingWindowTotals rollingTotals, BuyOrSell buyOrSell, int topK);
+	
+	/**
+	 * Writes the moving totals report of buy or sell instructions to the given output
+	 * 
+	 * @param rollingTotals the {@link RollingWindowTotals} updated with the instructions
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param topK the maximum number of ranked entities
+	 * @param output the {@link Appendable} the report is written to
+	 * @throws IOException if the output cannot be written
+	 */
+	void writeRollingReport(RollingWindowTotals rollingTotals, BuyOrSell buyOrSell, int topK, Appendable output)
+			throws IOException;
+
+	/**
+	 * Generates the report of a rollup of the aggregation cube, with the total, count and maximum amount of every
+	 * combination of the given dimensions, such as the daily totals per currency
+	 * 
+	 * @param aggregationCube the {@link AggregationCube} filled by the parser
+	 * @param dimensions the {@link Set} of the {@link CubeDimension} values kept, while the rest are rolled up
+	 */
+	StringBuilder generateCubeReport(AggregationCube aggregationCube, Set<CubeDimension> dimensions);
+	
+	/**
+	 * Writes the report of a rollup of the aggregation cube to the given output
+	 * 
+	 * @param aggregationCube the {@link AggregationCube} filled by the parser
+	 * @param dimensions the {@link Set} of the {@link CubeDimension} values kept, while the rest are rolled up
+	 * @param output the {@link Appendable} the report is written to
+	 * @throws IOException if the output cannot be written
+	 */
+	void writeCubeReport(AggregationCube aggregationCube, Set<CubeDimension> dimensions, Appendable output)
+			throws IOException;
+
 }
@@ -0,0 +1,174 @@
+package com.vasileiou.trade.interfaces;
+
+import java.util.Set;
+
+import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.CubeDimension;
+import com.vasileiou.trade.enums.RankingMode;
+import com.vasileiou.trade.enums.RejectionGroup;
+import com.vasileiou.trade.enums.Status;
+import com.vasileiou.trade.models.Instruction;
+
+/**
+ * The interface for rendering the lines of the trading reports in a specific output format. The values are
+ * appended straight to the given {@link StringBuilder}, so that no intermediate strings are created per line
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public interface ReportRenderer {
+	
+	/**
+	 * Renders a message given instead of a report, e.g. when there are no instructions
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param message the message {@link String}
+	 */
+	void appendMessage(StringBuilder output, String message);
+	
+	/**
+	 * Renders the headers of a daily report
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 */
+	void appendDailyHeader(StringBuilder output, BuyOrSell buyOrSell);
+	
+	/**
+	 * Renders a line of a daily report
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param epochDay the settlement epoch day of the line
+	 * @param amount the total amount of the day
+	 */
+	void appendDailyAmount(StringBuilder output, BuyOrSell buyOrSell, int epochDay, double amount);
+	
+	/**
+	 * Renders the headers of a ranking report
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param rankingMode the {@link RankingMode} the ranking is based on
+	 */
+	void appendRankingHeader(StringBuilder output, BuyOrSell buyOrSell, RankingMode rankingMode);
+	
+	/**
+	 * Renders a line of a ranking report
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param rankingMode the {@link RankingMode} the ranking is based on
+	 * @param rank the rank of the entity, starting from one
+	 * @param entity the entity
+	 * @param value the value of the entity the ranking is based on
+	 */
+	void appendRank(StringBuilder output, BuyOrSell buyOrSell, RankingMode rankingMode, long rank, String entity,
+			double value);
+
+	/**
+	 * Renders the headers of a rejected instructions report
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param rejected the number of all the rejected instructions
+	 */
+	void appendRejectionHeader(StringBuilder output, long rejected);
+	
+	/**
+	 * Renders the headers of a group of a rejected instructions report
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param rejectionGroup the {@link RejectionGroup} of the following lines
+	 */
+	void appendRejectionGroupHeader(StringBuilder output, RejectionGroup rejectionGroup);
+	
+	/**
+	 * Renders a line of a rejected instructions report with the rejections of a status, an entity or a currency
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param rejectionGroup the {@link RejectionGroup} of the line
+	 * @param key the status, the entity or the currency
+	 * @param count the number of the rejected instructions
+	 * @param amount the amount of the rejected instructions
+	 */
+	void appendRejection(StringBuilder output, RejectionGroup rejectionGroup, String key, long count,
+			double amount);
+	
+	/**
+	 * Renders a sample rejected instruction in the line based file format
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param status the {@link Status} of the instruction
+	 * @param sample the rejected {@link Instruction}
+	 */
+	void appendRejectionSample(StringBuilder output, Status status, Instruction sample);
+
+	/**
+	 * Renders the headers of a moving totals report
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param windowDays the number of days of the moving window
+	 */
+	void appendRollingHeader(StringBuilder output, BuyOrSell buyOrSell, int windowDays);
+	
+	/**
+	 * Renders a line of a moving totals report with the total of the window ending at a day
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param windowDays the number of days of the moving window
+	 * @param epochDay the last epoch day of the window
+	 * @param amount the total amount of the window
+	 */
+	void appendRollingAmount(StringBuilder output, BuyOrSell buyOrSell, int windowDays, int epochDay, double amount);
+	
+	/**
+	 * Renders the headers of the entity ranking of a moving totals report
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param windowDays the number of days of the moving window
+	 * @param lastEpochDay the last epoch day of the window of the entity totals
+	 */
+	void appendRollingEntitiesHeader(StringBuilder output, BuyOrSell buyOrSell, int windowDays, int lastEpochDay);
+	
+	/**
+	 * Renders a line of the entity ranking of a moving totals report
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param buyOrSell the {@link BuyOrSell} object defining the type of instruction
+	 * @param windowDays the number of days of the moving window
+	 * @param lastEpochDay the last epoch day of the window of the entity totals
+	 * @param rank the rank of the entity, starting from one
+	 * @param entity the entity
+	 * @param amount the total amount of the entity within the window
+	 */
+	void appendRollingEntity(StringBuilder output, BuyOrSell buyOrSell, int windowDays, int lastEpochDay, long rank,
+			String entity, double amount);
+
+	/**
+	 * Renders the headers of an aggregation cube report
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param dimensions the {@link Set} of the {@link CubeDimension} values of the report
+	 */
+	void appendCubeHeader(StringBuilder output, Set<CubeDimension> dimensions);
+	
+	/**
+	 * Renders a line of an aggregation cube report with the aggregates of a cell
+	 * 
+	 * @param output the {@link StringBuilder} of the report
+	 * @param dimensions the {@link Set} of the {@link CubeDimension} values of the report
+	 * @param epochDay the settlement epoch day of the cell, if the date is one of the dimensions
+	 * @param buyOrSell the {@link BuyOrSell} side of the cell, if the side is one of the dimensions
+	 * @param currency the currency of the cell, if the currency is one of the dimensions
+	 * @param entity the entity of the cell, if the entity is one of the dimensions
+	 * @param total the total amount of the cell
+	 * @param count the number of instructions of the cell
+	 * @param maximum the maximum amount of the cell
+	 */
+	void appendCubeCell(StringBuilder output, Set<CubeDimension> dimensions, int epochDay, BuyOrSell buyOrSell,
+			String currency, String entity, double total, long count, double maximum);
+
+}
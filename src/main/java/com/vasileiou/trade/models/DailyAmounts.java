@@ -0,0 +1,60 @@
+package com.vasileiou.trade.models;
+
+import java.io.Serializable;
+
+import com.vasileiou.trade.common.FixedPointAmounts;
+
+/**
+ * The POJO representation of the total amounts settled in a single date. The totals are kept as fixed-point
+ * amounts of the default {@link FixedPointAmounts}, so that they are exact whatever the order they were added in
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class DailyAmounts implements Serializable {
+	
+	private static final long serialVersionUID = 6120951493586147212L;
+	
+	// Holds the scaled total amount of outgoing (buy) instructions
+	private long scaledOutgoingAmount;
+	
+	// Holds the scaled total amount of incoming (sell) instructions
+	private long scaledIncomingAmount;
+	
+	public DailyAmounts() {
+		super();
+	}
+	
+	public double getOutgoingAmount() {
+		return FixedPointAmounts.getDefault().toAmount(scaledOutgoingAmount);
+	}
+	
+	public void setOutgoingAmount(double outgoingAmount) {
+		this.scaledOutgoingAmount = FixedPointAmounts.getDefault().toScaled(outgoingAmount);
+	}
+	
+	public double getIncomingAmount() {
+		return FixedPointAmounts.getDefault().toAmount(scaledIncomingAmount);
+	}
+	
+	public void setIncomingAmount(double incomingAmount) {
+		this.scaledIncomingAmount = FixedPointAmounts.getDefault().toScaled(incomingAmount);
+	}
+	
+	public long getScaledOutgoingAmount() {
+		return scaledOutgoingAmount;
+	}
+	
+	public void setScaledOutgoingAmount(long scaledOutgoingAmount) {
+		this.scaledOutgoingAmount = scaledOutgoingAmount;
+	}
+	
+	public long getScaledIncomingAmount() {
+		return scaledIncomingAmount;
+	}
+	
+	public void setScaledIncomingAmount(long scaledIncomingAmount) {
+		this.scaledIncomingAmount = scaledIncomingAmount;
+	}
+
+}
@@ -3,6 +3,9 @@ package com.vasileiou.trade.models;
 import java.io.Serializable;
 import java.util.Date;
 
+import com.vasileiou.trade.common.Constants;
+import com.vasileiou.trade.common.SymbolDictionary;
+import com.vasileiou.trade.common.Utils;
 import com.vasileiou.trade.enums.BuyOrSell;
 import com.vasileiou.trade.enums.Status;
 
@@ -14,7 +17,7 @@ import com.vasileiou.trade.enums.Status;
  */
 public class Instruction implements Serializable {
 
-	private static final long serialVersionUID = -796910202953940564L;
+	private static final long serialVersionUID = -8544112207565578183L;
 	
 	// Mandatory Input Fields
 	private String entity;
@@ -29,11 +32,16 @@ public class Instruction implements Serializable {
 	// Generated Fields
 	private Double amountOfTrade;
 	private BuyOrSell buyOrSell;
-	private Date formattedInstructionDate;
-	private Date formattedSettlementDate;
-	private Date initialFormattedSettlementDate;
+	private int instructionEpochDay = Constants.MISSING_EPOCH_DAY;
+	private int settlementEpochDay = Constants.MISSING_EPOCH_DAY;
+	private int initialSettlementEpochDay = Constants.MISSING_EPOCH_DAY;
 	private Status status;
 	
+	// Identifiers of the entity and currency in the shared dictionaries increased by one, where zero means that
+	// they are not resolved yet, so that they are resolved again after deserialization
+	private transient int entityKey;
+	private transient int currencyKey;
+	
 	public Instruction() {
 		super();
 	}
@@ -59,6 +67,21 @@ public class Instruction implements Serializable {
 	
 	public void setEntity(String entity) {
 		this.entity = entity;
+		this.entityKey = 0;
+	}
+	
+	/**
+	 * Gives the identifier of the entity in the shared entities dictionary, registering it on first use
+	 * 
+	 * @return the entity identifier or {@link SymbolDictionary#MISSING_ID} if the entity is missing
+	 */
+	public int getEntityId() {
+		
+		if (entityKey == 0)
+			entityKey = SymbolDictionary.getSharedEntities().encode(entity) + 1;
+		
+		return entityKey - 1;
+		
 	}
 	
 	public String getBuyOrSellStringFlag() {
@@ -91,6 +114,21 @@ public class Instruction implements Serializable {
 	
 	public void setCurrency(String currency) {
 		this.currency = currency;
+		this.currencyKey = 0;
+	}
+	
+	/**
+	 * Gives the identifier of the currency in the shared currencies dictionary, registering it on first use
+	 * 
+	 * @return the currency identifier or {@link SymbolDictionary#MISSING_ID} if the currency is missing
+	 */
+	public int getCurrencyId() {
+		
+		if (currencyKey == 0)
+			currencyKey = SymbolDictionary.getSharedCurrencies().encode(currency) + 1;
+		
+		return currencyKey - 1;
+		
 	}
 	
 	public String getInstructionDate() {
@@ -133,28 +171,54 @@ public class Instruction implements Serializable {
 		this.amountOfTrade = amountOfTrade;
 	}
 
+	public int getInstructionEpochDay() {
+		return instructionEpochDay;
+	}
+	
+	public void setInstructionEpochDay(int instructionEpochDay) {
+		this.instructionEpochDay = instructionEpochDay;
+	}
+	
+	public int getSettlementEpochDay() {
+		return settlementEpochDay;
+	}
+	
+	public void setSettlementEpochDay(int settlementEpochDay) {
+		this.settlementEpochDay = settlementEpochDay;
+	}
+	
+	public int getInitialSettlementEpochDay() {
+		return initialSettlementEpochDay;
+	}
+	
+	public void setInitialSettlementEpochDay(int initialSettlementEpochDay) {
+		this.initialSettlementEpochDay = initialSettlementEpochDay;
+	}
+	
+	// Date accessors of the epoch days, kept for the callers of the Date based API
+	
 	public Date getFormattedInstructionDate() {
-		return formattedInstructionDate;
+		return toDate(instructionEpochDay);
 	}
 
 	public void setFormattedInstructionDate(Date formattedInstructionDate) {
-		this.formattedInstructionDate = formattedInstructionDate;
+		this.instructionEpochDay = toEpochDay(formattedInstructionDate);
 	}
 
 	public Date getFormattedSettlementDate() {
-		return formattedSettlementDate;
+		return toDate(settlementEpochDay);
 	}
 
 	public void setFormattedSettlementDate(Date formattedSettlementDate) {
-		this.formattedSettlementDate = formattedSettlementDate;
+		this.settlementEpochDay = toEpochDay(formattedSettlementDate);
 	}
 
 	public Date getInitialFormattedSettlementDate() {
-		return initialFormattedSettlementDate;
+		return toDate(initialSettlementEpochDay);
 	}
 
 	public void setInitialFormattedSettlementDate(Date initialFormattedSettlementDate) {
-		this.initialFormattedSettlementDate = initialFormattedSettlementDate;
+		this.initialSettlementEpochDay = toEpochDay(initialFormattedSettlementDate);
 	}
 
 	public Status getStatus() {
@@ -165,4 +229,14 @@ public class Instruction implements Serializable {
 		this.status = status;
 	}
 
+	private static Date toDate(int epochDay) {
+		return epochDay == Constants.MISSING_EPOCH_DAY || epochDay == Constants.INVALID_EPOCH_DAY
+				? null
+				: Utils.toDate(epochDay);
+	}
+	
+	private static int toEpochDay(Date date) {
+		return date == null ? Constants.MISSING_EPOCH_DAY : Utils.toEpochDay(date);
+	}
+
 }
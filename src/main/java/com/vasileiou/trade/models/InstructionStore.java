@@ -0,0 +1,396 @@
+package com.vasileiou.trade.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.vasileiou.trade.common.Constants;
+import com.vasileiou.trade.common.FixedPointAmounts;
+import com.vasileiou.trade.common.SymbolDictionary;
+import com.vasileiou.trade.common.Utils;
+import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.Status;
+
+/**
+ * The columnar representation of instructions. Every field is kept in its own primitive array, where the row
+ * index identifies the instruction, so that parsing and reporting scan compact arrays instead of following
+ * references to {@link Instruction} objects. Missing input fields are stored with sentinel values
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class InstructionStore {
+	
+	// Buy or sell column values
+	public static final byte SIDE_MISSING = 0;
+	public static final byte SIDE_BUY = 1;
+	public static final byte SIDE_SELL = 2;
+	public static final byte SIDE_INVALID = 3;
+	
+	// Date column sentinels for missing and wrongly formatted dates
+	public static final int MISSING_DAY = Constants.MISSING_EPOCH_DAY;
+	public static final int INVALID_DAY = Constants.INVALID_EPOCH_DAY;
+	
+	// Units column sentinel for missing units, where missing prices and foreign exchange rates are NaN
+	public static final long MISSING_UNITS = Long.MIN_VALUE;
+	
+	// Status column value for not yet parsed instructions
+	public static final byte NOT_PARSED = -1;
+	
+	private static final int DEFAULT_CAPACITY = 1024;
+	
+	private static final Status[] STATUSES = Status.values();
+	
+	private final SymbolDictionary entities;
+	private final SymbolDictionary currencies;
+	
+	// Input columns
+	private int[] entityIds;
+	private byte[] sides;
+	private int[] currencyIds;
+	private int[] instructionDays;
+	private int[] settlementDays;
+	private long[] units;
+	private double[] pricesPerUnit;
+	private double[] agreedFxs;
+	
+	// Generated columns
+	private int[] initialSettlementDays;
+	private double[] amountsOfTrade;
+	private long[] scaledAmounts;
+	private byte[] statuses;
+	
+	private int size;
+	
+	public InstructionStore() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	public InstructionStore(int initialCapacity) {
+		this(initialCapacity, SymbolDictionary.getSharedEntities(), SymbolDictionary.getSharedCurrencies());
+	}
+	
+	public InstructionStore(int initialCapacity, SymbolDictionary entities, SymbolDictionary currencies) {
+		
+		int capacity = Math.max(initialCapacity, 1);
+		
+		this.entities = entities;
+		this.currencies = currencies;
+		this.entityIds = new int[capacity];
+		this.sides = new byte[capacity];
+		this.currencyIds = new int[capacity];
+		this.instructionDays = new int[capacity];
+		this.settlementDays = new int[capacity];
+		this.units = new long[capacity];
+		this.pricesPerUnit = new double[capacity];
+		this.agreedFxs = new double[capacity];
+		this.initialSettlementDays = new int[capacity];
+		this.amountsOfTrade = new double[capacity];
+		this.scaledAmounts = new long[capacity];
+		this.statuses = new byte[capacity];
+	}
+	
+	/**
+	 * Creates a store with the given instructions
+	 * 
+	 * @param instructions the {@link List} of {@link Instruction} objects
+	 * @return the {@link InstructionStore} holding the instructions
+	 */
+	public static InstructionStore of(List<Instruction> instructions) {
+		
+		InstructionStore store = new InstructionStore(instructions.size());
+		for (Instruction instruction : instructions) {
+			store.add(instruction);
+		}
+		
+		return store;
+		
+	}
+	
+	/**
+	 * Appends the input fields of an {@link Instruction} as a new row
+	 * 
+	 * @param instruction the {@link Instruction} to be added
+	 * @return the row of the added instruction
+	 */
+	public int add(Instruction instruction) {
+		
+		// Reuse the identifiers already resolved by the instruction when the dictionaries are the shared ones
+		int entityId = entities == SymbolDictionary.getSharedEntities()
+							? instruction.getEntityId()
+							: entities.encode(instruction.getEntity());
+		int currencyId = currencies == SymbolDictionary.getSharedCurrencies()
+							? instruction.getCurrencyId()
+							: currencies.encode(instruction.getCurrency());
+		
+		return add(entityId, encodeSide(instruction.getBuyOrSellStringFlag()), currencyId,
+				encodeDay(instruction.getInstructionDate()),
+				encodeDay(instruction.getSettlementDate()),
+				instruction.getUnits() == null ? MISSING_UNITS : instruction.getUnits(),
+				instruction.getPricePerUnit() == null ? Double.NaN : instruction.getPricePerUnit(),
+				instruction.getAgreedFx() == null ? Double.NaN : instruction.getAgreedFx());
+		
+	}
+	
+	/**
+	 * Appends an already encoded instruction as a new row
+	 * 
+	 * @param entityId the dictionary identifier of the entity
+	 * @param side the buy or sell column value
+	 * @param currencyId the dictionary identifier of the currency
+	 * @param instructionDay the epoch day of the instruction date
+	 * @param settlementDay the epoch day of the settlement date
+	 * @param unitsValue the number of units
+	 * @param pricePerUnit the price per unit
+	 * @param agreedFx the agreed foreign exchange rate
+	 * @return the row of the added instruction
+	 */
+	public int add(int entityId, byte side, int currencyId, int instructionDay, int settlementDay, long unitsValue,
+			double pricePerUnit, double agreedFx) {
+		
+		if (size == entityIds.length)
+			grow();
+		
+		int row = size++;
+		entityIds[row] = entityId;
+		sides[row] = side;
+		currencyIds[row] = currencyId;
+		instructionDays[row] = instructionDay;
+		settlementDays[row] = settlementDay;
+		units[row] = unitsValue;
+		pricesPerUnit[row] = pricePerUnit;
+		agreedFxs[row] = agreedFx;
+		initialSettlementDays[row] = MISSING_DAY;
+		amountsOfTrade[row] = Double.NaN;
+		scaledAmounts[row] = 0;
+		statuses[row] = NOT_PARSED;
+		
+		return row;
+		
+	}
+	
+	/**
+	 * Gives an {@link Instruction} view of a row for compatibility with the object based API. Wrongly formatted
+	 * input dates and invalid buy or sell flags cannot be restored, so they are given as "?"
+	 * 
+	 * @param row the row of the instruction
+	 * @return a new {@link Instruction} object with the fields of the row
+	 */
+	public Instruction getInstruction(int row) {
+		
+		Instruction instruction = new Instruction(entities.decode(entityIds[row]), decodeSide(sides[row]),
+				Double.isNaN(agreedFxs[row]) ? null : agreedFxs[row], currencies.decode(currencyIds[row]),
+				decodeDay(instructionDays[row]), decodeDay(initialSettlementDays[row] != MISSING_DAY
+																? initialSettlementDays[row]
+																: settlementDays[row]),
+				units[row] == MISSING_UNITS ? null : units[row],
+				Double.isNaN(pricesPerUnit[row]) ? null : pricesPerUnit[row]);
+		
+		// Copy the generated fields only if the row is already parsed
+		if (statuses[row] != NOT_PARSED) {
+			instruction.setStatus(STATUSES[statuses[row]]);
+			if (statuses[row] != Status.MISSING_PROPERTY.ordinal()) {
+				instruction.setBuyOrSell(sides[row] == SIDE_BUY ? BuyOrSell.BUY : BuyOrSell.SELL);
+				instruction.setAmountOfTrade(amountsOfTrade[row]);
+				instruction.setInstructionEpochDay(instructionDays[row]);
+				instruction.setSettlementEpochDay(settlementDays[row]);
+				instruction.setInitialSettlementEpochDay(initialSettlementDays[row]);
+			}
+		}
+		
+		return instruction;
+		
+	}
+	
+	/**
+	 * Gives {@link Instruction} views of all the rows
+	 * 
+	 * @return a {@link List} of new {@link Instruction} objects
+	 */
+	public List<Instruction> toInstructions() {
+		
+		List<Instruction> instructions = new ArrayList<>(size);
+		for (int row = 0; row < size; row++) {
+			instructions.add(getInstruction(row));
+		}
+		
+		return instructions;
+		
+	}
+	
+	/**
+	 * Encodes the buy or sell input flag to the column value
+	 * 
+	 * @param buyOrSellStringFlag the input flag
+	 * @return the buy or sell column value
+	 */
+	public static byte encodeSide(String buyOrSellStringFlag) {
+		
+		if (buyOrSellStringFlag == null)
+			return SIDE_MISSING;
+		if (buyOrSellStringFlag.equalsIgnoreCase(Constants.INPUT_BUY_FLAG))
+			return SIDE_BUY;
+		if (buyOrSellStringFlag.equalsIgnoreCase(Constants.INPUT_SELL_FLAG))
+			return SIDE_SELL;
+		
+		return SIDE_INVALID;
+		
+	}
+	
+	/**
+	 * Encodes an input date to the epoch day column value
+	 * 
+	 * @param date the input date {@link String}
+	 * @return the epoch day or one of {@link #MISSING_DAY} and {@link #INVALID_DAY}
+	 */
+	public static int encodeDay(String date) {
+		
+		return date == null ? MISSING_DAY : Utils.parseEpochDay(date);
+		
+	}
+	
+	/**
+	 * Decodes the buy or sell column value to an input flag
+	 * 
+	 * @param side the buy or sell column value
+	 * @return the input flag, or "?" for an invalid flag
+	 */
+	public static String decodeSide(byte side) {
+		
+		switch (side) {
+		case SIDE_BUY:
+			return Constants.INPUT_BUY_FLAG;
+		case SIDE_SELL:
+			return Constants.INPUT_SELL_FLAG;
+		case SIDE_INVALID:
+			return "?";
+		default:
+			return null;
+		}
+		
+	}
+	
+	/**
+	 * Decodes the epoch day column value to an input date
+	 * 
+	 * @param epochDay the epoch day column value
+	 * @return the input date {@link String}, or "?" for a wrongly formatted date
+	 */
+	public static String decodeDay(int epochDay) {
+		
+		if (epochDay == MISSING_DAY)
+			return null;
+		if (epochDay == INVALID_DAY)
+			return "?";
+		
+		return Utils.formatEpochDay(epochDay);
+		
+	}
+	
+	private void grow() {
+		
+		int capacity = entityIds.length * 2;
+		
+		entityIds = Arrays.copyOf(entityIds, capacity);
+		sides = Arrays.copyOf(sides, capacity);
+		currencyIds = Arrays.copyOf(currencyIds, capacity);
+		instructionDays = Arrays.copyOf(instructionDays, capacity);
+		settlementDays = Arrays.copyOf(settlementDays, capacity);
+		units = Arrays.copyOf(units, capacity);
+		pricesPerUnit = Arrays.copyOf(pricesPerUnit, capacity);
+		agreedFxs = Arrays.copyOf(agreedFxs, capacity);
+		initialSettlementDays = Arrays.copyOf(initialSettlementDays, capacity);
+		amountsOfTrade = Arrays.copyOf(amountsOfTrade, capacity);
+		scaledAmounts = Arrays.copyOf(scaledAmounts, capacity);
+		statuses = Arrays.copyOf(statuses, capacity);
+		
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public SymbolDictionary getEntities() {
+		return entities;
+	}
+	
+	public SymbolDictionary getCurrencies() {
+		return currencies;
+	}
+	
+	public int getEntityId(int row) {
+		return entityIds[row];
+	}
+	
+	public byte getSide(int row) {
+		return sides[row];
+	}
+	
+	public int getCurrencyId(int row) {
+		return currencyIds[row];
+	}
+	
+	public int getInstructionDay(int row) {
+		return instructionDays[row];
+	}
+	
+	public int getSettlementDay(int row) {
+		return settlementDays[row];
+	}
+	
+	public void setSettlementDay(int row, int settlementDay) {
+		settlementDays[row] = settlementDay;
+	}
+	
+	public long getUnits(int row) {
+		return units[row];
+	}
+	
+	public double getPricePerUnit(int row) {
+		return pricesPerUnit[row];
+	}
+	
+	public double getAgreedFx(int row) {
+		return agreedFxs[row];
+	}
+	
+	public int getInitialSettlementDay(int row) {
+		return initialSettlementDays[row];
+	}
+	
+	public void setInitialSettlementDay(int row, int initialSettlementDay) {
+		initialSettlementDays[row] = initialSettlementDay;
+	}
+	
+	public double getAmountOfTrade(int row) {
+		return amountsOfTrade[row];
+	}
+	
+	public void setAmountOfTrade(int row, double amountOfTrade) {
+		amountsOfTrade[row] = amountOfTrade;
+	}
+	
+	/**
+	 * Calculates the fixed-point amounts of a chunk of rows from the input columns in a single batch
+	 * 
+	 * @param amounts the {@link FixedPointAmounts} arithmetic
+	 * @param from the first row of the chunk, inclusive
+	 * @param to the last row of the chunk, exclusive
+	 */
+	public void computeScaledAmounts(FixedPointAmounts amounts, int from, int to) {
+		amounts.computeAmounts(pricesPerUnit, units, agreedFxs, scaledAmounts, from, to);
+	}
+	
+	public long getScaledAmount(int row) {
+		return scaledAmounts[row];
+	}
+	
+	public byte getStatus(int row) {
+		return statuses[row];
+	}
+	
+	public void setStatus(int row, Status status) {
+		statuses[row] = (byte) status.ordinal();
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.vasileiou.trade.models;
+
+import java.io.Serializable;
+
+/**
+ * The POJO representation of the partial aggregates of a shard, i.e. of the instructions of a hash partition of
+ * the entities, as sent by a shard worker to the coordinator
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class ShardPartial implements Serializable {
+	
+	private static final long serialVersionUID = -5321702640906383571L;
+	
+	int shardIndex;
+	int shardCount;
+	
+	// Holds the daily amounts, the entity statistics and the rejections of the shard, without the instructions
+	ValidatedData validatedData;
+	
+	public ShardPartial() {
+		super();
+	}
+	
+	public ShardPartial(int shardIndex, int shardCount, ValidatedData validatedData) {
+		
+		this();
+		
+		this.shardIndex = shardIndex;
+		this.shardCount = shardCount;
+		this.validatedData = validatedData;
+	}
+	
+	public int getShardIndex() {
+		return shardIndex;
+	}
+	
+	public void setShardIndex(int shardIndex) {
+		this.shardIndex = shardIndex;
+	}
+	
+	public int getShardCount() {
+		return shardCount;
+	}
+	
+	public void setShardCount(int shardCount) {
+		this.shardCount = shardCount;
+	}
+	
+	public ValidatedData getValidatedData() {
+		return validatedData;
+	}
+	
+	public void setValidatedData(ValidatedData validatedData) {
+		this.validatedData = validatedData;
+	}
+
+}
@@ -4,7 +4,18 @@ import java.io.Serializable;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.vasileiou.trade.common.AggregationCube;
+import com.vasileiou.trade.common.EntityStatistics;
+import com.vasileiou.trade.common.RejectionSummary;
+import com.vasileiou.trade.common.RollingWindowTotals;
+import com.vasileiou.trade.common.SettlementIndex;
+import com.vasileiou.trade.common.SymbolDictionary;
+import com.vasileiou.trade.common.Utils;
+import com.vasileiou.trade.enums.RankingMode;
 
 /**
  * The POJO representation of valid, parsed data
@@ -14,43 +25,187 @@ import java.util.SortedMap;
  */
 public class ValidatedData implements Serializable {
 
-	private static final long serialVersionUID = 1677658592337878254L;
+	private static final long serialVersionUID = 5472096180334512962L;
+	
+	// Holds the list of instructions per settlement epoch day
+	SortedMap<Integer, List<Instruction> > instructionsPerEpochDay;
+	
+	// Holds the total incoming and outgoing amounts per settlement epoch day
+	SortedMap<Integer, DailyAmounts> amountsPerEpochDay;
+	
+	// Holds the total, count and maximum amount per entity for incoming
+	EntityStatistics incomingEntityStatistics;
+	
+	// Holds the total, count and maximum amount per entity for outgoing
+	EntityStatistics outgoingEntityStatistics;
+	
+	// Holds the aggregates and samples of the rejected instructions
+	RejectionSummary rejectionSummary;
 	
-	// Holds the list of instructions per date
-	SortedMap<Date, List<Instruction> > instructionsPerDate;
+	// Holds the settled amounts per side, entity and currency for the date range totals
+	SettlementIndex settlementIndex;
 	
-	// Holds the entity - max amount value pair for incoming
-	HashMap<String, Double> incomingEntitiesMax;
+	// Holds the total, count and maximum amount per date, side, currency and entity with their rollups
+	AggregationCube aggregationCube;
 	
-	// Holds the entity - max amount value pair for outgoing
-	HashMap<String, Double> outgoingEntitiesMax;
+	// Holds the moving totals per side and entity keyed by the number of the days of their window
+	SortedMap<Integer, RollingWindowTotals> rollingTotalsPerWindow;
 	
 	public ValidatedData() {
 		super();
 	}
 
+	public SortedMap<Integer, List<Instruction>> getInstructionsPerEpochDay() {
+		return instructionsPerEpochDay;
+	}
+
+	public void setInstructionsPerEpochDay(SortedMap<Integer, List<Instruction>> instructionsPerEpochDay) {
+		this.instructionsPerEpochDay = instructionsPerEpochDay;
+	}
+
+	/**
+	 * Gives a copy of the instructions per epoch day keyed by {@link Date}, for the callers of the Date based API
+	 * 
+	 * @return a new {@link SortedMap} with the instructions per date
+	 */
 	public SortedMap<Date, List<Instruction>> getInstructionsPerDate() {
+		
+		if (instructionsPerEpochDay == null)
+			return null;
+		
+		SortedMap<Date, List<Instruction>> instructionsPerDate = new TreeMap<>();
+		for (Map.Entry<Integer, List<Instruction>> dayEntry : instructionsPerEpochDay.entrySet()) {
+			instructionsPerDate.put(Utils.toDate(dayEntry.getKey()), dayEntry.getValue());
+		}
+		
 		return instructionsPerDate;
+		
 	}
 
+	/**
+	 * Replaces the instructions per epoch day with the given instructions keyed by {@link Date}
+	 * 
+	 * @param instructionsPerDate the {@link SortedMap} with the instructions per date
+	 */
 	public void setInstructionsPerDate(SortedMap<Date, List<Instruction>> instructionsPerDate) {
-		this.instructionsPerDate = instructionsPerDate;
+		
+		if (instructionsPerDate == null) {
+			this.instructionsPerEpochDay = null;
+			return;
+		}
+		
+		this.instructionsPerEpochDay = new TreeMap<>();
+		for (Map.Entry<Date, List<Instruction>> dateEntry : instructionsPerDate.entrySet()) {
+			this.instructionsPerEpochDay.put(Utils.toEpochDay(dateEntry.getKey()), dateEntry.getValue());
+		}
+		
+	}
+	
+	public SortedMap<Integer, DailyAmounts> getAmountsPerEpochDay() {
+		return amountsPerEpochDay;
+	}
+	
+	public void setAmountsPerEpochDay(SortedMap<Integer, DailyAmounts> amountsPerEpochDay) {
+		this.amountsPerEpochDay = amountsPerEpochDay;
 	}
 
-	public HashMap<String, Double> getIncomingEntitiesMax() {
-		return incomingEntitiesMax;
+	public EntityStatistics getIncomingEntityStatistics() {
+		return incomingEntityStatistics;
 	}
 
-	public void setIncomingEntitiesMax(HashMap<String, Double> incomingEntitiesMax) {
-		this.incomingEntitiesMax = incomingEntitiesMax;
+	public void setIncomingEntityStatistics(EntityStatistics incomingEntityStatistics) {
+		this.incomingEntityStatistics = incomingEntityStatistics;
 	}
 
-	public HashMap<String, Double> getOutgoingEntitiesMax() {
-		return outgoingEntitiesMax;
+	public EntityStatistics getOutgoingEntityStatistics() {
+		return outgoingEntityStatistics;
 	}
 
+	public void setOutgoingEntityStatistics(EntityStatistics outgoingEntityStatistics) {
+		this.outgoingEntityStatistics = outgoingEntityStatistics;
+	}
+	
+	public RejectionSummary getRejectionSummary() {
+		return rejectionSummary;
+	}
+	
+	public void setRejectionSummary(RejectionSummary rejectionSummary) {
+		this.rejectionSummary = rejectionSummary;
+	}
+	
+	public SettlementIndex getSettlementIndex() {
+		return settlementIndex;
+	}
+	
+	public void setSettlementIndex(SettlementIndex settlementIndex) {
+		this.settlementIndex = settlementIndex;
+	}
+	
+	public AggregationCube getAggregationCube() {
+		return aggregationCube;
+	}
+	
+	public void setAggregationCube(AggregationCube aggregationCube) {
+		this.aggregationCube = aggregationCube;
+	}
+	
+	public SortedMap<Integer, RollingWindowTotals> getRollingTotalsPerWindow() {
+		return rollingTotalsPerWindow;
+	}
+	
+	public void setRollingTotalsPerWindow(SortedMap<Integer, RollingWindowTotals> rollingTotalsPerWindow) {
+		this.rollingTotalsPerWindow = rollingTotalsPerWindow;
+	}
+	
+	/**
+	 * Gives a copy of the maximum amount per entity for incoming, for the callers of the map based API
+	 * 
+	 * @return a new {@link HashMap} of entity and maximum amount pairs
+	 */
+	public HashMap<String, Double> getIncomingEntitiesMax() {
+		return incomingEntityStatistics == null ? null : incomingEntityStatistics.toMap(RankingMode.MAXIMUM);
+	}
+	
+	/**
+	 * Replaces the incoming statistics with the given maximum amounts, each one counted as a single instruction
+	 * 
+	 * @param incomingEntitiesMax the {@link HashMap} of entity and maximum amount pairs
+	 */
+	public void setIncomingEntitiesMax(HashMap<String, Double> incomingEntitiesMax) {
+		this.incomingEntityStatistics = toEntityStatistics(incomingEntitiesMax);
+	}
+	
+	/**
+	 * Gives a copy of the maximum amount per entity for outgoing, for the callers of the map based API
+	 * 
+	 * @return a new {@link HashMap} of entity and maximum amount pairs
+	 */
+	public HashMap<String, Double> getOutgoingEntitiesMax() {
+		return outgoingEntityStatistics == null ? null : outgoingEntityStatistics.toMap(RankingMode.MAXIMUM);
+	}
+	
+	/**
+	 * Replaces the outgoing statistics with the given maximum amounts, each one counted as a single instruction
+	 * 
+	 * @param outgoingEntitiesMax the {@link HashMap} of entity and maximum amount pairs
+	 */
 	public void setOutgoingEntitiesMax(HashMap<String, Double> outgoingEntitiesMax) {
-		this.outgoingEntitiesMax = outgoingEntitiesMax;
+		this.outgoingEntityStatistics = toEntityStatistics(outgoingEntitiesMax);
+	}
+	
+	private static EntityStatistics toEntityStatistics(HashMap<String, Double> entitiesMax) {
+		
+		if (entitiesMax == null)
+			return null;
+		
+		EntityStatistics entityStatistics = new EntityStatistics(SymbolDictionary.getSharedEntities(),
+				entitiesMax.size());
+		for (Map.Entry<String, Double> entityEntry : entitiesMax.entrySet()) {
+			entityStatistics.add(entityEntry.getKey(), entityEntry.getValue());
+		}
+		
+		return entityStatistics;
+		
 	}
 
 }
@@ -0,0 +1,145 @@
+package com.vasileiou.trade.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vasileiou.trade.controllers.Parser;
+import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.CubeDimension;
+import com.vasileiou.trade.enums.Status;
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.InstructionStore;
+
+/**
+ * Various test cases for the aggregation cube and its rollups
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class AggregationCubeTest {
+	
+	/**
+	 * Given instructions parsed in parallel when querying random slices of any
+	 * dimensions then the aggregates should be the ones of the matching valid instructions
+	 */
+	@Test
+	public void givenParsedInstructionsWhenQueryingSlicesThenSameAsInstructions() {
+		InstructionGenerator generator = new InstructionGenerator(31, 25, Utils.toEpochDay(2017, 5, 1), 20);
+		generator.setInvalidRatio(0.05);
+		List<Instruction> instructions = generator.stream(10000).collect(Collectors.toList());
+		AggregationCube aggregationCube = Parser.parseInstructions(instructions, 3).getAggregationCube();
+		
+		Random random = new Random(7);
+		for (int query = 0; query < 300; query++) {
+			Instruction sample = instructions.get(random.nextInt(instructions.size()));
+			if (sample.getStatus() != Status.VALID)
+				continue;
+			
+			// Every dimension of the sample is kept or rolled up at random
+			int epochDay = random.nextBoolean() ? sample.getSettlementEpochDay() : Constants.MISSING_EPOCH_DAY;
+			BuyOrSell buyOrSell = random.nextBoolean() ? sample.getBuyOrSell() : null;
+			String currency = random.nextBoolean() ? sample.getCurrency() : null;
+			String entity = random.nextBoolean() ? sample.getEntity() : null;
+			
+			long total = 0;
+			long count = 0;
+			double maximum = Double.NEGATIVE_INFINITY;
+			for (Instruction instruction : instructions) {
+				if (instruction.getStatus() == Status.VALID
+						&& (epochDay == Constants.MISSING_EPOCH_DAY || instruction.getSettlementEpochDay() == epochDay)
+						&& (buyOrSell == null || instruction.getBuyOrSell() == buyOrSell)
+						&& (currency == null || instruction.getCurrency().equals(currency))
+						&& (entity == null || instruction.getEntity().equals(entity))) {
+					total += FixedPointAmounts.getDefault().toScaled(instruction.getAmountOfTrade());
+					count++;
+					maximum = Math.max(maximum, instruction.getAmountOfTrade());
+				}
+			}
+			
+			Assert.assertEquals(aggregationCube.getScaledTotal(epochDay, buyOrSell, currency, entity), total);
+			Assert.assertEquals(aggregationCube.getCount(epochDay, buyOrSell, currency, entity), count);
+			Assert.assertEquals(aggregationCube.getMaximum(epochDay, buyOrSell, currency, entity),
+					FixedPointAmounts.getDefault().toAmount(FixedPointAmounts.getDefault().toScaled(maximum)), 0);
+		}
+		Assert.assertEquals(aggregationCube.getCount(Constants.MISSING_EPOCH_DAY, null, "missing currency", null), 0);
+	}
+	
+	/**
+	 * Given a cube of a columnar store when merging and serializing it then the
+	 * rollups should keep their cells and totals
+	 */
+	@Test
+	public void givenStoreCubeWhenMergingAndSerializingThenSameRollups() throws IOException, ClassNotFoundException {
+		InstructionStore store = new InstructionStore(16, new SymbolDictionary(), new SymbolDictionary());
+		store.add(new Instruction("cube1", "B", 1d, "EUR", "18 May 2017", "22 May 2017", 100L, 20d));
+		store.add(new Instruction("cube2", "S", 1d, "GBP", "18 May 2017", "22 May 2017", 100L, 10d));
+		store.add(new Instruction("cube1", "B", 1d, "EUR", "18 May 2017", "23 May 2017", 100L, 5d));
+		store.add(new Instruction("cube2", "B", 1d, "EUR", "18 May 2017", "23 May 2017", 100L, 1d));
+		AggregationCube storeCube = Parser.parseStore(store).getAggregationCube();
+		
+		AggregationCube merged = new AggregationCube().merge(storeCube);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+			output.writeObject(merged);
+		}
+		AggregationCube read;
+		try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			read = (AggregationCube) input.readObject();
+		}
+		
+		for (AggregationCube aggregationCube : new AggregationCube[] { storeCube, merged, read }) {
+			StringBuilder cells = new StringBuilder();
+			aggregationCube.forEach(EnumSet.of(CubeDimension.DATE, CubeDimension.CURRENCY),
+					(epochDay, buyOrSell, currency, entity, total, count, maximum) -> Utils
+							.appendIsoEpochDay(cells, epochDay).append(' ').append(currency).append(' ').append(total)
+							.append(' ').append(count).append(' ').append(maximum).append('\n'));
+			
+			Assert.assertEquals(cells.toString(), "2017-05-22 EUR 2000.0 1 2000.0\n"
+					+ "2017-05-22 GBP 1000.0 1 1000.0\n" + "2017-05-23 EUR 600.0 2 500.0\n");
+			Assert.assertEquals(aggregationCube.getTotal(Constants.MISSING_EPOCH_DAY, BuyOrSell.BUY, null, "cube1"),
+					2500, 0);
+			Assert.assertEquals(aggregationCube.size(), 4);
+		}
+	}
+	
+	/**
+	 * Given dictionaries shared with many other symbols when adding amounts then the
+	 * cube should give them its own identifiers instead of failing on the large identifiers
+	 */
+	@Test
+	public void givenLargeSymbolIdentifiersWhenAddingThenSameTotals() {
+		SymbolDictionary currencies = new SymbolDictionary();
+		for (int currency = 0; currency < 10000; currency++) {
+			currencies.encode("C" + currency);
+		}
+		AggregationCube aggregationCube = new AggregationCube(new SymbolDictionary(), currencies);
+		aggregationCube.add(Utils.toEpochDay(2017, 5, 22), BuyOrSell.BUY, currencies.find("C9999"), 0, 100);
+		aggregationCube.add(Utils.toEpochDay(2017, 5, 22), BuyOrSell.BUY, currencies.find("C8192"), 0, 50);
+		
+		Assert.assertEquals(aggregationCube.getTotal(Constants.MISSING_EPOCH_DAY, null, "C9999", null), 100, 0);
+		Assert.assertEquals(aggregationCube.getTotal(Constants.MISSING_EPOCH_DAY, BuyOrSell.BUY, null, null), 150, 0);
+		Assert.assertEquals(aggregationCube.getCount(Constants.MISSING_EPOCH_DAY, null, "C0", null), 0);
+	}
+	
+	/**
+	 * Given more currencies than the limits of the cube when adding an amount then
+	 * it should fail instead of dropping the amount
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void givenCurrenciesOutOfLimitsWhenAddingThenFail() {
+		AggregationCube aggregationCube = new AggregationCube(new SymbolDictionary(), new SymbolDictionary());
+		for (int currencyId = 0; currencyId <= 1 << 13; currencyId++) {
+			aggregationCube.add(Utils.toEpochDay(2017, 5, 22), BuyOrSell.BUY, currencyId, 0, 100);
+		}
+	}
+}
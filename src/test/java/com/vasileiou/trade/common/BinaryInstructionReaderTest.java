@@ -0,0 +1,153 @@
+package com.vasileiou.trade.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.vasileiou.trade.controllers.Parser;
+import com.vasileiou.trade.enums.Status;
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.InstructionStore;
+import com.vasileiou.trade.models.ValidatedData;
+
+/**
+ * Various test cases for the binary instructions format
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class BinaryInstructionReaderTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/**
+	 * Given written instructions when reading them into a store then parsing
+	 * should give the same data as parsing the original instructions
+	 */
+	@Test
+	public void givenWrittenInstructionsWhenReadingIntoStoreThenSameParsedData() throws IOException {
+		Calendar calendarStart = Calendar.getInstance();
+		calendarStart.set(2017, Calendar.MAY, 1);
+		Calendar calendarEnd = Calendar.getInstance();
+		calendarEnd.set(2017, Calendar.MAY, 31);
+
+		List<Instruction> instructions = new FetcherImpl().getRandomInstructions(5000, 100, calendarStart,
+				calendarEnd);
+		instructions.add(new Instruction(null, "B", 0.22d, "EUR", "18 May 2017", "20 May 2017", 100L, 20d));
+		instructions.add(new Instruction("entity1", "S", null, "EUR", "18 May 2017", "20 May 2017", null, 20d));
+
+		Path file = temporaryFolder.newFile().toPath();
+		try (BinaryInstructionWriter writer = new BinaryInstructionWriter(file)) {
+			for (Instruction instruction : instructions) {
+				writer.write(instruction);
+			}
+			Assert.assertEquals(writer.getRecords(), instructions.size());
+		}
+
+		InstructionStore store = new InstructionStore();
+		try (BinaryInstructionReader reader = new BinaryInstructionReader(file)) {
+			Assert.assertEquals(reader.readInto(store), instructions.size());
+		}
+
+		ValidatedData storeData = Parser.parseStore(store);
+		ValidatedData objectData = Parser.parseInstructions(instructions);
+
+		Assert.assertEquals(storeData.getAmountsPerEpochDay().keySet(), objectData.getAmountsPerEpochDay().keySet());
+		Assert.assertEquals(storeData.getOutgoingEntitiesMax(), objectData.getOutgoingEntitiesMax());
+		Assert.assertEquals(storeData.getIncomingEntitiesMax(), objectData.getIncomingEntitiesMax());
+		Assert.assertEquals(store.getStatus(instructions.size() - 1), Status.MISSING_PROPERTY.ordinal());
+	}
+
+	/**
+	 * Given written instructions when reading them as objects then the input
+	 * fields should be restored
+	 */
+	@Test
+	public void givenWrittenInstructionsWhenReadingObjectsThenSameFields() throws IOException {
+		Instruction instruction = new Instruction("foo", "S", 0.5d, "SGP", "01 Jan 2016", "02 Jan 2016", 200L,
+				100.25d);
+		Instruction wrongDate = new Instruction("bar", "B", 0.5d, "AED", "01/01/2016", "02 Jan 2016", 200L, 100.25d);
+
+		Path file = temporaryFolder.newFile().toPath();
+		try (BinaryInstructionWriter writer = new BinaryInstructionWriter(file)) {
+			writer.write(instruction);
+			writer.write(wrongDate);
+		}
+
+		List<Instruction> read = new ArrayList<>();
+		try (BinaryInstructionReader reader = new BinaryInstructionReader(file)) {
+			reader.forEachInstruction(read::add);
+		}
+
+		Assert.assertEquals(read.size(), 2);
+		Assert.assertEquals(read.get(0).getEntity(), "foo");
+		Assert.assertEquals(read.get(0).getBuyOrSellStringFlag(), "S");
+		Assert.assertEquals(read.get(0).getCurrency(), "SGP");
+		Assert.assertEquals(read.get(0).getInstructionDate(), "01 Jan 2016");
+		Assert.assertEquals(read.get(0).getSettlementDate(), "02 Jan 2016");
+		Assert.assertEquals(read.get(0).getUnits(), new Long(200));
+		Assert.assertEquals(read.get(0).getPricePerUnit(), new Double(100.25));
+		Assert.assertEquals(read.get(0).getAgreedFx(), new Double(0.5));
+		Assert.assertEquals(Parser.validateInstruction(read.get(1)), Status.WRONG_DATE_FORMAT);
+	}
+
+	/**
+	 * Given a file of another format when opening it then it should fail
+	 */
+	@Test(expected = IOException.class)
+	public void givenOtherFormatWhenOpeningThenFail() throws IOException {
+		Path file = temporaryFolder.newFile().toPath();
+		Files.write(file, "foo,B,0.50,SGP,01 Jan 2016,01 Jan 2016,200,100.25\n".getBytes(StandardCharsets.UTF_8));
+
+		new BinaryInstructionReader(file).close();
+	}
+	
+	/**
+	 * Given records referencing undefined entities or currencies when reading them
+	 * into a store or as objects then it should fail
+	 */
+	@Test
+	public void givenUndefinedSymbolWhenReadingThenFail() throws IOException {
+		int[][] undefinedIds = { { 5, 0 }, { 0, 100 }, { -7, 0 } };
+		for (int[] ids : undefinedIds) {
+			Path file = temporaryFolder.newFile().toPath();
+			try (BinaryInstructionWriter writer = new BinaryInstructionWriter(file)) {
+				writer.write(new Instruction("foo", "S", 0.5d, "SGP", "01 Jan 2016", "04 Jan 2016", 200L, 100.25d));
+			}
+			
+			// Append a record with the same values apart from the identifiers
+			ByteBuffer record = ByteBuffer.allocate(1 + Constants.BINARY_RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			record.put(Constants.BINARY_RECORD_TAG).put(InstructionStore.SIDE_SELL).putInt(ids[0]).putInt(ids[1])
+					.putInt(Utils.toEpochDay(2016, 1, 1)).putInt(Utils.toEpochDay(2016, 1, 4)).putLong(200L)
+					.putDouble(100.25d).putDouble(0.5d);
+			Files.write(file, record.array(), StandardOpenOption.APPEND);
+			
+			try (BinaryInstructionReader reader = new BinaryInstructionReader(file)) {
+				reader.readInto(new InstructionStore());
+				Assert.fail("Reading an undefined symbol into a store should fail");
+			} catch (IOException e) {
+				Assert.assertTrue(e.getMessage().startsWith("Corrupted binary instructions file"));
+			}
+			try (BinaryInstructionReader reader = new BinaryInstructionReader(file)) {
+				reader.forEachInstruction(instruction -> {
+				});
+				Assert.fail("Reading an undefined symbol as an object should fail");
+			} catch (IOException e) {
+				Assert.assertTrue(e.getMessage().startsWith("Corrupted binary instructions file"));
+			}
+		}
+	}
+}
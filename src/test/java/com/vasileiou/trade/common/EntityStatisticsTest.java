@@ -0,0 +1,107 @@
+package com.vasileiou.trade.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vasileiou.trade.enums.RankingMode;
+
+/**
+ * Various test cases for the open addressing entity statistics
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class EntityStatisticsTest {
+	
+	/**
+	 * Given amounts of many entities when adding them then the total, count,
+	 * maximum and average per entity should be the same as with boxed maps
+	 */
+	@Test
+	public void givenManyEntitiesWhenAddingThenSameAsBoxedMaps() {
+		Random random = new Random(3);
+		EntityStatistics statistics = new EntityStatistics(new SymbolDictionary(), 4);
+		HashMap<String, Double> totals = new HashMap<>();
+		HashMap<String, Double> maxima = new HashMap<>();
+		HashMap<String, Long> counts = new HashMap<>();
+		
+		for (int instruction = 0; instruction < 50000; instruction++) {
+			String entity = "entity" + random.nextInt(3000);
+			double amount = random.nextInt(10000) / 4d;
+			
+			boolean newMaximum = !maxima.containsKey(entity) || amount > maxima.get(entity);
+			Assert.assertEquals(statistics.add(entity, amount), newMaximum);
+			totals.merge(entity, amount, Double::sum);
+			maxima.merge(entity, amount, Math::max);
+			counts.merge(entity, 1L, Long::sum);
+		}
+		
+		Assert.assertEquals(statistics.size(), totals.size());
+		Assert.assertEquals(statistics.toMap(RankingMode.TOTAL), totals);
+		Assert.assertEquals(statistics.toMap(RankingMode.MAXIMUM), maxima);
+		for (String entity : totals.keySet()) {
+			Assert.assertEquals(statistics.get(entity, RankingMode.COUNT), counts.get(entity), 0);
+			Assert.assertEquals(statistics.get(entity, RankingMode.AVERAGE), totals.get(entity) / counts.get(entity),
+					0);
+		}
+		Assert.assertTrue(Double.isNaN(statistics.get("unknown", RankingMode.TOTAL)));
+	}
+	
+	/**
+	 * Given two partial statistics when merging them then totals and counts
+	 * should be added up and the greatest maximum kept
+	 */
+	@Test
+	public void givenPartialStatisticsWhenMergingThenCombined() {
+		EntityStatistics earlier = new EntityStatistics();
+		earlier.add("foo", 10);
+		earlier.add("bar", 5);
+		EntityStatistics later = new EntityStatistics();
+		later.add("foo", 20);
+		later.add("baz", 1);
+		
+		earlier.merge(later);
+		
+		Assert.assertEquals(earlier.size(), 3);
+		Assert.assertEquals(earlier.get("foo", RankingMode.TOTAL), 30, 0);
+		Assert.assertEquals(earlier.get("foo", RankingMode.COUNT), 2, 0);
+		Assert.assertEquals(earlier.get("foo", RankingMode.MAXIMUM), 20, 0);
+		Assert.assertEquals(earlier.get("baz", RankingMode.AVERAGE), 1, 0);
+	}
+	
+	/**
+	 * Given statistics of another dictionary when serializing and merging
+	 * them then the entities should be resolved by name
+	 */
+	@Test
+	public void givenOtherDictionaryWhenSerializingAndMergingThenResolvedByName() throws Exception {
+		EntityStatistics local = new EntityStatistics(new SymbolDictionary(), 4);
+		local.add("foo", 10);
+		local.add("bar", 5);
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+			output.writeObject(local);
+		}
+		EntityStatistics restored;
+		try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			restored = (EntityStatistics) input.readObject();
+		}
+		
+		Assert.assertSame(restored.getEntities(), SymbolDictionary.getSharedEntities());
+		Assert.assertEquals(restored.toMap(RankingMode.TOTAL), local.toMap(RankingMode.TOTAL));
+		
+		EntityStatistics shared = new EntityStatistics();
+		shared.add("foo", 1);
+		shared.merge(local);
+		Assert.assertEquals(shared.get("foo", RankingMode.TOTAL), 11, 0);
+		Assert.assertEquals(shared.get("bar", RankingMode.COUNT), 1, 0);
+	}
+}
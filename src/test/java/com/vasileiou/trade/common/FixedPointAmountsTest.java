@@ -0,0 +1,89 @@
+package com.vasileiou.trade.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vasileiou.trade.controllers.Parser;
+import com.vasileiou.trade.models.DailyAmounts;
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.InstructionStore;
+import com.vasileiou.trade.models.ValidatedData;
+
+/**
+ * Various test cases for the fixed-point amounts and their batch computation
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class FixedPointAmountsTest {
+	
+	/**
+	 * Given columns of random prices, units and rates when computing their amounts in chunks then every amount
+	 * should be the one of a single instruction and the missing ones should be zero
+	 */
+	@Test
+	public void givenColumnsWhenComputingInChunksThenSameAsSingleAmounts() {
+		FixedPointAmounts amounts = new FixedPointAmounts(4);
+		Random random = new Random(11);
+		int rows = 5000;
+		double[] pricesPerUnit = new double[rows];
+		long[] units = new long[rows];
+		double[] agreedFxs = new double[rows];
+		for (int row = 0; row < rows; row++) {
+			pricesPerUnit[row] = row % 97 == 0 ? Double.NaN : random.nextInt(1000000) / 100d;
+			units[row] = 1 + random.nextInt(10000);
+			agreedFxs[row] = random.nextInt(20000) / 10000d;
+		}
+		
+		long[] scaledAmounts = new long[rows];
+		for (int from = 0; from < rows; from += 300) {
+			amounts.computeAmounts(pricesPerUnit, units, agreedFxs, scaledAmounts, from, Math.min(from + 300, rows));
+		}
+		
+		for (int row = 0; row < rows; row++) {
+			long expected = row % 97 == 0 ? 0 : amounts.amountOf(pricesPerUnit[row], units[row], agreedFxs[row]);
+			Assert.assertEquals(scaledAmounts[row], expected);
+		}
+		Assert.assertEquals(amounts.toAmount(amounts.toScaled(20.125)), 20.125, 0);
+		Assert.assertEquals(new FixedPointAmounts(12).getScale(), 1000000000L);
+	}
+	
+	/**
+	 * Given the same instructions in different orders when parsing them with different parallelism and as a
+	 * store then the daily amounts should be exactly the same
+	 */
+	@Test
+	public void givenShuffledInstructionsWhenParsingInParallelThenExactlySameDailyAmounts() {
+		InstructionGenerator generator = new InstructionGenerator(17, 30, Utils.toEpochDay(2017, 5, 1), 30);
+		generator.setInvalidRatio(0.05);
+		List<Instruction> instructions = generator.stream(20000).collect(Collectors.toList());
+		List<Instruction> shuffled = new ArrayList<>(instructions);
+		Collections.shuffle(shuffled, new Random(3));
+		
+		InstructionStore store = new InstructionStore(instructions.size(), new SymbolDictionary(),
+				new SymbolDictionary());
+		for (Instruction instruction : shuffled) {
+			store.add(instruction);
+		}
+		
+		Map<Integer, DailyAmounts> expected = Parser.parseInstructions(instructions, 1).getAmountsPerEpochDay();
+		for (ValidatedData validatedData : new ValidatedData[] { Parser.parseInstructions(shuffled, 4),
+				Parser.parseInstructions(shuffled, 7), Parser.parseStore(store) }) {
+			Assert.assertEquals(validatedData.getAmountsPerEpochDay().keySet(), expected.keySet());
+			for (Map.Entry<Integer, DailyAmounts> dayEntry : expected.entrySet()) {
+				DailyAmounts dailyAmounts = validatedData.getAmountsPerEpochDay().get(dayEntry.getKey());
+				Assert.assertEquals(dailyAmounts.getScaledOutgoingAmount(),
+						dayEntry.getValue().getScaledOutgoingAmount());
+				Assert.assertEquals(dailyAmounts.getScaledIncomingAmount(),
+						dayEntry.getValue().getScaledIncomingAmount());
+			}
+		}
+	}
+}
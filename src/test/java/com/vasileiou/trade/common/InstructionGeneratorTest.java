@@ -0,0 +1,115 @@
+package com.vasileiou.trade.common;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.vasileiou.trade.controllers.Parser;
+import com.vasileiou.trade.enums.Status;
+import com.vasileiou.trade.models.Instruction;
+
+/**
+ * Various test cases for the synthetic instructions generator
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class InstructionGeneratorTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	/**
+	 * Given the same seed when generating sequentially and in parallel then the
+	 * instructions should be the same and in the same order
+	 */
+	@Test
+	public void givenSameSeedWhenGeneratingInParallelThenSameInstructions() {
+		InstructionGenerator generator = new InstructionGenerator(42, 100, Utils.toEpochDay(2017, 5, 1), 31);
+		generator.setInvalidRatio(0.1);
+		
+		List<String> sequential = generator.stream(20000).map(InstructionGeneratorTest::encode)
+				.collect(Collectors.toList());
+		List<String> parallel = generator.stream(20000).parallel().map(InstructionGeneratorTest::encode)
+				.collect(Collectors.toList());
+		List<String> otherSeed = new InstructionGenerator(43, 100, Utils.toEpochDay(2017, 5, 1), 31).stream(20000)
+				.map(InstructionGeneratorTest::encode).collect(Collectors.toList());
+		List<String> iterated = new ArrayList<>();
+		for (Iterator<Instruction> iterator = generator.iterator(20000); iterator.hasNext();) {
+			iterated.add(encode(iterator.next()));
+		}
+		generator.setInvalidRatio(0);
+		List<String> valid = generator.stream(20000).map(InstructionGeneratorTest::encode)
+				.collect(Collectors.toList());
+		
+		Assert.assertEquals(parallel, sequential);
+		Assert.assertEquals(iterated, sequential);
+		Assert.assertNotEquals(otherSeed, sequential);
+		Assert.assertNotEquals(valid, sequential);
+	}
+	
+	/**
+	 * Given an invalid ratio and a skewed entity distribution when generating
+	 * then the invalid instructions and the most frequent entity should follow
+	 * them
+	 */
+	@Test
+	public void givenInvalidRatioAndZipfWhenGeneratingThenDistributionsFollowed() {
+		InstructionGenerator generator = new InstructionGenerator(7, 1000, Utils.toEpochDay(2017, 5, 1), 31);
+		generator.setInvalidRatio(0.2);
+		generator.setZipfExponent(1.2);
+		Map<String, Double> currencyMix = new LinkedHashMap<>();
+		currencyMix.put("EUR", 3d);
+		currencyMix.put("AED", 1d);
+		generator.setCurrencyMix(currencyMix);
+		
+		List<Instruction> instructions = generator.stream(40000).collect(Collectors.toList());
+		Parser.parseInstructions(instructions);
+		
+		long invalid = instructions.stream().filter(instruction -> instruction.getStatus() != Status.VALID).count();
+		Map<String, Long> perEntity = instructions.stream()
+				.collect(Collectors.groupingBy(Instruction::getEntity, HashMap::new, Collectors.counting()));
+		long euros = instructions.stream().filter(instruction -> "EUR".equals(instruction.getCurrency())).count();
+		
+		Assert.assertEquals(invalid / 40000.0, 0.2, 0.01);
+		Assert.assertEquals(perEntity.get("Entity-1"), Collections.max(perEntity.values()));
+		Assert.assertTrue(perEntity.get("Entity-1") > 40000 / 10);
+		Assert.assertEquals(euros / 40000.0, 0.75, 0.01);
+	}
+	
+	/**
+	 * Given a generator when writing a file then it should be fetched with the
+	 * same instructions
+	 */
+	@Test
+	public void givenGeneratorWhenWritingFileThenFetchedSameInstructions() throws IOException {
+		InstructionGenerator generator = new InstructionGenerator(3, 50, Utils.toEpochDay(2017, 5, 1), 10);
+		generator.setInvalidRatio(0.05);
+		Path file = temporaryFolder.newFile().toPath();
+		
+		generator.writeTo(file, 10000);
+		List<Instruction> read = new MappedFileFetcher(file, 2).getInstructionsFromClients();
+		List<Instruction> generated = generator.stream(10000).collect(Collectors.toList());
+		
+		Assert.assertEquals(read.size(), generated.size());
+		for (int index = 0; index < generated.size(); index++) {
+			Assert.assertEquals(encode(read.get(index)), encode(generated.get(index)));
+		}
+	}
+	
+	private static String encode(Instruction instruction) {
+		return InstructionLineCodec.encode(instruction, new StringBuilder()).toString();
+	}
+}
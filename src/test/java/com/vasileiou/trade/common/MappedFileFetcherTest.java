@@ -0,0 +1,139 @@
+package com.vasileiou.trade.common;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.vasileiou.trade.models.Instruction;
+
+/**
+ * Various test cases for the memory mapped file fetcher
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class MappedFileFetcherTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/**
+	 * Given a file with valid and missing fields when fetching then all the
+	 * fields should be decoded
+	 */
+	@Test
+	public void givenFileWhenFetchingThenDecodeAllFields() throws IOException {
+		Path file = temporaryFolder.newFile().toPath();
+		Files.write(file, ("# entity,side,fx,currency,instruction,settlement,units,price\n"
+				+ "foo,B,0.50,SGP,01 Jan 2016,01 Jan 2016,200,100.25\n" + "\n"
+				+ " bar , S ,0.22,AED,05 Jan 2016,07 Jan 2016,450,1.505e2\r\n" + ",B,x,EUR,,01 Jan 2016,,\n")
+						.getBytes(StandardCharsets.UTF_8));
+
+		List<Instruction> instructions = new MappedFileFetcher(file, 2).getInstructionsFromClients();
+
+		Assert.assertEquals(instructions.size(), 3);
+		Assert.assertEquals(instructions.get(0).getEntity(), "foo");
+		Assert.assertEquals(instructions.get(0).getAgreedFx(), new Double(0.5));
+		Assert.assertEquals(instructions.get(0).getSettlementDate(), "01 Jan 2016");
+		Assert.assertEquals(instructions.get(0).getUnits(), new Long(200));
+		Assert.assertEquals(instructions.get(0).getPricePerUnit(), new Double(100.25));
+		Assert.assertEquals(instructions.get(1).getEntity(), "bar");
+		Assert.assertEquals(instructions.get(1).getBuyOrSellStringFlag(), "S");
+		Assert.assertEquals(instructions.get(1).getPricePerUnit(), new Double(150.5));
+		Assert.assertNull(instructions.get(2).getEntity());
+		Assert.assertNull(instructions.get(2).getAgreedFx());
+		Assert.assertNull(instructions.get(2).getInstructionDate());
+		Assert.assertNull(instructions.get(2).getUnits());
+		Assert.assertNull(instructions.get(2).getPricePerUnit());
+	}
+
+	/**
+	 * Given a large generated file when fetching in parallel and streaming
+	 * then the instructions should be the same and in the same order
+	 */
+	@Test
+	public void givenLargeFileWhenFetchingInParallelThenSameAsWritten() throws IOException {
+		Calendar calendarStart = Calendar.getInstance();
+		calendarStart.set(2017, Calendar.MAY, 1);
+		Calendar calendarEnd = Calendar.getInstance();
+		calendarEnd.set(2017, Calendar.MAY, 31);
+
+		List<Instruction> written = new FetcherImpl().getRandomInstructions(20000, 100, calendarStart, calendarEnd);
+		StringBuilder content = new StringBuilder();
+		for (Instruction instruction : written) {
+			InstructionLineCodec.encode(instruction, content);
+		}
+		Path file = temporaryFolder.newFile().toPath();
+		Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+
+		MappedFileFetcher fetcher = new MappedFileFetcher(file, 4);
+		List<Instruction> read = fetcher.getInstructionsFromClients();
+		List<Instruction> streamed = new ArrayList<>();
+		for (Iterator<Instruction> iterator = fetcher.streamInstructionsFromClients(); iterator.hasNext();) {
+			streamed.add(iterator.next());
+		}
+
+		Assert.assertEquals(read.size(), written.size());
+		Assert.assertEquals(streamed.size(), written.size());
+		for (int index = 0; index < written.size(); index++) {
+			Assert.assertEquals(read.get(index).getEntity(), written.get(index).getEntity());
+			Assert.assertEquals(read.get(index).getAgreedFx(), written.get(index).getAgreedFx());
+			Assert.assertEquals(read.get(index).getPricePerUnit(), written.get(index).getPricePerUnit());
+			Assert.assertEquals(read.get(index).getUnits(), written.get(index).getUnits());
+			Assert.assertEquals(streamed.get(index).getSettlementDate(), written.get(index).getSettlementDate());
+		}
+	}
+
+	/**
+	 * Given a missing file when fetching then it should fail instead of returning no instructions
+	 */
+	@Test
+	public void givenMissingFileWhenFetchingThenFails() {
+		Path file = temporaryFolder.getRoot().toPath().resolve("missing.csv");
+
+		try {
+			new MappedFileFetcher(file).getInstructionsFromClients();
+			Assert.fail("Fetching a missing file should fail");
+		} catch (UncheckedIOException e) {
+			Assert.assertTrue(e.getCause() instanceof NoSuchFileException);
+		}
+		try {
+			new MappedFileFetcher(file).streamInstructionsFromClients();
+			Assert.fail("Streaming a missing file should fail");
+		} catch (UncheckedIOException e) {
+			Assert.assertTrue(e.getCause() instanceof NoSuchFileException);
+		}
+	}
+	
+	/**
+	 * Given a file removed while streaming it when reading its next chunk then it should fail and stop
+	 */
+	@Test
+	public void givenFileRemovedWhileStreamingWhenReadingNextChunkThenFails() throws IOException {
+		Path file = temporaryFolder.newFile("removed.csv").toPath();
+		Files.write(file, "entity1,B,0.5,SGP,01 Jan 2016,02 Jan 2016,200,100.25\n".getBytes(StandardCharsets.UTF_8));
+		
+		Iterator<Instruction> instructions = new MappedFileFetcher(file).streamInstructionsFromClients();
+		Files.delete(file);
+		
+		try {
+			instructions.hasNext();
+			Assert.fail("Reading a removed chunk should fail");
+		} catch (UncheckedIOException e) {
+			Assert.assertTrue(e.getCause() instanceof NoSuchFileException);
+		}
+		Assert.assertFalse(instructions.hasNext());
+	}
+}
@@ -0,0 +1,158 @@
+package com.vasileiou.trade.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.vasileiou.trade.models.Instruction;
+
+/**
+ * Various test cases for the concurrent fetching of many sources
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class MultiSourceFetcherTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	/**
+	 * Given a file, a spool directory and a stream when fetching them together
+	 * then all their instructions should be fetched and counted per source
+	 */
+	@Test
+	public void givenFileSpoolAndStreamWhenFetchingThenAllInstructions() throws IOException {
+		Path file = temporaryFolder.newFile().toPath();
+		generator(1).writeTo(file, 5000);
+		Path spool = temporaryFolder.newFolder().toPath();
+		generator(2).writeTo(spool.resolve("b.txt"), 700);
+		generator(3).writeTo(spool.resolve("a.txt"), 300);
+		StringBuilder streamed = encode(generator(4).iterator(250));
+		
+		MultiSourceFetcher fetcher = new MultiSourceFetcher(2).addFile(file).addSpoolDirectory(spool)
+				.addStream("socket", new ByteArrayInputStream(streamed.toString().getBytes(StandardCharsets.UTF_8)));
+		List<Instruction> instructions = fetcher.getInstructionsFromClients();
+		
+		List<String> expected = lines(new MappedFileFetcher(file).getInstructionsFromClients().iterator());
+		expected.addAll(lines(generator(3).iterator(300)));
+		expected.addAll(lines(generator(2).iterator(700)));
+		expected.addAll(lines(generator(4).iterator(250)));
+		List<String> actual = lines(instructions.iterator());
+		Collections.sort(expected);
+		Collections.sort(actual);
+		
+		Assert.assertEquals(actual, expected);
+		Assert.assertEquals(fetcher.getStatistics().get(0).getInstructions(), 5000);
+		Assert.assertEquals(fetcher.getStatistics().get(1).getInstructions(), 1000);
+		Assert.assertEquals(fetcher.getStatistics().get(2).getName(), "socket");
+		for (SourceStatistics statistics : fetcher.getStatistics()) {
+			Assert.assertTrue(statistics.isFinished());
+			Assert.assertTrue(statistics.getMaxQueueDepth() <= statistics.getQueueCapacity());
+		}
+	}
+	
+	/**
+	 * Given a source waiting for input when fetching then the instructions of
+	 * the other sources should be given meanwhile
+	 */
+	@Test(timeout = 10000)
+	public void givenWaitingSourceWhenFetchingThenOtherSourcesNotStalled() throws IOException {
+		Path file = temporaryFolder.newFile().toPath();
+		generator(5).writeTo(file, 2000);
+		PipedOutputStream client = new PipedOutputStream();
+		
+		MultiSourceFetcher fetcher = new MultiSourceFetcher().addFile(file)
+				.addStream("client", new PipedInputStream(client));
+		Iterator<Instruction> instructions = fetcher.streamInstructionsFromClients();
+		for (int instruction = 0; instruction < 2000; instruction++) {
+			instructions.next();
+		}
+		
+		client.write(encode(generator(6).iterator(3)).toString().getBytes(StandardCharsets.UTF_8));
+		client.close();
+		List<String> remaining = lines(instructions);
+		
+		Assert.assertEquals(remaining, lines(generator(6).iterator(3)));
+		Assert.assertEquals(fetcher.getStatistics().get(1).getInstructions(), 3);
+	}
+	
+	/**
+	 * Given a stream reset after some lines when fetching then the lines read
+	 * so far should be given before the iteration fails and the source is recorded as failed
+	 */
+	@Test
+	public void givenResetStreamWhenFetchingThenIterationFails() {
+		StringBuilder streamed = encode(generator(7).iterator(200));
+		InputStream reset = new InputStream() {
+			@Override
+			public int read() throws IOException {
+				throw new IOException("Connection reset");
+			}
+		};
+		
+		MultiSourceFetcher fetcher = new MultiSourceFetcher().addStream("socket", new SequenceInputStream(
+				new ByteArrayInputStream(streamed.toString().getBytes(StandardCharsets.UTF_8)), reset));
+		Iterator<Instruction> instructions = fetcher.streamInstructionsFromClients();
+		List<Instruction> fetched = new ArrayList<>();
+		UncheckedIOException failure = null;
+		try {
+			instructions.forEachRemaining(fetched::add);
+		} catch (UncheckedIOException e) {
+			failure = e;
+		}
+		
+		Assert.assertNotNull(failure);
+		Assert.assertEquals(lines(fetched.iterator()), lines(generator(7).iterator(200)));
+		Assert.assertEquals(fetcher.getStatistics().get(0).getFailures(), 1);
+	}
+	
+	/**
+	 * Given a missing file among other sources when fetching then the
+	 * fetching should fail instead of giving the instructions of the other sources only
+	 */
+	@Test(expected = UncheckedIOException.class)
+	public void givenMissingFileWhenFetchingThenFails() throws IOException {
+		Path file = temporaryFolder.newFile().toPath();
+		generator(8).writeTo(file, 1000);
+		
+		new MultiSourceFetcher()
+				.addFile(file)
+				.addFile(temporaryFolder.getRoot().toPath().resolve("missing.txt"))
+				.getInstructionsFromClients();
+	}
+	
+	private static InstructionGenerator generator(long seed) {
+		InstructionGenerator generator = new InstructionGenerator(seed, 50, Utils.toEpochDay(2017, 5, 1), 31);
+		generator.setInvalidRatio(0.05);
+		return generator;
+	}
+	
+	private static StringBuilder encode(Iterator<Instruction> instructions) {
+		StringBuilder encoded = new StringBuilder();
+		instructions.forEachRemaining(instruction -> InstructionLineCodec.encode(instruction, encoded));
+		return encoded;
+	}
+	
+	private static List<String> lines(Iterator<Instruction> instructions) {
+		List<String> lines = new ArrayList<>();
+		instructions.forEachRemaining(instruction -> lines.add(InstructionLineCodec.encode(instruction,
+				new StringBuilder()).toString()));
+		return lines;
+	}
+}
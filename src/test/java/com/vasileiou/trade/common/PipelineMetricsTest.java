@@ -0,0 +1,88 @@
+package com.vasileiou.trade.common;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vasileiou.trade.controllers.Parser;
+import com.vasileiou.trade.enums.Stage;
+import com.vasileiou.trade.enums.Status;
+import com.vasileiou.trade.models.Instruction;
+
+/**
+ * Various test cases for the pipeline metrics
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class PipelineMetricsTest {
+	
+	/**
+	 * Given instructions of every status when parsing then the counters per
+	 * status, the corrected settlement dates and the parse stage should be
+	 * updated and exposed through JMX
+	 */
+	@Test
+	public void givenInstructionsOfEveryStatusWhenParsingThenCountersUpdated() throws Exception {
+		PipelineMetrics metrics = PipelineMetrics.getDefault();
+		long valid = metrics.getValidInstructions();
+		long missing = metrics.getMissingPropertyInstructions();
+		long wrongDate = metrics.getWrongDateFormatInstructions();
+		long invalidSettlement = metrics.getInvalidSettlementDateInstructions();
+		long corrections = metrics.getSettlementDateCorrections();
+		long parses = metrics.getLatency(Stage.PARSE).getCount();
+		
+		List<Instruction> instructions = new ArrayList<>();
+		instructions.add(new Instruction("foo", "B", 0.5d, "EUR", "18 May 2017", "20 May 2017", 100L, 20d));
+		instructions.add(new Instruction("foo", "B", 0.5d, "EUR", "18 May 2017", "22 May 2017", 100L, 20d));
+		instructions.add(new Instruction("foo", "B", null, "EUR", "18 May 2017", "22 May 2017", 100L, 20d));
+		instructions.add(new Instruction("foo", "B", 0.5d, "EUR", "18 Foo 2017", "22 May 2017", 100L, 20d));
+		instructions.add(new Instruction("foo", "B", 0.5d, "EUR", "18 May 2017", "17 May 2017", 100L, 20d));
+		Parser.parseInstructions(instructions);
+		
+		Assert.assertEquals(metrics.getValidInstructions() - valid, 2);
+		Assert.assertEquals(metrics.getMissingPropertyInstructions() - missing, 1);
+		Assert.assertEquals(metrics.getWrongDateFormatInstructions() - wrongDate, 1);
+		Assert.assertEquals(metrics.getInvalidSettlementDateInstructions() - invalidSettlement, 1);
+		Assert.assertEquals(metrics.getSettlementDateCorrections() - corrections, 1);
+		Assert.assertEquals(metrics.getLatency(Stage.PARSE).getCount() - parses, 1);
+		Assert.assertTrue(metrics.getParsedInstructionsPerSecond() > 0);
+		
+		Object exposed = ManagementFactory.getPlatformMBeanServer().getAttribute(
+				new ObjectName(Constants.METRICS_DOMAIN + ":type=PipelineMetrics"), "ValidInstructions");
+		Assert.assertEquals(exposed, metrics.getValidInstructions());
+	}
+	
+	/**
+	 * Given recorded latencies when getting the percentiles then they should
+	 * be within the power of two bucket of the latency
+	 */
+	@Test
+	public void givenLatenciesWhenGettingPercentilesThenWithinBucket() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		Assert.assertEquals(histogram.getP99Millis(), 0, 0);
+		
+		for (int counter = 0; counter < 90; counter++) {
+			histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+		for (int counter = 0; counter < 10; counter++) {
+			histogram.record(TimeUnit.MILLISECONDS.toNanos(100));
+		}
+		
+		Assert.assertEquals(histogram.getCount(), 100);
+		Assert.assertEquals(histogram.getMeanMillis(), 10.9, 1e-9);
+		Assert.assertEquals(histogram.getMaxMillis(), 100, 0);
+		Assert.assertTrue(histogram.getP50Millis() >= 1 && histogram.getP50Millis() < 2);
+		Assert.assertTrue(histogram.getP90Millis() >= 1 && histogram.getP90Millis() < 2);
+		Assert.assertEquals(histogram.getP99Millis(), 100, 0);
+		
+		histogram.reset();
+		Assert.assertEquals(histogram.getCount(), 0);
+	}
+}
@@ -0,0 +1,156 @@
+package com.vasileiou.trade.common;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vasileiou.trade.enums.BuyOrSell;
+
+/**
+ * Various test cases for the moving totals of a window of days
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class RollingWindowTotalsTest {
+	
+	private static final int DAYS = 60;
+	private static final int ENTITIES = 30;
+	
+	/**
+	 * Given amounts of settlement days in random order when updating the moving
+	 * totals then they should be the sums over the days of every window
+	 */
+	@Test
+	public void givenRandomDaysWhenUpdatingThenSameAsSumOfWindow() {
+		Random random = new Random(11);
+		int firstDay = Utils.toEpochDay(2017, 5, 1);
+		int[] entityIds = new int[ENTITIES];
+		for (int entity = 0; entity < ENTITIES; entity++) {
+			entityIds[entity] = SymbolDictionary.getSharedEntities().encode("rolling" + entity);
+		}
+		
+		for (int windowDays : new int[] { 1, 5, 20 }) {
+			RollingWindowTotals rollingTotals = new RollingWindowTotals(windowDays);
+			double[][] amountsPerDay = new double[2][DAYS];
+			double[][][] amountsPerEntity = new double[2][ENTITIES][DAYS];
+			int lastDay = -1;
+			
+			for (int amount = 0; amount < 5000; amount++) {
+				int day = random.nextInt(DAYS);
+				int side = random.nextInt(2);
+				int entity = random.nextInt(ENTITIES);
+				rollingTotals.add(entityIds[entity], BuyOrSell.values()[side], firstDay + day, amount % 100);
+				amountsPerDay[side][day] += amount % 100;
+				amountsPerEntity[side][entity][day] += amount % 100;
+				lastDay = Math.max(lastDay, day);
+			}
+			
+			for (int side = 0; side < 2; side++) {
+				for (int day = 0; day < DAYS; day++) {
+					double expected = 0;
+					for (int windowDay = Math.max(day - windowDays + 1, 0); windowDay <= day; windowDay++) {
+						expected += amountsPerDay[side][windowDay];
+					}
+					Assert.assertEquals(rollingTotals.getMovingTotal(BuyOrSell.values()[side], firstDay + day),
+							expected, 1e-6);
+				}
+				for (int entity = 0; entity < ENTITIES; entity++) {
+					double expected = 0;
+					for (int windowDay = lastDay - windowDays + 1; windowDay <= lastDay; windowDay++) {
+						expected += amountsPerEntity[side][entity][windowDay];
+					}
+					Assert.assertEquals(rollingTotals.getEntityTotal(BuyOrSell.values()[side], entityIds[entity]),
+							expected, 1e-6);
+				}
+			}
+			Assert.assertEquals(rollingTotals.getLastEpochDay(), firstDay + lastDay);
+		}
+	}
+	
+	/**
+	 * Given a window moving past all its days when ranking the entities then
+	 * only the entities of the new days should be ranked
+	 */
+	@Test
+	public void givenWindowMovedPastAllDaysWhenRankingThenOnlyNewEntities() {
+		int firstDay = Utils.toEpochDay(2017, 5, 1);
+		RollingWindowTotals rollingTotals = new RollingWindowTotals(5);
+		rollingTotals.add(SymbolDictionary.getSharedEntities().encode("old"), BuyOrSell.BUY, firstDay, 0.1);
+		rollingTotals.add(SymbolDictionary.getSharedEntities().encode("old"), BuyOrSell.BUY, firstDay + 1, 0.2);
+		rollingTotals.add(SymbolDictionary.getSharedEntities().encode("new"), BuyOrSell.BUY, firstDay + 30, 7);
+		rollingTotals.add(SymbolDictionary.getSharedEntities().encode("old"), BuyOrSell.BUY, firstDay + 2, 9);
+		
+		Assert.assertEquals(rollingTotals.rankEntities(BuyOrSell.BUY, 10).toRanking().toString(), "{new=7.0}");
+		Assert.assertEquals(rollingTotals.getEntityTotal(BuyOrSell.BUY,
+				SymbolDictionary.getSharedEntities().encode("old")), 0, 0);
+		Assert.assertEquals(rollingTotals.getMovingTotal(BuyOrSell.BUY, firstDay + 2), 9.3, 1e-9);
+	}
+	
+	/**
+	 * Given amounts added in any order between the queries when querying the
+	 * moving totals then they should be the sums of the days added so far
+	 */
+	@Test
+	public void givenQueriesBetweenAddsWhenQueryingThenSameAsSumsSoFar() {
+		int firstDay = Utils.toEpochDay(2017, 5, 1);
+		int entityId = SymbolDictionary.getSharedEntities().encode("interleaved");
+		Random random = new Random(9);
+		RollingWindowTotals rollingTotals = new RollingWindowTotals(7);
+		double[] amountsPerDay = new double[200];
+		
+		for (int amount = 0; amount < 2000; amount++) {
+			int day = 100 + (int) Math.round(random.nextGaussian() * 30);
+			day = Math.max(0, Math.min(day, amountsPerDay.length - 1));
+			rollingTotals.add(entityId, BuyOrSell.SELL, firstDay + day, amount % 10);
+			amountsPerDay[day] += amount % 10;
+			
+			int queried = random.nextInt(amountsPerDay.length);
+			double expected = 0;
+			for (int windowDay = Math.max(queried - 6, 0); windowDay <= queried; windowDay++) {
+				expected += amountsPerDay[windowDay];
+			}
+			Assert.assertEquals(rollingTotals.getMovingTotal(BuyOrSell.SELL, firstDay + queried), expected, 1e-9);
+		}
+	}
+	
+	/**
+	 * Given amounts split between moving totals of another entities dictionary
+	 * when merging them then the totals should be exactly the ones of adding all the amounts to one
+	 */
+	@Test
+	public void givenSplitAmountsWhenMergingThenSameAsSingleTotals() {
+		Random random = new Random(17);
+		int firstDay = Utils.toEpochDay(2017, 5, 1);
+		SymbolDictionary otherEntities = new SymbolDictionary();
+		RollingWindowTotals single = new RollingWindowTotals(5);
+		RollingWindowTotals earlier = new RollingWindowTotals(5);
+		RollingWindowTotals later = new RollingWindowTotals(otherEntities, 5);
+		
+		for (int amount = 0; amount < 3000; amount++) {
+			int day = firstDay + random.nextInt(DAYS);
+			BuyOrSell buyOrSell = BuyOrSell.values()[random.nextInt(2)];
+			String entity = "merged" + random.nextInt(ENTITIES);
+			double value = random.nextInt(100000) / 100d;
+			single.add(SymbolDictionary.getSharedEntities().encode(entity), buyOrSell, day, value);
+			if (amount % 2 == 0) {
+				earlier.add(SymbolDictionary.getSharedEntities().encode(entity), buyOrSell, day, value);
+			} else {
+				later.add(otherEntities.encode(entity), buyOrSell, day, value);
+			}
+		}
+		earlier.merge(later);
+		
+		Assert.assertEquals(earlier.getFirstEpochDay(), single.getFirstEpochDay());
+		Assert.assertEquals(earlier.getLastEpochDay(), single.getLastEpochDay());
+		for (BuyOrSell buyOrSell : BuyOrSell.values()) {
+			for (int day = single.getFirstEpochDay(); day <= single.getLastEpochDay(); day++) {
+				Assert.assertEquals(earlier.getScaledMovingTotal(buyOrSell, day), single.getScaledMovingTotal(
+						buyOrSell, day));
+			}
+			Assert.assertEquals(earlier.rankEntities(buyOrSell, ENTITIES).toRanking(), single.rankEntities(buyOrSell,
+					ENTITIES).toRanking());
+		}
+	}
+}
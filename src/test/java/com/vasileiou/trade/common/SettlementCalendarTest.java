@@ -0,0 +1,87 @@
+package com.vasileiou.trade.common;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Various test cases for the settlement calendar
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class SettlementCalendarTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	/**
+	 * Given currencies without holidays when checking days then only the
+	 * weekends of the currencies should be non working days
+	 */
+	@Test
+	public void givenNoHolidaysWhenCheckingDaysThenOnlyWeekendsAreSkipped() throws IOException {
+		SettlementCalendar calendar = new SettlementCalendar(temporaryFolder.getRoot().toPath());
+		int friday = Utils.parseEpochDay("19 May 2017");
+		
+		Assert.assertTrue(calendar.isWorkingDay("EUR", friday));
+		Assert.assertFalse(calendar.isWorkingDay("EUR", friday + 1));
+		Assert.assertEquals(calendar.nextWorkingDay("EUR", friday + 1), friday + 3);
+		Assert.assertFalse(calendar.isWorkingDay("AED", friday));
+		Assert.assertEquals(calendar.nextWorkingDay("SAR", friday), friday + 2);
+		Assert.assertEquals(calendar.nextWorkingDay(null, friday + 2), friday + 3);
+	}
+	
+	/**
+	 * Given a holidays file when correcting days then the holidays and the
+	 * weekend of the file should be skipped, even across years
+	 */
+	@Test
+	public void givenHolidaysFileWhenCorrectingDaysThenHolidaysAreSkipped() throws IOException {
+		Path directory = temporaryFolder.getRoot().toPath();
+		Files.write(directory.resolve("GBP.txt"), ("# Christmas and new year\n" + "25 Dec 2017\n" + "26 Dec 2017\n"
+				+ "\n" + "01 Jan 2018\n" + "wrong date\n").getBytes(StandardCharsets.UTF_8));
+		Files.write(directory.resolve("XYZ.txt"), ("weekend Sunday Monday\n").getBytes(StandardCharsets.UTF_8));
+		
+		SettlementCalendar calendar = new SettlementCalendar(directory);
+		
+		Assert.assertFalse(calendar.isWorkingDay("GBP", Utils.parseEpochDay("25 Dec 2017")));
+		Assert.assertEquals(calendar.nextWorkingDay("GBP", Utils.parseEpochDay("23 Dec 2017")),
+				Utils.parseEpochDay("27 Dec 2017"));
+		Assert.assertEquals(calendar.nextWorkingDay("GBP", Utils.parseEpochDay("30 Dec 2017")),
+				Utils.parseEpochDay("02 Jan 2018"));
+		Assert.assertTrue(calendar.isWorkingDay("EUR", Utils.parseEpochDay("26 Dec 2017")));
+		Assert.assertTrue(calendar.isWorkingDay("XYZ", Utils.parseEpochDay("23 Dec 2017")));
+		Assert.assertEquals(calendar.nextWorkingDay("XYZ", Utils.parseEpochDay("24 Dec 2017")),
+				Utils.parseEpochDay("26 Dec 2017"));
+	}
+	
+	/**
+	 * Given days inside and outside of the precomputed years when correcting
+	 * them then the outcome should match a day by day scan
+	 */
+	@Test
+	public void givenDaysOfManyYearsWhenCorrectingThenSameAsScanning() {
+		SettlementCalendar calendar = new SettlementCalendar(temporaryFolder.getRoot().toPath());
+		int firstDay = Utils.toEpochDay(Constants.CALENDAR_FIRST_YEAR - 2, 1, 1);
+		int lastDay = Utils.toEpochDay(Constants.CALENDAR_LAST_YEAR + 2, 12, 31);
+		
+		for (int epochDay = firstDay; epochDay <= lastDay; epochDay++) {
+			int dayOfWeek = Utils.dayOfWeek(epochDay);
+			int expectedDay = epochDay;
+			while (Constants.CALENDAR_COMMON_WEEKEND.contains(Utils.dayOfWeek(expectedDay))) {
+				expectedDay++;
+			}
+			
+			Assert.assertEquals(calendar.isWorkingDay("EUR", epochDay),
+					!Constants.CALENDAR_COMMON_WEEKEND.contains(dayOfWeek));
+			Assert.assertEquals(calendar.nextWorkingDay("EUR", epochDay), expectedDay);
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com.vasileiou.trade.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vasileiou.trade.controllers.Parser;
+import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.Status;
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.ValidatedData;
+
+/**
+ * Various test cases for the totals of date ranges
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class SettlementIndexTest {
+	
+	private static final int DAYS = 90;
+	
+	/**
+	 * Given instructions parsed in parallel when querying random date ranges
+	 * then the totals should be the sums of the valid instructions settling within them
+	 */
+	@Test
+	public void givenParsedInstructionsWhenQueryingRangesThenSameAsSumOfInstructions() {
+		int firstDay = Utils.toEpochDay(2017, 5, 1);
+		InstructionGenerator generator = new InstructionGenerator(21, 40, firstDay, DAYS);
+		generator.setInvalidRatio(0.05);
+		List<Instruction> instructions = generator.stream(20000).collect(Collectors.toList());
+		
+		ValidatedData validatedData = Parser.parseInstructions(instructions, 4);
+		SettlementIndex settlementIndex = validatedData.getSettlementIndex();
+		
+		Random random = new Random(5);
+		for (int query = 0; query < 200; query++) {
+			int from = firstDay - 5 + random.nextInt(DAYS + 10);
+			int to = from + random.nextInt(DAYS / 2);
+			BuyOrSell buyOrSell = BuyOrSell.values()[random.nextInt(2)];
+			Instruction sample = instructions.get(random.nextInt(instructions.size()));
+			while (sample.getStatus() != Status.VALID) {
+				sample = instructions.get(random.nextInt(instructions.size()));
+			}
+			
+			long total = 0;
+			long entityTotal = 0;
+			long currencyTotal = 0;
+			for (Instruction instruction : instructions) {
+				if (instruction.getStatus() != Status.VALID || instruction.getBuyOrSell() != buyOrSell
+						|| instruction.getSettlementEpochDay() < from || instruction.getSettlementEpochDay() > to)
+					continue;
+				
+				long scaledAmount = FixedPointAmounts.getDefault().toScaled(instruction.getAmountOfTrade());
+				total += scaledAmount;
+				if (instruction.getEntity().equals(sample.getEntity()))
+					entityTotal += scaledAmount;
+				if (instruction.getCurrency().equals(sample.getCurrency()))
+					currencyTotal += scaledAmount;
+			}
+			
+			// The totals are exact whatever the order of the parallel merges
+			Assert.assertEquals(settlementIndex.getScaledTotal(buyOrSell, from, to), total);
+			Assert.assertEquals(settlementIndex.getEntityTotal(buyOrSell, sample.getEntity(), from, to),
+					FixedPointAmounts.getDefault().toAmount(entityTotal), 0);
+			Assert.assertEquals(settlementIndex.getCurrencyTotal(buyOrSell, sample.getCurrency(), from, to),
+					FixedPointAmounts.getDefault().toAmount(currencyTotal), 0);
+		}
+		Assert.assertEquals(settlementIndex.getEntityTotal(BuyOrSell.BUY, "missing entity", firstDay,
+				firstDay + DAYS), 0, 0);
+	}
+	
+	/**
+	 * Given an index of other dictionaries with days added in descending order when
+	 * merging and serializing it then the totals should stay the same
+	 */
+	@Test
+	public void givenIndexOfOtherDictionariesWhenMergingAndSerializingThenSameTotals()
+			throws IOException, ClassNotFoundException {
+		SymbolDictionary entities = new SymbolDictionary();
+		SymbolDictionary currencies = new SymbolDictionary();
+		entities.encode("index first");
+		SettlementIndex settlementIndex = new SettlementIndex(entities, currencies);
+		int lastDay = Utils.toEpochDay(2017, 12, 31);
+		for (int day = 0; day < 500; day++) {
+			settlementIndex.add(entities.encode("index" + day % 7), currencies.encode("USD"), BuyOrSell.SELL,
+					lastDay - day, day);
+		}
+		
+		SettlementIndex merged = new SettlementIndex().merge(settlementIndex);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+			output.writeObject(merged);
+		}
+		SettlementIndex read;
+		try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			read = (SettlementIndex) input.readObject();
+		}
+		
+		for (SettlementIndex index : new SettlementIndex[] { settlementIndex, merged, read }) {
+			Assert.assertEquals(index.getTotal(BuyOrSell.SELL, lastDay - 9, lastDay), 45, 1e-9);
+			Assert.assertEquals(index.getTotal(BuyOrSell.BUY, lastDay - 9, lastDay), 0, 0);
+			Assert.assertEquals(index.getEntityTotal(BuyOrSell.SELL, "index3", lastDay - 20, lastDay), 3 + 10 + 17,
+					1e-9);
+			Assert.assertEquals(index.getCurrencyTotal(BuyOrSell.SELL, "USD", lastDay - 499, lastDay), 499 * 500 / 2,
+					1e-6);
+		}
+		Assert.assertEquals(read.size(), settlementIndex.size());
+	}
+	
+	/**
+	 * Given a date range index merged again and again when querying every day
+	 * then the amounts should stay exact instead of drifting with every merge
+	 */
+	@Test
+	public void givenRepeatedMergesWhenQueryingDaysThenExactAmounts() {
+		int firstDay = Utils.toEpochDay(2017, 5, 1);
+		SettlementIndex settlementIndex = new SettlementIndex();
+		for (int day = DAYS - 1; day >= 0; day--) {
+			settlementIndex.add(-1, -1, BuyOrSell.BUY, firstDay + day, 0.1 + day / 1000d);
+		}
+		
+		SettlementIndex merged = settlementIndex;
+		for (int merge = 0; merge < 50; merge++) {
+			merged = new SettlementIndex().merge(merged);
+		}
+		
+		for (int day = 0; day < DAYS; day++) {
+			long expected = FixedPointAmounts.getDefault().toScaled(0.1 + day / 1000d);
+			Assert.assertEquals(merged.getScaledTotal(BuyOrSell.BUY, firstDay + day, firstDay + day), expected);
+		}
+		Assert.assertEquals(merged.getScaledTotal(BuyOrSell.BUY, firstDay, firstDay + DAYS - 1),
+				settlementIndex.getScaledTotal(BuyOrSell.BUY, firstDay, firstDay + DAYS - 1));
+	}
+}
@@ -0,0 +1,71 @@
+package com.vasileiou.trade.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Various test cases for the symbol dictionary
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class SymbolDictionaryTest {
+	
+	/**
+	 * Given symbols when encoding them then they should get dense identifiers
+	 * resolving back to the same symbols
+	 */
+	@Test
+	public void givenSymbolsWhenEncodingThenDenseIdentifiers() {
+		SymbolDictionary dictionary = new SymbolDictionary();
+		
+		Assert.assertEquals(dictionary.encode("foo"), 0);
+		Assert.assertEquals(dictionary.encode("bar"), 1);
+		Assert.assertEquals(dictionary.encode("foo"), 0);
+		Assert.assertEquals(dictionary.encode(null), SymbolDictionary.MISSING_ID);
+		Assert.assertEquals(dictionary.find("baz"), SymbolDictionary.MISSING_ID);
+		Assert.assertEquals(dictionary.decode(1), "bar");
+		Assert.assertNull(dictionary.decode(SymbolDictionary.MISSING_ID));
+		Assert.assertEquals(dictionary.size(), 2);
+	}
+	
+	/**
+	 * Given many threads when encoding the same symbols concurrently then every
+	 * symbol should get a single identifier
+	 */
+	@Test
+	public void givenManyThreadsWhenEncodingConcurrentlyThenSingleIdentifierPerSymbol() throws Exception {
+		SymbolDictionary dictionary = new SymbolDictionary();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<int[]>> results = new ArrayList<>();
+		
+		try {
+			for (int thread = 0; thread < 4; thread++) {
+				results.add(executor.submit(() -> {
+					int[] identifiers = new int[5000];
+					for (int symbol = 0; symbol < identifiers.length; symbol++) {
+						identifiers[symbol] = dictionary.encode("entity" + symbol);
+					}
+					return identifiers;
+				}));
+			}
+			
+			int[] expected = results.get(0).get();
+			for (Future<int[]> result : results) {
+				Assert.assertArrayEquals(result.get(), expected);
+			}
+			for (int symbol = 0; symbol < expected.length; symbol++) {
+				Assert.assertEquals(dictionary.decode(expected[symbol]), "entity" + symbol);
+			}
+			Assert.assertEquals(dictionary.size(), 5000);
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
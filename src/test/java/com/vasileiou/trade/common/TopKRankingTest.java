@@ -0,0 +1,101 @@
+package com.vasileiou.trade.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Various test cases for the bounded top K ranking
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class TopKRankingTest {
+	
+	/**
+	 * Given entities with equal amounts when ranking them then they should be
+	 * ranked by their name
+	 */
+	@Test
+	public void givenEqualAmountsWhenRankingThenRankedByName() {
+		HashMap<String, Double> amounts = new HashMap<>();
+		amounts.put("delta", 10d);
+		amounts.put("bravo", 20d);
+		amounts.put("charlie", 10d);
+		amounts.put("alpha", 10d);
+		
+		LinkedHashMap<String, Double> ranking = TopKRanking.of(amounts, 3).toRanking();
+		
+		Assert.assertEquals(new ArrayList<>(ranking.keySet()), Arrays.asList("bravo", "alpha", "charlie"));
+		Assert.assertEquals(TopKRanking.of(amounts, 0).size(), 0);
+		Assert.assertEquals(TopKRanking.of(amounts, 10).size(), 4);
+	}
+	
+	/**
+	 * Given random amounts when keeping the top K then they should be the
+	 * first K entities of the fully sorted ranking
+	 */
+	@Test
+	public void givenRandomAmountsWhenKeepingTopKThenSameAsFullSort() {
+		Random random = new Random(42);
+		HashMap<String, Double> amounts = new HashMap<>();
+		for (int entity = 0; entity < 5000; entity++) {
+			amounts.put("entity" + entity, (double) random.nextInt(1000));
+		}
+		
+		List<String> sorted = new ArrayList<>(amounts.keySet());
+		sorted.sort((first, second) -> amounts.get(first).equals(amounts.get(second)) ? first.compareTo(second)
+				: Double.compare(amounts.get(second), amounts.get(first)));
+		
+		Assert.assertEquals(new ArrayList<>(TopKRanking.of(amounts, 50).toRanking().keySet()), sorted.subList(0, 50));
+	}
+	
+	/**
+	 * Given increasing amounts while streaming by name or by identifier when
+	 * ranking then the top K should be the same as ranking the final amounts
+	 */
+	@Test
+	public void givenIncreasingAmountsWhenStreamingThenSameAsFinalAmounts() {
+		Random random = new Random(7);
+		HashMap<String, Double> maximumAmounts = new HashMap<>();
+		TopKRanking streamingRanking = new TopKRanking(20);
+		SymbolDictionary dictionary = new SymbolDictionary();
+		TopKRanking identifierRanking = new TopKRanking(dictionary, 20);
+		
+		for (int instruction = 0; instruction < 20000; instruction++) {
+			String entity = "entity" + random.nextInt(500);
+			double amount = random.nextInt(100000);
+			Double maximum = maximumAmounts.get(entity);
+			if (maximum == null || amount > maximum) {
+				maximumAmounts.put(entity, amount);
+				streamingRanking.offer(entity, amount);
+				identifierRanking.offer(dictionary.encode(entity), amount);
+			}
+		}
+		
+		Map<String, Double> expected = TopKRanking.of(maximumAmounts, 20).toRanking();
+		Assert.assertEquals(new ArrayList<>(streamingRanking.toRanking().entrySet()),
+				new ArrayList<>(expected.entrySet()));
+		Assert.assertEquals(new ArrayList<>(identifierRanking.toRanking().entrySet()),
+				new ArrayList<>(expected.entrySet()));
+	}
+	
+	/**
+	 * Given a ranking of a map when offering another amount then it should
+	 * fail, as the entities of the map are not tracked for updates
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void givenMapRankingWhenOfferingThenFail() {
+		HashMap<String, Double> amounts = new HashMap<>();
+		amounts.put("alpha", 10d);
+		
+		TopKRanking.of(amounts, 3).offer("alpha", 20d);
+	}
+}
@@ -177,4 +177,77 @@ public class UtilsTest {
 		Assert.assertEquals(Utils.calculateAmountOfTrade(150.5d, 450L, 0.22d),
 				new Double(14899.5));
 	}
+
+	/**
+	 * Given an epoch day when converting it to a date and back then it should
+	 * be the same epoch day
+	 */
+	@Test
+	public void givenEpochDayWhenConvertingToDateAndBackThenSameEpochDay() {
+		int epochDay = Utils.toEpochDay(Utils.convertStringToDate("19 May 2017"));
+
+		Assert.assertEquals(epochDay, 17305);
+		Assert.assertEquals(Utils.toEpochDay(Utils.toDate(epochDay)), epochDay);
+		Assert.assertEquals(Utils.dayOfWeek(epochDay), Calendar.FRIDAY);
+	}
+
+	/**
+	 * Given epoch days when correcting them then they should move to the next
+	 * working day of the currency
+	 */
+	@Test
+	public void givenEpochDaysWhenCorrectingThenNextWorkingDay() {
+		int friday = Utils.toEpochDay(Utils.convertStringToDate("19 May 2017"));
+
+		Assert.assertEquals(Utils.dateCorrection("EUR", friday), friday);
+		Assert.assertEquals(Utils.dateCorrection("EUR", friday + 1), friday + 3);
+		Assert.assertEquals(Utils.dateCorrection("SAR", friday), friday + 2);
+		Assert.assertFalse(Utils.isWorkingDay("AED", friday));
+	}
+	/**
+	 * Given valid dates when parsing them to epoch days then they should
+	 * match the epoch days of the respective Date objects
+	 */
+	@Test
+	public void givenValidDatesWhenParsingToEpochDaysThenCorrectEpochDays() {
+		Assert.assertEquals(Utils.parseEpochDay("19 May 2017"), 17305);
+		Assert.assertEquals(Utils.parseEpochDay("9 may 2017"), 17295);
+		Assert.assertEquals(Utils.parseEpochDay("19 September 2017"), Utils.toEpochDay(2017, 9, 19));
+		Assert.assertEquals(Utils.parseEpochDay("29 Feb 2016"), Utils.toEpochDay(2016, 2, 29));
+		Assert.assertEquals(Utils.parseEpochDay("01 Jan 1970"), 0);
+		Assert.assertEquals(Utils.parseEpochDay("31 Dec 1969"), -1);
+	}
+	
+	/**
+	 * Given invalid dates when parsing them to epoch days then they should
+	 * be marked as invalid
+	 */
+	@Test
+	public void givenInvalidDatesWhenParsingToEpochDaysThenInvalid() {
+		Assert.assertEquals(Utils.parseEpochDay("32 May 2017"), Constants.INVALID_EPOCH_DAY);
+		Assert.assertEquals(Utils.parseEpochDay("29 Feb 2017"), Constants.INVALID_EPOCH_DAY);
+		Assert.assertEquals(Utils.parseEpochDay("19 Mai 2017"), Constants.INVALID_EPOCH_DAY);
+		Assert.assertEquals(Utils.parseEpochDay("19 May 17"), Constants.INVALID_EPOCH_DAY);
+		Assert.assertEquals(Utils.parseEpochDay("19-May-2017"), Constants.INVALID_EPOCH_DAY);
+		Assert.assertEquals(Utils.parseEpochDay("test"), Constants.INVALID_EPOCH_DAY);
+		Assert.assertEquals(Utils.parseEpochDay(""), Constants.INVALID_EPOCH_DAY);
+	}
+	
+	/**
+	 * Given epoch days when formatting them then they should be in the
+	 * predefined format and parse back to the same epoch days
+	 */
+	@Test
+	public void givenEpochDaysWhenFormattingThenPredefinedFormat() {
+		Assert.assertEquals(Utils.formatEpochDay(17305), "19 May 2017");
+		Assert.assertEquals(Utils.formatEpochDay(Utils.toEpochDay(2016, 2, 29)), "29 Feb 2016");
+		Assert.assertEquals(Utils.formatEpochDay(0), "01 Jan 1970");
+		Assert.assertEquals(Utils.appendIsoEpochDay(new StringBuilder(), Utils.toEpochDay(2016, 2, 29)).toString(),
+				"2016-02-29");
+		
+		for (int epochDay = -1000; epochDay < 30000; epochDay++) {
+			Assert.assertEquals(Utils.parseEpochDay(Utils.formatEpochDay(epochDay)), epochDay);
+		}
+	}
+
 }
@@ -0,0 +1,237 @@
+package com.vasileiou.trade.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.vasileiou.trade.controllers.Parser;
+import com.vasileiou.trade.controllers.ReportGeneratorImpl;
+import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.CubeDimension;
+import com.vasileiou.trade.enums.RankingMode;
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.ValidatedData;
+
+/**
+ * Various test cases for the snapshots of the aggregated data
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class ValidatedDataSnapshotTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	/**
+	 * Given parsed instructions when writing and reading a snapshot with the
+	 * instructions then the reports should be the same as the original ones
+	 */
+	@Test
+	public void givenParsedWhenRestoringSnapshotThenSameReports() throws IOException {
+		InstructionGenerator generator = new InstructionGenerator(21, 500, Utils.toEpochDay(2017, 5, 1), 60);
+		generator.setInvalidRatio(0.02);
+		List<Instruction> instructions = generator.stream(20000).collect(Collectors.toList());
+		ValidatedData validatedData = Parser.parseInstructions(instructions);
+		Path file = temporaryFolder.getRoot().toPath().resolve("trade.snapshot");
+		
+		ValidatedDataSnapshot.write(validatedData, file, true);
+		ValidatedData restored = ValidatedDataSnapshot.read(file);
+		ReportGeneratorImpl reportGenerator = new ReportGeneratorImpl();
+		
+		for (BuyOrSell buyOrSell : BuyOrSell.values()) {
+			Assert.assertEquals(reportGenerator.generateEpochDailyReport(restored.getInstructionsPerEpochDay(),
+					buyOrSell).toString(), reportGenerator.generateEpochDailyReport(
+							validatedData.getInstructionsPerEpochDay(), buyOrSell).toString());
+			Assert.assertEquals(reportGenerator.generateDailyAmountsReport(restored.getAmountsPerEpochDay(),
+					buyOrSell).toString(), reportGenerator.generateDailyAmountsReport(
+							validatedData.getAmountsPerEpochDay(), buyOrSell).toString());
+		}
+		for (RankingMode rankingMode : RankingMode.values()) {
+			Assert.assertEquals(restored.getOutgoingEntityStatistics().toMap(rankingMode),
+					validatedData.getOutgoingEntityStatistics().toMap(rankingMode));
+			Assert.assertEquals(restored.getIncomingEntityStatistics().toMap(rankingMode),
+					validatedData.getIncomingEntityStatistics().toMap(rankingMode));
+		}
+		for (Map.Entry<Integer, List<Instruction>> dayEntry : validatedData.getInstructionsPerEpochDay().entrySet()) {
+			for (int index = 0; index < dayEntry.getValue().size(); index++) {
+				Instruction expected = dayEntry.getValue().get(index);
+				Instruction actual = restored.getInstructionsPerEpochDay().get(dayEntry.getKey()).get(index);
+				Assert.assertEquals(InstructionLineCodec.encode(actual, new StringBuilder()).toString(),
+						InstructionLineCodec.encode(expected, new StringBuilder()).toString());
+				Assert.assertEquals(actual.getInitialSettlementEpochDay(), expected.getInitialSettlementEpochDay());
+			}
+		}
+		try (Stream<Path> files = Files.list(file.getParent())) {
+			Assert.assertEquals(files.collect(Collectors.toList()), Collections.singletonList(file));
+		}
+	}
+	
+	/**
+	 * Given a snapshot without instructions when reading it then only the
+	 * aggregates should be restored, and a file of another format should fail
+	 */
+	@Test
+	public void givenSnapshotWithoutInstructionsWhenReadingThenOnlyAggregates() throws IOException {
+		InstructionGenerator generator = new InstructionGenerator(22, 50, Utils.toEpochDay(2017, 5, 1), 10);
+		ValidatedData validatedData = Parser.parseInstructions(generator.iterator(5000), false);
+		Path file = temporaryFolder.newFile().toPath();
+		
+		ValidatedDataSnapshot.write(validatedData, file, false);
+		ValidatedData restored = ValidatedDataSnapshot.read(file);
+		
+		Assert.assertEquals(restored.getInstructionsPerEpochDay().size(), 0);
+		Assert.assertEquals(restored.getAmountsPerEpochDay().keySet(), validatedData.getAmountsPerEpochDay().keySet());
+		Assert.assertEquals(restored.getIncomingEntitiesMax(), validatedData.getIncomingEntitiesMax());
+		for (Integer windowDays : validatedData.getRollingTotalsPerWindow().keySet()) {
+			Assert.assertEquals(new ReportGeneratorImpl().generateRollingReport(restored.getRollingTotalsPerWindow()
+					.get(windowDays), BuyOrSell.SELL, 20).toString(), new ReportGeneratorImpl().generateRollingReport(
+							validatedData.getRollingTotalsPerWindow().get(windowDays), BuyOrSell.SELL, 20).toString());
+		}
+		
+		generator.writeTo(file, 10);
+		try {
+			ValidatedDataSnapshot.read(file);
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertTrue(e.getMessage().startsWith("Not a snapshot file"));
+		}
+	}
+	
+	/**
+	 * Given a snapshot without instructions when querying the date range index and
+	 * the cube then they should give the same totals per entity and currency as before
+	 */
+	@Test
+	public void givenSnapshotWithoutInstructionsWhenQueryingIndexAndCubeThenSameTotals() throws IOException {
+		int firstDay = Utils.toEpochDay(2017, 5, 1);
+		InstructionGenerator generator = new InstructionGenerator(23, 50, firstDay, 10);
+		List<Instruction> instructions = generator.stream(5000).collect(Collectors.toList());
+		ValidatedData validatedData = Parser.parseInstructions(instructions, 2);
+		Path file = temporaryFolder.newFile().toPath();
+		
+		ValidatedDataSnapshot.write(validatedData, file, false);
+		ValidatedData restored = ValidatedDataSnapshot.read(file);
+		
+		SettlementIndex expectedIndex = validatedData.getSettlementIndex();
+		SettlementIndex restoredIndex = restored.getSettlementIndex();
+		AggregationCube expectedCube = validatedData.getAggregationCube();
+		AggregationCube restoredCube = restored.getAggregationCube();
+		for (Instruction instruction : instructions.subList(0, 100)) {
+			for (BuyOrSell buyOrSell : BuyOrSell.values()) {
+				Assert.assertEquals(restoredIndex.getEntityTotal(buyOrSell, instruction.getEntity(), firstDay,
+						firstDay + 20), expectedIndex.getEntityTotal(buyOrSell, instruction.getEntity(), firstDay,
+								firstDay + 20), 0);
+				Assert.assertEquals(restoredIndex.getCurrencyTotal(buyOrSell, instruction.getCurrency(), firstDay,
+						firstDay + 5), expectedIndex.getCurrencyTotal(buyOrSell, instruction.getCurrency(), firstDay,
+								firstDay + 5), 0);
+				Assert.assertEquals(restoredCube.getScaledTotal(Constants.MISSING_EPOCH_DAY, buyOrSell,
+						instruction.getCurrency(), instruction.getEntity()), expectedCube.getScaledTotal(
+								Constants.MISSING_EPOCH_DAY, buyOrSell, instruction.getCurrency(),
+								instruction.getEntity()));
+			}
+		}
+		Assert.assertTrue(restoredIndex.getEntityTotal(BuyOrSell.BUY, instructions.get(0).getEntity(), firstDay,
+				firstDay + 20) > 0);
+		Assert.assertEquals(restoredCube.size(), expectedCube.size());
+		Assert.assertEquals(new ReportGeneratorImpl().generateCubeReport(restoredCube, EnumSet.allOf(
+				CubeDimension.class)).toString(), new ReportGeneratorImpl().generateCubeReport(expectedCube, EnumSet
+						.allOf(CubeDimension.class)).toString());
+	}
+	
+	/**
+	 * Given snapshots with corrupted counts of symbols when reading them then
+	 * they should fail as corrupted instead of allocating the counts
+	 */
+	@Test
+	public void givenCorruptedCountsWhenReadingThenCorrupted() throws IOException {
+		InstructionGenerator generator = new InstructionGenerator(23, 20, Utils.toEpochDay(2017, 5, 1), 10);
+		ValidatedData validatedData = Parser.parseInstructions(generator.iterator(100), false);
+		Path file = temporaryFolder.newFile().toPath();
+		ValidatedDataSnapshot.write(validatedData, file, false);
+		byte[] snapshot = Files.readAllBytes(file);
+		
+		for (int count : new int[] { -1, Integer.MAX_VALUE }) {
+			ByteBuffer.wrap(snapshot).order(ByteOrder.LITTLE_ENDIAN).putInt(Constants.SNAPSHOT_HEADER_SIZE, count);
+			Files.write(file, snapshot);
+			try {
+				ValidatedDataSnapshot.read(file);
+				Assert.fail();
+			} catch (IOException e) {
+				Assert.assertTrue(e.getMessage().startsWith("Corrupted snapshot file"));
+			}
+		}
+	}
+	
+	/**
+	 * Given a snapshot written with other decimals of the fixed-point amounts
+	 * when reading it then it should fail instead of scaling the amounts wrongly
+	 */
+	@Test
+	public void givenOtherAmountDecimalsWhenReadingThenFail() throws IOException {
+		InstructionGenerator generator = new InstructionGenerator(25, 20, Utils.toEpochDay(2017, 5, 1), 10);
+		ValidatedData validatedData = Parser.parseInstructions(generator.iterator(100), false);
+		Path file = temporaryFolder.newFile().toPath();
+		ValidatedDataSnapshot.write(validatedData, file, false);
+		byte[] snapshot = Files.readAllBytes(file);
+		
+		ByteBuffer.wrap(snapshot).order(ByteOrder.LITTLE_ENDIAN).putInt(Constants.SNAPSHOT_DECIMALS_OFFSET,
+				FixedPointAmounts.getDefault().getDecimals() + 1);
+		Files.write(file, snapshot);
+		try {
+			ValidatedDataSnapshot.read(file);
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertTrue(e.getMessage().startsWith("Snapshot amounts have"));
+		}
+	}
+	
+	/**
+	 * Given concurrent writers of the same snapshot when writing then every
+	 * snapshot should be complete and no temporary file should be left
+	 */
+	@Test
+	public void givenConcurrentWritersWhenWritingThenCompleteSnapshot() throws Exception {
+		InstructionGenerator generator = new InstructionGenerator(24, 100, Utils.toEpochDay(2017, 5, 1), 30);
+		ValidatedData validatedData = Parser.parseInstructions(generator.stream(20000).collect(Collectors.toList()));
+		Path file = temporaryFolder.getRoot().toPath().resolve("concurrent.snapshot");
+		
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<ValidatedData>> results = new ArrayList<>();
+			for (int writer = 0; writer < 8; writer++) {
+				results.add(executor.submit(() -> {
+					ValidatedDataSnapshot.write(validatedData, file, true);
+					return ValidatedDataSnapshot.read(file);
+				}));
+			}
+			for (Future<ValidatedData> result : results) {
+				Assert.assertEquals(result.get().getAmountsPerEpochDay().keySet(),
+						validatedData.getAmountsPerEpochDay().keySet());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		
+		try (Stream<Path> files = Files.list(file.getParent())) {
+			Assert.assertEquals(files.collect(Collectors.toList()), Collections.singletonList(file));
+		}
+	}
+}
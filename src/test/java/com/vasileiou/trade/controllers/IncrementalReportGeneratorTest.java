@@ -0,0 +1,107 @@
+package com.vasileiou.trade.controllers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vasileiou.trade.common.Constants;
+import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.ValidatedData;
+
+/**
+ * Various test cases for the incremental report generator
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class IncrementalReportGeneratorTest {
+	
+	/**
+	 * Given no instructions when generating reports incrementally then no
+	 * instructions available constant will be displayed
+	 */
+	@Test
+	public void givenNoInstructionsWhenGeneratingIncrementallyThenNothingToShow() {
+		IncrementalReportGenerator generator = new IncrementalReportGenerator(false);
+		
+		Assert.assertEquals(generator.generateDailyReport(BuyOrSell.BUY).toString(),
+				Constants.NO_INSTRUCTIONS_AVAILABLE);
+		Assert.assertEquals(generator.generateRanking(BuyOrSell.SELL).toString(),
+				Constants.NO_INSTRUCTIONS_AVAILABLE);
+	}
+	
+	/**
+	 * Given instructions arriving in batches when generating reports after
+	 * every batch then they should be the same as parsing all the instructions
+	 * given so far from scratch
+	 */
+	@Test
+	public void givenInstructionBatchesWhenGeneratingIncrementallyThenSameAsFullParsing() {
+		List<Instruction> morning = new ArrayList<>();
+		morning.add(new Instruction("entity1", "B", 0.22d, "EUR", "18 May 2017", "20 May 2017", 100L, 20d));
+		morning.add(new Instruction("entity2", "S", 0.24d, "AED", "19 May 2017", "24 May 2017", 100L, 17d));
+		morning.add(new Instruction("entity3", "B", 0.24d, "EUR", "19 May 2017", "24 May 2017", 100L, 19d));
+		
+		List<Instruction> afternoon = new ArrayList<>();
+		afternoon.add(new Instruction("entity1", "B", 0.5d, "EUR", "19 May 2017", "26 May 2017", 100L, 19d));
+		afternoon.add(new Instruction("entity2", "S", 0.5d, "SGP", "19 May 2017", "23 May 2017", 10L, 17d));
+		afternoon.add(new Instruction("entity4", "S", 0.5d, "SGP", "19 May 2017", "wrong date", 10L, 17d));
+		
+		IncrementalReportGenerator generator = new IncrementalReportGenerator(false);
+		ReportGeneratorImpl reportGenerator = new ReportGeneratorImpl();
+		List<Instruction> received = new ArrayList<>();
+		
+		for (List<Instruction> batch : Arrays.asList(morning, afternoon)) {
+			batch.forEach(generator);
+			received.addAll(batch);
+			ValidatedData validatedData = Parser.parseInstructions(received);
+			
+			for (BuyOrSell buyOrSell : BuyOrSell.values()) {
+				Assert.assertEquals(generator.generateDailyReport(buyOrSell).toString(),
+						reportGenerator.generateEpochDailyReport(validatedData.getInstructionsPerEpochDay(), buyOrSell)
+								.toString());
+			}
+			Assert.assertEquals(generator.generateRanking(BuyOrSell.BUY).toString(),
+					reportGenerator.generateRanking(validatedData.getOutgoingEntitiesMax(), BuyOrSell.BUY).toString());
+			Assert.assertEquals(generator.generateRanking(BuyOrSell.SELL).toString(),
+					reportGenerator.generateRanking(validatedData.getIncomingEntitiesMax(), BuyOrSell.SELL).toString());
+		}
+	}
+	
+	/**
+	 * Given instructions arriving out of date order when generating CSV reports
+	 * incrementally then they should be the same as the reports of the renderer
+	 * after parsing all the instructions given so far
+	 */
+	@Test
+	public void givenCsvRendererWhenGeneratingIncrementallyThenSameAsFullParsing() {
+		List<Instruction> instructions = new ArrayList<>();
+		instructions.add(new Instruction("entity1", "B", 0.22d, "EUR", "18 May 2017", "24 May 2017", 100L, 20d));
+		instructions.add(new Instruction("entity2", "S", 0.24d, "AED", "19 May 2017", "30 May 2017", 100L, 17d));
+		instructions.add(new Instruction("entity3", "B", 0.24d, "EUR", "19 May 2017", "18 May 2017", 100L, 19d));
+		instructions.add(new Instruction("entity1", "S", 0.5d, "EUR", "19 May 2017", "26 May 2017", 100L, 19d));
+		
+		IncrementalReportGenerator generator = new IncrementalReportGenerator(false, 10, CsvReportRenderer.INSTANCE);
+		ReportGeneratorImpl reportGenerator = new ReportGeneratorImpl(CsvReportRenderer.INSTANCE);
+		List<Instruction> received = new ArrayList<>();
+		
+		for (Instruction instruction : instructions) {
+			generator.accept(instruction);
+			received.add(instruction);
+			ValidatedData validatedData = Parser.parseInstructions(received);
+			
+			for (BuyOrSell buyOrSell : BuyOrSell.values()) {
+				Assert.assertEquals(generator.generateDailyReport(buyOrSell).toString(),
+						reportGenerator.generateEpochDailyReport(validatedData.getInstructionsPerEpochDay(), buyOrSell)
+								.toString());
+			}
+		}
+		Assert.assertEquals(generator.generateRanking(BuyOrSell.BUY).toString(), reportGenerator
+				.generateRanking(Parser.parseInstructions(received).getOutgoingEntitiesMax(), BuyOrSell.BUY)
+				.toString());
+	}
+}
@@ -0,0 +1,78 @@
+package com.vasileiou.trade.controllers;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vasileiou.trade.common.InstructionGenerator;
+import com.vasileiou.trade.common.Utils;
+import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.RankingMode;
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.ValidatedData;
+
+/**
+ * Various test cases for the pipelined parsing of the instructions
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class InstructionPipelineTest {
+	
+	/**
+	 * Given more batches than the ring buffers hold when parsing them pipelined
+	 * then the reports should be the same as the sequential ones
+	 */
+	@Test
+	public void givenManyBatchesWhenParsingPipelinedThenSameReports() {
+		ReportGeneratorImpl reportGenerator = new ReportGeneratorImpl();
+		ValidatedData expected = Parser.parseInstructions(generateInstructions().iterator(), true);
+		ValidatedData actual = new InstructionPipeline(true, 7, 4).parse(generateInstructions().iterator());
+		
+		Assert.assertEquals(reportGenerator.generateEpochDailyReport(actual.getInstructionsPerEpochDay(),
+				BuyOrSell.BUY).toString(), reportGenerator.generateEpochDailyReport(
+						expected.getInstructionsPerEpochDay(), BuyOrSell.BUY).toString());
+		Assert.assertEquals(reportGenerator.generateStatisticsRanking(actual.getIncomingEntityStatistics(),
+				BuyOrSell.SELL, RankingMode.TOTAL, 100).toString(), reportGenerator.generateStatisticsRanking(
+						expected.getIncomingEntityStatistics(), BuyOrSell.SELL, RankingMode.TOTAL, 100).toString());
+		Assert.assertEquals(reportGenerator.generateRejectionReport(actual.getRejectionSummary()).toString(),
+				reportGenerator.generateRejectionReport(expected.getRejectionSummary()).toString());
+		Assert.assertNull(new InstructionPipeline(false).parse(null));
+	}
+	
+	/**
+	 * Given an input failing in the middle when parsing it pipelined then all
+	 * the stages should stop and nothing should be returned
+	 */
+	@Test(timeout = 10000)
+	public void givenFailingInputWhenParsingPipelinedThenNull() {
+		Iterator<Instruction> instructions = generateInstructions().iterator();
+		Iterator<Instruction> failing = new Iterator<Instruction>() {
+			
+			private int given;
+			
+			@Override
+			public boolean hasNext() {
+				return instructions.hasNext();
+			}
+			
+			@Override
+			public Instruction next() {
+				if (++given == 1000)
+					throw new IllegalStateException("Broken input");
+				return instructions.next();
+			}
+		};
+		
+		Assert.assertNull(new InstructionPipeline(false, 16, 2).parse(failing));
+	}
+	
+	private static List<Instruction> generateInstructions() {
+		InstructionGenerator generator = new InstructionGenerator(23, 200, Utils.toEpochDay(2017, 5, 1), 31);
+		generator.setInvalidRatio(0.05);
+		return generator.stream(20000).collect(Collectors.toList());
+	}
+}
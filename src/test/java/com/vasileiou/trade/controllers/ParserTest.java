@@ -1,14 +1,24 @@
 package com.vasileiou.trade.controllers;
 
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.vasileiou.trade.common.FetcherImpl;
+import com.vasileiou.trade.common.InstructionGenerator;
+import com.vasileiou.trade.common.RejectionSummary;
+import com.vasileiou.trade.common.RollingWindowTotals;
+import com.vasileiou.trade.common.Utils;
 import com.vasileiou.trade.controllers.Parser;
+import com.vasileiou.trade.enums.BuyOrSell;
 import com.vasileiou.trade.enums.Status;
 import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.InstructionStore;
 import com.vasileiou.trade.models.ValidatedData;
 
 /**
@@ -283,4 +293,162 @@ public class ParserTest {
 		Assert.assertEquals(validatedData.getOutgoingEntitiesMax().size(), 0);
 		Assert.assertEquals(instruction1.getStatus(), Status.VALID);
 	}
+
+	/**
+	 * Given two independent copies of a large input of instructions when parsing
+	 * one in parallel then the result should be exactly the same as the sequential parsing
+	 */
+	@Test
+	public void givenLargeInputWhenParsingInParallelThenSameAsSequential() {
+		InstructionGenerator generator = new InstructionGenerator(13, 500, Utils.toEpochDay(2017, 5, 1), 31);
+		generator.setInvalidRatio(0.05);
+
+		List<Instruction> sequentialInstructions = generator.stream(50000).collect(Collectors.toList());
+		List<Instruction> parallelInstructions = generator.stream(50000).collect(Collectors.toList());
+		sequentialInstructions.add(new Instruction("entity1", "P", 0.22d, "EUR", "18 May 2017", "20 May 2017",
+				100L, 20d));
+		parallelInstructions.add(new Instruction("entity1", "P", 0.22d, "EUR", "18 May 2017", "20 May 2017",
+				100L, 20d));
+
+		ValidatedData sequentialData = Parser.parseInstructions(sequentialInstructions);
+		ValidatedData parallelData = Parser.parseInstructions(parallelInstructions, 4);
+
+		Assert.assertEquals(parallelData.getAmountsPerEpochDay().keySet(), sequentialData.getAmountsPerEpochDay()
+				.keySet());
+		for (Integer epochDay : sequentialData.getAmountsPerEpochDay().keySet()) {
+			Assert.assertEquals(parallelData.getAmountsPerEpochDay().get(epochDay).getScaledOutgoingAmount(),
+					sequentialData.getAmountsPerEpochDay().get(epochDay).getScaledOutgoingAmount());
+			Assert.assertEquals(parallelData.getAmountsPerEpochDay().get(epochDay).getScaledIncomingAmount(),
+					sequentialData.getAmountsPerEpochDay().get(epochDay).getScaledIncomingAmount());
+		}
+		Assert.assertEquals(parallelData.getIncomingEntitiesMax(), sequentialData.getIncomingEntitiesMax());
+		Assert.assertEquals(parallelData.getOutgoingEntitiesMax(), sequentialData.getOutgoingEntitiesMax());
+		for (Status status : Status.values()) {
+			Assert.assertEquals(parallelData.getRejectionSummary().getCount(status),
+					sequentialData.getRejectionSummary().getCount(status));
+		}
+		Assert.assertTrue(sequentialData.getRejectionSummary().getCount() > 0);
+		assertSameRollingTotals(parallelData, sequentialData);
+	}
+
+	/**
+	 * Given instructions through an iterator when parsing without retaining
+	 * them then only the aggregated data should be kept
+	 */
+	@Test
+	public void givenIteratorWhenParsingWithoutRetainingThenOnlyAggregates() {
+		List<Instruction> instructions = new ArrayList<>();
+		instructions.add(new Instruction("entity1", "B", 0.22d, "EUR", "18 May 2017", "20 May 2017", 100L, 20d));
+		instructions.add(new Instruction("entity1", "B", 0.24d, "EUR", "18 May 2017", "22 May 2017", 100L, 20d));
+		instructions.add(new Instruction("entity2", "S", 0.24d, "AED", "18 May 2017", "19 May 2017", 100L, 9d));
+		instructions.add(new Instruction("entity3", "S", 0.24d, "AED", "18 May 2017", "17 May 2017", 100L, 9d));
+
+		ValidatedData validatedData = Parser.parseInstructions(instructions.iterator(), false);
+		Assert.assertEquals(validatedData.getInstructionsPerDate().size(), 0);
+		Assert.assertEquals(validatedData.getAmountsPerEpochDay().size(), 2);
+		Assert.assertEquals(validatedData.getOutgoingEntitiesMax().size(), 1);
+		Assert.assertEquals(validatedData.getIncomingEntitiesMax().size(), 1);
+		Assert.assertEquals(validatedData.getAmountsPerEpochDay().get(validatedData.getAmountsPerEpochDay().firstKey())
+				.getIncomingAmount(), 216d, 0d);
+		Assert.assertEquals(validatedData.getAmountsPerEpochDay().get(validatedData.getAmountsPerEpochDay().lastKey())
+				.getOutgoingAmount(), 920d, 0d);
+		Assert.assertEquals(instructions.get(3).getStatus(), Status.INVALID_SETTLEMENT_DATE);
+	}
+
+	/**
+	 * Given null or empty iterator when parsing then it should return null
+	 */
+	@Test
+	public void givenNullOrEmptyIteratorWhenParsingThenIsNull() {
+		Assert.assertNull(Parser.parseInstructions((Iterator<Instruction>) null, false));
+		Assert.assertNull(Parser.parseInstructions(new ArrayList<Instruction>().iterator(), false));
+	}
+
+	/**
+	 * Given a columnar store of instructions when parsing then the aggregated
+	 * data and the statuses should be the same as parsing the objects
+	 */
+	@Test
+	public void givenStoreWhenParsingThenSameAsObjects() {
+		Calendar calendarStart = Calendar.getInstance();
+		calendarStart.set(Calendar.DAY_OF_MONTH, 1);
+		calendarStart.set(Calendar.MONTH, Calendar.MAY);
+		calendarStart.set(Calendar.YEAR, 2017);
+
+		Calendar calendarEnd = Calendar.getInstance();
+		calendarEnd.set(Calendar.DAY_OF_MONTH, 31);
+		calendarEnd.set(Calendar.MONTH, Calendar.MAY);
+		calendarEnd.set(Calendar.YEAR, 2017);
+
+		List<Instruction> instructions = new FetcherImpl().getRandomInstructions(2000, 50, calendarStart, calendarEnd);
+		instructions.add(new Instruction(null, "B", 0.22d, "EUR", "18 May 2017", "20 May 2017", 100L, 20d));
+		instructions.add(new Instruction("entity1", "B", 0.22d, "EUR", "18 May 2017", "17 May 2017", 100L, 20d));
+
+		InstructionStore store = InstructionStore.of(instructions);
+		ValidatedData storeData = Parser.parseStore(store);
+		ValidatedData objectData = Parser.parseInstructions(instructions);
+
+		Assert.assertEquals(storeData.getAmountsPerEpochDay().keySet(), objectData.getAmountsPerEpochDay().keySet());
+		Assert.assertEquals(storeData.getOutgoingEntitiesMax(), objectData.getOutgoingEntitiesMax());
+		Assert.assertEquals(storeData.getIncomingEntitiesMax(), objectData.getIncomingEntitiesMax());
+		assertSameRollingTotals(storeData, objectData);
+		for (int row = 0; row < store.size(); row++) {
+			Instruction view = store.getInstruction(row);
+			Assert.assertEquals(view.getStatus(), instructions.get(row).getStatus());
+			Assert.assertEquals(view.getEntity(), instructions.get(row).getEntity());
+			Assert.assertEquals(view.getFormattedSettlementDate(),
+					instructions.get(row).getFormattedSettlementDate());
+		}
+		Assert.assertNull(Parser.parseStore(new InstructionStore()));
+	}
+	
+	/**
+	 * Given invalid instructions when parsing sequentially, in parallel, as a
+	 * stream or as a store then the same rejections should be summarized
+	 */
+	@Test
+	public void givenInvalidInstructionsWhenParsingThenSameRejectionsSummarized() {
+		InstructionGenerator generator = new InstructionGenerator(5, 200, Utils.toEpochDay(2017, 5, 1), 31);
+		generator.setInvalidRatio(0.1);
+		List<Instruction> instructions = generator.stream(40000).collect(Collectors.toList());
+		
+		RejectionSummary sequential = Parser.parseInstructions(instructions).getRejectionSummary();
+		RejectionSummary parallel = Parser.parseInstructions(instructions, 4).getRejectionSummary();
+		RejectionSummary streamed = Parser.parseInstructions(instructions.iterator(), false).getRejectionSummary();
+		RejectionSummary stored = Parser.parseStore(InstructionStore.of(instructions)).getRejectionSummary();
+		
+		long rejected = instructions.stream().filter(instruction -> instruction.getStatus() != Status.VALID).count();
+		Assert.assertEquals(sequential.getCount(), rejected);
+		Assert.assertEquals(sequential.getCount(Status.VALID), 0);
+		for (Status status : Status.values()) {
+			Assert.assertEquals(parallel.getCount(status), sequential.getCount(status));
+			Assert.assertEquals(streamed.getCount(status), sequential.getCount(status));
+			Assert.assertEquals(stored.getCount(status), sequential.getCount(status));
+			Assert.assertEquals(stored.getScaledAmount(status), sequential.getScaledAmount(status));
+			Assert.assertEquals(parallel.getScaledAmount(status), sequential.getScaledAmount(status));
+			Assert.assertEquals(parallel.getSamples(status), sequential.getSamples(status));
+			Assert.assertTrue(sequential.getSamples(status).size() <= 5);
+		}
+		Assert.assertEquals(parallel.getPerEntity().keySet(), sequential.getPerEntity().keySet());
+		Assert.assertEquals(stored.getPerCurrency().keySet(), sequential.getPerCurrency().keySet());
+		Assert.assertEquals(sequential.getPerEntity().values().stream().mapToLong(RejectionSummary.Totals::getCount)
+				.sum(), rejected);
+	}
+	
+	private static void assertSameRollingTotals(ValidatedData actual, ValidatedData expected) {
+		Assert.assertEquals(actual.getRollingTotalsPerWindow().keySet(), expected.getRollingTotalsPerWindow().keySet());
+		for (Integer windowDays : expected.getRollingTotalsPerWindow().keySet()) {
+			RollingWindowTotals actualTotals = actual.getRollingTotalsPerWindow().get(windowDays);
+			RollingWindowTotals expectedTotals = expected.getRollingTotalsPerWindow().get(windowDays);
+			Assert.assertEquals(actualTotals.getLastEpochDay(), expectedTotals.getLastEpochDay());
+			for (BuyOrSell buyOrSell : BuyOrSell.values()) {
+				for (int day = expectedTotals.getFirstEpochDay(); day <= expectedTotals.getLastEpochDay(); day++) {
+					Assert.assertEquals(actualTotals.getScaledMovingTotal(buyOrSell, day),
+							expectedTotals.getScaledMovingTotal(buyOrSell, day));
+				}
+				Assert.assertEquals(actualTotals.rankEntities(buyOrSell, 1000).toRanking(),
+						expectedTotals.rankEntities(buyOrSell, 1000).toRanking());
+			}
+		}
+	}
 }
@@ -1,21 +1,34 @@
 package com.vasileiou.trade.controllers;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Random;
 import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 import org.hamcrest.CoreMatchers;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.vasileiou.trade.common.AggregationCube;
 import com.vasileiou.trade.common.Constants;
 import com.vasileiou.trade.common.FetcherImpl;
+import com.vasileiou.trade.common.InstructionGenerator;
+import com.vasileiou.trade.common.RollingWindowTotals;
+import com.vasileiou.trade.common.Utils;
 import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.CubeDimension;
+import com.vasileiou.trade.enums.RankingMode;
 import com.vasileiou.trade.interfaces.ReportGenerator;
 import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.InstructionStore;
 import com.vasileiou.trade.models.ValidatedData;
 
 /**
@@ -264,4 +277,269 @@ public class ReportGeneratorTest {
 				expectedOutput);
 
 	}
+
+	/**
+	 * Given valid instructions when generating daily report from the daily
+	 * amounts then it should be the same as the one from the instructions
+	 */
+	@Test
+	public void givenValidWhenGeneratingDailyAmountsReportThenSameAsInstructionsReport() {
+		List<Instruction> instructions = new ArrayList<>();
+		instructions.add(new Instruction("entity1", "B", 0.22d, "EUR", "18 May 2017", "20 May 2017", 100L, 20d));
+		instructions.add(new Instruction("entity2", "S", 0.24d, "AED", "19 May 2017", "24 May 2017", 100L, 17d));
+		instructions.add(new Instruction("entity3", "B", 0.24d, "EUR", "19 May 2017", "24 May 2017", 100L, 19d));
+
+		ValidatedData validatedData = Parser.parseInstructions(instructions);
+
+		for (BuyOrSell buyOrSell : BuyOrSell.values()) {
+			Assert.assertEquals(
+					reportGenerator.generateDailyAmountsReport(validatedData.getAmountsPerEpochDay(), buyOrSell)
+							.toString(),
+					reportGenerator.generateDailyReport(validatedData.getInstructionsPerDate(), buyOrSell).toString());
+		}
+		Assert.assertEquals(reportGenerator.generateDailyAmountsReport(new TreeMap<>(), BuyOrSell.BUY).toString(),
+				Constants.NO_INSTRUCTIONS_AVAILABLE);
+	}
+
+	/**
+	 * Given a parsed columnar store when generating reports from it then they
+	 * should be the same as the ones from the instruction objects
+	 */
+	@Test
+	public void givenStoreWhenGeneratingReportsThenSameAsObjects() {
+		List<Instruction> instructions = new ArrayList<>();
+		instructions.add(new Instruction("entity1", "B", 0.22d, "EUR", "18 May 2017", "20 May 2017", 100L, 20d));
+		instructions.add(new Instruction("entity2", "S", 0.24d, "AED", "19 May 2017", "24 May 2017", 100L, 17d));
+		instructions.add(new Instruction("entity3", "B", 0.24d, "EUR", "19 May 2017", "24 May 2017", 100L, 19d));
+		instructions.add(new Instruction("entity1", "B", 0.5d, "EUR", "19 May 2017", "25 May 2017", 100L, 19d));
+
+		InstructionStore store = InstructionStore.of(instructions);
+		Parser.parseStore(store);
+		ValidatedData validatedData = Parser.parseInstructions(instructions);
+
+		for (BuyOrSell buyOrSell : BuyOrSell.values()) {
+			Assert.assertEquals(reportGenerator.generateDailyReportFromStore(store, buyOrSell).toString(),
+					reportGenerator.generateDailyReport(validatedData.getInstructionsPerDate(), buyOrSell).toString());
+		}
+		Assert.assertEquals(reportGenerator.generateRankingFromStore(store, BuyOrSell.BUY).toString(),
+				reportGenerator.generateRanking(validatedData.getOutgoingEntitiesMax(), BuyOrSell.BUY).toString());
+		Assert.assertEquals(reportGenerator.generateDailyReportFromStore(new InstructionStore(), BuyOrSell.BUY)
+				.toString(), Constants.NO_INSTRUCTIONS_AVAILABLE);
+	}
+	
+	/**
+	 * Given valid instructions when generating a top K ranking then it should
+	 * keep only the first entities of the full ranking
+	 */
+	@Test
+	public void givenValidWhenGeneratingTopKRankingThenFirstEntitiesOfFullRanking() {
+		List<Instruction> instructions = new ArrayList<>();
+		instructions.add(new Instruction("entity1", "B", 0.22d, "EUR", "18 May 2017", "22 May 2017", 100L, 20d));
+		instructions.add(new Instruction("entity2", "B", 0.24d, "EUR", "19 May 2017", "24 May 2017", 100L, 17d));
+		instructions.add(new Instruction("entity3", "B", 0.24d, "EUR", "19 May 2017", "24 May 2017", 100L, 19d));
+		
+		ValidatedData validatedData = Parser.parseInstructions(instructions);
+		
+		Assert.assertEquals(reportGenerator.generateRanking(validatedData.getOutgoingEntitiesMax(), BuyOrSell.BUY, 2)
+				.toString(), Constants.OUTGOING_RANKING_HEADER + Constants.RANKING_REPORT_HEADERS
+						+ "1. entity3 -> 456.0$\n" + "2. entity1 -> 440.0$\n");
+		Assert.assertEquals(reportGenerator.generateRanking(null, BuyOrSell.BUY, 2).toString(),
+				Constants.NO_INSTRUCTIONS_AVAILABLE);
+	}
+	
+	/**
+	 * Given valid instructions when generating rankings by total and count
+	 * then the entities should be ranked by the sum and the number of their
+	 * instructions
+	 */
+	@Test
+	public void givenValidWhenGeneratingTotalAndCountRankingsThenRankedBySumAndNumber() {
+		List<Instruction> instructions = new ArrayList<>();
+		instructions.add(new Instruction("entity1", "B", 1d, "EUR", "18 May 2017", "22 May 2017", 100L, 20d));
+		instructions.add(new Instruction("entity2", "B", 1d, "EUR", "19 May 2017", "24 May 2017", 100L, 15d));
+		instructions.add(new Instruction("entity2", "B", 1d, "EUR", "19 May 2017", "25 May 2017", 100L, 10d));
+		
+		ValidatedData validatedData = Parser.parseInstructions(instructions);
+		
+		Assert.assertEquals(reportGenerator.generateStatisticsRanking(validatedData.getOutgoingEntityStatistics(),
+				BuyOrSell.BUY, RankingMode.TOTAL, 10).toString(), Constants.OUTGOING_RANKING_HEADER
+						+ Constants.RANKING_REPORT_HEADERS + "1. entity2 -> 2500.0$\n" + "2. entity1 -> 2000.0$\n");
+		Assert.assertEquals(reportGenerator.generateStatisticsRanking(validatedData.getOutgoingEntityStatistics(),
+				BuyOrSell.BUY, RankingMode.COUNT, 1).toString(), Constants.OUTGOING_RANKING_HEADER
+						+ Constants.RANKING_REPORT_HEADERS + "1. entity2 -> 2\n");
+		Assert.assertEquals(reportGenerator.generateStatisticsRanking(validatedData.getIncomingEntityStatistics(),
+				BuyOrSell.SELL, RankingMode.TOTAL, 10).toString(), Constants.NO_INSTRUCTIONS_AVAILABLE);
+	}
+	
+	/**
+	 * Given a long date window when writing the reports to a writer then the
+	 * output should be the same as the generated reports
+	 */
+	@Test
+	public void givenLongWindowWhenWritingReportsThenSameAsGenerated() throws IOException {
+		InstructionGenerator generator = new InstructionGenerator(11, 5000, Utils.toEpochDay(2010, 1, 1), 3000);
+		ValidatedData validatedData = Parser.parseInstructions(generator.stream(20000).collect(Collectors.toList()));
+		
+		StringWriter dailyOutput = new StringWriter();
+		reportGenerator.writeEpochDailyReport(validatedData.getInstructionsPerEpochDay(), BuyOrSell.SELL,
+				dailyOutput);
+		StringWriter rankingOutput = new StringWriter();
+		reportGenerator.writeStatisticsRanking(validatedData.getIncomingEntityStatistics(), BuyOrSell.SELL,
+				RankingMode.TOTAL, 5000, rankingOutput);
+		StringWriter missingOutput = new StringWriter();
+		reportGenerator.writeDailyReportFromStore(null, BuyOrSell.BUY, missingOutput);
+		
+		Assert.assertEquals(dailyOutput.toString(), reportGenerator
+				.generateEpochDailyReport(validatedData.getInstructionsPerEpochDay(), BuyOrSell.SELL).toString());
+		Assert.assertEquals(rankingOutput.toString(), reportGenerator.generateStatisticsRanking(
+				validatedData.getIncomingEntityStatistics(), BuyOrSell.SELL, RankingMode.TOTAL, 5000).toString());
+		Assert.assertTrue(dailyOutput.getBuffer().length() > Constants.REPORT_OUTPUT_CHUNK_SIZE);
+		Assert.assertEquals(missingOutput.toString(), Constants.NO_INSTRUCTIONS_AVAILABLE);
+	}
+	
+	/**
+	 * Given valid instructions when generating CSV and JSON lines reports then
+	 * the rows should hold the ISO dates and the plain amounts
+	 */
+	@Test
+	public void givenValidWhenGeneratingCsvAndJsonLinesThenMachineReadableRows() {
+		List<Instruction> instructions = new ArrayList<>();
+		instructions.add(new Instruction("entity1", "B", 1d, "EUR", "18 May 2017", "22 May 2017", 100L, 20d));
+		instructions.add(new Instruction("entity, \"2\"", "B", 1d, "EUR", "19 May 2017", "24 May 2017", 100L, 15d));
+		instructions.add(new Instruction("entity, \"2\"", "B", 1d, "EUR", "19 May 2017", "25 May 2017", 100L, 10d));
+		
+		ValidatedData validatedData = Parser.parseInstructions(instructions);
+		ReportGenerator csvGenerator = new ReportGeneratorImpl(CsvReportRenderer.INSTANCE);
+		ReportGenerator jsonGenerator = new ReportGeneratorImpl(JsonLinesReportRenderer.INSTANCE);
+		
+		Assert.assertEquals(csvGenerator.generateDailyAmountsReport(validatedData.getAmountsPerEpochDay(),
+				BuyOrSell.BUY).toString(), "date,side,amount\n" + "2017-05-22,BUY,2000.0\n" + "2017-05-23,BUY,0.0\n"
+						+ "2017-05-24,BUY,1500.0\n" + "2017-05-25,BUY,1000.0\n");
+		Assert.assertEquals(csvGenerator.generateStatisticsRanking(validatedData.getOutgoingEntityStatistics(),
+				BuyOrSell.BUY, RankingMode.COUNT, 1).toString(), "rank,entity,side,mode,value\n"
+						+ "1,\"entity, \"\"2\"\"\",BUY,COUNT,2\n");
+		Assert.assertEquals(csvGenerator.generateRanking(null, BuyOrSell.BUY).toString(), "");
+		
+		Assert.assertEquals(jsonGenerator.generateEpochDailyReport(validatedData.getInstructionsPerEpochDay(),
+				BuyOrSell.BUY).toString().split("\n")[2],
+				"{\"report\":\"daily\",\"side\":\"BUY\",\"date\":\"2017-05-24\",\"amount\":1500.0}");
+		Assert.assertEquals(jsonGenerator.generateStatisticsRanking(validatedData.getOutgoingEntityStatistics(),
+				BuyOrSell.BUY, RankingMode.TOTAL, 1).toString(), "{\"report\":\"ranking\",\"side\":\"BUY\","
+						+ "\"mode\":\"TOTAL\",\"rank\":1,\"entity\":\"entity, \\\"2\\\"\",\"value\":2500.0}\n");
+		Assert.assertEquals(jsonGenerator.generateRanking(null, BuyOrSell.BUY).toString(),
+				"{\"message\":\"" + Constants.NO_INSTRUCTIONS_AVAILABLE + "\"}\n");
+	}
+	
+	/**
+	 * Given rejected instructions when generating the rejection report then it
+	 * should give the rejections per status, entity and currency and the samples
+	 */
+	@Test
+	public void givenRejectedWhenGeneratingRejectionReportThenGroupsAndSamples() {
+		List<Instruction> instructions = new ArrayList<>();
+		instructions.add(new Instruction(null, "B", 1d, "EUR", "18 May 2017", "20 May 2017", 100L, 20d));
+		instructions.add(new Instruction("entity1", "B", 1d, "EUR", "18 May 2017", "17 May 2017", 100L, 20d));
+		instructions.add(new Instruction("entity1", "S", 1d, "GBP", "18 May 2017", "22 May 2017", 100L, 10d));
+		
+		ValidatedData validatedData = Parser.parseInstructions(instructions);
+		String report = reportGenerator.generateRejectionReport(validatedData.getRejectionSummary()).toString();
+		String csvReport = new ReportGeneratorImpl(CsvReportRenderer.INSTANCE)
+				.generateRejectionReport(validatedData.getRejectionSummary()).toString();
+		
+		Assert.assertEquals(report, Constants.REJECTION_REPORT_HEADER + "\n\nRejected Instructions -> 2\n"
+				+ "\nStatus" + Constants.REJECTION_REPORT_HEADERS + "MISSING_PROPERTY -> 1, 0.0$\n"
+				+ "WRONG_DATE_FORMAT -> 0, 0.0$\n" + "INVALID_SETTLEMENT_DATE -> 1, 2000.0$\n"
+				+ "\nEntity" + Constants.REJECTION_REPORT_HEADERS + "(missing) -> 1, 0.0$\n"
+				+ "entity1 -> 1, 2000.0$\n" + "\nCurrency" + Constants.REJECTION_REPORT_HEADERS
+				+ "EUR -> 2, 2000.0$\n" + Constants.REJECTION_SAMPLES_HEADERS
+				+ "MISSING_PROPERTY -> ,B,1.0,EUR,18 May 2017,20 May 2017,100,20.0\n"
+				+ "INVALID_SETTLEMENT_DATE -> entity1,B,1.0,EUR,18 May 2017,17 May 2017,100,20.0\n");
+		Assert.assertThat(csvReport, CoreMatchers.startsWith("group,key,count,amount,instruction\n"
+				+ "STATUS,MISSING_PROPERTY,1,0.0,\n"));
+		Assert.assertThat(csvReport, CoreMatchers.endsWith(
+				"SAMPLE,INVALID_SETTLEMENT_DATE,,,\"entity1,B,1.0,EUR,18 May 2017,17 May 2017,100,20.0\"\n"));
+		Assert.assertEquals(reportGenerator.generateRejectionReport(null).toString(),
+				Constants.NO_REJECTED_INSTRUCTIONS);
+	}
+	
+	/**
+	 * Given valid instructions when generating the moving totals report then it
+	 * should give the window total of every day and the entities of the last one
+	 */
+	@Test
+	public void givenValidWhenGeneratingRollingReportThenWindowTotals() {
+		List<Instruction> instructions = new ArrayList<>();
+		instructions.add(new Instruction("entity1", "B", 1d, "EUR", "18 May 2017", "20 May 2017", 100L, 20d));
+		instructions.add(new Instruction("entity2", "B", 1d, "GBP", "19 May 2017", "24 May 2017", 100L, 10d));
+		instructions.add(new Instruction("entity3", "B", 1d, "EUR", "19 May 2017", "23 May 2017", 100L, 5d));
+		
+		Parser.parseInstructions(instructions);
+		RollingWindowTotals rollingTotals = new RollingWindowTotals(2);
+		instructions.forEach(rollingTotals);
+		
+		Assert.assertEquals(reportGenerator.generateRollingReport(rollingTotals, BuyOrSell.BUY, 10).toString(),
+				Constants.ROLLING_REPORT_HEADER_PREFIX + "OUTGOING 2" + Constants.ROLLING_REPORT_HEADER_SUFFIX
+						+ Constants.ROLLING_REPORT_HEADERS + "22 May 2017 -> 2000.0$\n" + "23 May 2017 -> 2500.0$\n"
+						+ "24 May 2017 -> 1500.0$\n" + "\nEntities of the 2 days up to 24 May 2017"
+						+ Constants.ROLLING_ENTITIES_HEADERS + "1. entity2 -> 1000.0$\n" + "2. entity3 -> 500.0$\n");
+		Assert.assertThat(new ReportGeneratorImpl(CsvReportRenderer.INSTANCE).generateRollingReport(rollingTotals,
+				BuyOrSell.BUY, 1).toString(), CoreMatchers.endsWith("2017-05-24,BUY,2,,,1500.0\n"
+						+ "2017-05-24,BUY,2,1,entity2,1000.0\n"));
+		Assert.assertEquals(reportGenerator.generateRollingReport(new RollingWindowTotals(5), BuyOrSell.SELL, 10)
+				.toString(), Constants.NO_INSTRUCTIONS_AVAILABLE);
+	}
+	
+	/**
+	 * Given valid instructions when generating the cube report by date and currency then it
+	 * should give the aggregates of every date and currency, in every format
+	 */
+	@Test
+	public void givenValidWhenGeneratingCubeReportThenRollupCells() {
+		List<Instruction> instructions = new ArrayList<>();
+		instructions.add(new Instruction("entity1", "B", 1d, "EUR", "18 May 2017", "22 May 2017", 100L, 20d));
+		instructions.add(new Instruction("entity2", "S", 1d, "GBP", "19 May 2017", "22 May 2017", 100L, 10d));
+		instructions.add(new Instruction("entity3", "B", 1d, "EUR", "19 May 2017", "22 May 2017", 100L, 5d));
+		
+		AggregationCube aggregationCube = Parser.parseInstructions(instructions).getAggregationCube();
+		EnumSet<CubeDimension> dimensions = EnumSet.of(CubeDimension.DATE, CubeDimension.CURRENCY);
+		
+		Assert.assertEquals(reportGenerator.generateCubeReport(aggregationCube, dimensions).toString(),
+				Constants.CUBE_REPORT_HEADER_PREFIX + "DATE, CURRENCY" + Constants.CUBE_REPORT_HEADER_SUFFIX
+						+ "\n\nDate, Currency" + Constants.CUBE_REPORT_HEADERS
+						+ "22 May 2017, EUR -> 2500.0$, 2, 2000.0$\n" + "22 May 2017, GBP -> 1000.0$, 1, 1000.0$\n");
+		Assert.assertThat(new ReportGeneratorImpl(CsvReportRenderer.INSTANCE).generateCubeReport(aggregationCube,
+				EnumSet.of(CubeDimension.SIDE)).toString(), CoreMatchers.endsWith(",BUY,,,2500.0,2,2000.0\n"
+						+ ",SELL,,,1000.0,1,1000.0\n"));
+		Assert.assertEquals(new ReportGeneratorImpl(JsonLinesReportRenderer.INSTANCE).generateCubeReport(
+				aggregationCube, EnumSet.noneOf(CubeDimension.class)).toString(),
+				"{\"report\":\"cube\",\"total\":3500.0,\"count\":3,\"maximum\":2000.0}\n");
+		Assert.assertEquals(reportGenerator.generateCubeReport(new AggregationCube(), dimensions).toString(),
+				Constants.NO_INSTRUCTIONS_AVAILABLE);
+	}
+	
+	/**
+	 * Given the instructions of every day in another order when generating daily
+	 * report then it should be the same as the one of the daily amounts
+	 */
+	@Test
+	public void givenShuffledInstructionsWhenGeneratingDailyReportThenSameAsDailyAmounts() {
+		InstructionGenerator generator = new InstructionGenerator(17, 20, Utils.toEpochDay(2017, 5, 1), 10);
+		ValidatedData validatedData = Parser.parseInstructions(generator.stream(5000).collect(Collectors.toList()));
+		
+		Random random = new Random(3);
+		for (BuyOrSell buyOrSell : BuyOrSell.values()) {
+			String report = reportGenerator.generateDailyReport(validatedData.getInstructionsPerDate(), buyOrSell)
+					.toString();
+			for (List<Instruction> dayInstructions : validatedData.getInstructionsPerDate().values()) {
+				Collections.shuffle(dayInstructions, random);
+			}
+			
+			Assert.assertEquals(
+					reportGenerator.generateDailyReport(validatedData.getInstructionsPerDate(), buyOrSell).toString(),
+					report);
+			Assert.assertEquals(
+					reportGenerator.generateDailyAmountsReport(validatedData.getAmountsPerEpochDay(), buyOrSell)
+							.toString(), report);
+		}
+	}
 }
@@ -0,0 +1,203 @@
+package com.vasileiou.trade.controllers;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.vasileiou.trade.common.Constants;
+import com.vasileiou.trade.common.InstructionGenerator;
+import com.vasileiou.trade.common.InstructionLineCodec;
+import com.vasileiou.trade.common.MappedFileFetcher;
+import com.vasileiou.trade.common.Utils;
+import com.vasileiou.trade.enums.BuyOrSell;
+import com.vasileiou.trade.enums.RankingMode;
+import com.vasileiou.trade.enums.Status;
+import com.vasileiou.trade.models.DailyAmounts;
+import com.vasileiou.trade.models.Instruction;
+import com.vasileiou.trade.models.ShardPartial;
+import com.vasileiou.trade.models.ValidatedData;
+
+/**
+ * Various test cases for the sharded execution of the parsing
+ * 
+ * @author Panagiotis Vasileiou
+ *
+ */
+public class ShardCoordinatorTest {
+	
+	private static final int SHARDS = 3;
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	/**
+	 * Given the partial files of the shards when merging them in any order then
+	 * the data should be the same as parsing all the instructions at once
+	 */
+	@Test
+	public void givenPartialFilesWhenMergingInAnyOrderThenSameAsSingleProcess() throws IOException {
+		List<Instruction> instructions = generateInstructions();
+		ValidatedData expected = Parser.parseInstructions(instructions);
+		
+		List<Path> files = new ArrayList<>();
+		for (int shardIndex = 0; shardIndex < SHARDS; shardIndex++) {
+			Path file = temporaryFolder.newFile().toPath();
+			Assert.assertTrue(ShardWorker.writeTo(new ShardWorker(shardIndex, SHARDS).aggregate(instructions
+					.iterator()), file));
+			files.add(file);
+		}
+		
+		// The partials are consumed by a merge, so they are read again for every order
+		List<ShardPartial> inOrder = new ArrayList<>();
+		List<ShardPartial> reversed = new ArrayList<>();
+		for (int shard = 0; shard < SHARDS; shard++) {
+			inOrder.add(ShardCoordinator.readFrom(files.get(shard)));
+			reversed.add(ShardCoordinator.readFrom(files.get(SHARDS - 1 - shard)));
+		}
+		List<ShardPartial> nested = new ArrayList<>();
+		nested.add(ShardCoordinator.readFrom(files.get(2)));
+		ValidatedData firstTwo = ShardCoordinator.merge(Arrays.asList(
+				ShardCoordinator.readFrom(files.get(1)), ShardCoordinator.readFrom(files.get(0))));
+		nested.add(new ShardPartial(0, SHARDS, firstTwo));
+		
+		assertSameData(ShardCoordinator.merge(inOrder), expected);
+		assertSameData(ShardCoordinator.merge(reversed), expected);
+		assertSameData(ShardCoordinator.merge(nested), expected);
+		Assert.assertNull(ShardCoordinator.readFrom(temporaryFolder.getRoot().toPath().resolve("missing")));
+	}
+	
+	/**
+	 * Given workers sending their partials to a local socket when receiving them
+	 * then the merged reports should be the same as the single process ones
+	 */
+	@Test
+	public void givenWorkersOnSocketWhenReceivingThenSameReports() throws Exception {
+		List<Instruction> instructions = generateInstructions();
+		ReportGeneratorImpl reportGenerator = new ReportGeneratorImpl();
+		
+		List<ShardPartial> partials;
+		try (ServerSocket server = new ServerSocket(0, SHARDS, InetAddress.getLoopbackAddress())) {
+			List<CompletableFuture<Boolean>> workers = new ArrayList<>();
+			for (int shardIndex = SHARDS - 1; shardIndex >= 0; shardIndex--) {
+				ShardWorker worker = new ShardWorker(shardIndex, SHARDS);
+				workers.add(CompletableFuture.supplyAsync(() -> ShardWorker.sendTo(worker.aggregate(instructions
+						.iterator()), server.getLocalPort())));
+			}
+			partials = ShardCoordinator.receive(server, SHARDS);
+			for (CompletableFuture<Boolean> worker : workers) {
+				Assert.assertTrue(worker.get());
+			}
+		}
+		
+		ValidatedData merged = ShardCoordinator.merge(partials);
+		ValidatedData expected = Parser.parseInstructions(instructions);
+		
+		Assert.assertEquals(partials.get(1).getShardIndex(), 1);
+		Assert.assertEquals(reportGenerator.generateStatisticsRanking(merged.getIncomingEntityStatistics(),
+				BuyOrSell.SELL, RankingMode.TOTAL, 100).toString(), reportGenerator.generateStatisticsRanking(
+						expected.getIncomingEntityStatistics(), BuyOrSell.SELL, RankingMode.TOTAL, 100).toString());
+		Assert.assertEquals(merged.getRejectionSummary().getCount(), expected.getRejectionSummary().getCount());
+		
+		StringBuilder reports = new StringBuilder();
+		ShardCoordinator.writeReports(merged, reportGenerator, reports);
+		Assert.assertTrue(reports.indexOf(reportGenerator.generateRanking(expected.getOutgoingEntitiesMax(),
+				BuyOrSell.BUY).toString()) >= 0);
+		Assert.assertTrue(reports.indexOf(reportGenerator.generateRollingReport(expected.getRollingTotalsPerWindow()
+				.get(Constants.ROLLING_WINDOW_DAYS[0]), BuyOrSell.SELL, Constants.ROLLING_TOP_ENTITIES)
+				.toString()) >= 0);
+	}
+	
+	/**
+	 * Given workers filtering the raw lines of an instructions file when merging
+	 * their partials then every line should be decoded by a single shard and the
+	 * data should be the same as parsing the whole file at once
+	 */
+	@Test
+	public void givenFileLinesFilteredByShardWhenMergingThenSameAsSingleProcess() throws IOException {
+		StringBuilder content = new StringBuilder();
+		for (Instruction instruction : generateInstructions()) {
+			InstructionLineCodec.encode(instruction, content);
+		}
+		content.append(" entité ,S,0.5,SGP,01 Jan 2016,04 Jan 2016,200,100.25\r\n");
+		content.append(",B,0.5,SGP,01 Jan 2016,04 Jan 2016,200,100.25\n");
+		Path file = temporaryFolder.newFile().toPath();
+		Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+		List<Instruction> instructions = new MappedFileFetcher(file).getInstructionsFromClients();
+		
+		List<ShardPartial> partials = new ArrayList<>();
+		int decoded = 0;
+		for (int shardIndex = 0; shardIndex < SHARDS; shardIndex++) {
+			ShardWorker worker = new ShardWorker(shardIndex, SHARDS);
+			List<Instruction> shardInstructions = new MappedFileFetcher(file, 2, worker.lineFilter())
+					.getInstructionsFromClients();
+			for (Instruction instruction : shardInstructions) {
+				Assert.assertEquals(ShardWorker.shardOf(instruction.getEntity(), SHARDS), shardIndex);
+			}
+			decoded += shardInstructions.size();
+			partials.add(worker.aggregate(shardInstructions.iterator()));
+		}
+		
+		Assert.assertEquals(decoded, instructions.size());
+		assertSameData(ShardCoordinator.merge(partials), Parser.parseInstructions(instructions));
+	}
+	
+	/**
+	 * Given a worker process exiting with an error when receiving the partials
+	 * then it should fail at once instead of waiting for the accept timeout
+	 */
+	@Test
+	public void givenFailedWorkerProcessWhenReceivingThenFailFast() throws Exception {
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		
+		try (ServerSocket server = new ServerSocket(0, SHARDS, InetAddress.getLoopbackAddress())) {
+			
+			// A worker without arguments prints its usage and exits with an error
+			Process worker = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+					ShardWorker.class.getName()).start();
+			long start = System.nanoTime();
+			
+			Assert.assertNull(ShardCoordinator.receive(server, SHARDS, Arrays.asList(worker)));
+			Assert.assertTrue(System.nanoTime() - start < TimeUnit.MINUTES.toNanos(1));
+			Assert.assertEquals(worker.exitValue(), 1);
+		}
+	}
+	
+	private static List<Instruction> generateInstructions() {
+		InstructionGenerator generator = new InstructionGenerator(17, 300, Utils.toEpochDay(2017, 5, 1), 31);
+		generator.setInvalidRatio(0.05);
+		return generator.stream(30000).collect(Collectors.toList());
+	}
+	
+	private static void assertSameData(ValidatedData actual, ValidatedData expected) {
+		Assert.assertEquals(actual.getAmountsPerEpochDay().keySet(), expected.getAmountsPerEpochDay().keySet());
+		for (Map.Entry<Integer, DailyAmounts> dayEntry : expected.getAmountsPerEpochDay().entrySet()) {
+			DailyAmounts dailyAmounts = actual.getAmountsPerEpochDay().get(dayEntry.getKey());
+			Assert.assertEquals(dailyAmounts.getOutgoingAmount(), dayEntry.getValue().getOutgoingAmount(), 1e-6);
+			Assert.assertEquals(dailyAmounts.getIncomingAmount(), dayEntry.getValue().getIncomingAmount(), 1e-6);
+		}
+		Assert.assertEquals(actual.getOutgoingEntitiesMax(), expected.getOutgoingEntitiesMax());
+		Assert.assertEquals(actual.getIncomingEntityStatistics().toMap(RankingMode.TOTAL),
+				expected.getIncomingEntityStatistics().toMap(RankingMode.TOTAL));
+		for (Status status : Status.values()) {
+			Assert.assertEquals(actual.getRejectionSummary().getCount(status),
+					expected.getRejectionSummary().getCount(status));
+		}
+		Assert.assertEquals(actual.getInstructionsPerEpochDay().size(), 0);
+	}
+}